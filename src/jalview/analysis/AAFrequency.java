@@ -41,6 +41,8 @@ import java.awt.Color;
 import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Takes in a vector or array of sequences and column start and column end and
@@ -55,6 +57,18 @@ public class AAFrequency
 {
   public static final String PROFILE = "P";
 
+  /*
+   * the number of columns counted by each task when computing
+   * consensus in parallel
+   */
+  private static final int COLUMN_CHUNK_SIZE = 256;
+
+  /*
+   * the minimum alignment size (rows * columns) for which
+   * consensus is computed in parallel
+   */
+  private static final long PARALLEL_MIN_CELLS = 1000000L;
+
   /*
    * Quick look-up of String value of char 'A' to 'Z'
    */
@@ -102,7 +116,8 @@ public class AAFrequency
   }
 
   /**
-   * Calculate the consensus symbol(s) for each column in the given range.
+   * Calculate the consensus symbol(s) for each column in the given range. Large
+   * alignments are processed in parallel, in chunks of columns.
    * 
    * @param sequences
    * @param width
@@ -116,12 +131,82 @@ public class AAFrequency
    */
   public static final ProfilesI calculate(final SequenceI[] sequences,
           int width, int start, int end, boolean saveFullProfile)
+  {
+    long cellCount = (long) sequences.length * (end - start);
+    if (end - start >= 2 * COLUMN_CHUNK_SIZE
+            && cellCount >= PARALLEL_MIN_CELLS
+            && ForkJoinPool.getCommonPoolParallelism() > 1)
+    {
+      return calculateParallel(sequences, width, start, end,
+              saveFullProfile);
+    }
+    return calculateSerial(sequences, width, start, end, saveFullProfile);
+  }
+
+  /**
+   * Recalculates the consensus for the given range of columns, and answers
+   * profiles for the full width of the alignment, reusing the previously
+   * calculated profiles for columns outside the range. This may be used to
+   * update the consensus after an edit which changed only the recalculated
+   * columns. Any columns beyond the extent of the previous profiles are also
+   * calculated.
+   *
+   * @param sequences
+   * @param width
+   *          the full width of the alignment
+   * @param previous
+   *          profiles previously calculated for the same sequences
+   * @param start
+   *          start column (inclusive, base zero) to recalculate
+   * @param end
+   *          end column (exclusive) to recalculate
+   * @param saveFullProfile
+   *          if true, store all symbol counts
+   * @return
+   */
+  public static final ProfilesI calculate(final SequenceI[] sequences,
+          int width, ProfilesI previous, int start, int end,
+          boolean saveFullProfile)
+  {
+    int previousEnd = previous.getEndColumn() + 1;
+    if (previousEnd < width)
+    {
+      start = Math.min(start, previousEnd);
+      end = width;
+    }
+    end = Math.min(end, width);
+    ProfilesI edited = calculate(sequences, width, start, end,
+            saveFullProfile);
+
+    ProfileI[] result = new ProfileI[width];
+    for (int column = 0; column < width; column++)
+    {
+      result[column] = column >= start && column < end ? edited.get(column)
+              : previous.get(column);
+    }
+    return new Profiles(result);
+  }
+
+  /**
+   * Calculate the consensus symbol(s) for each column in the given range, on
+   * the current thread
+   * 
+   * @param sequences
+   * @param width
+   * @param start
+   * @param end
+   * @param saveFullProfile
+   * @return
+   */
+  static ProfilesI calculateSerial(final SequenceI[] sequences, int width,
+          int start, int end, boolean saveFullProfile)
   {
     // long now = System.currentTimeMillis();
-    int seqCount = sequences.length;
     boolean nucleotide = false;
     int nucleotideCount = 0;
     int peptideCount = 0;
+    int[] symbolCounts = new int[2];
+    ResidueCount[] buffers = new ResidueCount[2];
 
     ProfileI[] result = new ProfileI[width];
 
@@ -141,54 +226,252 @@ public class AAFrequency
       {
         nucleotide = (9 * peptideCount < nucleotideCount);
       }
-      ResidueCount residueCounts = new ResidueCount(nucleotide);
+      symbolCounts[0] = 0;
+      symbolCounts[1] = 0;
+      result[column] = calculateColumn(sequences, column,
+              getCounter(buffers, nucleotide, saveFullProfile),
+              symbolCounts, saveFullProfile);
+      nucleotideCount += symbolCounts[0];
+      peptideCount += symbolCounts[1];
+    }
+    return new Profiles(result);
+    // long elapsed = System.currentTimeMillis() - now;
+    // System.out.println(elapsed);
+  }
+
+  /**
+   * Calculate the consensus symbol(s) for each column in the given range,
+   * splitting the columns into chunks that are counted on the common fork-join
+   * pool. The result is identical to that of
+   * {@link #calculateSerial(SequenceI[], int, int, int, boolean)}.
+   * 
+   * @param sequences
+   * @param width
+   * @param start
+   * @param end
+   * @param saveFullProfile
+   * @return
+   */
+  static ProfilesI calculateParallel(final SequenceI[] sequences,
+          int width, int start, int end, boolean saveFullProfile)
+  {
+    ColumnCounter counter = new ColumnCounter(sequences, width,
+            saveFullProfile);
+    ForkJoinPool.commonPool()
+            .invoke(counter.new ColumnRangeTask(start, end));
 
-      for (int row = 0; row < seqCount; row++)
+    /*
+     * each chunk guessed nucleotide or peptide from its own columns only;
+     * replay the serial heuristic over the whole range, and recount any
+     * column that was counted with a different guess, so that the profiles
+     * (including the order of tied modal residues) match the serial result
+     */
+    boolean nucleotide = false;
+    int nucleotideCount = 0;
+    int peptideCount = 0;
+    int[] symbolCounts = new int[2];
+    ResidueCount[] buffers = new ResidueCount[2];
+    for (int column = start; column < end; column++)
+    {
+      if (nucleotideCount > 100 && column % 10 == 0)
       {
-        if (sequences[row] == null)
-        {
-          System.err.println(
-                  "WARNING: Consensus skipping null sequence - possible race condition.");
-          continue;
-        }
-        if (sequences[row].getLength() > column)
+        nucleotide = (9 * peptideCount < nucleotideCount);
+      }
+      if (nucleotide != counter.countedAsNucleotide[column])
+      {
+        counter.profiles[column] = calculateColumn(sequences, column,
+                getCounter(buffers, nucleotide, saveFullProfile),
+                symbolCounts, saveFullProfile);
+      }
+      nucleotideCount += counter.nucleotideCounts[column];
+      peptideCount += counter.peptideCounts[column];
+    }
+    return new Profiles(counter.profiles);
+  }
+
+  /**
+   * Answers a ResidueCount to count the next column with. If the full profile
+   * is to be saved, this is a new object, otherwise a cleared, reused buffer.
+   * 
+   * @param buffers
+   *          reusable counters for peptide [0] and nucleotide [1]
+   * @param nucleotide
+   * @param saveFullProfile
+   * @return
+   */
+  static ResidueCount getCounter(ResidueCount[] buffers,
+          boolean nucleotide, boolean saveFullProfile)
+  {
+    if (saveFullProfile)
+    {
+      return new ResidueCount(nucleotide);
+    }
+    int i = nucleotide ? 1 : 0;
+    if (buffers[i] == null)
+    {
+      buffers[i] = new ResidueCount(nucleotide);
+    }
+    else
+    {
+      buffers[i].clear();
+    }
+    return buffers[i];
+  }
+
+  /**
+   * Counts residues in one column and answers its profile. The counts of
+   * nucleotide and (non-gap) other symbols found are added to
+   * <code>symbolCounts[0]</code> and <code>symbolCounts[1]</code>
+   * respectively.
+   * 
+   * @param sequences
+   * @param column
+   * @param residueCounts
+   *          an empty counter
+   * @param symbolCounts
+   * @param saveFullProfile
+   * @return
+   */
+  static ProfileI calculateColumn(final SequenceI[] sequences, int column,
+          ResidueCount residueCounts, int[] symbolCounts,
+          boolean saveFullProfile)
+  {
+    int seqCount = sequences.length;
+    for (int row = 0; row < seqCount; row++)
+    {
+      if (sequences[row] == null)
+      {
+        System.err.println(
+                "WARNING: Consensus skipping null sequence - possible race condition.");
+        continue;
+      }
+      if (sequences[row].getLength() > column)
+      {
+        char c = sequences[row].getCharAt(column);
+        residueCounts.add(c);
+        if (Comparison.isNucleotide(c))
         {
-          char c = sequences[row].getCharAt(column);
-          residueCounts.add(c);
-          if (Comparison.isNucleotide(c))
-          {
-            nucleotideCount++;
-          }
-          else if (!Comparison.isGap(c))
-          {
-            peptideCount++;
-          }
+          symbolCounts[0]++;
         }
-        else
+        else if (!Comparison.isGap(c))
         {
-          /*
-           * count a gap if the sequence doesn't reach this column
-           */
-          residueCounts.addGap();
+          symbolCounts[1]++;
         }
       }
+      else
+      {
+        /*
+         * count a gap if the sequence doesn't reach this column
+         */
+        residueCounts.addGap();
+      }
+    }
 
-      int maxCount = residueCounts.getModalCount();
-      String maxResidue = residueCounts.getResiduesForCount(maxCount);
-      int gapCount = residueCounts.getGapCount();
-      ProfileI profile = new Profile(seqCount, gapCount, maxCount,
-              maxResidue);
+    int maxCount = residueCounts.getModalCount();
+    String maxResidue = residueCounts.getResiduesForCount(maxCount);
+    int gapCount = residueCounts.getGapCount();
+    ProfileI profile = new Profile(seqCount, gapCount, maxCount,
+            maxResidue);
 
-      if (saveFullProfile)
+    if (saveFullProfile)
+    {
+      profile.setCounts(residueCounts);
+    }
+    return profile;
+  }
+
+  /**
+   * Holds the results of a parallel consensus calculation
+   */
+  private static class ColumnCounter
+  {
+    final SequenceI[] sequences;
+
+    final boolean saveFullProfile;
+
+    final ProfileI[] profiles;
+
+    /*
+     * whether each column was counted as nucleotide; each chunk of columns
+     * starts by guessing peptide, as the serial calculation does
+     */
+    final boolean[] countedAsNucleotide;
+
+    final int[] nucleotideCounts;
+
+    final int[] peptideCounts;
+
+    ColumnCounter(SequenceI[] seqs, int width, boolean saveProfile)
+    {
+      sequences = seqs;
+      saveFullProfile = saveProfile;
+      profiles = new ProfileI[width];
+      countedAsNucleotide = new boolean[width];
+      nucleotideCounts = new int[width];
+      peptideCounts = new int[width];
+    }
+
+    /**
+     * A task to count a range of columns, splitting it if it is larger than
+     * COLUMN_CHUNK_SIZE
+     */
+    class ColumnRangeTask extends RecursiveAction
+    {
+      private static final long serialVersionUID = 1L;
+
+      final int fromColumn;
+
+      final int toColumn;
+
+      ColumnRangeTask(int from, int to)
+      {
+        fromColumn = from;
+        toColumn = to;
+      }
+
+      @Override
+      protected void compute()
       {
-        profile.setCounts(residueCounts);
+        if (toColumn - fromColumn <= COLUMN_CHUNK_SIZE)
+        {
+          countColumns();
+          return;
+        }
+        int mid = (fromColumn + toColumn) >>> 1;
+        invokeAll(new ColumnRangeTask(fromColumn, mid),
+                new ColumnRangeTask(mid, toColumn));
       }
 
-      result[column] = profile;
+      /**
+       * Counts this task's columns, reusing one pair of counters if full
+       * profiles are not wanted
+       */
+      void countColumns()
+      {
+        boolean nucleotide = false;
+        int nucleotideCount = 0;
+        int peptideCount = 0;
+        int[] symbolCounts = new int[2];
+        ResidueCount[] buffers = new ResidueCount[2];
+        for (int column = fromColumn; column < toColumn; column++)
+        {
+          if (nucleotideCount > 100 && column % 10 == 0)
+          {
+            nucleotide = (9 * peptideCount < nucleotideCount);
+          }
+          symbolCounts[0] = 0;
+          symbolCounts[1] = 0;
+          profiles[column] = calculateColumn(sequences, column,
+                  getCounter(buffers, nucleotide, saveFullProfile),
+                  symbolCounts, saveFullProfile);
+          countedAsNucleotide[column] = nucleotide;
+          nucleotideCounts[column] = symbolCounts[0];
+          peptideCounts[column] = symbolCounts[1];
+          nucleotideCount += symbolCounts[0];
+          peptideCount += symbolCounts[1];
+        }
+      }
     }
-    return new Profiles(result);
-    // long elapsed = System.currentTimeMillis() - now;
-    // System.out.println(elapsed);
   }
 
   /**
@@ -20,10 +20,8 @@
  */
 package jalview.analysis;
 
-import jalview.analysis.scoremodels.PIDModel;
 import jalview.analysis.scoremodels.ScoreMatrix;
 import jalview.analysis.scoremodels.ScoreModels;
-import jalview.analysis.scoremodels.SimilarityParams;
 import jalview.datamodel.AlignmentAnnotation;
 import jalview.datamodel.AlignmentI;
 import jalview.datamodel.Mapping;
@@ -52,9 +50,9 @@ public class AlignSeq
 {
   private static final int MAX_NAME_LENGTH = 30;
 
-  private static final int GAP_OPEN_COST = 120;
+  public static final int GAP_OPEN_COST = 120;
 
-  private static final int GAP_EXTEND_COST = 20;
+  public static final int GAP_EXTEND_COST = 20;
 
   private static final int GAP_INDEX = -1;
 
@@ -1048,78 +1046,13 @@ public class AlignSeq
    *          - if true then use ungapped sequence to compute PID
    * @return vector containing maximum PID for i-th sequence and any sequences
    *         longer than that seuqence
+   * @see RedundancyEngine
    */
   public static float[] computeRedundancyMatrix(
           SequenceI[] originalSequences, String[] omitHidden, int start,
           int end, boolean ungapped)
   {
-    int height = originalSequences.length;
-    float[] redundancy = new float[height];
-    int[] lngth = new int[height];
-    for (int i = 0; i < height; i++)
-    {
-      redundancy[i] = 0f;
-      lngth[i] = -1;
-    }
-
-    // long start = System.currentTimeMillis();
-
-    SimilarityParams pidParams = new SimilarityParams(true, true, true,
-            true);
-    float pid;
-    String seqi, seqj;
-    for (int i = 0; i < height; i++)
-    {
-
-      for (int j = 0; j < i; j++)
-      {
-        if (i == j)
-        {
-          continue;
-        }
-
-        if (omitHidden == null)
-        {
-          seqi = originalSequences[i].getSequenceAsString(start, end);
-          seqj = originalSequences[j].getSequenceAsString(start, end);
-        }
-        else
-        {
-          seqi = omitHidden[i];
-          seqj = omitHidden[j];
-        }
-        if (lngth[i] == -1)
-        {
-          String ug = AlignSeq.extractGaps(Comparison.GapChars, seqi);
-          lngth[i] = ug.length();
-          if (ungapped)
-          {
-            seqi = ug;
-          }
-        }
-        if (lngth[j] == -1)
-        {
-          String ug = AlignSeq.extractGaps(Comparison.GapChars, seqj);
-          lngth[j] = ug.length();
-          if (ungapped)
-          {
-            seqj = ug;
-          }
-        }
-        pid = (float) PIDModel.computePID(seqi, seqj, pidParams);
-
-        // use real sequence length rather than string length
-        if (lngth[j] < lngth[i])
-        {
-          redundancy[j] = Math.max(pid, redundancy[j]);
-        }
-        else
-        {
-          redundancy[i] = Math.max(pid, redundancy[i]);
-        }
-
-      }
-    }
-    return redundancy;
+    return new RedundancyEngine(originalSequences, omitHidden, start, end,
+            ungapped).computeRedundancy();
   }
 }
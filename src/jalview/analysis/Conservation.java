@@ -32,6 +32,7 @@ import jalview.schemes.ResidueProperties;
 import jalview.util.Comparison;
 
 import java.awt.Color;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -85,6 +86,11 @@ public class Conservation
 
   private Vector<Double> quality;
 
+  /*
+   * quality score for each column before normalisation
+   */
+  private double[] rawQuality;
+
   private double qualityMinimum;
 
   private double qualityMaximum;
@@ -253,6 +259,20 @@ public class Conservation
    * Calculates the conservation values for given set of sequences
    */
   public void calculate()
+  {
+    calculate(null, 0, -1);
+  }
+
+  /**
+   * Calculates the conservation values for given set of sequences, reusing
+   * those of a previous calculation (if not null) for columns outside the range
+   * fromCol-toCol
+   * 
+   * @param previous
+   * @param fromCol
+   * @param toCol
+   */
+  private void calculate(Conservation previous, int fromCol, int toCol)
   {
     int height = sequences.length;
 
@@ -260,6 +280,11 @@ public class Conservation
 
     for (int column = start; column <= end; column++)
     {
+      if (isReusable(previous, column, fromCol, toCol))
+      {
+        total[column - start] = previous.total[column - previous.start];
+        continue;
+      }
       ResidueCount values = countResidues(column);
 
       /*
@@ -466,6 +491,22 @@ public class Conservation
    *          conservation is asserted
    */
   public void verdict(boolean positiveOnly, float maxPercentageGaps)
+  {
+    verdict(positiveOnly, maxPercentageGaps, null, 0, -1);
+  }
+
+  /**
+   * Calculates the conservation sequence, reusing that of a previous
+   * calculation (if not null) for columns outside the range fromCol-toCol
+   * 
+   * @param positiveOnly
+   * @param maxPercentageGaps
+   * @param previous
+   * @param fromCol
+   * @param toCol
+   */
+  private void verdict(boolean positiveOnly, float maxPercentageGaps,
+          Conservation previous, int fromCol, int toCol)
   {
     // TODO call this at the end of calculate(), should not be a public method
 
@@ -481,6 +522,12 @@ public class Conservation
     consSymbs = new String[end - start + 1];
     for (int i = start; i <= end; i++)
     {
+      if (isReusable(previous, i, fromCol, toCol))
+      {
+        consString.append(previous.consSequence.getCharAt(i));
+        consSymbs[i - start] = previous.consSymbs[i - previous.start];
+        continue;
+      }
       int[] gapcons = countConservationAndGaps(i);
       boolean fullyConserved = gapcons[0] == 1;
       int totGaps = gapcons[1];
@@ -622,11 +669,6 @@ public class Conservation
   protected void findQuality(int startCol, int endCol,
           ScoreMatrix scoreMatrix)
   {
-    quality = new Vector<>();
-
-    double max = -Double.MAX_VALUE;
-    float[][] scores = scoreMatrix.getMatrix();
-
     percentIdentity(scoreMatrix);
 
     int size = seqNums.size();
@@ -637,77 +679,181 @@ public class Conservation
       lengths[l] = seqNums.elementAt(l).length - 1;
     }
 
-    final int symbolCount = scoreMatrix.getSize();
+    rawQuality = new double[endCol + 1];
+    int[] columnSymbols = new int[size];
 
     for (int j = startCol; j <= endCol; j++)
     {
-      double bigtot = 0;
-
-      // First Xr = depends on column only
-      double[] x = new double[symbolCount];
-
-      for (int ii = 0; ii < symbolCount; ii++)
+      for (int k = 0; k < size; k++)
       {
-        x[ii] = 0;
+        // sequence character index, or implied gap if sequence too short
+        columnSymbols[k] = (j < lengths[k]) ? seqNums.elementAt(k)[j + 1]
+                : GAP_INDEX;
+      }
+      rawQuality[j] = getColumnQuality(cons2[j], cons2GapCounts[j],
+              columnSymbols, scoreMatrix);
+    }
 
-        /*
-         * todo JAL-728 currently assuming last symbol in matrix is * for gap
-         * (which we ignore as counted separately); true for BLOSUM62 but may
-         * not be once alternative matrices are supported
-         */
-        for (int i2 = 0; i2 < symbolCount - 1; i2++)
-        {
-          x[ii] += (((double) cons2[j][i2] * scores[ii][i2]) + 4D);
-        }
-        x[ii] += 4D + cons2GapCounts[j] * scoreMatrix.getMinimumScore();
+    normaliseQuality(startCol, endCol, size);
+  }
 
-        x[ii] /= size;
-      }
+  /**
+   * Calculates the quality of the set of sequences over all columns, reusing
+   * the unnormalised column scores of a previous calculation for columns
+   * outside the range fromCol-toCol. Unlike findQuality(), this does not
+   * encode every sequence, but only reads the recalculated columns.
+   * 
+   * @param previous
+   * @param fromCol
+   * @param toCol
+   * @param scoreMatrix
+   */
+  private void updateQuality(Conservation previous, int fromCol, int toCol,
+          ScoreMatrix scoreMatrix)
+  {
+    int size = sequences.length;
+    rawQuality = new double[maxLength];
+    cons2GapCounts = new int[maxLength];
+    int[] counts = new int[scoreMatrix.getSize()];
+    int[] columnSymbols = new int[size];
 
-      // Now calculate D for each position and sum
+    for (int j = 0; j < maxLength; j++)
+    {
+      if ((j < fromCol || j > toCol) && j < previous.rawQuality.length)
+      {
+        rawQuality[j] = previous.rawQuality[j];
+        cons2GapCounts[j] = previous.cons2GapCounts[j];
+        continue;
+      }
+      Arrays.fill(counts, 0);
+      int gapCount = 0;
       for (int k = 0; k < size; k++)
       {
-        double tot = 0;
-        double[] xx = new double[symbolCount];
-        // sequence character index, or implied gap if sequence too short
-        int seqNum = (j < lengths[k]) ? seqNums.elementAt(k)[j + 1]
-                : GAP_INDEX;
-
-        for (int i = 0; i < symbolCount - 1; i++)
+        int index = GAP_INDEX;
+        if (j < sequences[k].getLength())
         {
-          double sr = 4D;
-          if (seqNum == GAP_INDEX)
+          char residue = sequences[k].getCharAt(j);
+          if (!Comparison.isGap(residue))
           {
-            sr += scoreMatrix.getMinimumScore();
-          }
-          else
-          {
-            sr += scores[i][seqNum];
+            index = scoreMatrix.getMatrixIndex(residue);
           }
+        }
+        if (index == GAP_INDEX)
+        {
+          gapCount++;
+        }
+        else
+        {
+          counts[index]++;
+        }
+        columnSymbols[k] = index;
+      }
+      cons2GapCounts[j] = gapCount;
+      rawQuality[j] = getColumnQuality(counts, gapCount, columnSymbols,
+              scoreMatrix);
+    }
 
-          xx[i] = x[i] - sr;
+    normaliseQuality(0, maxLength - 1, size);
+  }
 
-          tot += (xx[i] * xx[i]);
+  /**
+   * Answers the unnormalised quality score for one column, given the count of
+   * each symbol (by score matrix index) and of gaps in the column, and the
+   * symbol index (or GAP_INDEX) of each sequence in the column
+   * 
+   * @param counts
+   * @param gapCount
+   * @param columnSymbols
+   * @param scoreMatrix
+   * @return
+   */
+  private static double getColumnQuality(int[] counts, int gapCount,
+          int[] columnSymbols, ScoreMatrix scoreMatrix)
+  {
+    float[][] scores = scoreMatrix.getMatrix();
+    final int symbolCount = scoreMatrix.getSize();
+    int size = columnSymbols.length;
+    double bigtot = 0;
+
+    // First Xr = depends on column only
+    double[] x = new double[symbolCount];
+
+    for (int ii = 0; ii < symbolCount; ii++)
+    {
+      x[ii] = 0;
+
+      /*
+       * todo JAL-728 currently assuming last symbol in matrix is * for gap
+       * (which we ignore as counted separately); true for BLOSUM62 but may
+       * not be once alternative matrices are supported
+       */
+      for (int i2 = 0; i2 < symbolCount - 1; i2++)
+      {
+        x[ii] += (((double) counts[i2] * scores[ii][i2]) + 4D);
+      }
+      x[ii] += 4D + gapCount * scoreMatrix.getMinimumScore();
+
+      x[ii] /= size;
+    }
+
+    // Now calculate D for each position and sum
+    for (int k = 0; k < size; k++)
+    {
+      double tot = 0;
+      double[] xx = new double[symbolCount];
+      int seqNum = columnSymbols[k];
+
+      for (int i = 0; i < symbolCount - 1; i++)
+      {
+        double sr = 4D;
+        if (seqNum == GAP_INDEX)
+        {
+          sr += scoreMatrix.getMinimumScore();
         }
+        else
+        {
+          sr += scores[i][seqNum];
+        }
+
+        xx[i] = x[i] - sr;
 
-        bigtot += Math.sqrt(tot);
+        tot += (xx[i] * xx[i]);
       }
 
-      max = Math.max(max, bigtot);
+      bigtot += Math.sqrt(tot);
+    }
+    return bigtot;
+  }
 
-      quality.addElement(Double.valueOf(bigtot));
+  /**
+   * Sets the quality scores for the given column range, as the unnormalised
+   * scores subtracted from their maximum, and scaled by the proportion of
+   * ungapped residues in the column
+   * 
+   * @param startCol
+   * @param endCol
+   * @param size
+   *          the number of sequences
+   */
+  private void normaliseQuality(int startCol, int endCol, int size)
+  {
+    double max = -Double.MAX_VALUE;
+    for (int j = startCol; j <= endCol; j++)
+    {
+      max = Math.max(max, rawQuality[j]);
     }
 
+    quality = new Vector<>();
     double newmax = -Double.MAX_VALUE;
 
     for (int j = startCol; j <= endCol; j++)
     {
-      double tmp = quality.elementAt(j).doubleValue();
+      double tmp = rawQuality[j];
       // tmp = ((max - tmp) * (size - cons2[j][23])) / size;
       tmp = ((max - tmp) * (size - cons2GapCounts[j])) / size;
 
       // System.out.println(tmp+ " " + j);
-      quality.setElementAt(Double.valueOf(tmp), j);
+      quality.addElement(Double.valueOf(tmp));
 
       if (tmp > newmax)
       {
@@ -850,6 +996,69 @@ public class Conservation
     return cons;
   }
 
+  /**
+   * Constructs a new Conservation for the given sequences, reusing the results
+   * of a previous calculation for all columns outside the range fromCol-toCol
+   * (inclusive), which are recalculated. This may be used after an edit which
+   * is known to have changed only those columns. The previous calculation must
+   * have been made for the same sequences, with the same parameters.
+   * 
+   * @param previous
+   *          a previous calculation for the same sequences
+   * @param seqs
+   * @param end
+   *          last column in calculation window
+   * @param fromCol
+   *          first column to recalculate
+   * @param toCol
+   *          last column to recalculate
+   * @param positiveOnly
+   * @param maxPercentGaps
+   * @param calcQuality
+   * @return
+   */
+  public static Conservation recalculateConservation(
+          Conservation previous, List<SequenceI> seqs, int end,
+          int fromCol, int toCol, boolean positiveOnly, int maxPercentGaps,
+          boolean calcQuality)
+  {
+    if (calcQuality && previous.rawQuality == null)
+    {
+      return calculateConservation(previous.name, seqs, previous.start,
+              end, positiveOnly, maxPercentGaps, calcQuality);
+    }
+    Conservation cons = new Conservation(previous.name, previous.threshold,
+            seqs, previous.start, end);
+    cons.calculate(previous, fromCol, toCol);
+    cons.verdict(positiveOnly, maxPercentGaps, previous, fromCol, toCol);
+
+    if (calcQuality)
+    {
+      cons.updateQuality(previous, fromCol, toCol,
+              ScoreModels.getInstance().getBlosum62());
+    }
+
+    return cons;
+  }
+
+  /**
+   * Answers true if results for the given column may be copied from a previous
+   * calculation, that is, it is outside the recalculated range fromCol-toCol,
+   * and was included in the previous calculation
+   * 
+   * @param previous
+   * @param column
+   * @param fromCol
+   * @param toCol
+   * @return
+   */
+  private static boolean isReusable(Conservation previous, int column,
+          int fromCol, int toCol)
+  {
+    return previous != null && (column < fromCol || column > toCol)
+            && column >= previous.start && column <= previous.end;
+  }
+
   /**
    * Returns the computed tooltip (annotation description) for a given column.
    * The tip is empty if the conservation score is zero, otherwise holds the
@@ -83,6 +83,20 @@ public class Finder implements FinderI
 
   private String seqToSearch;
 
+  /*
+   * the search string, if it is to be matched literally (using the search
+   * index) rather than as a regular expression, else null
+   */
+  private String literal;
+
+  /*
+   * when searching for a literal, flags for sequences (by index in the
+   * alignment) which contain it
+   */
+  private boolean[] candidates;
+
+  private boolean matchCase;
+
   /**
    * Constructor for searching a viewport
    * 
@@ -151,6 +165,7 @@ public class Finder implements FinderI
             : theSearchString.toUpperCase();
     Regex searchPattern = new Regex(searchString);
     searchPattern.setIgnoreCase(!matchCase);
+    this.matchCase = matchCase;
 
     SequenceGroup selection = viewport.getSelectionGroup();
     if (selection != null && selection.getSize() < 1)
@@ -161,6 +176,21 @@ public class Finder implements FinderI
     AlignmentI alignment = viewport.getAlignment();
     int end = alignment.getHeight();
 
+    /*
+     * a search for letters only can use the alignment's search index to
+     * skip sequences that don't contain them; this doesn't apply when
+     * ignoring hidden columns, as a match may then span a hidden region
+     */
+    literal = null;
+    candidates = null;
+    if (SequenceSearchIndex.isLiteral(searchString)
+            && !(ignoreHidden && viewport.hasHiddenColumns()))
+    {
+      literal = searchString;
+      candidates = SequenceSearchIndex.getIndex(alignment)
+              .findCandidates(alignment.getSequencesArray(), searchString);
+    }
+
     getSequence(ignoreHidden);
 
     boolean found = false;
@@ -215,6 +245,28 @@ public class Finder implements FinderI
       seq = alignment.getSequenceAt(sequenceIndex);
     }
 
+    if (literal != null)
+    {
+      if (sequenceIndex >= candidates.length || !candidates[sequenceIndex])
+      {
+        /*
+         * no match in residues, but still search sequence name/description
+         */
+        this.seqToSearch = "";
+        return true;
+      }
+      if (!matchCase && selection == null && !ignoreHidden)
+      {
+        /*
+         * reuse the indexed (upper-cased, ungapped) sequence
+         */
+        this.searchedSequenceStartPosition = seq.getStart();
+        this.seqToSearch = SequenceSearchIndex.getIndex(alignment)
+                .getResidues(seq);
+        return true;
+      }
+    }
+
     String seqString = null;
     if (ignoreHidden)
     {
@@ -240,6 +292,10 @@ public class Finder implements FinderI
      * the sequence anyway (for possible match on name or description)
      */
     String ungapped = AlignSeq.extractGaps(Comparison.GapChars, seqString);
+    if (literal != null && !matchCase)
+    {
+      ungapped = ungapped.toUpperCase();
+    }
     this.seqToSearch = ungapped;
 
     return true;
@@ -369,6 +425,22 @@ public class Finder implements FinderI
     int end = seqToSearch.length();
     while (residueIndex < end)
     {
+      if (literal != null)
+      {
+        int matchedFrom = seqToSearch.indexOf(literal, residueIndex);
+        if (matchedFrom > -1)
+        {
+          if (recordMatch(matchedFrom, literal.length(), ignoreHidden))
+          {
+            return true;
+          }
+        }
+        else
+        {
+          residueIndex = Integer.MAX_VALUE;
+        }
+        continue;
+      }
       boolean matched = searchPattern.searchFrom(seqToSearch, residueIndex);
       if (matched)
       {
@@ -402,22 +474,39 @@ public class Finder implements FinderI
    * @return
    */
   protected boolean recordMatch(Regex searchPattern, boolean ignoreHidden)
+  {
+    return recordMatch(searchPattern.matchedFrom(),
+            searchPattern.charsMatched(), ignoreHidden);
+  }
+
+  /**
+   * Adds the match of {@code length} characters at {@code offset} in the
+   * searched sequence string to the <code>searchResults</code>, unless it is a
+   * subregion of the last match recorded. <code>residueIndex</code> is advanced
+   * to the position after the start of the matched region, ready for the next
+   * search. Answers true if a match was added, else false.
+   * 
+   * @param offset
+   * @param length
+   * @param ignoreHidden
+   * @return
+   */
+  protected boolean recordMatch(int offset, int length,
+          boolean ignoreHidden)
   {
     SequenceI seq = viewport.getAlignment().getSequenceAt(sequenceIndex);
 
     /*
      * convert start/end of the match to sequence coordinates
      */
-    int offset = searchPattern.matchedFrom();
     int matchStartPosition = this.searchedSequenceStartPosition + offset;
-    int matchEndPosition = matchStartPosition
-            + searchPattern.charsMatched() - 1;
+    int matchEndPosition = matchStartPosition + length - 1;
 
     /*
      * update residueIndex to next position after the start of the match
      * (findIndex returns a value base 1, columnIndex is held base 0)
      */
-    residueIndex = searchPattern.matchedFrom()+1;
+    residueIndex = offset + 1;
 
     /*
      * return false if the match is entirely in a hidden region
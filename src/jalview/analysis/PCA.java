@@ -25,6 +25,7 @@ import jalview.api.analysis.SimilarityParamsI;
 import jalview.bin.Cache;
 import jalview.datamodel.AlignmentView;
 import jalview.datamodel.Point;
+import jalview.math.FlatMatrix;
 import jalview.math.MatrixI;
 
 import java.io.PrintStream;
@@ -52,6 +53,12 @@ public class PCA implements Runnable
 
   private MatrixI eigenMatrix;
 
+  /*
+   * if greater than zero, the number of (largest) components to compute,
+   * else all components are computed
+   */
+  private int componentCount;
+
   /**
    * Constructor given the sequences to compute for, the similarity model to
    * use, and a set of parameters for sequence comparison
@@ -174,13 +181,16 @@ public class PCA implements Runnable
     /*
      * tridiagonal matrix, with D and E vectors
      */
-    sb.append(" ---Tridiag transform matrix ---\n");
-    sb.append(" --- D vector ---\n");
-    tridiagonal.printD(ps, "%15.4e");
-    ps.println();
-    sb.append("--- E vector ---\n");
-    tridiagonal.printE(ps, "%15.4e");
-    ps.println();
+    if (tridiagonal != null)
+    {
+      sb.append(" ---Tridiag transform matrix ---\n");
+      sb.append(" --- D vector ---\n");
+      tridiagonal.printD(ps, "%15.4e");
+      ps.println();
+      sb.append("--- E vector ---\n");
+      tridiagonal.printE(ps, "%15.4e");
+      ps.println();
+    }
     
     /*
      * eigenvalues matrix, with D vector
@@ -207,17 +217,30 @@ public class PCA implements Runnable
        */
       pairwiseScores = scoreModel.findSimilarities(seqs, similarityParams);
 
-      /*
-       * tridiagonal matrix
-       */
-      tridiagonal = pairwiseScores.copy();
-      tridiagonal.tred();
-
-      /*
-       * the diagonalization matrix
-       */
-      eigenMatrix = tridiagonal.copy();
-      eigenMatrix.tqli();
+      if (componentCount > 0 && componentCount < pairwiseScores.height())
+      {
+        /*
+         * just the largest eigenvalues and their eigenvectors
+         */
+        tridiagonal = null;
+        FlatMatrix topComponents = new FlatMatrix(pairwiseScores);
+        topComponents.findTopEigenvectors(componentCount);
+        eigenMatrix = topComponents;
+      }
+      else
+      {
+        /*
+         * tridiagonal matrix
+         */
+        tridiagonal = new FlatMatrix(pairwiseScores);
+        tridiagonal.tred();
+
+        /*
+         * the diagonalization matrix
+         */
+        eigenMatrix = tridiagonal.copy();
+        eigenMatrix.tqli();
+      }
     } catch (Exception q)
     {
       Cache.log.error("Error computing PCA:  " + q.getMessage());
@@ -225,6 +248,22 @@ public class PCA implements Runnable
     }
   }
 
+  /**
+   * Sets the number of principal components to compute. If greater than zero
+   * (and less than the number of sequences), only the eigenvectors for this
+   * many of the largest eigenvalues are computed, in ascending order of
+   * eigenvalue, so that the largest is the last (<code>getHeight() - 1</code>).
+   * Otherwise (the default), the full set of eigenvectors is computed, in the
+   * order found by the diagonalisation. Note that with this option no
+   * tridiagonal matrix is computed.
+   * 
+   * @param count
+   */
+  public void setComponentCount(int count)
+  {
+    componentCount = count;
+  }
+
   /**
    * Returns a PrintStream that wraps (appends its output to) the given
    * StringBuilder
@@ -0,0 +1,368 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.analysis;
+
+import jalview.api.analysis.ScoreModelI;
+import jalview.api.analysis.SimilarityParamsI;
+import jalview.viewmodel.AlignmentViewport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Neighbour Joining tree builder which finds the pair of clusters to join
+ * without scanning every pair, in the manner of RapidNJ (Simonsen, Mailund and
+ * Pedersen, 2008). Each cluster keeps its distances to the clusters that
+ * existed when it was formed, sorted in ascending order, so that a row may be
+ * abandoned as soon as its remaining entries cannot beat the best join found.
+ * <p>
+ * The tree produced is the same as that of {@link NJTree}; where candidate
+ * joins are tied to within rounding error, they are compared using exactly
+ * the same calculation as NJTree.
+ */
+public class RapidNJTree extends NJTree
+{
+  /*
+   * relative error allowed for in row sums maintained incrementally
+   */
+  private static final double TOLERANCE = 1E-9;
+
+  /*
+   * relative error allowed for in sort keys held as float
+   */
+  private static final double KEY_TOLERANCE = 1E-6;
+
+  /*
+   * for each cluster, entries for clusters formed before it, in ascending
+   * order of distance; each entry holds the distance (as float bits in the
+   * upper 32 bits, converted so as to sort as integers) and the cluster index
+   */
+  private long[][] sortedRows;
+
+  /*
+   * for each sorted row, the index of the first entry which may be valid
+   */
+  private int[] rowStarts;
+
+  /*
+   * the order in which clusters were formed; a row entry for column j is 
+   * only valid while cluster j is older than the row's cluster
+   */
+  private int[] formed;
+
+  private int nextFormed;
+
+  /*
+   * for each cluster, the sum of distances to all other remaining clusters
+   */
+  private double[] rowSums;
+
+  /*
+   * the largest magnitude of any distance value
+   */
+  private double maxDistance;
+
+  /**
+   * Constructor given a viewport, tree type and score model
+   * 
+   * @param av
+   *          the current alignment viewport
+   * @param sm
+   *          a distance or similarity score model to use to compute the tree
+   * @param scoreParameters
+   */
+  public RapidNJTree(AlignmentViewport av, ScoreModelI sm,
+          SimilarityParamsI scoreParameters)
+  {
+    super(av, sm, scoreParameters);
+  }
+
+  /**
+   * Finds the pair of clusters whose joining minimises the neighbour joining
+   * criterion, sets their indices in fields mini and minj, and returns the
+   * criterion value
+   * 
+   * @return
+   */
+  @Override
+  protected double findMinDistance()
+  {
+    if (sortedRows == null)
+    {
+      initialise();
+    }
+
+    double divisor = noClus - 2;
+    double scale = 1d + 2d / divisor;
+    double maxU = -Double.MAX_VALUE;
+    double maxAbsU = 0d;
+    double[] u = new double[noseqs];
+    for (int i = done.nextClearBit(0); i < noseqs; i = done
+            .nextClearBit(i + 1))
+    {
+      u[i] = (1d + rowSums[i]) / divisor;
+      maxU = Math.max(maxU, u[i]);
+      maxAbsU = Math.max(maxAbsU, Math.abs(u[i]));
+    }
+    double tolerance = TOLERANCE * (maxAbsU + scale * maxDistance);
+    double keyMargin = KEY_TOLERANCE * maxDistance;
+
+    /*
+     * the criterion for (i, j) is d(i, j) - (r(i, j) + r(j, i)), 
+     * where r(i, j) = (1 + rowSums[i] - d(i, j)) / (noClus - 2),
+     * so scale * d(i, j) - u[i] - u[j]; scan each row in ascending order 
+     * of distance until no later entry can be within tolerance of the best
+     */
+    double best = Double.MAX_VALUE;
+    for (int i = done.nextClearBit(0); i < noseqs; i = done
+            .nextClearBit(i + 1))
+    {
+      int k = skipInvalid(i);
+      if (k < sortedRows[i].length)
+      {
+        best = Math.min(best,
+                getCriterion(i, (int) sortedRows[i][k], divisor));
+      }
+    }
+
+    List<double[]> candidates = new ArrayList<>();
+    for (int i = done.nextClearBit(0); i < noseqs; i = done
+            .nextClearBit(i + 1))
+    {
+      long[] row = sortedRows[i];
+      double rowBound = u[i] + maxU;
+      for (int k = rowStarts[i]; k < row.length; k++)
+      {
+        long entry = row[k];
+        double key = toDistance(entry);
+        if (scale * (key - keyMargin) - rowBound > best + tolerance)
+        {
+          break;
+        }
+        int j = (int) entry;
+        if (!isValid(i, j))
+        {
+          continue;
+        }
+        double value = getCriterion(i, j, divisor);
+        if (value <= best + tolerance)
+        {
+          candidates.add(new double[] { value, Math.min(i, j),
+              Math.max(i, j) });
+          best = Math.min(best, value);
+        }
+      }
+    }
+
+    /*
+     * resolve near ties exactly as NJTree does, that is, taking the 
+     * first pair (in order of i, j) with the lowest value
+     */
+    candidates.sort((c1, c2) -> c1[1] != c2[1] ? Double.compare(c1[1], c2[1])
+            : Double.compare(c1[2], c2[2]));
+    double min = Double.MAX_VALUE;
+    for (double[] candidate : candidates)
+    {
+      if (candidate[0] > best + tolerance)
+      {
+        continue;
+      }
+      int i = (int) candidate[1];
+      int j = (int) candidate[2];
+      double tmp = distances.getValue(i, j) - (findr(i, j) + findr(j, i));
+      if (tmp < min)
+      {
+        mini = i;
+        minj = j;
+        min = tmp;
+      }
+    }
+
+    return min;
+  }
+
+  /**
+   * Answers the neighbour joining criterion for clusters i and j, computed
+   * from row sums, so equal to within rounding error to that computed by
+   * NJTree
+   * 
+   * @param i
+   * @param j
+   * @param divisor
+   * @return
+   */
+  private double getCriterion(int i, int j, double divisor)
+  {
+    double d = distances.getValue(Math.min(i, j), Math.max(i, j));
+    return d - ((1d + rowSums[i] - d) / divisor
+            + (1d + rowSums[j] - d) / divisor);
+  }
+
+  /**
+   * Answers true if the entry for column j in the sorted row for cluster i is
+   * current, that is, cluster j is still to be joined, and was formed before
+   * cluster i
+   * 
+   * @param i
+   * @param j
+   * @return
+   */
+  private boolean isValid(int i, int j)
+  {
+    return !done.get(j) && formed[j] < formed[i];
+  }
+
+  /**
+   * Skips over any entries at the start of the sorted row for cluster i which
+   * are no longer valid, and answers the index of the first valid entry (or
+   * the row length if there is none)
+   * 
+   * @param i
+   * @return
+   */
+  private int skipInvalid(int i)
+  {
+    long[] row = sortedRows[i];
+    int k = rowStarts[i];
+    while (k < row.length && !isValid(i, (int) row[k]))
+    {
+      k++;
+    }
+    rowStarts[i] = k;
+    return k;
+  }
+
+  /**
+   * Updates row sums and sorted rows for the joining of cluster j to cluster
+   * i, before and after calculating the new distances to cluster i
+   */
+  @Override
+  protected void findClusterDistance(int i, int j)
+  {
+    if (sortedRows == null)
+    {
+      super.findClusterDistance(i, j);
+      return;
+    }
+
+    for (int l = done.nextClearBit(0); l < noseqs; l = done
+            .nextClearBit(l + 1))
+    {
+      if (l != i && l != j)
+      {
+        rowSums[l] -= distances.getValue(l, i) + distances.getValue(l, j);
+      }
+    }
+
+    super.findClusterDistance(i, j);
+
+    /*
+     * the joined cluster is the newest, with a row for all others
+     */
+    double sum = 0d;
+    int count = 0;
+    long[] row = new long[noClus - 2];
+    for (int l = done.nextClearBit(0); l < noseqs; l = done
+            .nextClearBit(l + 1))
+    {
+      if (l != i && l != j)
+      {
+        double d = distances.getValue(i, l);
+        rowSums[l] += distances.getValue(l, i);
+        sum += d;
+        maxDistance = Math.max(maxDistance, Math.abs(d));
+        row[count++] = toEntry(d, l);
+      }
+    }
+    Arrays.sort(row);
+    rowSums[i] = sum;
+    sortedRows[i] = row;
+    rowStarts[i] = 0;
+    sortedRows[j] = null;
+    formed[i] = nextFormed++;
+  }
+
+  /**
+   * Sets up row sums and the sorted rows for the initial clusters (one per
+   * sequence)
+   */
+  protected void initialise()
+  {
+    sortedRows = new long[noseqs][];
+    rowStarts = new int[noseqs];
+    formed = new int[noseqs];
+    rowSums = new double[noseqs];
+    maxDistance = 0d;
+
+    for (int i = 0; i < noseqs; i++)
+    {
+      formed[i] = i;
+      long[] row = new long[i];
+      double sum = 0d;
+      for (int k = 0; k < noseqs; k++)
+      {
+        if (k != i)
+        {
+          double d = distances.getValue(i, k);
+          sum += d;
+          maxDistance = Math.max(maxDistance, Math.abs(d));
+        }
+        if (k < i)
+        {
+          row[k] = toEntry(distances.getValue(k, i), k);
+        }
+      }
+      Arrays.sort(row);
+      sortedRows[i] = row;
+      rowSums[i] = sum;
+    }
+    nextFormed = noseqs;
+  }
+
+  /**
+   * Answers a row entry, for the given distance and cluster index, which sorts
+   * (as a long) in ascending order of distance
+   * 
+   * @param distance
+   * @param index
+   * @return
+   */
+  static long toEntry(double distance, int index)
+  {
+    int bits = Float.floatToIntBits((float) distance);
+    bits ^= (bits >> 31) & 0x7fffffff;
+    return ((long) bits << 32) | index;
+  }
+
+  /**
+   * Answers the (float precision) distance held in a row entry
+   * 
+   * @param entry
+   * @return
+   */
+  static double toDistance(long entry)
+  {
+    int bits = (int) (entry >> 32);
+    bits ^= (bits >> 31) & 0x7fffffff;
+    return Float.intBitsToFloat(bits);
+  }
+}
@@ -0,0 +1,419 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.analysis;
+
+import jalview.datamodel.SequenceI;
+import jalview.util.Comparison;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the percentage identity based redundancy of a set of sequences, as
+ * used by the Remove Redundancy dialog. Each sequence (window) is encoded once
+ * as an array of residue codes, and pairs are then compared without further
+ * String handling.
+ * <p>
+ * Two modes are offered:
+ * <ul>
+ * <li>exact: every pair is compared, as by
+ * {@link AlignSeq#computeRedundancyMatrix}, with the comparisons shared across
+ * the fork-join common pool</li>
+ * <li>greedy clustering (in the manner of CD-HIT): sequences are taken longest
+ * first, and each is compared only with the cluster representatives found so
+ * far, until one is found within a given identity threshold. Pairs whose
+ * residue composition shows they cannot reach the threshold are skipped.</li>
+ * </ul>
+ */
+public class RedundancyEngine
+{
+  /**
+   * the number of sequences from which the Remove Redundancy dialog clusters
+   * greedily, rather than comparing every pair
+   */
+  public static final int GREEDY_MIN_SEQUENCES = 5000;
+
+  /*
+   * minimum (pairs * width) to compute in parallel
+   */
+  private static final long PARALLEL_MIN_PAIRS = 10000000L;
+
+  /*
+   * minimum number of pairs for each parallel task
+   */
+  private static final long MIN_TASK_PAIRS = 5000L;
+
+  /*
+   * number of residue symbols counted for the composition filter:
+   * A-Z, and one for anything else
+   */
+  private static final int SYMBOLS = 27;
+
+  /*
+   * residues of each sequence; gaps are coded 0, lower case is converted to
+   * upper case
+   */
+  private final char[][] encoded;
+
+  /*
+   * ungapped length of each sequence
+   */
+  private final int[] lengths;
+
+  private final int width;
+
+  /**
+   * Constructor
+   * 
+   * @param seqs
+   *          sequences to compare
+   * @param omitHidden
+   *          null, or strings to be compared (typically, the visible portion
+   *          of each sequence)
+   * @param start
+   *          first column of the window to compare
+   * @param end
+   *          column after the last one to compare
+   * @param ungapped
+   *          if true, sequences are compared with gaps removed
+   */
+  public RedundancyEngine(SequenceI[] seqs, String[] omitHidden, int start,
+          int end, boolean ungapped)
+  {
+    int count = seqs.length;
+    encoded = new char[count][];
+    lengths = new int[count];
+    int maxWidth = 0;
+    for (int i = 0; i < count; i++)
+    {
+      char[] chars = omitHidden == null
+              ? seqs[i].getSequence(start, end)
+              : omitHidden[i].toCharArray();
+      encoded[i] = encode(chars, ungapped);
+      for (char c : encoded[i])
+      {
+        if (c != 0)
+        {
+          lengths[i]++;
+        }
+      }
+      maxWidth = Math.max(maxWidth, encoded[i].length);
+    }
+    width = maxWidth;
+  }
+
+  /**
+   * Answers the residues encoded for comparison, with gaps as zero and lower
+   * case converted to upper case
+   * 
+   * @param chars
+   * @param ungapped
+   *          if true, gaps are omitted
+   * @return
+   */
+  static char[] encode(char[] chars, boolean ungapped)
+  {
+    char[] codes = new char[chars.length];
+    int j = 0;
+    for (char c : chars)
+    {
+      if (Comparison.isGap(c))
+      {
+        if (!ungapped)
+        {
+          codes[j++] = 0;
+        }
+      }
+      else
+      {
+        codes[j++] = ('a' <= c && c <= 'z') ? (char) (c + 'A' - 'a') : c;
+      }
+    }
+    return j == codes.length ? codes : Arrays.copyOf(codes, j);
+  }
+
+  /**
+   * Answers the percentage identity of two encoded sequences, over the length
+   * of the shorter one, counting gap-gap and gap-residue positions as
+   * identities. This gives the same result as
+   * {@link jalview.analysis.scoremodels.PIDModel#computePID} with all
+   * similarity parameters set true.
+   * 
+   * @param s1
+   * @param s2
+   * @return
+   */
+  static float computePID(char[] s1, char[] s2)
+  {
+    int len = Math.min(s1.length, s2.length);
+    if (len == 0)
+    {
+      return 0f;
+    }
+    int mismatches = 0;
+    for (int i = 0; i < len; i++)
+    {
+      char c1 = s1[i];
+      char c2 = s2[i];
+      if (c1 != c2 && c1 != 0 && c2 != 0)
+      {
+        mismatches++;
+      }
+    }
+    return (float) (100D * (len - mismatches) / len);
+  }
+
+  /**
+   * Answers, for each sequence, the maximum percentage identity with any other
+   * sequence that is at least as long (ungapped), where ties are resolved in
+   * favour of the earlier sequence. Every pair of sequences is compared.
+   * 
+   * @return
+   */
+  public float[] computeRedundancy()
+  {
+    int count = encoded.length;
+    long pairs = (long) count * (count - 1) / 2;
+    if (pairs * width >= PARALLEL_MIN_PAIRS
+            && ForkJoinPool.getCommonPoolParallelism() > 1)
+    {
+      long minPairs = Math.max(MIN_TASK_PAIRS,
+              pairs / (4 * ForkJoinPool.getCommonPoolParallelism()));
+      return ForkJoinPool.commonPool()
+              .invoke(new RedundancyTask(0, count, minPairs));
+    }
+    float[] redundancy = new float[count];
+    computeRows(0, count, redundancy);
+    return redundancy;
+  }
+
+  /**
+   * Compares sequences in rows {@code fromRow} (inclusive) to {@code toRow}
+   * (exclusive) with all preceding sequences, updating the redundancy score of
+   * the shorter of each pair
+   * 
+   * @param fromRow
+   * @param toRow
+   * @param redundancy
+   */
+  void computeRows(int fromRow, int toRow, float[] redundancy)
+  {
+    for (int i = fromRow; i < toRow; i++)
+    {
+      char[] seqi = encoded[i];
+      for (int j = 0; j < i; j++)
+      {
+        float pid = computePID(seqi, encoded[j]);
+        if (lengths[j] < lengths[i])
+        {
+          redundancy[j] = Math.max(pid, redundancy[j]);
+        }
+        else
+        {
+          redundancy[i] = Math.max(pid, redundancy[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Clusters sequences greedily, and answers for each sequence its percentage
+   * identity with its cluster representative. Sequences are taken longest
+   * (ungapped) first. Each is compared with the representatives found so far,
+   * and joins the cluster of the first one with identity at least
+   * {@code threshold}; if there is none, it becomes a new representative, and
+   * its value is the maximum identity found with the other representatives
+   * (which is below the threshold).
+   * <p>
+   * So, at the given threshold, the sequences with redundancy values at least
+   * the threshold are those to remove; unlike {@link #computeRedundancy()},
+   * values are not meaningful for other thresholds.
+   * 
+   * @param threshold
+   *          percentage identity
+   * @return
+   */
+  public float[] computeRedundancy(float threshold)
+  {
+    int count = encoded.length;
+    float[] redundancy = new float[count];
+
+    /*
+     * count composition of each sequence (gaps as symbol 0)
+     */
+    int[][] composition = new int[count][];
+    for (int i = 0; i < count; i++)
+    {
+      composition[i] = getComposition(encoded[i]);
+    }
+
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++)
+    {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>()
+    {
+      @Override
+      public int compare(Integer o1, Integer o2)
+      {
+        int byLength = Integer.compare(lengths[o2], lengths[o1]);
+        return byLength != 0 ? byLength : Integer.compare(o1, o2);
+      }
+    });
+
+    List<Integer> representatives = new ArrayList<>();
+    for (int seq : order)
+    {
+      float best = 0f;
+      boolean clustered = false;
+      for (int rep : representatives)
+      {
+        if (getMaximumPID(encoded[seq].length, composition[seq],
+                encoded[rep].length, composition[rep]) < threshold)
+        {
+          continue;
+        }
+        float pid = computePID(encoded[seq], encoded[rep]);
+        if (pid >= threshold)
+        {
+          best = pid;
+          clustered = true;
+          break;
+        }
+        best = Math.max(best, pid);
+      }
+      redundancy[seq] = best;
+      if (!clustered)
+      {
+        representatives.add(seq);
+      }
+    }
+    return redundancy;
+  }
+
+  /**
+   * Answers the count of gaps (in position 0) and of residues A-Z (in
+   * positions 1-26); any other residues are counted in position 27
+   * 
+   * @param seq
+   * @return
+   */
+  static int[] getComposition(char[] seq)
+  {
+    int[] counts = new int[SYMBOLS + 1];
+    for (char c : seq)
+    {
+      counts[c == 0 ? 0
+              : ('A' <= c && c <= 'Z' ? c - 'A' + 1 : SYMBOLS)]++;
+    }
+    return counts;
+  }
+
+  /**
+   * Answers an upper bound for the percentage identity of two sequences of the
+   * given lengths and composition. The positions compared are those up to the
+   * shorter length. At least {@code length - gaps1 - gaps2} of them have a
+   * residue in both sequences, and at most the sum, over residue types, of the
+   * smaller count of that residue are identical.
+   * 
+   * @param length1
+   * @param composition1
+   * @param length2
+   * @param composition2
+   * @return
+   */
+  static float getMaximumPID(int length1, int[] composition1, int length2,
+          int[] composition2)
+  {
+    int len = Math.min(length1, length2);
+    if (len == 0)
+    {
+      return 0f;
+    }
+    int maxIdentical = 0;
+    for (int i = 1; i < composition1.length; i++)
+    {
+      maxIdentical += Math.min(composition1[i], composition2[i]);
+    }
+    int minResiduePairs = len - composition1[0] - composition2[0];
+    int minMismatches = Math.max(0, minResiduePairs - maxIdentical);
+    return (float) (100D * (len - minMismatches) / len);
+  }
+
+  /**
+   * A task that computes redundancy for a range of rows, splitting it into two
+   * ranges with similar numbers of pairs to compare until it is small enough,
+   * and returning the maximum scores found for each sequence
+   */
+  class RedundancyTask extends RecursiveTask<float[]>
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final int fromRow;
+
+    private final int toRow;
+
+    private final long minPairs;
+
+    RedundancyTask(int fromRow, int toRow, long minPairs)
+    {
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+      this.minPairs = minPairs;
+    }
+
+    @Override
+    protected float[] compute()
+    {
+      long pairs = ((long) toRow * (toRow - 1) - (long) fromRow * (fromRow - 1))
+              / 2;
+      if (pairs <= minPairs || toRow - fromRow < 2)
+      {
+        float[] redundancy = new float[encoded.length];
+        computeRows(fromRow, toRow, redundancy);
+        return redundancy;
+      }
+
+      /*
+       * row i has i pairs, so split where the two halves of the
+       * triangle have the same area
+       */
+      int mid = (int) Math.sqrt(
+              ((double) fromRow * fromRow + (double) toRow * toRow) / 2);
+      mid = Math.max(fromRow + 1, Math.min(toRow - 1, mid));
+      RedundancyTask upper = new RedundancyTask(fromRow, mid, minPairs);
+      upper.fork();
+      float[] redundancy = new RedundancyTask(mid, toRow, minPairs)
+              .compute();
+      float[] upperRedundancy = upper.join();
+      for (int i = 0; i < redundancy.length; i++)
+      {
+        redundancy[i] = Math.max(redundancy[i], upperRedundancy[i]);
+      }
+      return redundancy;
+    }
+  }
+}
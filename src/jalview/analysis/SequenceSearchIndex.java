@@ -0,0 +1,356 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.analysis;
+
+import jalview.datamodel.AlignmentI;
+import jalview.datamodel.SequenceI;
+import jalview.util.Comparison;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A per-alignment index of the residues of each sequence, used to find the
+ * sequences which may contain a literal (non-regex) search string without
+ * rescanning every sequence. For each sequence the index holds its ungapped
+ * residues (upper-cased), and the sorted distinct codes of all its residue
+ * k-mers. Entries are rebuilt lazily whenever a sequence's change count no
+ * longer matches the one it was indexed at.
+ */
+public class SequenceSearchIndex
+{
+  /*
+   * length of residue words indexed
+   */
+  static final int K = 3;
+
+  /*
+   * letters A-Z are coded 1-26, and anything else 27
+   */
+  private static final int ALPHABET = 28;
+
+  /*
+   * minimum number of sequences to check before doing so in parallel
+   */
+  private static final int PARALLEL_MIN_SEQUENCES = 1000;
+
+  private static final int MIN_TASK_SEQUENCES = 250;
+
+  private static final Map<AlignmentI, SequenceSearchIndex> indexes = new WeakHashMap<>();
+
+  /*
+   * index entries, held weakly so that deleted sequences drop out
+   */
+  private final Map<SequenceI, IndexEntry> entries = new WeakHashMap<>();
+
+  /**
+   * Indexed residues of one sequence, valid for the sequence's change count
+   * when indexed
+   */
+  static class IndexEntry
+  {
+    final int changeCount;
+
+    final String residues;
+
+    final int[] kmers;
+
+    IndexEntry(int changeCount, String residues)
+    {
+      this.changeCount = changeCount;
+      this.residues = residues;
+      this.kmers = getKmerCodes(residues);
+    }
+
+    /**
+     * Answers true if the indexed residues include the given (upper-case)
+     * string, else false
+     * 
+     * @param query
+     * @param queryKmers
+     * @return
+     */
+    boolean contains(String query, int[] queryKmers)
+    {
+      for (int kmer : queryKmers)
+      {
+        if (Arrays.binarySearch(kmers, kmer) < 0)
+        {
+          return false;
+        }
+      }
+      return residues.contains(query);
+    }
+  }
+
+  /**
+   * Answers the search index for the given alignment, creating it if necessary
+   * 
+   * @param al
+   * @return
+   */
+  public static synchronized SequenceSearchIndex getIndex(AlignmentI al)
+  {
+    SequenceSearchIndex index = indexes.get(al);
+    if (index == null)
+    {
+      index = new SequenceSearchIndex();
+      indexes.put(al, index);
+    }
+    return index;
+  }
+
+  /**
+   * Answers true if the search string has no regular expression syntax, so
+   * can be matched literally (ignoring case) using the index. Currently this
+   * means a non-empty string of letters only.
+   * 
+   * @param searchString
+   * @return
+   */
+  public static boolean isLiteral(String searchString)
+  {
+    if (searchString == null || searchString.isEmpty())
+    {
+      return false;
+    }
+    for (int i = 0; i < searchString.length(); i++)
+    {
+      if (!Character.isLetter(searchString.charAt(i)))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Answers an array of flags, one for each of {@code seqs}, set to true if the
+   * sequence's residues contain {@code searchString} (ignoring case and gaps).
+   * Sequences are checked in parallel if there are many of them.
+   * 
+   * @param seqs
+   * @param searchString
+   * @return
+   */
+  public boolean[] findCandidates(final SequenceI[] seqs,
+          String searchString)
+  {
+    final String query = searchString.toUpperCase();
+    final int[] queryKmers = getKmerCodes(query);
+    final boolean[] candidates = new boolean[seqs.length];
+
+    if (seqs.length >= PARALLEL_MIN_SEQUENCES
+            && ForkJoinPool.getCommonPoolParallelism() > 1)
+    {
+      final int minSeqs = Math.max(MIN_TASK_SEQUENCES, seqs.length
+              / (4 * ForkJoinPool.getCommonPoolParallelism()));
+      ForkJoinPool.commonPool().invoke(new CandidateTask(seqs, 0,
+              seqs.length, minSeqs, query, queryKmers, candidates));
+    }
+    else
+    {
+      findCandidates(seqs, 0, seqs.length, query, queryKmers, candidates);
+    }
+    return candidates;
+  }
+
+  /**
+   * Sets flags for sequences in the range {@code from} (inclusive) to
+   * {@code to} (exclusive) which contain the query
+   * 
+   * @param seqs
+   * @param from
+   * @param to
+   * @param query
+   * @param queryKmers
+   * @param candidates
+   */
+  void findCandidates(SequenceI[] seqs, int from, int to, String query,
+          int[] queryKmers, boolean[] candidates)
+  {
+    for (int i = from; i < to; i++)
+    {
+      SequenceI seq = seqs[i];
+      candidates[i] = seq != null
+              && getEntry(seq).contains(query, queryKmers);
+    }
+  }
+
+  /**
+   * Answers the (upper-cased, ungapped) residues of the sequence as held in
+   * the index
+   * 
+   * @param seq
+   * @return
+   */
+  public String getResidues(SequenceI seq)
+  {
+    return getEntry(seq).residues;
+  }
+
+  /**
+   * Answers the index entry for the sequence, (re)building it if it is missing
+   * or the sequence has changed since it was indexed
+   * 
+   * @param seq
+   * @return
+   */
+  IndexEntry getEntry(SequenceI seq)
+  {
+    int changeCount = seq.getChangeCount();
+    IndexEntry entry;
+    synchronized (entries)
+    {
+      entry = entries.get(seq);
+    }
+    if (entry == null || entry.changeCount != changeCount)
+    {
+      String residues = AlignSeq.extractGaps(Comparison.GapChars,
+              seq.getSequenceAsString()).toUpperCase();
+      entry = new IndexEntry(changeCount, residues);
+      synchronized (entries)
+      {
+        entries.put(seq, entry);
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Answers the number of sequences currently indexed
+   * 
+   * @return
+   */
+  int size()
+  {
+    synchronized (entries)
+    {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Answers the sorted distinct codes of all words of length K in the
+   * (upper-case) string, or an empty array if it is shorter than K
+   * 
+   * @param s
+   * @return
+   */
+  static int[] getKmerCodes(String s)
+  {
+    int count = s.length() - K + 1;
+    if (count < 1)
+    {
+      return new int[0];
+    }
+    int[] codes = new int[count];
+    int mod = 1;
+    for (int i = 1; i < K; i++)
+    {
+      mod *= ALPHABET;
+    }
+    int code = 0;
+    for (int i = 0; i < s.length(); i++)
+    {
+      code = (code % mod) * ALPHABET + getCode(s.charAt(i));
+      if (i >= K - 1)
+      {
+        codes[i - K + 1] = code;
+      }
+    }
+    Arrays.sort(codes);
+
+    /*
+     * remove duplicates
+     */
+    int distinct = 1;
+    for (int i = 1; i < count; i++)
+    {
+      if (codes[i] != codes[distinct - 1])
+      {
+        codes[distinct++] = codes[i];
+      }
+    }
+    return distinct == count ? codes : Arrays.copyOf(codes, distinct);
+  }
+
+  private static int getCode(char c)
+  {
+    return c >= 'A' && c <= 'Z' ? c - 'A' + 1 : ALPHABET - 1;
+  }
+
+  /**
+   * A task that checks a range of sequences for the query, splitting the range
+   * in two until it is no more than a minimum size
+   */
+  class CandidateTask extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final SequenceI[] seqs;
+
+    private final int from;
+
+    private final int to;
+
+    private final int minSeqs;
+
+    private final String query;
+
+    private final int[] queryKmers;
+
+    private final boolean[] candidates;
+
+    CandidateTask(SequenceI[] seqs, int from, int to, int minSeqs,
+            String query, int[] queryKmers, boolean[] candidates)
+    {
+      this.seqs = seqs;
+      this.from = from;
+      this.to = to;
+      this.minSeqs = minSeqs;
+      this.query = query;
+      this.queryKmers = queryKmers;
+      this.candidates = candidates;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (to - from <= minSeqs)
+      {
+        findCandidates(seqs, from, to, query, queryKmers, candidates);
+      }
+      else
+      {
+        int mid = (from + to) >>> 1;
+        invokeAll(
+                new CandidateTask(seqs, from, mid, minSeqs, query,
+                        queryKmers, candidates),
+                new CandidateTask(seqs, mid, to, minSeqs, query,
+                        queryKmers, candidates));
+      }
+    }
+  }
+}
@@ -29,7 +29,11 @@ import jalview.math.Matrix;
 import jalview.math.MatrixI;
 import jalview.util.Comparison;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * A class that models a substitution score matrix for any given alphabet of
@@ -62,6 +66,32 @@ public class ScoreMatrix extends SimilarityScoreModel
 
   private static final int MAX_ASCII = 127;
 
+  /*
+   * encoding of sequence characters for pairwise scoring: the low 8 bits hold
+   * the matrix index of the symbol, or the character itself if it is not in
+   * the matrix (flagged UNMAPPED_SYMBOL); INVALID_SYMBOL flags a character
+   * outside the ASCII range, and GAP_SYMBOL is added for a gap character
+   */
+  private static final short SYMBOL_MASK = 0xff;
+
+  private static final short GAP_SYMBOL = 0x100;
+
+  private static final short UNMAPPED_SYMBOL = 0x200;
+
+  private static final short INVALID_SYMBOL = 0x400;
+
+  /*
+   * the number of sequence pairs per side of a block of the similarity matrix
+   * computed by one parallel task
+   */
+  private static final int BLOCK_SIZE = 64;
+
+  /*
+   * the number of residue pairs to score above which similarities are
+   * computed in parallel
+   */
+  private static final long PARALLEL_MIN_PAIRS = 10000000L;
+
   /*
    * the name of the model as shown in menus
    * each score model in use should have a unique name
@@ -482,12 +512,98 @@ public class ScoreMatrix extends SimilarityScoreModel
   protected MatrixI findSimilarities(String[] seqs,
           SimilarityParamsI params)
   {
-    double[][] values = new double[seqs.length][seqs.length];
-    for (int row = 0; row < seqs.length; row++)
+    int count = seqs.length;
+    double[][] values = new double[count][count];
+    short[][] encoded = new short[count][];
+    long width = 0;
+    for (int i = 0; i < count; i++)
+    {
+      encoded[i] = encodeSequence(seqs[i]);
+      width = Math.max(width, seqs[i].length());
+    }
+
+    long pairs = width * count * (symmetric ? (count + 1) / 2 : count);
+    if (pairs >= PARALLEL_MIN_PAIRS
+            && ForkJoinPool.getCommonPoolParallelism() > 1)
+    {
+      findSimilaritiesParallel(encoded, params, values);
+    }
+    else
+    {
+      computeBlock(encoded, params, values, 0, count, 0, count);
+    }
+    return new Matrix(values);
+  }
+
+  /**
+   * Computes the similarity matrix values in parallel, in square blocks (the
+   * upper triangle only if the score matrix is symmetric)
+   * 
+   * @param encoded
+   * @param params
+   * @param values
+   */
+  void findSimilaritiesParallel(final short[][] encoded,
+          final SimilarityParamsI params, final double[][] values)
+  {
+    final int count = encoded.length;
+    final List<RecursiveAction> blocks = new ArrayList<>();
+    for (int row = 0; row < count; row += BLOCK_SIZE)
+    {
+      for (int col = symmetric ? row : 0; col < count; col += BLOCK_SIZE)
+      {
+        final int fromRow = row;
+        final int fromCol = col;
+        blocks.add(new RecursiveAction()
+        {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected void compute()
+          {
+            computeBlock(encoded, params, values, fromRow,
+                    Math.min(fromRow + BLOCK_SIZE, count), fromCol,
+                    Math.min(fromCol + BLOCK_SIZE, count));
+          }
+        });
+      }
+    }
+    ForkJoinPool.commonPool().invoke(new RecursiveAction()
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void compute()
+      {
+        invokeAll(blocks);
+      }
+    });
+  }
+
+  /**
+   * Computes the similarity values for rows fromRow (inclusive) to toRow
+   * (exclusive), and columns fromCol to toCol. If the score matrix is
+   * symmetric, only values on or above the diagonal are computed, and each is
+   * also set in the mirror position below the diagonal.
+   * 
+   * @param encoded
+   * @param params
+   * @param values
+   * @param fromRow
+   * @param toRow
+   * @param fromCol
+   * @param toCol
+   */
+  void computeBlock(short[][] encoded, SimilarityParamsI params,
+          double[][] values, int fromRow, int toRow, int fromCol, int toCol)
+  {
+    for (int row = fromRow; row < toRow; row++)
     {
-      for (int col = symmetric ? row : 0; col < seqs.length; col++)
+      int startCol = symmetric ? Math.max(row, fromCol) : fromCol;
+      for (int col = startCol; col < toCol; col++)
       {
-        double total = computeSimilarity(seqs[row], seqs[col], params);
+        double total = computeSimilarity(encoded[row], encoded[col],
+                params);
         values[row][col] = total;
         if (symmetric)
         {
@@ -495,7 +611,125 @@ public class ScoreMatrix extends SimilarityScoreModel
         }
       }
     }
-    return new Matrix(values);
+  }
+
+  /**
+   * Answers the sequence encoded as symbol codes for pairwise scoring
+   * 
+   * @param seq
+   * @return
+   */
+  short[] encodeSequence(String seq)
+  {
+    short[] encoded = new short[seq.length()];
+    for (int i = 0; i < encoded.length; i++)
+    {
+      encoded[i] = encodeSymbol(seq.charAt(i));
+    }
+    return encoded;
+  }
+
+  /**
+   * Answers the code for one character for pairwise scoring
+   * 
+   * @param c
+   * @return
+   */
+  short encodeSymbol(char c)
+  {
+    int code;
+    if (c >= symbolIndex.length)
+    {
+      System.err.println(String.format(BAD_ASCII_ERROR, c));
+      code = INVALID_SYMBOL;
+    }
+    else if (symbolIndex[c] == UNMAPPED)
+    {
+      code = UNMAPPED_SYMBOL | c;
+    }
+    else
+    {
+      code = symbolIndex[c];
+    }
+    if (Comparison.isGap(c))
+    {
+      code |= GAP_SYMBOL;
+    }
+    return (short) code;
+  }
+
+  /**
+   * Calculates the pairwise similarity of two encoded sequences using the given
+   * calculation parameters. This gives the same result as
+   * {@link #computeSimilarity(String, String, SimilarityParamsI)} for the
+   * unencoded sequences.
+   * 
+   * @param seq1
+   * @param seq2
+   * @param params
+   * @return
+   */
+  protected double computeSimilarity(short[] seq1, short[] seq2,
+          SimilarityParamsI params)
+  {
+    int len1 = seq1.length;
+    int len2 = seq2.length;
+    int width = params.denominateByShortestLength() ? Math.min(len1, len2)
+            : Math.max(len1, len2);
+    boolean includeGappedColumns = params.includeGappedColumns();
+    boolean includeGaps = params.includeGaps();
+    short gap = encodeSymbol(GAP_CHARACTER);
+    double total = 0;
+
+    for (int i = 0; i < width; i++)
+    {
+      /*
+       * off the end of a sequence is treated as a trailing gap
+       */
+      int c1 = i < len1 ? seq1[i] : gap;
+      int c2 = i < len2 ? seq2[i] : gap;
+      if ((c1 & c2 & GAP_SYMBOL) != 0)
+      {
+        /*
+         * gap-gap: include if options say so, else ignore
+         */
+        if (!includeGappedColumns)
+        {
+          continue;
+        }
+      }
+      else if (((c1 | c2) & GAP_SYMBOL) != 0)
+      {
+        /*
+         * gap-residue: score if options say so
+         */
+        if (!includeGaps)
+        {
+          continue;
+        }
+      }
+      float score;
+      int flags = c1 | c2;
+      if ((flags & INVALID_SYMBOL) != 0)
+      {
+        score = 0;
+      }
+      else if ((flags & UNMAPPED_SYMBOL) == 0)
+      {
+        score = matrix[c1 & SYMBOL_MASK][c2 & SYMBOL_MASK];
+      }
+      else
+      {
+        /*
+         * one or both symbols not in the matrix
+         */
+        score = (c1 & ~GAP_SYMBOL) == (c2 & ~GAP_SYMBOL)
+                ? UNKNOWN_IDENTITY_SCORE
+                : getMinimumScore();
+      }
+      total += score;
+    }
+    return total;
   }
 
   /**
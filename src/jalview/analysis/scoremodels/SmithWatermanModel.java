@@ -26,7 +26,6 @@ import jalview.api.analysis.ScoreModelI;
 import jalview.api.analysis.SimilarityParamsI;
 import jalview.datamodel.AlignmentView;
 import jalview.datamodel.SequenceI;
-import jalview.math.Matrix;
 import jalview.math.MatrixI;
 import jalview.util.Comparison;
 
@@ -54,29 +53,21 @@ public class SmithWatermanModel extends SimilarityScoreModel
     SequenceI[] sequenceString = seqData
             .getVisibleAlignment(Comparison.GAP_SPACE).getSequencesArray();
     int noseqs = sequenceString.length;
-    double[][] distances = new double[noseqs][noseqs];
-
-    double max = -1;
-
-    for (int i = 0; i < (noseqs - 1); i++)
+    String[] residues = new String[noseqs];
+    for (int i = 0; i < noseqs; i++)
     {
-      for (int j = i; j < noseqs; j++)
-      {
-        AlignSeq as = new AlignSeq(sequenceString[i], sequenceString[j],
-                seqData.isNa() ? "dna" : "pep");
-        as.calcScoreMatrix();
-        as.traceAlignment();
-        as.printAlignment(System.out);
-        distances[i][j] = as.maxscore;
-
-        if (max < distances[i][j])
-        {
-          max = distances[i][j];
-        }
-      }
+      residues[i] = AlignSeq.extractGaps(Comparison.GapChars,
+              sequenceString[i].getSequenceAsString());
     }
 
-    return new Matrix(distances);
+    /*
+     * scores only are needed, so use a linear memory scorer rather than
+     * AlignSeq (which computes and traces the full alignment matrices)
+     */
+    ScoreMatrix scoreMatrix = ScoreModels.getInstance()
+            .getDefaultModel(!seqData.isNa());
+    return new SmithWatermanScorer(residues, scoreMatrix)
+            .findSimilarities();
   }
 
   @Override
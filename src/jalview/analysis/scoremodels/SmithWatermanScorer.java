@@ -0,0 +1,324 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.analysis.scoremodels;
+
+import jalview.analysis.AlignSeq;
+import jalview.math.Matrix;
+import jalview.math.MatrixI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes pairwise alignment scores for a set of sequences, using the same
+ * recurrence, score matrix and gap costs as {@link AlignSeq}, but without
+ * storing the alignment matrices or tracing back the alignment. Only two rows
+ * of scores and one of vertical gap scores are held for each pair being
+ * scored, so memory use is linear in sequence length.
+ * <p>
+ * Each sequence is encoded as indices into the (small) alphabet of characters
+ * found in the sequences. For each second sequence of a pair, a 'query
+ * profile' of substitution scores is built, holding for each alphabet symbol
+ * the scores for that symbol against each position of the sequence. Each row
+ * of the recurrence is then computed in two passes: a branch-free pass over
+ * contiguous arrays for the diagonal and vertical moves, which the JIT can
+ * compile to vector instructions, followed by a serial pass for horizontal
+ * gaps.
+ */
+public class SmithWatermanScorer
+{
+  private static final int GAP_OPEN = AlignSeq.GAP_OPEN_COST;
+
+  private static final int GAP_EXTEND = AlignSeq.GAP_EXTEND_COST;
+
+  /*
+   * minimum total (length * length) of pairs to score in parallel
+   */
+  private static final long PARALLEL_MIN_CELLS = 1000000L;
+
+  /*
+   * each sequence's residues as indices into the alphabet
+   */
+  private final int[][] encoded;
+
+  /*
+   * substitution scores (times 10, as in AlignSeq) for
+   * [first sequence symbol][second sequence symbol]
+   */
+  private final int[][] substitutions;
+
+  /**
+   * Constructor given the (ungapped) sequences to score, and the substitution
+   * matrix to use. Scores are computed in integer arithmetic (which gives the
+   * same results as the floating point arithmetic of AlignSeq, and is much
+   * faster), so the matrix must have whole number values, as do all the built
+   * in matrices.
+   * 
+   * @param seqs
+   * @param scoreMatrix
+   * @throws IllegalArgumentException
+   *           if the score matrix has a value that is not a whole number
+   */
+  public SmithWatermanScorer(String[] seqs, ScoreMatrix scoreMatrix)
+  {
+    /*
+     * make a compact alphabet of the characters present
+     */
+    int[] symbolIndex = new int[Character.MAX_VALUE + 1];
+    StringBuilder alphabet = new StringBuilder();
+    encoded = new int[seqs.length][];
+    for (int i = 0; i < seqs.length; i++)
+    {
+      String seq = seqs[i];
+      encoded[i] = new int[seq.length()];
+      for (int j = 0; j < seq.length(); j++)
+      {
+        char c = seq.charAt(j);
+        if (symbolIndex[c] == 0)
+        {
+          alphabet.append(c);
+          symbolIndex[c] = alphabet.length();
+        }
+        encoded[i][j] = symbolIndex[c] - 1;
+      }
+    }
+
+    int size = alphabet.length();
+    substitutions = new int[size][size];
+    for (int a = 0; a < size; a++)
+    {
+      for (int b = 0; b < size; b++)
+      {
+        float score = scoreMatrix.getPairwiseScore(alphabet.charAt(a),
+                alphabet.charAt(b)) * 10;
+        if (score != (int) score)
+        {
+          throw new IllegalArgumentException(
+                  "Score matrix " + scoreMatrix.getName()
+                          + " has a non-integer value " + score / 10);
+        }
+        substitutions[a][b] = (int) score;
+      }
+    }
+  }
+
+  /**
+   * Answers the alignment score of two of the sequences, as would be given by
+   * {@link AlignSeq#getMaxScore()} after aligning them. Answers zero if either
+   * sequence is empty.
+   * 
+   * @param seq1
+   *          index of the first sequence
+   * @param seq2
+   *          index of the second sequence
+   * @return
+   */
+  public float getScore(int seq1, int seq2)
+  {
+    return score(encoded[seq1], getProfile(encoded[seq2]));
+  }
+
+  /**
+   * Computes scores for pairs of sequences, for each first sequence
+   * {@code i} up to (excluding) the last one, and second sequence from
+   * {@code i} to the last one. Other entries in the matrix are zero. Pairs are
+   * scored in parallel if there is enough work to do and more than one
+   * processor.
+   * 
+   * @return
+   */
+  public MatrixI findSimilarities()
+  {
+    final int count = encoded.length;
+    final double[][] scores = new double[count][count];
+    long cells = 0;
+    for (int[] seq : encoded)
+    {
+      cells += seq.length;
+    }
+    cells = cells * cells / 2;
+
+    if (cells >= PARALLEL_MIN_CELLS
+            && ForkJoinPool.getCommonPoolParallelism() > 1)
+    {
+      final List<RecursiveAction> columns = new ArrayList<>();
+      for (int j = 0; j < count; j++)
+      {
+        final int col = j;
+        columns.add(new RecursiveAction()
+        {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected void compute()
+          {
+            scoreColumn(col, scores);
+          }
+        });
+      }
+      ForkJoinPool.commonPool().invoke(new RecursiveAction()
+      {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute()
+        {
+          invokeAll(columns);
+        }
+      });
+    }
+    else
+    {
+      for (int j = 0; j < count; j++)
+      {
+        scoreColumn(j, scores);
+      }
+    }
+    return new Matrix(scores);
+  }
+
+  /**
+   * Scores each sequence {@code i}, up to and including {@code col} but
+   * excluding the last sequence, against sequence {@code col}, and sets the
+   * result in {@code scores[i][col]}
+   * 
+   * @param col
+   * @param scores
+   */
+  void scoreColumn(int col, double[][] scores)
+  {
+    int[][] profile = getProfile(encoded[col]);
+    int toRow = Math.min(col, encoded.length - 2);
+    for (int row = 0; row <= toRow; row++)
+    {
+      scores[row][col] = score(encoded[row], profile);
+    }
+  }
+
+  /**
+   * Answers the substitution scores of each alphabet symbol against each
+   * position of the sequence, indexed by [symbol][position]
+   * 
+   * @param seq
+   * @return
+   */
+  int[][] getProfile(int[] seq)
+  {
+    int size = substitutions.length;
+    int[][] profile = new int[size][seq.length];
+    for (int a = 0; a < size; a++)
+    {
+      int[] scores = substitutions[a];
+      int[] row = profile[a];
+      for (int j = 0; j < seq.length; j++)
+      {
+        row[j] = scores[seq[j]];
+      }
+    }
+    return profile;
+  }
+
+  /**
+   * Computes the alignment score of the encoded first sequence and the
+   * profile of the second sequence. This follows the recurrence of
+   * {@link AlignSeq#calcScoreMatrix()}, and answers the maximum score in the
+   * last row or column divided by 10, as {@link AlignSeq#traceAlignment()}.
+   * 
+   * @param seq1
+   * @param profile
+   * @return
+   */
+  static float score(int[] seq1, int[][] profile)
+  {
+    int n = seq1.length;
+    int m = profile.length == 0 ? 0 : profile[0].length;
+    if (n == 0 || m == 0)
+    {
+      return 0f;
+    }
+
+    /*
+     * scores of the previous and current row, and vertical gap scores
+     */
+    int[] prev = new int[m];
+    int[] cur = new int[m];
+    int[] vGap = new int[m];
+
+    /*
+     * top row: no gap scores are carried into the first row
+     */
+    int[] subs = profile[seq1[0]];
+    cur[0] = subs[0];
+    vGap[0] = 0;
+    for (int j = 1; j < m; j++)
+    {
+      cur[j] = Math.max(subs[j], -GAP_EXTEND);
+      vGap[j] = -GAP_EXTEND;
+    }
+    int max = cur[m - 1];
+
+    for (int i = 1; i < n; i++)
+    {
+      int[] swap = prev;
+      prev = cur;
+      cur = swap;
+      subs = profile[seq1[i]];
+
+      /*
+       * first column
+       */
+      vGap[0] = Math.max(prev[0] - GAP_OPEN, vGap[0] - GAP_EXTEND);
+      cur[0] = Math.max(subs[0], Math.max(-GAP_OPEN, vGap[0]));
+
+      /*
+       * diagonal and vertical moves; no dependency between positions
+       */
+      for (int j = 1; j < m; j++)
+      {
+        int v = Math.max(prev[j] - GAP_OPEN, vGap[j] - GAP_EXTEND);
+        vGap[j] = v;
+        cur[j] = Math.max(prev[j - 1] + subs[j], v);
+      }
+
+      /*
+       * horizontal moves
+       */
+      int hGap = -GAP_OPEN;
+      for (int j = 1; j < m; j++)
+      {
+        hGap = Math.max(cur[j - 1] - GAP_OPEN, hGap - GAP_EXTEND);
+        cur[j] = Math.max(cur[j], hGap);
+      }
+      max = Math.max(max, cur[m - 1]);
+    }
+
+    /*
+     * maximum of last column (tracked) and last row
+     */
+    for (int j = 0; j < m; j++)
+    {
+      max = Math.max(max, cur[j]);
+    }
+    return max / 10f;
+  }
+}
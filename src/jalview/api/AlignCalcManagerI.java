@@ -161,4 +161,10 @@ public interface AlignCalcManagerI
    * @param ann
    */
   void removeWorkerForAnnotation(AlignmentAnnotation ann);
+
+  /**
+   * Cancels any queued calculations and prevents further calculations from
+   * starting, for example when the viewport is closed
+   */
+  void shutdown();
 }
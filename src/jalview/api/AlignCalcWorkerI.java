@@ -57,4 +57,13 @@ public interface AlignCalcWorkerI extends Runnable
    * @return
    */
   boolean isDeletable();
+
+  /**
+   * Answers true if the worker may run for a long time without using the
+   * processor (for example, waiting for a remote calculation), and so should not
+   * occupy a thread of the shared calculation thread pool
+   * 
+   * @return
+   */
+  boolean isLongRunning();
 }
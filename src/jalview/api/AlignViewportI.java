@@ -335,6 +335,23 @@ public interface AlignViewportI extends ViewStyleI
 
   void alignmentChanged(AlignmentViewPanel ap);
 
+  /**
+   * Answers the number of times alignmentChanged has been notified
+   *
+   * @return
+   */
+  long getAlignmentChangeCount();
+
+  /**
+   * Answers the range of columns [start, end] which have been edited since the
+   * given alignment change count, or null if this is not known (in which case
+   * any column may have changed)
+   *
+   * @param changeCount
+   * @return
+   */
+  int[] getEditedColumnsSince(long changeCount);
+
   /**
    * @return the padGaps
    */
@@ -57,4 +57,12 @@ public interface FeaturesDisplayedI
 
   int getRegisteredFeaturesCount();
 
+  /**
+   * Answers a count of the changes made to the visible feature types, so that
+   * callers holding derived data can detect that it may be stale
+   * 
+   * @return
+   */
+  int getChangeCount();
+
 }
@@ -1667,6 +1667,7 @@ public class AlignFrame extends EmbmenuFrame implements ActionListener,
     if (command.getSize() > 0)
     {
       viewport.addToHistoryList(command);
+      viewport.addEditedColumns(command);
       viewport.clearRedoList();
       updateEditMenuBar();
       viewport.updateHiddenColumns();
@@ -1685,6 +1686,12 @@ public class AlignFrame extends EmbmenuFrame implements ActionListener,
     {
       return;
     }
+    if (!viewport.readUndoData(viewport.getHistoryList().peek()))
+    {
+      statusBar.setText(
+              MessageManager.getString("label.undo_data_unreadable"));
+      return;
+    }
 
     CommandI command = viewport.getHistoryList().pop();
     viewport.addToRedoList(command);
@@ -1700,6 +1707,7 @@ public class AlignFrame extends EmbmenuFrame implements ActionListener,
     originalSource.updateHiddenColumns(); // originalSource.hasHiddenColumns =
                                           // viewport.getColumnSelection().getHiddenColumns()
                                           // != null;
+    originalSource.addEditedColumns(command);
     updateEditMenuBar();
     originalSource.firePropertyChange("alignment", null,
             originalSource.getAlignment().getSequences());
@@ -1717,6 +1725,12 @@ public class AlignFrame extends EmbmenuFrame implements ActionListener,
     {
       return;
     }
+    if (!viewport.readUndoData(viewport.getRedoList().peek()))
+    {
+      statusBar.setText(
+              MessageManager.getString("label.undo_data_unreadable"));
+      return;
+    }
 
     CommandI command = viewport.getRedoList().pop();
     viewport.addToHistoryList(command);
@@ -1733,6 +1747,7 @@ public class AlignFrame extends EmbmenuFrame implements ActionListener,
                                           // viewport.getColumnSelection().getHiddenColumns()
                                           // != null;
 
+    originalSource.addEditedColumns(command);
     updateEditMenuBar();
     originalSource.firePropertyChange("alignment", null,
             originalSource.getAlignment().getSequences());
@@ -1908,6 +1923,10 @@ public class AlignFrame extends EmbmenuFrame implements ActionListener,
     {
       addHistoryItem(ssc);
     }
+    else
+    {
+      viewport.addEditedColumns(ssc);
+    }
 
     repaint();
   }
@@ -2532,6 +2551,7 @@ public class AlignFrame extends EmbmenuFrame implements ActionListener,
 
     newaf.viewport.setHistoryList(viewport.getHistoryList());
     newaf.viewport.setRedoList(viewport.getRedoList());
+    newaf.viewport.setUndoMemoryManager(viewport.getUndoMemoryManager());
     return newaf;
   }
 
@@ -21,6 +21,7 @@
 package jalview.appletgui;
 
 import jalview.analysis.AlignSeq;
+import jalview.analysis.RedundancyEngine;
 import jalview.commands.CommandI;
 import jalview.commands.EditCommand;
 import jalview.commands.EditCommand.Action;
@@ -47,6 +48,17 @@ public class RedundancyPanel extends SliderPanel
 
   float[] redundancy;
 
+  /*
+   * for large alignments, sequences are clustered greedily, and redundancy
+   * recomputed for each threshold chosen; else null
+   */
+  RedundancyEngine greedyEngine;
+
+  /*
+   * the threshold for which greedy redundancy was last computed
+   */
+  float greedyThreshold;
+
   SequenceI[] originalSequences;
 
   Frame frame;
@@ -138,8 +150,21 @@ public class RedundancyPanel extends SliderPanel
 
     height = originalSequences.length;
 
-    redundancy = AlignSeq.computeRedundancyMatrix(originalSequences,
-            omitHidden, start, end, false);
+    if (height >= RedundancyEngine.GREEDY_MIN_SEQUENCES)
+    {
+      /*
+       * comparing every pair is too slow for large alignments
+       */
+      greedyEngine = new RedundancyEngine(originalSequences, omitHidden,
+              start, end, false);
+      greedyThreshold = slider.getValue();
+      redundancy = greedyEngine.computeRedundancy(greedyThreshold);
+    }
+    else
+    {
+      redundancy = AlignSeq.computeRedundancyMatrix(originalSequences,
+              omitHidden, start, end, false);
+    }
     label.setText(
             MessageManager.getString("label.enter_redundancy_threshold"));
     slider.setVisible(true);
@@ -153,12 +178,14 @@ public class RedundancyPanel extends SliderPanel
 
   void sliderValueChanged()
   {
-    if (redundancy == null)
+    if (redundancy == null
+            || (greedyEngine != null && slider.getValueIsAdjusting()))
     {
       return;
     }
 
     float value = slider.getValue();
+    updateRedundancy(value);
 
     List<SequenceI> redundantSequences = new ArrayList<>();
     for (int i = 0; i < redundancy.length; i++)
@@ -174,6 +201,21 @@ public class RedundancyPanel extends SliderPanel
 
   }
 
+  /**
+   * If clustering greedily, recomputes redundancy for the given threshold, if
+   * it has changed
+   * 
+   * @param threshold
+   */
+  void updateRedundancy(float threshold)
+  {
+    if (greedyEngine != null && threshold != greedyThreshold)
+    {
+      redundancy = greedyEngine.computeRedundancy(threshold);
+      greedyThreshold = threshold;
+    }
+  }
+
   @Override
   public void applyButton_actionPerformed()
   {
@@ -182,6 +224,7 @@ public class RedundancyPanel extends SliderPanel
     undoButton.setEnabled(true);
 
     float value = slider.getValue();
+    updateRedundancy(value);
     SequenceGroup sg = ap.av.getSelectionGroup();
 
     for (int i = 0; i < redundancy.length; i++)
@@ -236,12 +279,18 @@ public class RedundancyPanel extends SliderPanel
   @Override
   public void undoButton_actionPerformed()
   {
+    if (!ap.av.readUndoData((CommandI) historyList.peek()))
+    {
+      ap.alignFrame.statusBar.setText(
+              MessageManager.getString("label.undo_data_unreadable"));
+      return;
+    }
     CommandI command = (CommandI) historyList.pop();
     command.undoCommand(null);
 
     if (ap.av.getHistoryList().contains(command))
     {
-      ap.av.getHistoryList().remove(command);
+      ap.av.removeFromHistoryList(command);
       ap.alignFrame.updateEditMenuBar();
       ap.av.firePropertyChange("alignment", null,
               ap.av.getAlignment().getSequences());
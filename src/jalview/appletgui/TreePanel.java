@@ -21,7 +21,7 @@
 package jalview.appletgui;
 
 import jalview.analysis.AverageDistanceTree;
-import jalview.analysis.NJTree;
+import jalview.analysis.RapidNJTree;
 import jalview.analysis.TreeBuilder;
 import jalview.analysis.TreeModel;
 import jalview.analysis.scoremodels.ScoreModels;
@@ -195,7 +195,7 @@ public class TreePanel extends EmbmenuFrame
                 treeCanvas.ap);
         ScoreModelI sm = sm1;
         TreeBuilder njtree = type.equals(TreeBuilder.NEIGHBOUR_JOINING)
-                ? new NJTree(av, sm, SimilarityParams.Jalview)
+                ? new RapidNJTree(av, sm, SimilarityParams.Jalview)
                 : new AverageDistanceTree(av, sm, SimilarityParams.Jalview);
         tree = new TreeModel(njtree);
       }
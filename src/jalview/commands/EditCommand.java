@@ -34,7 +34,10 @@ import jalview.util.Comparison;
 import jalview.util.ReverseListIterator;
 import jalview.util.StringUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -121,6 +124,11 @@ public class EditCommand implements CommandI
 
   private List<Edit> edits = new ArrayList<>();
 
+  /*
+   * the manager accounting for undo data, if the command is in undo history
+   */
+  private UndoMemoryManager undoMemory;
+
   String description;
 
   public EditCommand()
@@ -163,8 +171,9 @@ public class EditCommand implements CommandI
    */
   protected void setEdit(Edit e)
   {
-    edits.clear();
+    clearEdits();
     edits.add(e);
+    e.setUndoMemory(undoMemory);
   }
 
   /**
@@ -179,6 +188,7 @@ public class EditCommand implements CommandI
     if (!expandEdit(edits, e))
     {
       edits.add(e);
+      e.setUndoMemory(undoMemory);
     }
   }
 
@@ -260,6 +270,10 @@ public class EditCommand implements CommandI
    */
   protected void clearEdits()
   {
+    for (Edit edit : edits)
+    {
+      edit.setUndoMemory(null);
+    }
     edits.clear();
   }
 
@@ -290,6 +304,64 @@ public class EditCommand implements CommandI
     return edits.size();
   }
 
+  /**
+   * Answers the number of bytes of cut or replaced characters held in memory
+   * to support undo or redo of this command
+   * 
+   * @return
+   */
+  public long getMemorySize()
+  {
+    long size = 0;
+    for (Edit edit : edits)
+    {
+      size += edit.getMemorySize();
+    }
+    return size;
+  }
+
+  /**
+   * Reads back into memory any cut or replaced characters for this command
+   * that have been spilled to file. This should be called before undoing or
+   * redoing the command, so that a read failure leaves the alignment
+   * unchanged.
+   * 
+   * @throws IOException
+   */
+  public void readSpilled() throws IOException
+  {
+    for (Edit edit : edits)
+    {
+      edit.readSpilled();
+    }
+  }
+
+  private void readSpilledUnchecked()
+  {
+    try
+    {
+      readSpilled();
+    } catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Sets the manager which accounts for the memory held by this command's
+   * edits, or null if the command has been discarded from undo history
+   * 
+   * @param manager
+   */
+  void setUndoMemory(UndoMemoryManager manager)
+  {
+    undoMemory = manager;
+    for (Edit edit : edits)
+    {
+      edit.setUndoMemory(manager);
+    }
+  }
+
   /**
    * Return the alignment for the first edit (or null if no edit).
    * 
@@ -300,6 +372,86 @@ public class EditCommand implements CommandI
     return (edits.isEmpty() ? null : edits.get(0).al);
   }
 
+  /**
+   * Answers the range of alignment columns [start, end] (base 0) which may be
+   * changed by performing or undoing this command, or null if there are no
+   * edits. Inserting or deleting in a sequence shifts the rest of it, so the
+   * range extends to the end of the longest sequence edited, or to
+   * Integer.MAX_VALUE if this can't be determined. A gap insertion which is
+   * immediately balanced by a gap deletion in the same sequences (as when
+   * editing with a locked region) only changes the columns between the two.
+   *
+   * @return
+   */
+  public int[] getEditedColumns()
+  {
+    if (edits.isEmpty())
+    {
+      return null;
+    }
+    int start = Integer.MAX_VALUE;
+    int end = -1;
+    int maxLength = 0;
+    int shift = 0;
+    boolean toEnd = false;
+    for (int i = 0; i < edits.size(); i++)
+    {
+      Edit edit = edits.get(i);
+      start = Math.min(start, edit.position);
+      Edit next = i < edits.size() - 1 ? edits.get(i + 1) : null;
+      if (isBalanced(edit, next))
+      {
+        start = Math.min(start, next.position);
+        end = Math.max(end,
+                Math.max(edit.position, next.position) + edit.number - 1);
+        i++;
+      }
+      else if (edit.command == Action.REPLACE)
+      {
+        toEnd = true;
+      }
+      else
+      {
+        /*
+         * sequence lengths may have changed by up to the total number
+         * of positions inserted or deleted since this edit was made
+         */
+        shift += edit.number;
+        for (SequenceI seq : edit.seqs)
+        {
+          if (seq != null)
+          {
+            maxLength = Math.max(maxLength, seq.getLength());
+          }
+        }
+        end = Math.max(end, maxLength + shift - 1);
+      }
+    }
+    return new int[] { start, toEnd ? Integer.MAX_VALUE : end };
+  }
+
+  /**
+   * Answers true if the second edit is a gap insertion or deletion which
+   * reverses the shift in sequence positions made by the first edit, else
+   * false
+   *
+   * @param edit
+   * @param next
+   * @return
+   */
+  private static boolean isBalanced(Edit edit, Edit next)
+  {
+    if (next == null || edit.number != next.number)
+    {
+      return false;
+    }
+    boolean opposite = (edit.command == Action.INSERT_GAP
+            && next.command == Action.DELETE_GAP)
+            || (edit.command == Action.DELETE_GAP
+                    && next.command == Action.INSERT_GAP);
+    return opposite && Arrays.equals(edit.seqs, next.seqs);
+  }
+
   /**
    * append a new editCommand Note. this shouldn't be called if the edit is an
    * operation affects more alignment objects than the one referenced in al (for
@@ -415,18 +567,31 @@ public class EditCommand implements CommandI
     }
   }
 
+  /**
+   * Performs the stored list of commands. Any character data spilled to file
+   * is read back before any sequence is changed.
+   * 
+   * @throws UncheckedIOException
+   *           if spilled data can't be read back
+   */
   @Override
   final public void doCommand(AlignmentI[] views)
   {
+    readSpilledUnchecked();
     performEdit(0, views);
   }
 
   /**
-   * Undo the stored list of commands, in reverse order.
+   * Undo the stored list of commands, in reverse order. Any character data
+   * spilled to file is read back before any sequence is changed.
+   * 
+   * @throws UncheckedIOException
+   *           if spilled data can't be read back
    */
   @Override
   final public void undoCommand(AlignmentI[] views)
   {
+    readSpilledUnchecked();
     ListIterator<Edit> iterator = edits.listIterator(edits.size());
     while (iterator.hasPrevious())
     {
@@ -517,14 +682,14 @@ public class EditCommand implements CommandI
   static void cut(Edit command, AlignmentI[] views)
   {
     boolean seqDeleted = false;
-    command.string = new char[command.seqs.length][];
+    char[][] string = new char[command.seqs.length][];
 
     for (int i = 0; i < command.seqs.length; i++)
     {
       final SequenceI sequence = command.seqs[i];
       if (sequence.getLength() > command.position)
       {
-        command.string[i] = sequence.getSequence(command.position,
+        string[i] = sequence.getSequence(command.position,
                 command.position + command.number);
         SequenceI oldds = sequence.getDatasetSequence();
         ContiguousI cutPositions = sequence.findPositions(
@@ -591,6 +756,7 @@ public class EditCommand implements CommandI
         seqDeleted = true;
       }
     }
+    command.setString(string);
 
     adjustAnnotations(command, false, seqDeleted, views);
   }
@@ -605,6 +771,7 @@ public class EditCommand implements CommandI
   static void paste(Edit command, AlignmentI[] views)
   {
     boolean seqWasDeleted = false;
+    char[][] string = command.getString();
 
     for (int i = 0; i < command.seqs.length; i++)
     {
@@ -645,7 +812,7 @@ public class EditCommand implements CommandI
       int start = 0;
       int length = 0;
 
-      if (command.string != null && command.string[i] != null)
+      if (string != null && string[i] != null)
       {
         if (command.position >= tmp.length())
         {
@@ -658,10 +825,10 @@ public class EditCommand implements CommandI
             len--;
           }
         }
-        tmp.insert(command.position, command.string[i]);
-        for (int s = 0; s < command.string[i].length; s++)
+        tmp.insert(command.position, string[i]);
+        for (int s = 0; s < string[i].length; s++)
         {
-          if (!Comparison.isGap(command.string[i][s]))
+          if (!Comparison.isGap(string[i][s]))
           {
             length++;
             if (!newDSNeeded)
@@ -681,7 +848,6 @@ public class EditCommand implements CommandI
             }
           }
         }
-        command.string[i] = null;
       }
 
       sequence.setSequence(tmp.toString());
@@ -733,7 +899,7 @@ public class EditCommand implements CommandI
     }
     adjustAnnotations(command, true, seqWasDeleted, views);
 
-    command.string = null;
+    command.setString(null);
   }
 
   static void replace(Edit command)
@@ -742,11 +908,12 @@ public class EditCommand implements CommandI
     String oldstring;
     int start = command.position;
     int end = command.number;
+    char[][] string = command.getString();
     // TODO TUTORIAL - Fix for replacement with different length of sequence (or
     // whole sequence)
     // TODO Jalview 2.4 bugfix change to an aggregate command - original
     // sequence string is cut, new string is pasted in.
-    command.number = start + command.string[0].length;
+    command.number = start + string[0].length;
     for (int i = 0; i < command.seqs.length; i++)
     {
       boolean newDSWasNeeded = command.oldds != null
@@ -771,9 +938,9 @@ public class EditCommand implements CommandI
       
       oldstring = command.seqs[i].getSequenceAsString();
       tmp = new StringBuilder(oldstring.substring(0, start));
-      tmp.append(command.string[i]);
+      tmp.append(string[i]);
       String nogaprep = AlignSeq.extractGaps(Comparison.GapChars,
-              new String(command.string[i]));
+              new String(string[i]));
       if (end < oldstring.length())
       {
         tmp.append(oldstring.substring(end));
@@ -783,11 +950,11 @@ public class EditCommand implements CommandI
       Range oldstartend = new Range(command.seqs[i].getStart(),
               command.seqs[i].getEnd());
       command.seqs[i].setSequence(tmp.toString());
-      command.string[i] = oldstring
+      string[i] = oldstring
               .substring(start, Math.min(end, oldstring.length()))
               .toCharArray();
       String nogapold = AlignSeq.extractGaps(Comparison.GapChars,
-              new String(command.string[i]));
+              new String(string[i]));
 
       if (!nogaprep.toLowerCase().equals(nogapold.toLowerCase()))
       {
@@ -910,6 +1077,7 @@ public class EditCommand implements CommandI
       tmp = null;
       oldstring = null;
     }
+    command.setString(string);
   }
 
   final static void adjustAnnotations(Edit command, boolean insert,
@@ -1472,7 +1640,22 @@ public class EditCommand implements CommandI
 
     final private Action command;
 
-    char[][] string;
+    /*
+     * the characters cut or replaced by the edit, delta-encoded, or null;
+     * released to a spill file if the undo history is over its memory budget
+     */
+    private byte[] stringData;
+
+    private UndoSpillFile spillFile;
+
+    private long spillOffset;
+
+    private int spillLength;
+
+    /*
+     * the manager accounting for stringData, if the edit is in undo history
+     */
+    private UndoMemoryManager undoMemory;
 
     SequenceI[] seqs;
 
@@ -1531,11 +1714,151 @@ public class EditCommand implements CommandI
     {
       this(cmd, sqs, pos, count, align);
 
-      string = new char[sqs.length][];
+      char[][] string = new char[sqs.length][];
       for (int i = 0; i < sqs.length; i++)
       {
         string[i] = replace.toCharArray();
       }
+      setString(string);
+    }
+
+    /**
+     * Answers the characters cut or replaced by this edit, one array per
+     * sequence, or null if there are none. If the data has been spilled to
+     * file, it is read back in, and its space in the file freed.
+     * 
+     * @return
+     * @throws UncheckedIOException
+     *           if spilled data can't be read back
+     */
+    char[][] getString()
+    {
+      try
+      {
+        readSpilled();
+      } catch (IOException e)
+      {
+        throw new UncheckedIOException(e);
+      }
+      return stringData == null ? null : EditDelta.decode(stringData);
+    }
+
+    /**
+     * Saves (a compact encoding of) the characters cut or replaced by this
+     * edit
+     * 
+     * @param string
+     */
+    void setString(char[][] string)
+    {
+      releaseSpilled();
+      setStringData(string == null ? null : EditDelta.encode(string));
+    }
+
+    /**
+     * Sets the character data held in memory, and updates the undo memory
+     * manager's account of it
+     * 
+     * @param data
+     */
+    private void setStringData(byte[] data)
+    {
+      int oldSize = getMemorySize();
+      stringData = data;
+      if (undoMemory != null)
+      {
+        undoMemory.memoryChanged(this, oldSize, getMemorySize());
+      }
+    }
+
+    /**
+     * Reads back into memory any character data spilled to file, and frees
+     * its space in the file
+     * 
+     * @throws IOException
+     */
+    void readSpilled() throws IOException
+    {
+      if (spillFile != null)
+      {
+        byte[] data = spillFile.read(spillOffset, spillLength);
+        releaseSpilled();
+        setStringData(data);
+      }
+    }
+
+    /**
+     * Frees the space in the spill file held by this edit's character data (if
+     * any)
+     */
+    private void releaseSpilled()
+    {
+      if (spillFile != null)
+      {
+        spillFile.release(spillOffset);
+        spillFile = null;
+      }
+    }
+
+    /**
+     * Answers the number of bytes of character data held in memory by this
+     * edit
+     * 
+     * @return
+     */
+    int getMemorySize()
+    {
+      return stringData == null ? 0 : stringData.length;
+    }
+
+    /**
+     * Writes this edit's character data to the spill file, and releases it
+     * from memory. Answers the number of bytes released.
+     * 
+     * @param toFile
+     * @return
+     * @throws IOException
+     */
+    int spill(UndoSpillFile toFile) throws IOException
+    {
+      if (stringData == null)
+      {
+        return 0;
+      }
+      int released = stringData.length;
+      spillOffset = toFile.write(stringData);
+      spillLength = released;
+      spillFile = toFile;
+      setStringData(null);
+      return released;
+    }
+
+    /**
+     * Sets the manager which accounts for the memory held by this edit, or
+     * null if the edit has been discarded from undo history (in which case any
+     * data spilled to file is freed)
+     * 
+     * @param manager
+     */
+    void setUndoMemory(UndoMemoryManager manager)
+    {
+      if (manager == undoMemory)
+      {
+        return;
+      }
+      if (undoMemory != null)
+      {
+        undoMemory.memoryChanged(this, getMemorySize(), 0);
+      }
+      undoMemory = manager;
+      if (manager == null)
+      {
+        releaseSpilled();
+      }
+      else
+      {
+        manager.memoryChanged(this, 0, getMemorySize());
+      }
     }
 
     public SequenceI[] getSequences()
@@ -0,0 +1,234 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.commands;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * A compact encoding of the characters removed or replaced by an edit, for
+ * storing in the undo history. Each row (the characters for one sequence) is
+ * delta-encoded against the previous row, as a series of tokens:
+ * <ul>
+ * <li>COPY n - the next n characters are the same as those in the previous
+ * row</li>
+ * <li>RUN n c - the next n characters are all c</li>
+ * <li>WIDE c - a single character which does not fit in a byte</li>
+ * <li>any other byte value - a single character</li>
+ * </ul>
+ * Residue data is mostly single byte characters, and a column cut from an
+ * alignment is often all gaps, or the same in many sequences, so this is
+ * typically much smaller than the char arrays it replaces.
+ */
+public final class EditDelta
+{
+  private static final int COPY = 0;
+
+  private static final int RUN = 1;
+
+  private static final int WIDE = 2;
+
+  /*
+   * shortest runs worth encoding as COPY or RUN tokens
+   */
+  private static final int MIN_COPY = 3;
+
+  private static final int MIN_RUN = 4;
+
+  private EditDelta()
+  {
+    // static methods only
+  }
+
+  /**
+   * Answers the encoding of the given character arrays, which may include
+   * null rows
+   * 
+   * @param rows
+   * @return
+   */
+  public static byte[] encode(char[][] rows)
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeVarInt(out, rows.length);
+    char[] previous = null;
+    for (char[] row : rows)
+    {
+      if (row == null)
+      {
+        writeVarInt(out, 0);
+        continue;
+      }
+      writeVarInt(out, row.length + 1);
+      encodeRow(out, row, previous);
+      previous = row;
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Writes the tokens for one row, delta-encoded against the previous non-null
+   * row (if any)
+   * 
+   * @param out
+   * @param row
+   * @param previous
+   */
+  private static void encodeRow(ByteArrayOutputStream out, char[] row,
+          char[] previous)
+  {
+    int prevLength = previous == null ? 0 : previous.length;
+    int i = 0;
+    while (i < row.length)
+    {
+      int copy = i;
+      while (copy < row.length && copy < prevLength
+              && row[copy] == previous[copy])
+      {
+        copy++;
+      }
+      if (copy - i >= MIN_COPY)
+      {
+        out.write(COPY);
+        writeVarInt(out, copy - i);
+        i = copy;
+        continue;
+      }
+
+      char c = row[i];
+      int run = i + 1;
+      while (run < row.length && row[run] == c)
+      {
+        run++;
+      }
+      if (run - i >= MIN_RUN)
+      {
+        out.write(RUN);
+        writeVarInt(out, run - i);
+        writeVarInt(out, c);
+        i = run;
+        continue;
+      }
+
+      if (c <= WIDE || c > 0xff)
+      {
+        out.write(WIDE);
+        writeVarInt(out, c);
+      }
+      else
+      {
+        out.write(c);
+      }
+      i++;
+    }
+  }
+
+  /**
+   * Answers the character arrays decoded from data written by
+   * {@link #encode(char[][])}
+   * 
+   * @param data
+   * @return
+   */
+  public static char[][] decode(byte[] data)
+  {
+    int[] pos = new int[1];
+    char[][] rows = new char[readVarInt(data, pos)][];
+    char[] previous = null;
+    for (int r = 0; r < rows.length; r++)
+    {
+      int length = readVarInt(data, pos) - 1;
+      if (length < 0)
+      {
+        continue;
+      }
+      char[] row = new char[length];
+      int i = 0;
+      while (i < length)
+      {
+        int token = data[pos[0]++] & 0xff;
+        if (token == COPY)
+        {
+          int n = readVarInt(data, pos);
+          System.arraycopy(previous, i, row, i, n);
+          i += n;
+        }
+        else if (token == RUN)
+        {
+          int n = readVarInt(data, pos);
+          char c = (char) readVarInt(data, pos);
+          Arrays.fill(row, i, i + n, c);
+          i += n;
+        }
+        else if (token == WIDE)
+        {
+          row[i++] = (char) readVarInt(data, pos);
+        }
+        else
+        {
+          row[i++] = (char) token;
+        }
+      }
+      rows[r] = row;
+      previous = row;
+    }
+    return rows;
+  }
+
+  /**
+   * Writes a non-negative int in 7-bit groups, low order first, with the high
+   * bit set on all but the last byte
+   * 
+   * @param out
+   * @param value
+   */
+  private static void writeVarInt(ByteArrayOutputStream out, int value)
+  {
+    while ((value & ~0x7f) != 0)
+    {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /**
+   * Reads an int written by writeVarInt, starting at pos[0], and advances
+   * pos[0] past it
+   * 
+   * @param data
+   * @param pos
+   * @return
+   */
+  private static int readVarInt(byte[] data, int[] pos)
+  {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do
+    {
+      b = data[pos[0]++];
+      value |= (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.commands;
+
+import jalview.commands.EditCommand.Edit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the memory held by undo and redo history within a byte budget. When
+ * the character data stored by edit commands exceeds the limit, the data of
+ * the least recently used edits is spilled to a temporary file, to be read
+ * back in if they are undone or redone.
+ * <p>
+ * Commands are registered with the manager when added to the history or redo
+ * list, and discarded when removed from both. Each edit reports changes to the
+ * data it holds in memory, so that a running total is kept without rescanning
+ * the history.
+ * <p>
+ * One manager is shared by all views that share the same undo and redo
+ * history. The temporary file is deleted when the last of these is closed.
+ */
+public class UndoMemoryManager
+{
+  /**
+   * default limit on undo data held in memory (bytes)
+   */
+  public static final long DEFAULT_LIMIT = 32L * 1024 * 1024;
+
+  private long limit;
+
+  private UndoSpillFile spillFile = new UndoSpillFile();
+
+  /*
+   * edits holding data in memory, least recently changed first
+   */
+  private Set<Edit> inMemory = new LinkedHashSet<>();
+
+  /*
+   * the total bytes of data held by edits in inMemory
+   */
+  private long memoryUsed;
+
+  /*
+   * the number of views sharing this manager
+   */
+  private int viewCount = 1;
+
+  /**
+   * Constructor given the memory limit (in bytes)
+   * 
+   * @param maxBytes
+   */
+  public UndoMemoryManager(long maxBytes)
+  {
+    limit = maxBytes;
+  }
+
+  public long getLimit()
+  {
+    return limit;
+  }
+
+  public void setLimit(long maxBytes)
+  {
+    limit = maxBytes;
+  }
+
+  /**
+   * Answers the total bytes of undo data held in memory by registered commands
+   * 
+   * @return
+   */
+  public synchronized long getMemoryUsed()
+  {
+    return memoryUsed;
+  }
+
+  /**
+   * Answers the number of bytes of undo data held in the spill file
+   * 
+   * @return
+   */
+  public long getSpilledBytes()
+  {
+    return spillFile.getUsedBytes();
+  }
+
+  /**
+   * Registers a command added to the history or redo list, so that the memory
+   * held by its edits is accounted for. Registering a command more than once
+   * has no further effect.
+   * 
+   * @param command
+   */
+  public void addCommand(CommandI command)
+  {
+    if (command instanceof EditCommand)
+    {
+      ((EditCommand) command).setUndoMemory(this);
+    }
+  }
+
+  /**
+   * Unregisters a command which has been removed from both the history and
+   * redo lists, and frees any space it holds in the spill file
+   * 
+   * @param command
+   */
+  public void discardCommand(CommandI command)
+  {
+    if (command instanceof EditCommand)
+    {
+      ((EditCommand) command).setUndoMemory(null);
+    }
+  }
+
+  /**
+   * Called by a registered edit when the data it holds in memory changes size
+   * 
+   * @param edit
+   * @param oldSize
+   * @param newSize
+   */
+  synchronized void memoryChanged(Edit edit, int oldSize, int newSize)
+  {
+    memoryUsed += newSize - oldSize;
+    inMemory.remove(edit);
+    if (newSize > 0)
+    {
+      inMemory.add(edit);
+    }
+  }
+
+  /**
+   * Records that one more view shares this manager
+   */
+  public synchronized void addView()
+  {
+    viewCount++;
+  }
+
+  /**
+   * Records that a view sharing this manager has been closed. When no views
+   * remain, the spill file is closed and deleted.
+   */
+  public synchronized void removeView()
+  {
+    viewCount--;
+    if (viewCount <= 0)
+    {
+      spillFile.close();
+      inMemory.clear();
+      memoryUsed = 0L;
+    }
+  }
+
+  /**
+   * Spills the data of the least recently used edits to file until the memory
+   * held is within the limit. The edits of the most recent command of each
+   * list (the next to be undone or redone) are always kept in memory.
+   * 
+   * @param history
+   *          commands that may be undone, most recent first
+   * @param redo
+   *          commands that may be redone, most recent first
+   */
+  public synchronized void enforceLimit(Deque<CommandI> history,
+          Deque<CommandI> redo)
+  {
+    long excess = memoryUsed - limit;
+    if (excess <= 0)
+    {
+      return;
+    }
+
+    Set<Edit> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+    addEdits(history, keep);
+    addEdits(redo, keep);
+
+    /*
+     * collect edits before spilling, as spilling updates inMemory
+     */
+    List<Edit> toSpill = new ArrayList<>();
+    for (Edit edit : inMemory)
+    {
+      if (excess <= 0)
+      {
+        break;
+      }
+      if (!keep.contains(edit))
+      {
+        toSpill.add(edit);
+        excess -= edit.getMemorySize();
+      }
+    }
+
+    try
+    {
+      for (Edit edit : toSpill)
+      {
+        edit.spill(spillFile);
+      }
+    } catch (IOException e)
+    {
+      /*
+       * leave the data in memory if it can't be written
+       */
+      System.err.println(
+              "Failed to write undo history to file: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Adds the edits of the most recent command in the list (if any) to the set
+   * 
+   * @param commands
+   * @param edits
+   */
+  private static void addEdits(Deque<CommandI> commands, Set<Edit> edits)
+  {
+    CommandI mostRecent = commands == null ? null : commands.peek();
+    if (mostRecent instanceof EditCommand)
+    {
+      edits.addAll(((EditCommand) mostRecent).getEdits());
+    }
+  }
+}
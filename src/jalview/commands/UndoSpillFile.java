@@ -0,0 +1,234 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * A temporary file to which the stored data of older undo history entries is
+ * written, to free memory, and from which it is read back when needed. The
+ * space held by data that is no longer needed is freed for reuse, and the file
+ * is truncated when its end is free. The file is deleted when closed, or on
+ * exit.
+ */
+public class UndoSpillFile
+{
+  private File file;
+
+  private RandomAccessFile raf;
+
+  private long length;
+
+  /*
+   * extents of the file holding data, as offset:length
+   */
+  private TreeMap<Long, Integer> used = new TreeMap<>();
+
+  private long usedBytes;
+
+  /*
+   * extents of the file free for reuse, as offset:length
+   */
+  private TreeMap<Long, Long> free = new TreeMap<>();
+
+  /**
+   * Writes the data to the first free space in the file that will hold it, or
+   * else at the end of the file, creating it if not already done, and answers
+   * the offset at which it was written
+   * 
+   * @param data
+   * @return
+   * @throws IOException
+   */
+  public synchronized long write(byte[] data) throws IOException
+  {
+    if (raf == null)
+    {
+      file = File.createTempFile("jalview_undo", ".tmp");
+      file.deleteOnExit();
+      raf = new RandomAccessFile(file, "rw");
+    }
+    long offset = allocate(data.length);
+    used.put(offset, data.length);
+    usedBytes += data.length;
+    try
+    {
+      raf.seek(offset);
+      raf.write(data);
+    } catch (IOException e)
+    {
+      release(offset);
+      throw e;
+    }
+    return offset;
+  }
+
+  /**
+   * Answers the offset of the first free extent of at least the given size,
+   * or of the end of the file, and marks the space as no longer free
+   * 
+   * @param size
+   * @return
+   */
+  private long allocate(int size)
+  {
+    Iterator<Entry<Long, Long>> extents = free.entrySet().iterator();
+    while (extents.hasNext())
+    {
+      Entry<Long, Long> extent = extents.next();
+      long remaining = extent.getValue() - size;
+      if (remaining >= 0)
+      {
+        long offset = extent.getKey();
+        extents.remove();
+        if (remaining > 0)
+        {
+          free.put(offset + size, remaining);
+        }
+        return offset;
+      }
+    }
+    long offset = length;
+    length += size;
+    return offset;
+  }
+
+  /**
+   * Reads back data written at the given offset
+   * 
+   * @param offset
+   * @param size
+   * @return
+   * @throws IOException
+   */
+  public synchronized byte[] read(long offset, int size) throws IOException
+  {
+    if (raf == null)
+    {
+      throw new IOException("Undo spill file has been closed");
+    }
+    byte[] data = new byte[size];
+    raf.seek(offset);
+    raf.readFully(data);
+    return data;
+  }
+
+  /**
+   * Frees the space held by data written at the given offset, for reuse
+   * 
+   * @param offset
+   */
+  public synchronized void release(long offset)
+  {
+    Integer size = used.remove(offset);
+    if (size == null)
+    {
+      return;
+    }
+    usedBytes -= size;
+
+    /*
+     * merge with any adjacent free extents
+     */
+    long start = offset;
+    long end = offset + size;
+    Entry<Long, Long> before = free.floorEntry(start);
+    if (before != null && before.getKey() + before.getValue() == start)
+    {
+      start = before.getKey();
+      free.remove(start);
+    }
+    Long after = free.remove(end);
+    if (after != null)
+    {
+      end += after;
+    }
+
+    /*
+     * truncate the file if its end is now free
+     */
+    if (end == length)
+    {
+      length = start;
+      try
+      {
+        raf.setLength(length);
+      } catch (IOException e)
+      {
+        // ignore - the space is reused as the file is written
+      }
+    }
+    else
+    {
+      free.put(start, end - start);
+    }
+  }
+
+  /**
+   * Answers the number of bytes of data held in the file (excluding any free
+   * space)
+   * 
+   * @return
+   */
+  public synchronized long getUsedBytes()
+  {
+    return usedBytes;
+  }
+
+  /**
+   * Answers the length of the file, including any free space within it
+   * 
+   * @return
+   */
+  public synchronized long getLength()
+  {
+    return length;
+  }
+
+  /**
+   * Closes and deletes the file. Any data not yet read back is lost.
+   */
+  public synchronized void close()
+  {
+    if (raf != null)
+    {
+      try
+      {
+        raf.close();
+      } catch (IOException e)
+      {
+        // ignore
+      }
+      file.delete();
+      raf = null;
+      file = null;
+    }
+    length = 0;
+    used.clear();
+    usedBytes = 0;
+    free.clear();
+  }
+}
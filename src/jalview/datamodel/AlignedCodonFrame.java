@@ -22,7 +22,12 @@ package jalview.datamodel;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import jalview.util.MapList;
 import jalview.util.MappingUtils;
@@ -246,8 +251,33 @@ public class AlignedCodonFrame
     }
   }
 
+  /*
+   * count of changes to the sequences mapped by any AlignedCodonFrame
+   */
+  private static volatile int modificationCount;
+
   private List<SequenceToSequenceMapping> mappings;
 
+  /*
+   * mappings indexed by the sequences they map from and to, in the order
+   * they were added; built when first needed, and discarded if any mapped
+   * sequence is replaced
+   */
+  private volatile Map<SequenceI, List<SequenceToSequenceMapping>> mappingsBySequence;
+
+  /**
+   * Answers a count of changes made to the sequences mapped by any
+   * AlignedCodonFrame, that is, of mappings added between new pairs of
+   * sequences, or mapped sequences replaced. This may be used to detect when
+   * data derived from the mapped sequences needs to be refreshed.
+   * 
+   * @return
+   */
+  public static int getModificationCount()
+  {
+    return modificationCount;
+  }
+
   /**
    * Constructor
    */
@@ -295,7 +325,7 @@ public class AlignedCodonFrame
      * note that 'adding' a duplicate map does nothing; this protects against
      * creating duplicate mappings in AlignedCodonFrame
      */
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : findMappings(fromSeq, null))
     {
       if (ssm.fromSeq == fromSeq && ssm.mapping.to == toSeq)
       {
@@ -309,7 +339,116 @@ public class AlignedCodonFrame
      */
     Mapping mp = new Mapping(toSeq, map);
     mp.setMappedFromId(mapFromId);
-    mappings.add(new SequenceToSequenceMapping(fromSeq, mp));
+    SequenceToSequenceMapping ssm = new SequenceToSequenceMapping(fromSeq,
+            mp);
+    mappings.add(ssm);
+    if (mappingsBySequence != null)
+    {
+      indexMapping(mappingsBySequence, ssm);
+    }
+    modificationCount++;
+  }
+
+  /**
+   * Answers the mappings which are from or to either of the given sequences
+   * (compared by identity), in the order in which they were added. The second
+   * sequence may be null.
+   * 
+   * @param seq1
+   * @param seq2
+   * @return
+   */
+  protected List<SequenceToSequenceMapping> findMappings(SequenceI seq1,
+          SequenceI seq2)
+  {
+    Map<SequenceI, List<SequenceToSequenceMapping>> index =
+            getMappingsBySequence();
+    List<SequenceToSequenceMapping> found1 = index.get(seq1);
+    List<SequenceToSequenceMapping> found2 = seq2 == null || seq2 == seq1
+            ? null
+            : index.get(seq2);
+    if (found2 == null)
+    {
+      return found1 == null ? Collections.emptyList() : found1;
+    }
+    if (found1 == null)
+    {
+      return found2;
+    }
+
+    /*
+     * mappings involving both sequences; collect them in the order added
+     */
+    Set<SequenceToSequenceMapping> found = Collections
+            .newSetFromMap(new IdentityHashMap<>());
+    found.addAll(found1);
+    found.addAll(found2);
+    List<SequenceToSequenceMapping> result = new ArrayList<>();
+    for (SequenceToSequenceMapping ssm : mappings)
+    {
+      if (found.contains(ssm))
+      {
+        result.add(ssm);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Answers the index of mappings by the sequences they map from and to,
+   * building it if necessary
+   * 
+   * @return
+   */
+  private Map<SequenceI, List<SequenceToSequenceMapping>> getMappingsBySequence()
+  {
+    if (mappingsBySequence == null)
+    {
+      Map<SequenceI, List<SequenceToSequenceMapping>> index = new HashMap<>();
+      for (SequenceToSequenceMapping ssm : mappings)
+      {
+        indexMapping(index, ssm);
+      }
+      mappingsBySequence = index;
+    }
+    return mappingsBySequence;
+  }
+
+  /**
+   * Adds the mapping to the index under its 'from' and 'to' sequences
+   * 
+   * @param index
+   * @param ssm
+   */
+  private static void indexMapping(
+          Map<SequenceI, List<SequenceToSequenceMapping>> index,
+          SequenceToSequenceMapping ssm)
+  {
+    SequenceI[] seqs = new SequenceI[] { ssm.fromSeq, ssm.mapping.to };
+    for (int i = 0; i < seqs.length; i++)
+    {
+      if (seqs[i] == null || (i == 1 && seqs[1] == seqs[0]))
+      {
+        continue;
+      }
+      List<SequenceToSequenceMapping> list = index.get(seqs[i]);
+      if (list == null)
+      {
+        list = new ArrayList<>();
+        index.put(seqs[i], list);
+      }
+      list.add(ssm);
+    }
+  }
+
+  /**
+   * Discards the index of mappings by sequence after a mapped sequence is
+   * replaced
+   */
+  private void mappedSequencesChanged()
+  {
+    mappingsBySequence = null;
+    modificationCount++;
   }
 
   public SequenceI[] getdnaSeqs()
@@ -367,14 +506,8 @@ public class AlignedCodonFrame
     SequenceI seqDs = seq.getDatasetSequence();
     seqDs = seqDs != null ? seqDs : seq;
 
-    for (SequenceToSequenceMapping ssm : mappings)
-    {
-      if (ssm.fromSeq == seqDs || ssm.mapping.to == seqDs)
-      {
-        return ssm.mapping;
-      }
-    }
-    return null;
+    List<SequenceToSequenceMapping> found = findMappings(seqDs, null);
+    return found.isEmpty() ? null : found.get(0).mapping;
   }
 
   /**
@@ -387,7 +520,7 @@ public class AlignedCodonFrame
   public SequenceI getAaForDnaSeq(SequenceI dnaSeqRef)
   {
     SequenceI dnads = dnaSeqRef.getDatasetSequence();
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : findMappings(dnaSeqRef, dnads))
     {
       if (ssm.fromSeq == dnaSeqRef || ssm.fromSeq == dnads)
       {
@@ -408,7 +541,7 @@ public class AlignedCodonFrame
   public SequenceI getDnaForAaSeq(SequenceI aaSeqRef)
   {
     SequenceI aads = aaSeqRef.getDatasetSequence();
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : findMappings(aaSeqRef, aads))
     {
       if (ssm.mapping.to == aaSeqRef || ssm.mapping.to == aads)
       {
@@ -428,7 +561,7 @@ public class AlignedCodonFrame
    */
   public boolean involvesSequence(SequenceI seq)
   {
-    return getAaForDnaSeq(seq) != null || getDnaForAaSeq(seq) != null;
+    return !findMappings(seq, seq.getDatasetSequence()).isEmpty();
   }
 
   /**
@@ -450,7 +583,7 @@ public class AlignedCodonFrame
     {
       ds = seq;
     }
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : findMappings(ds, null))
     {
       ssm.markMappedRegion(ds, index, results);
     }
@@ -477,15 +610,13 @@ public class AlignedCodonFrame
      * Adapted from markMappedRegion().
      */
     MapList ml = null;
-    int i = 0;
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : findMappings(seq, null))
     {
       if (ssm.fromSeq == seq)
       {
-        ml = getdnaToProt()[i];
+        ml = ssm.mapping.map;
         break;
       }
-      i++;
     }
     return ml == null ? null : ml.locateInFrom(aaPos, aaPos);
   }
@@ -516,10 +647,13 @@ public class AlignedCodonFrame
    */
   public SequenceI findAlignedSequence(SequenceI seq, AlignmentI al,List<SequenceToSequenceMapping> map)
   {
+    List<SequenceToSequenceMapping> candidates = findMappings(seq,
+            seq.getDatasetSequence());
+
     /*
      * Search mapped protein ('to') sequences first.
      */
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : candidates)
     {
       int mStart=ssm.getMapping().getMap().getFromLowest(),mEnd=ssm.getMapping().map.getFromHighest();
       if ((ssm.fromSeq == seq || ssm.fromSeq == seq.getDatasetSequence())
@@ -544,7 +678,7 @@ public class AlignedCodonFrame
     /*
      * Then try mapped dna sequences.
      */
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : candidates)
     {
       int mStart=ssm.getMapping().getMap().getToLowest(),mEnd=ssm.getMapping().map.getToHighest();
       if ((ssm.mapping.to == seq
@@ -589,7 +723,7 @@ public class AlignedCodonFrame
     {
       return null;
     }
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : findMappings(targetDs, null))
     {
       /*
        * try mapping from target to query
@@ -635,7 +769,7 @@ public class AlignedCodonFrame
     SequenceI dnaSeq = null;
     List<char[]> result = new ArrayList<>();
 
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : findMappings(protein, null))
     {
       if (ssm.mapping.to == protein
               && ssm.mapping.getMap().getFromRatio() == 3)
@@ -677,7 +811,7 @@ public class AlignedCodonFrame
     SequenceI seqDs = seq.getDatasetSequence();
     seqDs = seqDs != null ? seqDs : seq;
 
-    for (SequenceToSequenceMapping ssm : mappings)
+    for (SequenceToSequenceMapping ssm : findMappings(seqDs, null))
     {
       final Mapping mapping = ssm.mapping;
       if (ssm.fromSeq == seqDs)
@@ -757,6 +891,7 @@ public class AlignedCodonFrame
             ds.setSequenceFeatures(dna.getSequenceFeatures());
             // dnaSeqs[i] = ds;
             ssm.fromSeq = ds;
+            mappedSequencesChanged();
             System.out.println("Realised mapped sequence " + ds.getName());
           }
         }
@@ -779,6 +914,7 @@ public class AlignedCodonFrame
           // might want to copy database refs as well
           ds.setSequenceFeatures(dna.getSequenceFeatures());
           ssm.mapping.setTo(ds);
+          mappedSequencesChanged();
         }
       }
     }
@@ -838,6 +974,7 @@ public class AlignedCodonFrame
       if (ssm.fromSeq == seq)
       {
         ssm.fromSeq = ds;
+        mappedSequencesChanged();
       }
 
       /*
@@ -846,6 +983,7 @@ public class AlignedCodonFrame
       if (ssm.mapping.to == seq)
       {
         ssm.mapping.to = ds;
+        mappedSequencesChanged();
       }
     }
   }
@@ -886,7 +1024,7 @@ public class AlignedCodonFrame
     SequenceI dssTo = toSeq.getDatasetSequence() == null ? toSeq
             : toSeq.getDatasetSequence();
 
-    for (SequenceToSequenceMapping mapping : mappings)
+    for (SequenceToSequenceMapping mapping : findMappings(dssFrom, null))
     {
       SequenceI from = mapping.fromSeq;
       SequenceI to = mapping.mapping.to;
@@ -943,7 +1081,12 @@ public class AlignedCodonFrame
   public SequenceToSequenceMapping getCoveringMapping(SequenceI seq1,
           SequenceI seq2)
   {
-    for (SequenceToSequenceMapping mapping : mappings)
+    if (seq1 == null || seq2 == null)
+    {
+      return null;
+    }
+    for (SequenceToSequenceMapping mapping : findMappings(seq2,
+            seq2.getDatasetSequence()))
     {
       if (mapping.covers(seq2) && mapping.covers(seq1))
       {
@@ -963,7 +1106,12 @@ public class AlignedCodonFrame
    */
   public SequenceToSequenceMapping getCoveringCodonMapping(SequenceI seq)
   {
-    for (SequenceToSequenceMapping mapping : mappings)
+    if (seq == null)
+    {
+      return null;
+    }
+    for (SequenceToSequenceMapping mapping : findMappings(seq,
+            seq.getDatasetSequence()))
     {
       if (mapping.getMapping().getMap().isTripletMap()
               && mapping.covers(seq))
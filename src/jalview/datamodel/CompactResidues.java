@@ -0,0 +1,361 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ *
+ * This file is part of Jalview.
+ *
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Jalview is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.datamodel;
+
+import jalview.util.Comparison;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, memory-compact encoding of an aligned sequence, optimised for
+ * very large alignments. Residues are held one per byte, or two per byte (4
+ * bit codes) if the sequence uses no more than 16 distinct residue symbols
+ * (typically nucleotide). Gaps are not stored per column but as a list of runs
+ * (column, length, gap character), so that a heavily gapped sequence costs
+ * little more than its ungapped residues.
+ * <p>
+ * Instances are created by {@link #encode(char[])}, which answers null if the
+ * sequence cannot be compacted (residue characters outside the 8-bit range).
+ * Edits are made by decoding to a char array, modifying it and re-encoding.
+ *
+ * @see Sequence#setCompactStorage(boolean)
+ */
+public final class CompactResidues
+{
+  /*
+   * maximum number of distinct residue symbols that can be held as 4-bit codes
+   */
+  private static final int MAX_PACKED_SYMBOLS = 16;
+
+  /*
+   * aligned length of the sequence (residues plus gaps)
+   */
+  private final int length;
+
+  /*
+   * ungapped residue count
+   */
+  private final int residueCount;
+
+  /*
+   * residues as 8-bit characters, or as 4-bit indices into 'symbols'
+   * (two to a byte, low nibble first)
+   */
+  private final byte[] residues;
+
+  /*
+   * symbol table for 4-bit codes, or null if residues are held as bytes
+   */
+  private final char[] symbols;
+
+  /*
+   * start column (base 0) of each run of gaps, in ascending order
+   */
+  private final int[] gapStarts;
+
+  /*
+   * the number of gap columns up to and including each gap run
+   */
+  private final int[] gapsTo;
+
+  /*
+   * the gap character for each run
+   */
+  private final byte[] gapChars;
+
+  private CompactResidues(int length, int residueCount, byte[] residues,
+          char[] symbols, int[] gapStarts, int[] gapsTo, byte[] gapChars)
+  {
+    this.length = length;
+    this.residueCount = residueCount;
+    this.residues = residues;
+    this.symbols = symbols;
+    this.gapStarts = gapStarts;
+    this.gapsTo = gapsTo;
+    this.gapChars = gapChars;
+  }
+
+  /**
+   * Answers a compact encoding of the given aligned sequence, or null if it
+   * contains characters that cannot be held in 8 bits
+   *
+   * @param seq
+   * @return
+   */
+  public static CompactResidues encode(char[] seq)
+  {
+    /*
+     * first pass: count gap runs and residues, collect distinct symbols
+     */
+    int runCount = 0;
+    int residueCount = 0;
+    boolean[] seen = new boolean[256];
+    int distinct = 0;
+    char lastGap = 0;
+    for (int i = 0; i < seq.length; i++)
+    {
+      char c = seq[i];
+      if (c > 255)
+      {
+        return null;
+      }
+      if (Comparison.isGap(c))
+      {
+        if (lastGap != c)
+        {
+          runCount++;
+        }
+        lastGap = c;
+      }
+      else
+      {
+        lastGap = 0;
+        residueCount++;
+        if (!seen[c])
+        {
+          seen[c] = true;
+          distinct++;
+        }
+      }
+    }
+
+    char[] symbols = null;
+    byte[] codes = null;
+    if (distinct <= MAX_PACKED_SYMBOLS)
+    {
+      symbols = new char[distinct];
+      codes = new byte[256];
+      int s = 0;
+      for (int c = 0; c < seen.length; c++)
+      {
+        if (seen[c])
+        {
+          codes[c] = (byte) s;
+          symbols[s++] = (char) c;
+        }
+      }
+    }
+
+    /*
+     * second pass: record gap runs and encode residues
+     */
+    byte[] residues = new byte[symbols == null ? residueCount
+            : (residueCount + 1) / 2];
+    int[] gapStarts = new int[runCount];
+    int[] gapsTo = new int[runCount];
+    byte[] gapChars = new byte[runCount];
+    int run = -1;
+    int gapCount = 0;
+    int r = 0;
+    lastGap = 0;
+    for (int i = 0; i < seq.length; i++)
+    {
+      char c = seq[i];
+      if (Comparison.isGap(c))
+      {
+        if (lastGap != c)
+        {
+          run++;
+          gapStarts[run] = i;
+          gapChars[run] = (byte) c;
+        }
+        gapCount++;
+        gapsTo[run] = gapCount;
+        lastGap = c;
+      }
+      else
+      {
+        lastGap = 0;
+        if (symbols == null)
+        {
+          residues[r] = (byte) c;
+        }
+        else if ((r & 1) == 0)
+        {
+          residues[r >> 1] = codes[c];
+        }
+        else
+        {
+          residues[r >> 1] |= codes[c] << 4;
+        }
+        r++;
+      }
+    }
+
+    return new CompactResidues(seq.length, residueCount, residues, symbols,
+            gapStarts, gapsTo, gapChars);
+  }
+
+  /**
+   * Answers the aligned length of the sequence
+   *
+   * @return
+   */
+  public int getLength()
+  {
+    return length;
+  }
+
+  /**
+   * Answers the number of (ungapped) residues in the sequence
+   *
+   * @return
+   */
+  public int getResidueCount()
+  {
+    return residueCount;
+  }
+
+  /**
+   * Answers the character at the given column (base 0). The caller should
+   * ensure that 0 <= column < getLength().
+   *
+   * @param column
+   * @return
+   */
+  public char charAt(int column)
+  {
+    int run = findGapRun(column);
+    if (run >= 0 && column < gapStarts[run] + runLength(run))
+    {
+      return (char) (gapChars[run] & 0xff);
+    }
+    int gapsBefore = run < 0 ? 0 : gapsTo[run];
+    return residueAt(column - gapsBefore);
+  }
+
+  /**
+   * Answers the decoded sequence as a new char array
+   *
+   * @return
+   */
+  public char[] toCharArray()
+  {
+    return getChars(0, length);
+  }
+
+  /**
+   * Answers a new char array holding the decoded columns from start
+   * (inclusive) to end (exclusive), base 0. The caller should ensure that 0 <=
+   * start <= end <= getLength().
+   *
+   * @param start
+   * @param end
+   * @return
+   */
+  public char[] getChars(int start, int end)
+  {
+    char[] result = new char[end - start];
+    int column = start;
+    int run = findGapRun(start);
+    int residue;
+    if (run < 0)
+    {
+      residue = start;
+      run = 0;
+    }
+    else if (start >= gapStarts[run] + runLength(run))
+    {
+      residue = start - gapsTo[run];
+      run++;
+    }
+    else
+    {
+      /*
+       * start column is within a gap run
+       */
+      residue = gapStarts[run] - (gapsTo[run] - runLength(run));
+    }
+
+    /*
+     * copy residues up to the next gap run, then the gap run, and so on
+     */
+    while (column < end)
+    {
+      int nextGap = run < gapStarts.length ? gapStarts[run] : length;
+      while (column < end && column < nextGap)
+      {
+        result[column++ - start] = residueAt(residue++);
+      }
+      if (column < end)
+      {
+        int gapEnd = Math.min(end, nextGap + runLength(run));
+        char gap = (char) (gapChars[run] & 0xff);
+        Arrays.fill(result, column - start, gapEnd - start, gap);
+        column = gapEnd;
+        run++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Answers an estimate of the heap bytes used by this object's arrays
+   *
+   * @return
+   */
+  public long getSizeInBytes()
+  {
+    return residues.length + 9L * gapStarts.length
+            + (symbols == null ? 0 : 2 * symbols.length);
+  }
+
+  /**
+   * Answers the ungapped residue at the given index (base 0)
+   *
+   * @param i
+   * @return
+   */
+  private char residueAt(int i)
+  {
+    if (symbols == null)
+    {
+      return (char) (residues[i] & 0xff);
+    }
+    int code = residues[i >> 1];
+    code = (i & 1) == 0 ? code & 0xf : (code >> 4) & 0xf;
+    return symbols[code];
+  }
+
+  /**
+   * Answers the length of the given gap run
+   *
+   * @param run
+   * @return
+   */
+  private int runLength(int run)
+  {
+    return run == 0 ? gapsTo[0] : gapsTo[run] - gapsTo[run - 1];
+  }
+
+  /**
+   * Answers the index of the last gap run starting at or before the given
+   * column, or -1 if there is none
+   *
+   * @param column
+   * @return
+   */
+  private int findGapRun(int column)
+  {
+    int i = Arrays.binarySearch(gapStarts, column);
+    return i >= 0 ? i : -i - 2;
+  }
+}
@@ -66,7 +66,11 @@ public class HiddenColumns
 {
   private static final int HASH_MULTIPLIER = 31;
 
-  private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+  /*
+   * lock guarding this instance's hidden columns; each instance has its own
+   * lock so that different alignment views do not block each other
+   */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
   /*
    * Cursor which tracks the last used hidden columns region, and the number 
@@ -123,7 +127,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.writeLock().lock();
+      lock.writeLock().lock();
       if (copy != null)
       {
         numColumns = 0;
@@ -145,7 +149,7 @@ public class HiddenColumns
       }
     } finally
     {
-      LOCK.writeLock().unlock();
+      lock.writeLock().unlock();
     }
   }
 
@@ -161,7 +165,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.writeLock().lock();
+      lock.writeLock().lock();
 
       int previndex = 0;
       int prevHiddenCount = 0;
@@ -213,7 +217,7 @@ public class HiddenColumns
               prevHiddenCount);
     } finally
     {
-      LOCK.writeLock().unlock();
+      lock.writeLock().unlock();
     }
   }
 
@@ -321,7 +325,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.writeLock().lock();
+      lock.writeLock().lock();
       for (int[] r : ranges)
       {
         hideColumns(r[0], r[1]);
@@ -330,7 +334,7 @@ public class HiddenColumns
 
     } finally
     {
-      LOCK.writeLock().unlock();
+      lock.writeLock().unlock();
     }
   }
 
@@ -341,7 +345,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.writeLock().lock();
+      lock.writeLock().lock();
 
       for (int[] region : hiddenColumns)
       {
@@ -356,7 +360,7 @@ public class HiddenColumns
 
     } finally
     {
-      LOCK.writeLock().unlock();
+      lock.writeLock().unlock();
     }
   }
 
@@ -373,7 +377,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.writeLock().lock();
+      lock.writeLock().lock();
 
       if (!hiddenColumns.isEmpty())
       {
@@ -399,7 +403,7 @@ public class HiddenColumns
       }
     } finally
     {
-      LOCK.writeLock().unlock();
+      lock.writeLock().unlock();
     }
   }
 
@@ -417,7 +421,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       StringBuilder regionBuilder = new StringBuilder();
 
       boolean first = true;
@@ -438,7 +442,7 @@ public class HiddenColumns
       return regionBuilder.toString();
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -461,11 +465,11 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       return hiddenColumns.size();
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -476,40 +480,26 @@ public class HiddenColumns
   @Override
   public boolean equals(Object obj)
   {
-    try
+    if (!(obj instanceof HiddenColumns))
     {
-      LOCK.readLock().lock();
-
-      if (!(obj instanceof HiddenColumns))
-      {
-        return false;
-      }
-      HiddenColumns that = (HiddenColumns) obj;
-
-      /*
-       * check hidden columns are either both null, or match
-       */
+      return false;
+    }
+    HiddenColumns that = (HiddenColumns) obj;
 
-      if (that.hiddenColumns.size() != this.hiddenColumns.size())
+    /*
+     * compare copies of the hidden ranges (taken under each instance's
+     * own lock) so as never to hold both locks at once
+     */
+    Iterator<int[]> it = this.iterator();
+    Iterator<int[]> thatit = that.iterator();
+    while (it.hasNext())
+    {
+      if (!thatit.hasNext() || !Arrays.equals(it.next(), thatit.next()))
       {
         return false;
       }
-
-      Iterator<int[]> it = this.iterator();
-      Iterator<int[]> thatit = that.iterator();
-      while (it.hasNext())
-      {
-        if (!(Arrays.equals(it.next(), thatit.next())))
-        {
-          return false;
-        }
-      }
-      return true;
-
-    } finally
-    {
-      LOCK.readLock().unlock();
     }
+    return !thatit.hasNext();
   }
 
   /**
@@ -523,7 +513,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       int result = column;
 
       if (!hiddenColumns.isEmpty())
@@ -535,7 +525,7 @@ public class HiddenColumns
       return result;
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -553,7 +543,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       int result = hiddenColumn;
 
       if (!hiddenColumns.isEmpty())
@@ -592,7 +582,7 @@ public class HiddenColumns
                      // columns.
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -614,13 +604,13 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       int start = absoluteToVisibleColumn(startColumn);
       return visibleToAbsoluteColumn(start + visibleDistance);
 
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -638,7 +628,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       if (!hiddenColumns.isEmpty())
       {
         int index = cursor.findRegionForColumn(alPos, false)
@@ -669,7 +659,7 @@ public class HiddenColumns
       return alPos;
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -684,7 +674,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
 
       if (!hiddenColumns.isEmpty())
       {
@@ -705,7 +695,7 @@ public class HiddenColumns
 
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -717,14 +707,14 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
 
       // we don't use getSize()>0 here because it has to iterate over
       // the full hiddenColumns collection and so will be much slower
       return (!hiddenColumns.isEmpty());
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -736,11 +726,11 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       return !hiddenColumns.isEmpty() && hiddenColumns.size() > 1;
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -753,7 +743,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       int hashCode = 1;
 
       for (int[] hidden : hiddenColumns)
@@ -764,7 +754,7 @@ public class HiddenColumns
       return hashCode;
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -794,7 +784,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.writeLock().lock();
+      lock.writeLock().lock();
       for (int firstSet = tohide
               .nextSetBit(start), lastSet = start; firstSet >= start
                       && lastSet <= end; firstSet = tohide
@@ -813,7 +803,7 @@ public class HiddenColumns
       cursor = new HiddenColumnsCursor(hiddenColumns);
     } finally
     {
-      LOCK.writeLock().unlock();
+      lock.writeLock().unlock();
     }
   }
 
@@ -847,7 +837,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.writeLock().lock();
+      lock.writeLock().lock();
       
       if (!hiddenColumns.isEmpty())
       {
@@ -894,7 +884,7 @@ public class HiddenColumns
       }
     } finally
     {
-      LOCK.writeLock().unlock();
+      lock.writeLock().unlock();
     }
   }
 
@@ -907,7 +897,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.writeLock().lock();
+      lock.writeLock().lock();
 
       BitSet hiddenBitSet = new BitSet();
       for (int[] range : hiddenColumns)
@@ -919,7 +909,7 @@ public class HiddenColumns
       hideColumns(hiddenBitSet);
     } finally
     {
-      LOCK.writeLock().unlock();
+      lock.writeLock().unlock();
     }
   }
 
@@ -934,7 +924,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
 
       int firstVisible = 0;
       int lastVisible = width - 1;
@@ -958,7 +948,7 @@ public class HiddenColumns
 
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -974,7 +964,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       int adjres = visibleToAbsoluteColumn(res);
 
       int[] reveal = null;
@@ -1000,7 +990,7 @@ public class HiddenColumns
 
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -1011,11 +1001,11 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       return new RangeIterator(hiddenColumns);
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -1032,11 +1022,11 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       return new RangeIterator(start, end, hiddenColumns);
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -1053,7 +1043,7 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
 
       // get absolute position of column in alignment
       int absoluteStart = visibleToAbsoluteColumn(start);
@@ -1070,7 +1060,7 @@ public class HiddenColumns
               hiddenColumns);
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -1087,12 +1077,12 @@ public class HiddenColumns
   {
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       return new RangeElementsIterator(
               new VisibleContigsIterator(start, end + 1, hiddenColumns));
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -1122,11 +1112,11 @@ public class HiddenColumns
 
     try
     {
-      LOCK.readLock().lock();
+      lock.readLock().lock();
       return new VisibleContigsIterator(adjstart, adjend, hiddenColumns);
     } finally
     {
-      LOCK.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 }
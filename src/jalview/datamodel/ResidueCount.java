@@ -25,6 +25,8 @@ import jalview.util.Format;
 import jalview.util.QuickSort;
 import jalview.util.SparseCount;
 
+import java.util.Arrays;
+
 /**
  * A class to count occurrences of residues in a profile, optimised for speed
  * and memory footprint.
@@ -385,6 +387,26 @@ public class ResidueCount
     }
   }
 
+  /**
+   * Resets all counts to zero, so that this object may be reused to count
+   * another column
+   */
+  public void clear()
+  {
+    if (useIntCounts)
+    {
+      counts = new short[intCounts.length];
+      intCounts = null;
+      useIntCounts = false;
+    }
+    else
+    {
+      Arrays.fill(counts, (short) 0);
+    }
+    otherData = null;
+    maxCount = 0;
+  }
+
   /**
    * Returns the count for the given character, or zero if no count held
    * 
@@ -43,7 +43,8 @@ import fr.orsay.lri.varna.models.rna.RNA;
 
 /**
  * 
- * Implements the SequenceI interface for a char[] based sequence object
+ * Implements the SequenceI interface for a char[] based sequence object, with
+ * optional compact (byte-encoded) residue storage
  */
 public class Sequence extends ASequence implements SequenceI
 {
@@ -51,8 +52,21 @@ public class Sequence extends ASequence implements SequenceI
 
   String name;
 
+  /*
+   * the aligned sequence characters, or null if held in compact form
+   */
   private char[] sequence;
 
+  /*
+   * the aligned sequence in compact encoding, if compact storage is enabled
+   */
+  private CompactResidues compactSequence;
+
+  /*
+   * if true, residues are held as a CompactResidues encoding where possible
+   */
+  private boolean compactStorage;
+
   String description;
 
   int start;
@@ -130,7 +144,7 @@ public class Sequence extends ASequence implements SequenceI
           int end2)
   {
     this.name = name2;
-    this.sequence = sequence2;
+    setResidueArray(sequence2);
     this.start = start2;
     this.end = end2;
     parseId();
@@ -186,9 +200,10 @@ public class Sequence extends ASequence implements SequenceI
     // http://issues.jalview.org/browse/JAL-774?focusedCommentId=11239&page=com.atlassian.jira.plugin.system.issuetabpanels:comment-tabpanel#comment-11239
     {
       int endRes = 0;
-      for (int j = 0; j < sequence.length; j++)
+      char[] chars = getResidueArray();
+      for (int j = 0; j < chars.length; j++)
       {
-        if (!Comparison.isGap(sequence[j]))
+        if (!Comparison.isGap(chars[j]))
         {
           endRes++;
         }
@@ -271,6 +286,10 @@ public class Sequence extends ASequence implements SequenceI
           AlignmentAnnotation[] alAnnotation)
   {
     char[] oseq = seq.getSequence(); // returns a copy of the array
+    if (seq instanceof Sequence)
+    {
+      compactStorage = ((Sequence) seq).isCompactStorage();
+    }
     initSeqAndName(seq.getName(), oseq, seq.getStart(), seq.getEnd());
 
     description = seq.getDescription();
@@ -542,7 +561,7 @@ public class Sequence extends ASequence implements SequenceI
   @Override
   public int getLength()
   {
-    return this.sequence.length;
+    return sequence == null ? compactSequence.getLength() : sequence.length;
   }
 
   /**
@@ -554,7 +573,7 @@ public class Sequence extends ASequence implements SequenceI
   @Override
   public void setSequence(String seq)
   {
-    this.sequence = seq.toCharArray();
+    setResidueArray(seq.toCharArray());
     checkValidRange();
     sequenceChanged();
   }
@@ -562,7 +581,7 @@ public class Sequence extends ASequence implements SequenceI
   @Override
   public String getSequenceAsString()
   {
-    return new String(sequence);
+    return new String(getResidueArray());
   }
 
   @Override
@@ -575,8 +594,11 @@ public class Sequence extends ASequence implements SequenceI
   public char[] getSequence()
   {
     // return sequence;
-    return sequence == null ? null : Arrays.copyOf(sequence,
-            sequence.length);
+    if (sequence == null)
+    {
+      return compactSequence == null ? null : compactSequence.toCharArray();
+    }
+    return Arrays.copyOf(sequence, sequence.length);
   }
 
   /*
@@ -593,16 +615,21 @@ public class Sequence extends ASequence implements SequenceI
     }
     // JBPNote - left to user to pad the result here (TODO:Decide on this
     // policy)
-    if (start >= sequence.length)
+    int length = getLength();
+    if (start >= length)
     {
       return new char[0];
     }
 
-    if (end >= sequence.length)
+    if (end >= length)
     {
-      end = sequence.length;
+      end = length;
     }
 
+    if (sequence == null)
+    {
+      return compactSequence.getChars(start, end);
+    }
     char[] reply = new char[end - start];
     System.arraycopy(sequence, start, reply, 0, end - start);
 
@@ -646,9 +673,9 @@ public class Sequence extends ASequence implements SequenceI
   @Override
   public char getCharAt(int i)
   {
-    if (i >= 0 && i < sequence.length)
+    if (i >= 0 && i < getLength())
     {
-      return sequence[i];
+      return sequence == null ? compactSequence.charAt(i) : sequence[i];
     }
     else
     {
@@ -726,14 +753,15 @@ public class Sequence extends ASequence implements SequenceI
     int j = start;
     int i = 0;
     int startColumn = 0;
+    char[] chars = getResidueArray();
 
     /*
      * traverse sequence from the start counting gaps; make a note of
      * the column of the first residue to save in the cursor
      */
-    while ((i < sequence.length) && (j <= end) && (j <= pos))
+    while ((i < chars.length) && (j <= end) && (j <= pos))
     {
-      if (!Comparison.isGap(sequence[i]))
+      if (!Comparison.isGap(chars[i]))
       {
         if (j == start)
         {
@@ -809,6 +837,7 @@ public class Sequence extends ASequence implements SequenceI
     int col = curs.columnPosition - 1; // convert from base 1 to base 0
     int newPos = curs.residuePosition;
     int delta = newPos > pos ? -1 : 1;
+    int length = getLength();
 
     while (newPos != pos)
     {
@@ -817,12 +846,12 @@ public class Sequence extends ASequence implements SequenceI
       {
         break;
       }
-      if (col == sequence.length)
+      if (col == length)
       {
         col--; // return last column if we failed to reach pos
         break;
       }
-      if (!Comparison.isGap(sequence[col]))
+      if (!Comparison.isGap(getCharAt(col)))
       {
         newPos += delta;
       }
@@ -865,9 +894,10 @@ public class Sequence extends ASequence implements SequenceI
     int firstResidueColumn = 0;
     int lastPosFound = 0;
     int lastPosFoundColumn = 0;
-    int seqlen = sequence.length;
+    char[] chars = getResidueArray();
+    int seqlen = chars.length;
 
-    if (seqlen > 0 && !Comparison.isGap(sequence[0]))
+    if (seqlen > 0 && !Comparison.isGap(chars[0]))
     {
       lastPosFound = start;
       lastPosFoundColumn = 0;
@@ -878,7 +908,7 @@ public class Sequence extends ASequence implements SequenceI
 
     while (j < column && j < seqlen)
     {
-      if (!Comparison.isGap(sequence[j]))
+      if (!Comparison.isGap(chars[j]))
       {
         lastPosFound = pos;
         lastPosFoundColumn = j;
@@ -890,7 +920,7 @@ public class Sequence extends ASequence implements SequenceI
       }
       j++;
     }
-    if (j < seqlen && !Comparison.isGap(sequence[j]))
+    if (j < seqlen && !Comparison.isGap(chars[j]))
     {
       lastPosFound = pos;
       lastPosFoundColumn = j;
@@ -931,7 +961,7 @@ public class Sequence extends ASequence implements SequenceI
     /*
      * sanity check against range
      */
-    if (curs.columnPosition < 0 || curs.columnPosition > sequence.length)
+    if (curs.columnPosition < 0 || curs.columnPosition > getLength())
     {
       return false;
     }
@@ -998,15 +1028,16 @@ public class Sequence extends ASequence implements SequenceI
     boolean gapped = false;
     int lastFoundPosition = curs.residuePosition;
     int lastFoundPositionColumn = curs.columnPosition;
+    int length = getLength();
 
     while (column != col - 1)
     {
       column += delta; // shift one column left or right
-      if (column < 0 || column == sequence.length)
+      if (column < 0 || column == length)
       {
         break;
       }
-      gapped = Comparison.isGap(sequence[column]);
+      gapped = Comparison.isGap(getCharAt(column));
       if (!gapped)
       {
         newPos += delta;
@@ -1029,7 +1060,7 @@ public class Sequence extends ASequence implements SequenceI
      * hack to give position to the right if on a gap
      * or beyond the length of the sequence (see JAL-2562)
      */
-    if (delta > 0 && (gapped || column >= sequence.length))
+    if (delta > 0 && (gapped || column >= length))
     {
       newPos++;
     }
@@ -1053,10 +1084,10 @@ public class Sequence extends ASequence implements SequenceI
      */
     int firstPosition = 0;
     int col = fromColumn - 1;
-    int length = sequence.length;
+    int length = getLength();
     while (col < length && col < toColumn)
     {
-      if (!Comparison.isGap(sequence[col]))
+      if (!Comparison.isGap(getCharAt(col)))
       {
         firstPosition = findPosition(col++);
         break;
@@ -1075,7 +1106,7 @@ public class Sequence extends ASequence implements SequenceI
     int lastPosition = firstPosition;
     while (col < length && col < toColumn)
     {
-      if (!Comparison.isGap(sequence[col++]))
+      if (!Comparison.isGap(getCharAt(col++)))
       {
         lastPosition++;
       }
@@ -1094,15 +1125,16 @@ public class Sequence extends ASequence implements SequenceI
   @Override
   public int[] gapMap()
   {
+    char[] chars = getResidueArray();
     String seq = jalview.analysis.AlignSeq.extractGaps(
-            jalview.util.Comparison.GapChars, new String(sequence));
+            jalview.util.Comparison.GapChars, new String(chars));
     int[] map = new int[seq.length()];
     int j = 0;
     int p = 0;
 
-    while (j < sequence.length)
+    while (j < chars.length)
     {
-      if (!jalview.util.Comparison.isGap(sequence[j]))
+      if (!jalview.util.Comparison.isGap(chars[j]))
       {
         map[p++] = j;
       }
@@ -1121,11 +1153,12 @@ public class Sequence extends ASequence implements SequenceI
   @Override
   public BitSet gapBitset()
   {
-    BitSet gaps = new BitSet(sequence.length);
+    char[] chars = getResidueArray();
+    BitSet gaps = new BitSet(chars.length);
     int j = 0;
-    while (j < sequence.length)
+    while (j < chars.length)
     {
-      if (jalview.util.Comparison.isGap(sequence[j]))
+      if (jalview.util.Comparison.isGap(chars[j]))
       {
         gaps.set(j);
       }
@@ -1137,14 +1170,15 @@ public class Sequence extends ASequence implements SequenceI
   @Override
   public int[] findPositionMap()
   {
-    int map[] = new int[sequence.length];
+    char[] chars = getResidueArray();
+    int map[] = new int[chars.length];
     int j = 0;
     int pos = start;
-    int seqlen = sequence.length;
+    int seqlen = chars.length;
     while ((j < seqlen))
     {
       map[j] = pos;
-      if (!jalview.util.Comparison.isGap(sequence[j]))
+      if (!jalview.util.Comparison.isGap(chars[j]))
       {
         pos++;
       }
@@ -1160,10 +1194,11 @@ public class Sequence extends ASequence implements SequenceI
     ArrayList<int[]> map = new ArrayList<>();
     int lastj = -1, j = 0;
     int pos = start;
-    int seqlen = sequence.length;
+    char[] chars = getResidueArray();
+    int seqlen = chars.length;
     while ((j < seqlen))
     {
-      if (jalview.util.Comparison.isGap(sequence[j]))
+      if (jalview.util.Comparison.isGap(chars[j]))
       {
         if (lastj == -1)
         {
@@ -1194,10 +1229,11 @@ public class Sequence extends ASequence implements SequenceI
     BitSet map = new BitSet();
     int lastj = -1, j = 0;
     int pos = start;
-    int seqlen = sequence.length;
+    char[] chars = getResidueArray();
+    int seqlen = chars.length;
     while ((j < seqlen))
     {
-      if (jalview.util.Comparison.isGap(sequence[j]))
+      if (jalview.util.Comparison.isGap(chars[j]))
       {
         if (lastj == -1)
         {
@@ -1226,12 +1262,13 @@ public class Sequence extends ASequence implements SequenceI
   public void deleteChars(final int i, final int j)
   {
     int newstart = start, newend = end;
-    if (i >= sequence.length || i < 0)
+    char[] chars = getResidueArray();
+    if (i >= chars.length || i < 0)
     {
       return;
     }
 
-    char[] tmp = StringUtils.deleteChars(sequence, i, j);
+    char[] tmp = StringUtils.deleteChars(chars, i, j);
     boolean createNewDs = false;
     // TODO: take a (second look) at the dataset creation validation method for
     // the very large sequence case
@@ -1241,9 +1278,9 @@ public class Sequence extends ASequence implements SequenceI
     int startDeleteColumn = -1; // for dataset sequence deletions
     int deleteCount = 0;
 
-    for (int s = i; s < j && s < sequence.length; s++)
+    for (int s = i; s < j && s < chars.length; s++)
     {
-      if (Comparison.isGap(sequence[s]))
+      if (Comparison.isGap(chars[s]))
       {
         continue;
       }
@@ -1278,7 +1315,7 @@ public class Sequence extends ASequence implements SequenceI
              * gapped since findPosition returns the next sequence position
              */
             newend = findPosition(i - 1);
-            if (Comparison.isGap(sequence[i - 1]))
+            if (Comparison.isGap(chars[i - 1]))
             {
               newend--;
             }
@@ -1308,23 +1345,24 @@ public class Sequence extends ASequence implements SequenceI
     }
     start = newstart;
     end = newend;
-    sequence = tmp;
+    setResidueArray(tmp);
     sequenceChanged();
   }
 
   @Override
   public void insertCharAt(int i, int length, char c)
   {
-    char[] tmp = new char[sequence.length + length];
+    char[] chars = getResidueArray();
+    char[] tmp = new char[chars.length + length];
 
-    if (i >= sequence.length)
+    if (i >= chars.length)
     {
-      System.arraycopy(sequence, 0, tmp, 0, sequence.length);
-      i = sequence.length;
+      System.arraycopy(chars, 0, tmp, 0, chars.length);
+      i = chars.length;
     }
     else
     {
-      System.arraycopy(sequence, 0, tmp, 0, i);
+      System.arraycopy(chars, 0, tmp, 0, i);
     }
 
     int index = i;
@@ -1334,12 +1372,12 @@ public class Sequence extends ASequence implements SequenceI
       length--;
     }
 
-    if (i < sequence.length)
+    if (i < chars.length)
     {
-      System.arraycopy(sequence, i, tmp, index, sequence.length - i);
+      System.arraycopy(chars, i, tmp, index, chars.length - i);
     }
 
-    sequence = tmp;
+    setResidueArray(tmp);
     sequenceChanged();
   }
 
@@ -1501,9 +1539,10 @@ public class Sequence extends ASequence implements SequenceI
     {
       return false;
     }
-    for (int i = 0; i < sequence.length; i++)
+    char[] chars = getResidueArray();
+    for (int i = 0; i < chars.length; i++)
     {
-      if (jalview.util.Comparison.isGap(sequence[i]))
+      if (jalview.util.Comparison.isGap(chars[i]))
       {
         return false;
       }
@@ -1549,9 +1588,13 @@ public class Sequence extends ASequence implements SequenceI
     {
       return datasetSequence.isProtein();
     }
-    if (_seqhash != sequence.hashCode())
+    /*
+     * identity hash of the residue store changes whenever it is replaced
+     */
+    Object store = sequence == null ? compactSequence : sequence;
+    if (_seqhash != store.hashCode())
     {
-      _seqhash = sequence.hashCode();
+      _seqhash = store.hashCode();
       _isNa = Comparison.isNucleotide(this);
     }
     return !_isNa;
@@ -1892,8 +1935,8 @@ public class Sequence extends ASequence implements SequenceI
      * and we may have included adjacent or enclosing features;
      * remove any that are not enclosing, non-contact features
      */
-    boolean endColumnIsGapped = toColumn > 0 && toColumn <= sequence.length
-            && Comparison.isGap(sequence[toColumn - 1]);
+    boolean endColumnIsGapped = toColumn > 0 && toColumn <= getLength()
+            && Comparison.isGap(getCharAt(toColumn - 1));
     if (endPos > this.end || endColumnIsGapped)
     {
       ListIterator<SequenceFeature> it = result.listIterator();
@@ -1939,6 +1982,15 @@ public class Sequence extends ASequence implements SequenceI
     changeCount++;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getChangeCount()
+  {
+    return changeCount;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -1950,19 +2002,21 @@ public class Sequence extends ASequence implements SequenceI
       return 0;
     }
     int count = 0;
-    synchronized (sequence)
+    char[] chars = getResidueArray();
+    synchronized (chars)
     {
-      for (int c = 0; c < sequence.length; c++)
+      for (int c = 0; c < chars.length; c++)
       {
-        if (sequence[c] == c1)
+        if (chars[c] == c1)
         {
-          sequence[c] = c2;
+          chars[c] = c2;
           count++;
         }
       }
     }
     if (count > 0)
     {
+      setResidueArray(chars);
       sequenceChanged();
     }
 
@@ -2037,4 +2091,69 @@ public class Sequence extends ASequence implements SequenceI
     // otherwise, sequence was completely hidden
     return 0;
   }
+
+  /**
+   * Answers the aligned sequence as a char array. If using compact storage,
+   * this is a newly decoded copy; otherwise it is the backing array itself,
+   * so callers must not modify it except as part of an edit that ends in a
+   * call to <code>setResidueArray</code>.
+   * 
+   * @return
+   */
+  private char[] getResidueArray()
+  {
+    return sequence == null ? compactSequence.toCharArray() : sequence;
+  }
+
+  /**
+   * Sets the aligned sequence, encoding it in compact form if compact storage
+   * is enabled and the characters are all encodable
+   * 
+   * @param chars
+   */
+  private void setResidueArray(char[] chars)
+  {
+    if (compactStorage)
+    {
+      CompactResidues compact = CompactResidues.encode(chars);
+      if (compact != null)
+      {
+        compactSequence = compact;
+        sequence = null;
+        return;
+      }
+    }
+    sequence = chars;
+    compactSequence = null;
+  }
+
+  /**
+   * Switches between storing residues as a char array (the default), and a
+   * compact encoding of one byte per residue (or 4 bits for sequences with a
+   * small alphabet, e.g. nucleotide), with gaps held as runs. Compact storage
+   * substantially reduces memory for large alignments, at the cost of some
+   * speed when the sequence is edited or scanned in full.
+   * 
+   * @param compact
+   */
+  public void setCompactStorage(boolean compact)
+  {
+    if (compact == compactStorage)
+    {
+      return;
+    }
+    char[] chars = getResidueArray();
+    compactStorage = compact;
+    setResidueArray(chars);
+  }
+
+  /**
+   * Answers true if this sequence is set to use compact residue storage
+   * 
+   * @return
+   */
+  public boolean isCompactStorage()
+  {
+    return compactStorage;
+  }
 }
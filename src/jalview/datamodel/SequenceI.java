@@ -522,6 +522,14 @@ public interface SequenceI extends ASequenceI
    * positions to be invalidated.
    */
   void sequenceChanged();
+
+  /**
+   * Answers a count of the changes notified by sequenceChanged(), so that
+   * callers holding derived data can detect that it may be stale
+   * 
+   * @return
+   */
+  int getChangeCount();
   
   /**
    * 
@@ -43,7 +43,9 @@ public class FeatureAttributes
 
   /*
    * map, by feature type, of a map, by attribute name, of
-   * attribute description and min-max range (if known)
+   * attribute description and min-max range (if known);
+   * all access is synchronized as features may be added
+   * from more than one thread (e.g. when loading VCF)
    */
   private Map<String, Map<String[], AttributeData>> attributes;
 
@@ -216,7 +218,7 @@ public class FeatureAttributes
    * @param featureType
    * @return
    */
-  public List<String[]> getAttributes(String featureType)
+  public synchronized List<String[]> getAttributes(String featureType)
   {
     if (!attributes.containsKey(featureType))
     {
@@ -233,7 +235,7 @@ public class FeatureAttributes
    * @param featureType
    * @return
    */
-  public boolean hasAttributes(String featureType)
+  public synchronized boolean hasAttributes(String featureType)
   {
     if (attributes.containsKey(featureType))
     {
@@ -254,7 +256,7 @@ public class FeatureAttributes
    * @param value
    * @param attName
    */
-  public void addAttribute(String featureType, String description,
+  public synchronized void addAttribute(String featureType, String description,
           Object value, String... attName)
   {
     if (featureType == null || attName == null)
@@ -302,7 +304,7 @@ public class FeatureAttributes
    * @param attName
    * @return
    */
-  public String getDescription(String featureType, String... attName)
+  public synchronized String getDescription(String featureType, String... attName)
   {
     String desc = null;
     Map<String[], AttributeData> atts = attributes.get(featureType);
@@ -326,7 +328,7 @@ public class FeatureAttributes
    * @param attName
    * @return
    */
-  public float[] getMinMax(String featureType, String... attName)
+  public synchronized float[] getMinMax(String featureType, String... attName)
   {
     Map<String[], AttributeData> atts = attributes.get(featureType);
     if (atts != null)
@@ -347,7 +349,7 @@ public class FeatureAttributes
    * @param attName
    * @param description
    */
-  public void addDescription(String featureType, String description,
+  public synchronized void addDescription(String featureType, String description,
           String... attName)
   {
     if (featureType == null || attName == null)
@@ -378,7 +380,7 @@ public class FeatureAttributes
    * @param attName
    * @return
    */
-  public Datatype getDatatype(String featureType, String... attName)
+  public synchronized Datatype getDatatype(String featureType, String... attName)
   {
     Map<String[], AttributeData> atts = attributes.get(featureType);
     if (atts != null)
@@ -395,7 +397,7 @@ public class FeatureAttributes
   /**
    * Resets all attribute metadata
    */
-  public void clear()
+  public synchronized void clear()
   {
     attributes.clear();
   }
@@ -405,7 +407,7 @@ public class FeatureAttributes
    * 
    * @param featureType
    */
-  public void clear(String featureType)
+  public synchronized void clear(String featureType)
   {
     Map<String[], AttributeData> map = attributes.get(featureType);
     if (map != null)
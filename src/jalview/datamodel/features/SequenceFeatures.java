@@ -50,6 +50,11 @@ public class SequenceFeatures implements SequenceFeaturesI
    */
   private Map<String, FeatureStore> featureStore;
 
+  /*
+   * incremented whenever features are added, deleted or shifted
+   */
+  private volatile int changeCount;
+
   /**
    * Constructor
    */
@@ -96,7 +101,12 @@ public class SequenceFeatures implements SequenceFeaturesI
     {
       featureStore.put(type, new FeatureStore());
     }
-    return featureStore.get(type).addFeature(sf);
+    boolean added = featureStore.get(type).addFeature(sf);
+    if (added)
+    {
+      changeCount++;
+    }
+    return added;
   }
 
   /**
@@ -270,6 +280,7 @@ public class SequenceFeatures implements SequenceFeaturesI
     {
       if (featureSet.delete(sf))
       {
+        changeCount++;
         return true;
       }
     }
@@ -456,6 +467,10 @@ public class SequenceFeatures implements SequenceFeaturesI
     {
       modified |= fs.shiftFeatures(fromPosition, shiftBy);
     }
+    if (modified)
+    {
+      changeCount++;
+    }
     return modified;
   }
 
@@ -466,5 +481,15 @@ public class SequenceFeatures implements SequenceFeaturesI
   public void deleteAll()
   {
     featureStore.clear();
+    changeCount++;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getChangeCount()
+  {
+    return changeCount;
   }
 }
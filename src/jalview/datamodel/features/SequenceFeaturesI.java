@@ -229,4 +229,13 @@ public interface SequenceFeaturesI
    * Deletes all positional and non-positional features
    */
   void deleteAll();
+
+  /**
+   * Answers a count of the modifications (additions, deletions or shifts) made
+   * to the features, so that callers holding derived data can detect that it
+   * may be stale
+   * 
+   * @return
+   */
+  int getChangeCount();
 }
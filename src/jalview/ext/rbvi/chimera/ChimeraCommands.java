@@ -448,7 +448,8 @@ public class ChimeraCommands
     /*
      * for each sequence residue mapped to a structure position...
      */
-    for (int seqPos : structureMapping.getMapping().keySet())
+    for (int seqPos : structureMapping.getResidueMap()
+            .getMappedPositions())
     {
       /*
        * find visible complementary features at mapped position(s)
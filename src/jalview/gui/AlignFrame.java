@@ -46,10 +46,13 @@ import java.awt.print.PageFormat;
 import java.awt.print.PrinterJob;
 import java.beans.PropertyChangeEvent;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
@@ -1185,70 +1188,64 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
       }
       FormatAdapter f = new FormatAdapter(alignPanel,
               exportData.getSettings());
-      String output = f.formatSequences(format, exportData.getAlignment(), // class
-                                                                           // cast
-                                                                           // exceptions
-                                                                           // will
-              // occur in the distant future
-              exportData.getOmitHidden(), exportData.getStartEndPostions(),
-              f.getCacheSuffixDefault(format),
-              viewport.getAlignment().getHiddenColumns());
-
-      if (output == null)
-      {
-        success = false;
-      }
-      else
+
+      // create backupfiles object and get new temp filename destination
+      Cache.log.trace("ALIGNFRAME making backupfiles object for " + file);
+      BackupFiles backupfiles = new BackupFiles(file);
+
+      try
       {
-        // create backupfiles object and get new temp filename destination
-        Cache.log.trace("ALIGNFRAME making backupfiles object for " + file);
-        BackupFiles backupfiles = new BackupFiles(file);
+        String tempFilePath = backupfiles.getTempFilePath();
+        Cache.log.trace(
+                "ALIGNFRAME setting BufferedWriter to " + tempFilePath);
 
-        try
+        /*
+         * write the alignment straight to the temp file, rather than
+         * first building the whole flat file as a String
+         */
+        try (Writer out = Files.newBufferedWriter(Paths.get(tempFilePath),
+                Charset.defaultCharset()))
         {
-          String tempFilePath = backupfiles.getTempFilePath();
-          Cache.log.trace(
-                  "ALIGNFRAME setting PrintWriter to " + tempFilePath);
-          PrintWriter out = new PrintWriter(new FileWriter(tempFilePath));
-
           Cache.log.trace(
                   "ALIGNFRAME about to write to temp file " + tempFilePath);
-
-          out.print(output);
+          f.formatSequences(format, exportData.getAlignment(), // class cast
+                  // exceptions will occur in the distant future
+                  exportData.getOmitHidden(),
+                  exportData.getStartEndPostions(),
+                  f.getCacheSuffixDefault(format),
+                  viewport.getAlignment().getHiddenColumns(), null, out);
           Cache.log.trace("ALIGNFRAME about to close file");
-          out.close();
-          Cache.log.trace("ALIGNFRAME closed file");
-          this.setTitle(file);
-          statusBar.setText(MessageManager.formatMessage(
-                  "label.successfully_saved_to_file_in_format", new Object[]
-                  { file, format.getName() }));
-        } catch (IOException e)
-        {
-          success = false;
-          Cache.log.error(
-                  "ALIGNFRAME Something happened writing the temp file");
-          Cache.log.error(e.getMessage());
-          Cache.log.debug(Cache.getStackTraceString(e));
-
-        } catch (Exception ex)
-        {
-          success = false;
-          Cache.log.error(
-                  "ALIGNFRAME Something unexpected happened writing the temp file");
-          Cache.log.error(ex.getMessage());
-          Cache.log.debug(Cache.getStackTraceString(ex));
         }
+        Cache.log.trace("ALIGNFRAME closed file");
+        this.setTitle(file);
+        statusBar.setText(MessageManager.formatMessage(
+                "label.successfully_saved_to_file_in_format", new Object[]
+                { file, format.getName() }));
+      } catch (IOException e)
+      {
+        success = false;
+        Cache.log.error(
+                "ALIGNFRAME Something happened writing the temp file");
+        Cache.log.error(e.getMessage());
+        Cache.log.debug(Cache.getStackTraceString(e));
 
-        backupfiles.setWriteSuccess(success);
-        Cache.log.debug("ALIGNFRAME writing temp file was "
-                + (success ? "" : "NOT ") + "successful");
-        // do the backup file roll and rename the temp file to actual file
-        Cache.log.trace("ALIGNFRAME about to rollBackupsAndRenameTempFile");
-        success = backupfiles.rollBackupsAndRenameTempFile();
-        Cache.log.debug("ALIGNFRAME performed rollBackupsAndRenameTempFile "
-                + (success ? "" : "un") + "successfully");
-
+      } catch (Exception ex)
+      {
+        success = false;
+        Cache.log.error(
+                "ALIGNFRAME Something unexpected happened writing the temp file");
+        Cache.log.error(ex.getMessage());
+        Cache.log.debug(Cache.getStackTraceString(ex));
       }
+
+      backupfiles.setWriteSuccess(success);
+      Cache.log.debug("ALIGNFRAME writing temp file was "
+              + (success ? "" : "NOT ") + "successful");
+      // do the backup file roll and rename the temp file to actual file
+      Cache.log.trace("ALIGNFRAME about to rollBackupsAndRenameTempFile");
+      success = backupfiles.rollBackupsAndRenameTempFile();
+      Cache.log.debug("ALIGNFRAME performed rollBackupsAndRenameTempFile "
+              + (success ? "" : "un") + "successfully");
     }
 
     if (!success)
@@ -1588,6 +1585,17 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
       redoMenuItem.setEnabled(false);
       redoMenuItem.setText(MessageManager.getString("action.redo"));
     }
+
+    /*
+     * show undo memory held, and spilled to file, as a tooltip
+     */
+    DecimalFormat df = new DecimalFormat("0.0");
+    double mb = 1024d * 1024d;
+    String memory = MessageManager.formatMessage("label.undo_memory",
+            df.format(viewport.getUndoMemoryUsed() / mb),
+            df.format(viewport.getUndoMemorySpilled() / mb));
+    undoMenuItem.setToolTipText(memory);
+    redoMenuItem.setToolTipText(memory);
   }
 
   @Override
@@ -1596,6 +1604,7 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
     if (command.getSize() > 0)
     {
       viewport.addToHistoryList(command);
+      viewport.addEditedColumns(command);
       viewport.clearRedoList();
       updateEditMenuBar();
       viewport.updateHiddenColumns();
@@ -1642,6 +1651,11 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
     {
       return;
     }
+    if (!viewport.readUndoData(viewport.getHistoryList().peek()))
+    {
+      showUndoDataError(MessageManager.getString("action.undo"));
+      return;
+    }
     CommandI command = viewport.getHistoryList().pop();
     viewport.addToRedoList(command);
     command.undoCommand(getViewAlignments());
@@ -1656,6 +1670,7 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
         Cache.log.warn(
                 "Implementation worry: mismatch of viewport origin for undo");
       }
+      originalSource.addEditedColumns(command);
       originalSource.updateHiddenColumns();
       // originalSource.hasHiddenColumns = (viewport.getColumnSelection() !=
       // null
@@ -1680,6 +1695,11 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
     {
       return;
     }
+    if (!viewport.readUndoData(viewport.getRedoList().peek()))
+    {
+      showUndoDataError(MessageManager.getString("action.redo"));
+      return;
+    }
 
     CommandI command = viewport.getRedoList().pop();
     viewport.addToHistoryList(command);
@@ -1696,6 +1716,7 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
         Cache.log.warn(
                 "Implementation worry: mismatch of viewport origin for redo");
       }
+      originalSource.addEditedColumns(command);
       originalSource.updateHiddenColumns();
       // originalSource.hasHiddenColumns = (viewport.getColumnSelection() !=
       // null
@@ -1707,6 +1728,19 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
     }
   }
 
+  /**
+   * Reports that an undo or redo could not be performed as its data could not
+   * be read back from file
+   * 
+   * @param title
+   */
+  protected void showUndoDataError(String title)
+  {
+    JvOptionPane.showMessageDialog(Desktop.desktop,
+            MessageManager.getString("label.undo_data_unreadable"), title,
+            JvOptionPane.ERROR_MESSAGE);
+  }
+
   AlignmentViewport getOriginatingSource(CommandI command)
   {
     AlignmentViewport originalSource = null;
@@ -1887,6 +1921,10 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
     {
       addHistoryItem(ssc);
     }
+    else
+    {
+      viewport.addEditedColumns(ssc);
+    }
 
     repaint();
   }
@@ -2793,6 +2831,7 @@ public class AlignFrame extends GAlignFrame implements DropTargetListener,
      */
     newap.av.setHistoryList(viewport.getHistoryList());
     newap.av.setRedoList(viewport.getRedoList());
+    newap.av.setUndoMemoryManager(viewport.getUndoMemoryManager());
 
     /*
      * copy any visualisation settings that are not saved in the project
@@ -30,6 +30,7 @@ import jalview.api.FeaturesDisplayedI;
 import jalview.api.ViewStyleI;
 import jalview.bin.Cache;
 import jalview.commands.CommandI;
+import jalview.commands.UndoMemoryManager;
 import jalview.datamodel.AlignedCodonFrame;
 import jalview.datamodel.Alignment;
 import jalview.datamodel.AlignmentI;
@@ -232,6 +233,9 @@ public class AlignViewport extends AlignmentViewport
             .getDefault(Preferences.SHOW_AUTOCALC_ABOVE, false);
     viewStyle.setScaleProteinAsCdna(
             Cache.getDefault(Preferences.SCALE_PROTEIN_TO_CDNA, true));
+    undoMemory.setLimit(Cache.getDefault(Preferences.UNDO_MEMORY_LIMIT,
+            (int) (UndoMemoryManager.DEFAULT_LIMIT / (1024 * 1024))) * 1024L
+            * 1024L);
   }
 
   void init()
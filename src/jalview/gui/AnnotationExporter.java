@@ -34,8 +34,10 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
@@ -176,14 +178,10 @@ public class AnnotationExporter extends JPanel
 
     if (value == JalviewFileChooser.APPROVE_OPTION)
     {
-      String text = getText();
-
-      try
+      try (Writer out = Files.newBufferedWriter(
+              chooser.getSelectedFile().toPath(), Charset.defaultCharset()))
       {
-        PrintWriter out = new PrintWriter(
-                new FileWriter(chooser.getSelectedFile()));
-        out.print(text);
-        out.close();
+        writeText(out);
       } catch (Exception ex)
       {
         ex.printStackTrace();
@@ -193,6 +191,41 @@ public class AnnotationExporter extends JPanel
     close_actionPerformed();
   }
 
+  /**
+   * Writes the text to output for either Features or Annotations to the given
+   * writer. GFF features and Jalview format annotations are written as they
+   * are generated, rather than first building the whole text as a String.
+   * 
+   * @param out
+   * @throws IOException
+   */
+  private void writeText(Writer out) throws IOException
+  {
+    if (exportFeatures && GFFFormat.isSelected())
+    {
+      new FeaturesFile().printGffFormat(
+              ap.av.getAlignment().getSequencesArray(),
+              ap.getFeatureRenderer(), ap.av.isShowNPFeats(),
+              includeLinkedFeatures.isSelected(), out);
+    }
+    else if (!exportFeatures && !CSVFormat.isSelected())
+    {
+      if (wholeView)
+      {
+        new AnnotationFile().printAnnotationsForView(ap.av, out);
+      }
+      else
+      {
+        new AnnotationFile().printAnnotations(annotations, null, null, null,
+                null, null, out);
+      }
+    }
+    else
+    {
+      out.write(getText());
+    }
+  }
+
   /**
    * Answers the text to output for either Features (in GFF or Jalview format) or
    * Annotations (in CSV or Jalview format)
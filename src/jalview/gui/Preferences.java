@@ -119,6 +119,12 @@ public class Preferences extends GPreferences
 
   public static final String HIDDEN_COLOUR = "HIDDEN_COLOUR";
 
+  /*
+   * memory (in MB) undo history may use before older edits are spilled
+   * to a temporary file
+   */
+  public static final String UNDO_MEMORY_LIMIT = "UNDO_MEMORY_LIMIT";
+
   private static final int MIN_FONT_SIZE = 1;
 
   private static final int MAX_FONT_SIZE = 30;
@@ -21,6 +21,7 @@
 package jalview.gui;
 
 import jalview.analysis.AlignSeq;
+import jalview.analysis.RedundancyEngine;
 import jalview.commands.CommandI;
 import jalview.commands.EditCommand;
 import jalview.commands.EditCommand.Action;
@@ -60,6 +61,17 @@ public class RedundancyPanel extends GSliderPanel implements Runnable
 
   float[] redundancy;
 
+  /*
+   * for large alignments, sequences are clustered greedily, and redundancy
+   * recomputed for each threshold chosen; else null
+   */
+  RedundancyEngine greedyEngine;
+
+  /*
+   * the threshold for which greedy redundancy was last computed
+   */
+  float greedyThreshold;
+
   SequenceI[] originalSequences;
 
   JInternalFrame frame;
@@ -168,8 +180,21 @@ public class RedundancyPanel extends GSliderPanel implements Runnable
     {
       omitHidden = ap.av.getViewAsString(sg != null);
     }
-    redundancy = AlignSeq.computeRedundancyMatrix(originalSequences,
-            omitHidden, start, end, false);
+    if (height >= RedundancyEngine.GREEDY_MIN_SEQUENCES)
+    {
+      /*
+       * comparing every pair is too slow for large alignments
+       */
+      greedyEngine = new RedundancyEngine(originalSequences, omitHidden,
+              start, end, false);
+      greedyThreshold = slider.getValue();
+      redundancy = greedyEngine.computeRedundancy(greedyThreshold);
+    }
+    else
+    {
+      redundancy = AlignSeq.computeRedundancyMatrix(originalSequences,
+              omitHidden, start, end, false);
+    }
 
     progress.setIndeterminate(false);
     progress.setVisible(false);
@@ -188,12 +213,14 @@ public class RedundancyPanel extends GSliderPanel implements Runnable
 
   void sliderValueChanged()
   {
-    if (redundancy == null)
+    if (redundancy == null
+            || (greedyEngine != null && slider.getValueIsAdjusting()))
     {
       return;
     }
 
     float value = slider.getValue();
+    updateRedundancy(value);
     List<SequenceI> redundantSequences = new ArrayList<>();
     for (int i = 0; i < redundancy.length; i++)
     {
@@ -205,6 +232,21 @@ public class RedundancyPanel extends GSliderPanel implements Runnable
     ap.getIdPanel().getIdCanvas().setHighlighted(redundantSequences);
   }
 
+  /**
+   * If clustering greedily, recomputes redundancy for the given threshold, if
+   * it has changed
+   * 
+   * @param threshold
+   */
+  void updateRedundancy(float threshold)
+  {
+    if (greedyEngine != null && threshold != greedyThreshold)
+    {
+      redundancy = greedyEngine.computeRedundancy(threshold);
+      greedyThreshold = threshold;
+    }
+  }
+
   /**
    * DOCUMENT ME!
    * 
@@ -219,6 +261,7 @@ public class RedundancyPanel extends GSliderPanel implements Runnable
     undoButton.setEnabled(true);
 
     float value = slider.getValue();
+    updateRedundancy(value);
     SequenceGroup sg = ap.av.getSelectionGroup();
 
     for (int i = 0; i < redundancy.length; i++)
@@ -285,11 +328,16 @@ public class RedundancyPanel extends GSliderPanel implements Runnable
       return;
     }
 
+    if (!ap.av.readUndoData(historyList.peek()))
+    {
+      af.showUndoDataError(MessageManager.getString("action.undo"));
+      return;
+    }
     CommandI command = historyList.pop();
     if (ap.av.getHistoryList().contains(command))
     {
       command.undoCommand(af.getViewAlignments());
-      ap.av.getHistoryList().remove(command);
+      ap.av.removeFromHistoryList(command);
       ap.av.firePropertyChange("alignment", null,
               ap.av.getAlignment().getSequences());
       af.updateEditMenuBar();
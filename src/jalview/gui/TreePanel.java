@@ -22,7 +22,7 @@ package jalview.gui;
 
 import jalview.analysis.AlignmentSorter;
 import jalview.analysis.AverageDistanceTree;
-import jalview.analysis.NJTree;
+import jalview.analysis.RapidNJTree;
 import jalview.analysis.TreeBuilder;
 import jalview.analysis.TreeModel;
 import jalview.analysis.scoremodels.ScoreModels;
@@ -320,7 +320,7 @@ public class TreePanel extends GTreePanel
         ScoreModelI sm = ScoreModels.getInstance()
                 .getScoreModel(scoreModelName, getTreeCanvas().getAssociatedPanel());
         TreeBuilder njtree = treeType.equals(TreeBuilder.NEIGHBOUR_JOINING)
-                ? new NJTree(getViewport(), sm, similarityParams)
+                ? new RapidNJTree(getViewport(), sm, similarityParams)
                 : new AverageDistanceTree(getViewport(), sm, similarityParams);
         tree = new TreeModel(njtree);
         showDistances(true);
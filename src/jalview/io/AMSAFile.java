@@ -25,6 +25,7 @@ import jalview.datamodel.AlignmentI;
 import jalview.datamodel.SequenceI;
 
 import java.io.IOException;
+import java.io.Writer;
 
 public class AMSAFile extends jalview.io.FastaFile
 {
@@ -51,14 +52,14 @@ public class AMSAFile extends jalview.io.FastaFile
   }
 
   /**
-   * DOCUMENT ME!
-   * 
-   * @return DOCUMENT ME!
+   * Writes the sequences in Fasta format, followed by any visible, non-auto
+   * calculated alignment annotations as '>#_' entries
    */
   @Override
-  public String print(SequenceI[] sqs, boolean jvsuffix)
+  public void print(SequenceI[] sqs, boolean jvsuffix, Writer out)
+          throws IOException
   {
-    super.print(sqs, jvsuffix);
+    super.print(sqs, jvsuffix, out);
 
     AlignmentAnnotation aa;
     if (al.getAlignmentAnnotation() != null)
@@ -73,13 +74,13 @@ public class AMSAFile extends jalview.io.FastaFile
           continue;
         }
 
-        out.append(">#_" + aa.label);
+        out.write(">#_" + aa.label);
         if (aa.description != null)
         {
-          out.append(" " + aa.description);
+          out.write(" " + aa.description);
         }
 
-        out.append(newline);
+        out.write(newline);
 
         int nochunks = Math.min(aa.annotations.length, al.getWidth()) / len
                 + 1;
@@ -109,13 +110,12 @@ public class AMSAFile extends jalview.io.FastaFile
               this.warningMessage = "Truncated column annotation to first letter.";
               ch = ch.substring(0, 1);
             }
-            out.append(ch);
+            out.write(ch);
 
           }
-          out.append(newline);
+          out.write(newline);
         }
       }
     }
-    return out.toString();
   }
 }
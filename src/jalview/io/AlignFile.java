@@ -28,6 +28,8 @@ import jalview.datamodel.SequenceI;
 import jalview.util.MessageManager;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Hashtable;
@@ -399,6 +401,28 @@ public abstract class AlignFile extends FileParse
     return printId(seq, true);
   }
 
+  /**
+   * Answers the output of {@link #print(SequenceI[], boolean, Writer)} as a
+   * String. Formats which override that method to write output as it is
+   * generated may implement {@link #print(SequenceI[], boolean)} by this.
+   * 
+   * @param seqs
+   * @param jvsuffix
+   * @return
+   */
+  protected String printToString(SequenceI[] seqs, boolean jvsuffix)
+  {
+    StringWriter out = new StringWriter();
+    try
+    {
+      print(seqs, jvsuffix, out);
+    } catch (IOException e)
+    {
+      // not thrown by StringWriter
+    }
+    return out.toString();
+  }
+
   /**
    * vector of String[] treeName, newickString pairs
    */
@@ -26,6 +26,9 @@ import jalview.api.FeatureSettingsModelI;
 import jalview.datamodel.AlignmentI;
 import jalview.datamodel.SequenceI;
 
+import java.io.IOException;
+import java.io.Writer;
+
 public interface AlignmentFileWriterI
 {
 
@@ -37,6 +40,29 @@ public interface AlignmentFileWriterI
 
   String print(SequenceI[] seqs, boolean jvsuffix);
 
+  /**
+   * Writes the sequences in this file format to the given writer. By default
+   * this writes the output of {@link #print(SequenceI[], boolean)}, or throws
+   * IOException if that fails to generate any output. Formats which may be
+   * used for very large alignments override this to write output as it is
+   * generated, without first building the whole output in memory.
+   * 
+   * @param seqs
+   * @param jvsuffix
+   * @param out
+   * @throws IOException
+   */
+  default void print(SequenceI[] seqs, boolean jvsuffix, Writer out)
+          throws IOException
+  {
+    String output = print(seqs, jvsuffix);
+    if (output == null)
+    {
+      throw new IOException(getWarningMessage());
+    }
+    out.write(output);
+  }
+
   boolean hasWarningMessage();
 
   String getWarningMessage();
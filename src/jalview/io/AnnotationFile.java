@@ -38,8 +38,10 @@ import jalview.util.ColorUtils;
 import java.awt.Color;
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.io.Writer;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -80,6 +82,11 @@ public class AnnotationFile
 
   StringBuffer text;
 
+  /*
+   * if set, text is flushed to this writer as it is generated
+   */
+  private Writer output;
+
   private void init()
   {
     text = new StringBuffer("JALVIEW_ANNOTATION" + newline + "# Created: "
@@ -143,6 +150,63 @@ public class AnnotationFile
   public String printAnnotations(AlignmentAnnotation[] annotations,
           List<SequenceGroup> list, Hashtable properties, HiddenColumns cs,
           AlignmentI al, ViewDef view)
+  {
+    try
+    {
+      writeAnnotations(annotations, list, properties, cs, al, view);
+    } catch (IOException e)
+    {
+      // not thrown when no output writer is set
+    }
+    return text.toString();
+  }
+
+  /**
+   * Writes an annotation file to the given writer. Output is flushed to the
+   * writer after each annotation row, so the whole file is never held in
+   * memory at once.
+   * 
+   * @param annotations
+   * @param list
+   * @param properties
+   * @param cs
+   * @param al
+   * @param view
+   * @param out
+   * @throws IOException
+   */
+  public void printAnnotations(AlignmentAnnotation[] annotations,
+          List<SequenceGroup> list, Hashtable<?, ?> properties, HiddenColumns cs,
+          AlignmentI al, ViewDef view, Writer out) throws IOException
+  {
+    output = out;
+    try
+    {
+      writeAnnotations(annotations, list, properties, cs, al, view);
+      flushText();
+    } finally
+    {
+      output = null;
+    }
+  }
+
+  /**
+   * Writes any buffered text to the output writer, if one is set
+   * 
+   * @throws IOException
+   */
+  private void flushText() throws IOException
+  {
+    if (output != null && text.length() > 0)
+    {
+      output.append(text);
+      text.setLength(0);
+    }
+  }
+
+  private void writeAnnotations(AlignmentAnnotation[] annotations,
+          List<SequenceGroup> list, Hashtable<?, ?> properties, HiddenColumns cs,
+          AlignmentI al, ViewDef view) throws IOException
   {
     if (view != null)
     {
@@ -403,6 +467,7 @@ public class AnnotationFile
           text.append(graphLine.toString());
           graphLine.setLength(0);
         }
+        flushText();
       }
 
       text.append(newline);
@@ -438,6 +503,7 @@ public class AnnotationFile
 
     if (list != null)
     {
+      flushText();
       printGroups(list);
     }
 
@@ -460,8 +526,6 @@ public class AnnotationFile
       // as visible/hidden, and emmitting view properties.
       // View specific annotation is
     }
-
-    return text.toString();
   }
 
   private Object writeGroup_Ref(SequenceGroup refGroup,
@@ -1779,6 +1843,27 @@ public class AnnotationFile
     return sp.toString();
   }
 
+  /**
+   * Writes the annotations, groups, properties and hidden columns of the view
+   * to the given writer
+   * 
+   * @param viewport
+   * @param out
+   * @throws IOException
+   */
+  public void printAnnotationsForView(AlignViewportI viewport, Writer out)
+          throws IOException
+  {
+    printAnnotations(
+            viewport.isShowAnnotation()
+                    ? viewport.getAlignment().getAlignmentAnnotation()
+                    : null,
+            viewport.getAlignment().getGroups(),
+            viewport.getAlignment().getProperties(),
+            viewport.getAlignment().getHiddenColumns(),
+            viewport.getAlignment(), null, out);
+  }
+
   public String printAnnotationsForView(AlignViewportI viewport)
   {
     return printAnnotations(
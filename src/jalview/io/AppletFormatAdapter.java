@@ -34,6 +34,7 @@ import jalview.structure.StructureImportSettings;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -370,26 +371,10 @@ public class AppletFormatAdapter
   {
     try
     {
-      AlignmentFileWriterI afile = format.getWriter(alignment);
+      AlignmentFileWriterI afile = getWriter(format, alignment);
 
-      afile.setNewlineString(newline);
-      afile.setExportSettings(exportSettings);
-      afile.configureForView(viewpanel);
-
-      // check whether we were given a specific alignment to export, rather than
-      // the one in the viewpanel
-      SequenceI[] seqs = null;
-      if (viewpanel == null || viewpanel.getAlignment() == null
-              || viewpanel.getAlignment() != alignment)
-      {
-        seqs = alignment.getSequencesArray();
-      }
-      else
-      {
-        seqs = viewpanel.getAlignment().getSequencesArray();
-      }
-
-      String afileresp = afile.print(seqs, jvsuffix);
+      String afileresp = afile.print(getSequencesToWrite(alignment),
+              jvsuffix);
       if (afile.hasWarningMessage())
       {
         System.err.println("Warning raised when writing as " + format
@@ -406,6 +391,73 @@ public class AppletFormatAdapter
     return null;
   }
 
+  /**
+   * Writes an alignment in a particular filetype to the given writer. Formats
+   * which support it are written incrementally, without first building the
+   * whole file as a String.
+   * 
+   * @param format
+   *          the alignment format
+   * @param alignment
+   *          the alignment to be written out
+   * @param jvsuffix
+   *          passed to AlnFile class controls whether /START-END is added to
+   *          sequence names
+   * @param out
+   *          the writer to output to
+   * @throws IOException
+   *           if writing fails, or the format could not generate output
+   */
+  public void formatSequences(FileFormatI format, AlignmentI alignment,
+          boolean jvsuffix, Writer out) throws IOException
+  {
+    AlignmentFileWriterI afile = getWriter(format, alignment);
+
+    afile.print(getSequencesToWrite(alignment), jvsuffix, out);
+    if (afile.hasWarningMessage())
+    {
+      System.err.println("Warning raised when writing as " + format
+              + " : " + afile.getWarningMessage());
+    }
+  }
+
+  /**
+   * Constructs and configures a writer for the format and alignment
+   * 
+   * @param format
+   * @param alignment
+   * @return
+   */
+  private AlignmentFileWriterI getWriter(FileFormatI format,
+          AlignmentI alignment)
+  {
+    AlignmentFileWriterI afile = format.getWriter(alignment);
+
+    afile.setNewlineString(newline);
+    afile.setExportSettings(exportSettings);
+    afile.configureForView(viewpanel);
+    return afile;
+  }
+
+  /**
+   * Answers the sequences to output for the alignment; this is the alignment in
+   * the view panel if we are exporting that, else the given one
+   * 
+   * @param alignment
+   * @return
+   */
+  private SequenceI[] getSequencesToWrite(AlignmentI alignment)
+  {
+    // check whether we were given a specific alignment to export, rather than
+    // the one in the viewpanel
+    if (viewpanel == null || viewpanel.getAlignment() == null
+            || viewpanel.getAlignment() != alignment)
+    {
+      return alignment.getSequencesArray();
+    }
+    return viewpanel.getAlignment().getSequencesArray();
+  }
+
   /**
    * Determines the protocol (i.e DataSourceType.{FILE|PASTE|URL}) for the input
    * data
@@ -26,6 +26,7 @@ import jalview.datamodel.SequenceI;
 import jalview.util.Format;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
@@ -200,7 +201,14 @@ public class ClustalFile extends AlignFile
   @Override
   public String print(SequenceI[] s, boolean jvsuffix)
   {
-    StringBuffer out = new StringBuffer("CLUSTAL" + newline + newline);
+    return printToString(s, jvsuffix);
+  }
+
+  @Override
+  public void print(SequenceI[] s, boolean jvsuffix, Writer out)
+          throws IOException
+  {
+    out.write("CLUSTAL" + newline + newline);
 
     int max = 0;
     int maxid = 0;
@@ -228,6 +236,16 @@ public class ClustalFile extends AlignFile
 
     maxid++;
 
+    /*
+     * padded ids are the same for every block
+     */
+    Format idFormat = new Format("%-" + maxid + "s");
+    String[] ids = new String[i];
+    for (int j = 0; j < i; j++)
+    {
+      ids[j] = idFormat.form(printId(s[j], jvsuffix) + " ");
+    }
+
     int len = 60;
     int nochunks = (max / len) + (max % len > 0 ? 1 : 0);
 
@@ -237,32 +255,23 @@ public class ClustalFile extends AlignFile
 
       while ((j < s.length) && (s[j] != null))
       {
-        out.append(new Format("%-" + maxid + "s")
-                .form(printId(s[j], jvsuffix) + " "));
+        out.write(ids[j]);
 
         int chunkStart = i * len;
         int chunkEnd = chunkStart + len;
 
         int length = s[j].getLength();
-        if ((chunkEnd < length) && (chunkStart < length))
+        if (chunkStart < length)
         {
-          out.append(s[j].getSequenceAsString(chunkStart, chunkEnd));
-        }
-        else
-        {
-          if (chunkStart < length)
-          {
-            out.append(s[j].getSequenceAsString().substring(chunkStart));
-          }
+          out.write(s[j].getSequence(chunkStart,
+                  Math.min(chunkEnd, length)));
         }
 
-        out.append(newline);
+        out.write(newline);
         j++;
       }
 
-      out.append(newline);
+      out.write(newline);
     }
-
-    return out.toString();
   }
 }
@@ -27,6 +27,7 @@ import jalview.datamodel.Sequence;
 import jalview.datamodel.SequenceI;
 
 import java.io.IOException;
+import java.io.Writer;
 
 /**
  * DOCUMENT ME!
@@ -41,8 +42,6 @@ public class FastaFile extends AlignFile
    */
   int len = 72;
 
-  StringBuffer out;
-
   /**
    * Creates a new FastaFile object.
    */
@@ -189,41 +188,35 @@ public class FastaFile extends AlignFile
   @Override
   public String print(SequenceI[] s, boolean jvsuffix)
   {
-    out = new StringBuffer();
+    return printToString(s, jvsuffix);
+  }
+
+  @Override
+  public void print(SequenceI[] s, boolean jvsuffix, Writer out)
+          throws IOException
+  {
     int i = 0;
 
     while ((i < s.length) && (s[i] != null))
     {
-      out.append(">" + printId(s[i], jvsuffix));
+      out.write(">");
+      out.write(printId(s[i], jvsuffix));
       if (s[i].getDescription() != null)
       {
-        out.append(" " + s[i].getDescription());
+        out.write(" ");
+        out.write(s[i].getDescription());
       }
 
-      out.append(newline);
-
-      int nochunks = (s[i].getLength() / len)
-              + (s[i].getLength() % len > 0 ? 1 : 0);
+      out.write(newline);
 
-      for (int j = 0; j < nochunks; j++)
+      int length = s[i].getLength();
+      for (int start = 0; start < length; start += len)
       {
-        int start = j * len;
-        int end = start + len;
-
-        if (end < s[i].getLength())
-        {
-          out.append(s[i].getSequenceAsString(start, end) + newline);
-        }
-        else if (start < s[i].getLength())
-        {
-          out.append(s[i].getSequenceAsString(start, s[i].getLength())
-                  + newline);
-        }
+        out.write(s[i].getSequence(start, Math.min(start + len, length)));
+        out.write(newline);
       }
 
       i++;
     }
-
-    return out.toString();
   }
 }
@@ -0,0 +1,360 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.io;
+
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A reader that returns the sequences in FASTA formatted data one at a time,
+ * without holding the whole file in memory. Data is read in blocks from a byte
+ * channel, and residues are collected as bytes for each sequence in turn.
+ * <p>
+ * Sequences are parsed as by {@link FastaFile}, except that Jalview annotation
+ * records (with ids starting "#_") are skipped, and bytes are read as single
+ * (ISO-8859-1) characters in sequence data.
+ */
+public class FastaStreamReader implements Closeable
+{
+  private static final int BLOCK_SIZE = 64 * 1024;
+
+  private static final int INITIAL_SEQUENCE_SIZE = 1024;
+
+  private static final String ANNOTATION_PREFIX = "#_";
+
+  /*
+   * parse states
+   */
+  private static final int LINE_START = 0;
+
+  private static final int SEQUENCE_LINE = 1;
+
+  private static final int HEADER_LINE = 2;
+
+  private ReadableByteChannel channel;
+
+  private ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+
+  private boolean endOfData;
+
+  private int state = LINE_START;
+
+  /*
+   * the header of the sequence currently being read, or null if none
+   */
+  private String header;
+
+  private byte[] headerBytes = new byte[256];
+
+  private int headerLength;
+
+  private byte[] residues = new byte[INITIAL_SEQUENCE_SIZE];
+
+  private int residueCount;
+
+  /*
+   * position in residues at which the current line started
+   */
+  private int lineStart;
+
+  private boolean compactStorage;
+
+  /**
+   * Constructor given a file, which may be gzipped
+   * 
+   * @param file
+   * @throws IOException
+   */
+  public FastaStreamReader(File file) throws IOException
+  {
+    FileInputStream fis = new FileInputStream(file);
+    byte[] magic = new byte[2];
+    int read = fis.read(magic);
+    fis.getChannel().position(0);
+    if (read == 2 && ((magic[0] & 0xff)
+            | ((magic[1] << 8) & 0xff00)) == GZIPInputStream.GZIP_MAGIC)
+    {
+      channel = Channels.newChannel(new GZIPInputStream(fis, BLOCK_SIZE));
+    }
+    else
+    {
+      channel = fis.getChannel();
+    }
+    block.flip();
+  }
+
+  /**
+   * Constructor given an input stream, which may be gzipped
+   * 
+   * @param input
+   * @throws IOException
+   */
+  public FastaStreamReader(InputStream input) throws IOException
+  {
+    InputStream in = input.markSupported() ? input
+            : new BufferedInputStream(input, 16);
+    if (FileParse.isGzipStream(in))
+    {
+      in = new GZIPInputStream(in, BLOCK_SIZE);
+    }
+    channel = Channels.newChannel(in);
+    block.flip();
+  }
+
+  /**
+   * Constructor given a byte channel to read from
+   * 
+   * @param source
+   */
+  public FastaStreamReader(ReadableByteChannel source)
+  {
+    channel = source;
+    block.flip();
+  }
+
+  /**
+   * Sets whether sequences are created with compact residue storage
+   * 
+   * @param compact
+   * @see Sequence#setCompactStorage(boolean)
+   */
+  public void setCompactStorage(boolean compact)
+  {
+    compactStorage = compact;
+  }
+
+  /**
+   * Reads and answers the next sequence, or null if there are no more
+   * 
+   * @return
+   * @throws IOException
+   */
+  public SequenceI nextSequence() throws IOException
+  {
+    int b;
+    while ((b = readByte()) != -1)
+    {
+      boolean endOfLine = b == '\n' || b == '\r';
+      switch (state)
+      {
+      case HEADER_LINE:
+        if (endOfLine)
+        {
+          endHeader();
+        }
+        else
+        {
+          addHeaderByte(b);
+        }
+        break;
+      case SEQUENCE_LINE:
+        if (endOfLine)
+        {
+          endSequenceLine();
+        }
+        else if (!isAnnotation())
+        {
+          addResidue(b);
+        }
+        break;
+      default: // LINE_START
+        if (endOfLine || b <= ' ')
+        {
+          break; // skip blank lines and leading whitespace
+        }
+        if (b == '>')
+        {
+          state = HEADER_LINE;
+          headerLength = 0;
+          SequenceI seq = makeSequence();
+          if (seq != null)
+          {
+            return seq;
+          }
+        }
+        else
+        {
+          state = SEQUENCE_LINE;
+          lineStart = residueCount;
+          if (!isAnnotation())
+          {
+            addResidue(b);
+          }
+        }
+      }
+    }
+
+    /*
+     * end of data - complete any last header and sequence
+     */
+    if (state == HEADER_LINE)
+    {
+      endHeader();
+    }
+    else if (state == SEQUENCE_LINE)
+    {
+      endSequenceLine();
+    }
+    return makeSequence();
+  }
+
+  /**
+   * Answers the sequence read since the last header, or null if there is none
+   * or it is an annotation record, and resets to read the next sequence
+   * 
+   * @return
+   */
+  private SequenceI makeSequence()
+  {
+    if (header == null || isAnnotation())
+    {
+      header = null;
+      residueCount = 0;
+      return null;
+    }
+    char[] chars = new char[residueCount];
+    for (int i = 0; i < residueCount; i++)
+    {
+      chars[i] = (char) (residues[i] & 0xff);
+    }
+
+    String name = header;
+    String description = null;
+    int space = header.indexOf(" ");
+    if (space > -1)
+    {
+      name = header.substring(0, space);
+      description = header.substring(space + 1);
+    }
+    Sequence seq = new Sequence(name, chars, 1, -1);
+    if (description != null)
+    {
+      seq.setDescription(description);
+    }
+    if (compactStorage)
+    {
+      seq.setCompactStorage(true);
+    }
+
+    header = null;
+    residueCount = 0;
+    if (residues.length > INITIAL_SEQUENCE_SIZE)
+    {
+      /*
+       * don't hold on to the buffer for a very long sequence
+       */
+      residues = new byte[INITIAL_SEQUENCE_SIZE];
+    }
+    return seq;
+  }
+
+  private boolean isAnnotation()
+  {
+    return header != null && header.startsWith(ANNOTATION_PREFIX);
+  }
+
+  private void endHeader()
+  {
+    header = new String(headerBytes, 0, headerLength,
+            StandardCharsets.UTF_8).trim();
+    state = LINE_START;
+  }
+
+  /**
+   * Removes any trailing whitespace from the sequence line just read
+   */
+  private void endSequenceLine()
+  {
+    while (residueCount > lineStart
+            && (residues[residueCount - 1] & 0xff) <= ' ')
+    {
+      residueCount--;
+    }
+    state = LINE_START;
+  }
+
+  private void addHeaderByte(int b)
+  {
+    if (headerLength == headerBytes.length)
+    {
+      headerBytes = Arrays.copyOf(headerBytes, headerLength * 2);
+    }
+    headerBytes[headerLength++] = (byte) b;
+  }
+
+  private void addResidue(int b)
+  {
+    if (residueCount == residues.length)
+    {
+      residues = Arrays.copyOf(residues, residueCount * 2);
+    }
+    residues[residueCount++] = (byte) b;
+  }
+
+  /**
+   * Answers the next byte of data (as 0-255), or -1 at the end of the data
+   * 
+   * @return
+   * @throws IOException
+   */
+  private int readByte() throws IOException
+  {
+    if (!block.hasRemaining())
+    {
+      if (endOfData)
+      {
+        return -1;
+      }
+      block.clear();
+      int read = 0;
+      while (read == 0)
+      {
+        read = channel.read(block);
+      }
+      block.flip();
+      if (read < 0)
+      {
+        endOfData = true;
+        return -1;
+      }
+    }
+    return block.get() & 0xff;
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    channel.close();
+  }
+}
@@ -22,6 +22,8 @@ package jalview.io;
 
 import java.awt.Color;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -1032,6 +1034,34 @@ public class FeaturesFile extends AlignFile implements FeaturesSourceI
   public String printGffFormat(SequenceI[] sequences,
           FeatureRenderer fr, boolean includeNonPositionalFeatures,
           boolean includeComplement)
+  {
+    StringWriter out = new StringWriter();
+    try
+    {
+      printGffFormat(sequences, fr, includeNonPositionalFeatures,
+              includeComplement, out);
+    } catch (IOException e)
+    {
+      // not thrown by StringWriter
+    }
+    return out.toString();
+  }
+
+  /**
+   * Writes features in GFF2 format to the given writer, one feature at a time
+   * 
+   * @param sequences
+   *          the sequences whose features are to be output
+   * @param fr
+   * @param includeNonPositionalFeatures
+   * @param includeComplement
+   * @param out
+   * @throws IOException
+   * @see #printGffFormat(SequenceI[], FeatureRenderer, boolean, boolean)
+   */
+  public void printGffFormat(SequenceI[] sequences, FeatureRenderer fr,
+          boolean includeNonPositionalFeatures, boolean includeComplement,
+          Writer out) throws IOException
   {
     FeatureRenderer fr2 = null;
     if (includeComplement)
@@ -1042,9 +1072,9 @@ public class FeaturesFile extends AlignFile implements FeaturesSourceI
 
     Map<String, FeatureColourI> visibleColours = fr.getDisplayedFeatureCols();
 
-    StringBuilder out = new StringBuilder(256);
-
-    out.append(String.format("%s %d\n", GFF_VERSION, gffVersion == 0 ? 2 : gffVersion));
+    out.write(String.format("%s %d\n", GFF_VERSION,
+            gffVersion == 0 ? 2 : gffVersion));
+    StringBuilder line = new StringBuilder(256);
 
     String[] types = visibleColours == null ? new String[0]
             : visibleColours.keySet()
@@ -1084,12 +1114,12 @@ public class FeaturesFile extends AlignFile implements FeaturesSourceI
        */
       for (SequenceFeature sf : seqFeatures)
       {
-        formatGffFeature(out, seq, sf);
-        out.append(newline);
+        line.setLength(0);
+        formatGffFeature(line, seq, sf);
+        line.append(newline);
+        out.append(line);
       }
     }
-
-    return out.toString();
   }
 
   /**
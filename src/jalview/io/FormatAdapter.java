@@ -32,7 +32,10 @@ import jalview.datamodel.SequenceGroup;
 import jalview.datamodel.SequenceI;
 import jalview.util.Comparison;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
 import java.util.Locale;
 
 /**
@@ -196,6 +199,50 @@ public class FormatAdapter extends AppletFormatAdapter
   public String formatSequences(FileFormatI format, AlignmentI alignment,
           String[] omitHidden, int[] exportRange, boolean suffix,
           HiddenColumns hidden, SequenceGroup selgp)
+  {
+    return this.formatSequences(format, getAlignmentToWrite(alignment,
+            omitHidden, exportRange, hidden, selgp), suffix);
+  }
+
+  /**
+   * As for
+   * {@link #formatSequences(FileFormatI, AlignmentI, String[], int[], boolean, HiddenColumns, SequenceGroup)}
+   * but writes the output to the given writer as it is generated
+   * 
+   * @param format
+   * @param alignment
+   * @param omitHidden
+   * @param exportRange
+   * @param suffix
+   * @param hidden
+   * @param selgp
+   * @param out
+   * @throws IOException
+   */
+  public void formatSequences(FileFormatI format, AlignmentI alignment,
+          String[] omitHidden, int[] exportRange, boolean suffix,
+          HiddenColumns hidden, SequenceGroup selgp, Writer out)
+          throws IOException
+  {
+    this.formatSequences(format, getAlignmentToWrite(alignment, omitHidden,
+            exportRange, hidden, selgp), suffix, out);
+  }
+
+  /**
+   * Answers the alignment to output; this is the given alignment, or a copy of
+   * it with sequences replaced by their visible strings if omitHidden is not
+   * null
+   * 
+   * @param alignment
+   * @param omitHidden
+   * @param exportRange
+   * @param hidden
+   * @param selgp
+   * @return
+   */
+  protected AlignmentI getAlignmentToWrite(AlignmentI alignment,
+          String[] omitHidden, int[] exportRange, HiddenColumns hidden,
+          SequenceGroup selgp)
   {
     if (omitHidden != null)
     {
@@ -223,9 +270,9 @@ public class FormatAdapter extends AppletFormatAdapter
           alv.addAnnotation(na);
         }
       }
-      return this.formatSequences(format, alv, suffix);
+      return alv;
     }
-    return this.formatSequences(format, alignment, suffix);
+    return alignment;
   }
 
   @Override
@@ -260,6 +307,66 @@ public class FormatAdapter extends AppletFormatAdapter
             selectedOnly);
   }
 
+  /**
+   * Reads sequences from the data source, passing each in turn to the
+   * consumer, until all have been read or the consumer answers false. Answers
+   * the number of sequences passed to the consumer.
+   * <p>
+   * Fasta format files and URLs are streamed, so only one sequence is held in
+   * memory at a time. Other formats and sources are read in full before the
+   * sequences are passed on; this is unavoidable for interleaved formats such
+   * as Clustal, where no sequence is complete until the end of the data.
+   * 
+   * @param file
+   * @param sourceType
+   * @param fileFormat
+   * @param consumer
+   * @return
+   * @throws IOException
+   */
+  public int readSequences(String file, DataSourceType sourceType,
+          FileFormatI fileFormat, SequenceConsumerI consumer)
+          throws IOException
+  {
+    int count = 0;
+    if (FileFormat.Fasta.equals(fileFormat)
+            && (sourceType == DataSourceType.FILE
+                    || sourceType == DataSourceType.URL))
+    {
+      FastaStreamReader reader = sourceType == DataSourceType.FILE
+              ? new FastaStreamReader(new File(file))
+              : new FastaStreamReader(new URL(file).openStream());
+      try
+      {
+        SequenceI seq;
+        while ((seq = reader.nextSequence()) != null)
+        {
+          count++;
+          if (!consumer.accept(seq))
+          {
+            break;
+          }
+        }
+      } finally
+      {
+        reader.close();
+      }
+      return count;
+    }
+
+    AlignmentFileReaderI reader = fileFormat
+            .getReader(new FileParse(file, sourceType));
+    for (SequenceI seq : reader.getSeqsAsArray())
+    {
+      count++;
+      if (!consumer.accept(seq))
+      {
+        break;
+      }
+    }
+    return count;
+  }
+
   public AlignmentI readFromFile(AlignmentFileReaderI source,
           FileFormatI format) throws IOException
   {
@@ -26,6 +26,7 @@ import jalview.util.Comparison;
 import jalview.util.Format;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
@@ -207,125 +208,87 @@ public class MSFfile extends AlignFile
     return check % 10000;
   }
 
+  @Override
+  public String print(SequenceI[] sqs, boolean jvSuffix)
+  {
+    return printToString(sqs, jvSuffix);
+  }
+
   /**
-   * DOCUMENT ME!
-   * 
-   * @param s
-   *          DOCUMENT ME!
-   * @param is_NA
-   *          DOCUMENT ME!
-   * 
-   * @return DOCUMENT ME!
+   * Writes the sequences in MSF format. Gaps are written as '.' for internal
+   * gaps, and '~' for leading or trailing gaps. The converted sequences are
+   * generated a block at a time, rather than copied in full, to limit memory
+   * use for large alignments.
    */
   @Override
-  public String print(SequenceI[] sqs, boolean jvSuffix)
+  public void print(SequenceI[] sqs, boolean jvSuffix, Writer out)
+          throws IOException
   {
 
     boolean is_NA = Comparison.isNucleotide(sqs);
 
-    SequenceI[] s = new SequenceI[sqs.length];
-
-    StringBuilder out = new StringBuilder(256);
-    out.append("!!").append(is_NA ? "NA" : "AA")
-            .append("_MULTIPLE_ALIGNMENT 1.0");
+    out.write("!!" + (is_NA ? "NA" : "AA") + "_MULTIPLE_ALIGNMENT 1.0");
     // TODO: JBPNote : Jalview doesn't remember NA or AA yet.
-    out.append(newline);
-    out.append(newline);
+    out.write(newline);
+    out.write(newline);
     int max = 0;
     int maxid = 0;
-    int i = 0;
-
-    while ((i < sqs.length) && (sqs[i] != null))
+    int count = 0;
+    while (count < sqs.length && sqs[count] != null)
     {
-      /*
-       * modify to MSF format: uses '.' for internal gaps, 
-       * and '~' for leading or trailing gaps
-       */
-      String seqString = sqs[i].getSequenceAsString().replace('-', '.');
-
-      StringBuilder sb = new StringBuilder(seqString);
-
-      for (int ii = 0; ii < sb.length(); ii++)
-      {
-        if (sb.charAt(ii) == '.')
-        {
-          sb.setCharAt(ii, '~');
-        }
-        else
-        {
-          break;
-        }
-      }
-
-      for (int ii = sb.length() - 1; ii > 0; ii--)
-      {
-        if (sb.charAt(ii) == '.')
-        {
-          sb.setCharAt(ii, '~');
-        }
-        else
-        {
-          break;
-        }
-      }
-      s[i] = new Sequence(sqs[i].getName(), sb.toString(),
-              sqs[i].getStart(), sqs[i].getEnd());
-
-      if (sb.length() > max)
-      {
-        max = sb.length();
-      }
+      count++;
+    }
 
-      i++;
+    /*
+     * find the first and last residue (not '-' or '.') of each sequence,
+     * and compute checksums of the sequences as converted to MSF
+     */
+    int[][] residueBounds = new int[count][];
+    int bigChecksum = 0;
+    int[] checksums = new int[count];
+    for (int i = 0; i < count; i++)
+    {
+      residueBounds[i] = getResidueBounds(sqs[i]);
+      int length = sqs[i].getLength();
+      checksums[i] = checkSum(new String(
+              getMsfSequence(sqs[i], 0, length, residueBounds[i])));
+      bigChecksum += checksums[i];
+      max = Math.max(max, length);
     }
 
     Format maxLenpad = new Format(
             "%" + (new String("" + max)).length() + "d");
     Format maxChkpad = new Format(
             "%" + (new String("1" + max)).length() + "d");
-    i = 0;
-
-    int bigChecksum = 0;
-    int[] checksums = new int[s.length];
-    while (i < s.length)
-    {
-      checksums[i] = checkSum(s[i].getSequenceAsString());
-      bigChecksum += checksums[i];
-      i++;
-    }
 
     long maxNB = 0;
-    out.append("   MSF: " + s[0].getLength() + "   Type: "
+    out.write("   MSF: " + sqs[0].getLength() + "   Type: "
             + (is_NA ? "N" : "P") + "    Check:  " + (bigChecksum % 10000)
             + "   ..");
-    out.append(newline);
-    out.append(newline);
-    out.append(newline);
+    out.write(newline);
+    out.write(newline);
+    out.write(newline);
 
-    String[] nameBlock = new String[s.length];
-    String[] idBlock = new String[s.length];
+    String[] nameBlock = new String[count];
+    String[] idBlock = new String[count];
 
-    i = 0;
-    while ((i < s.length) && (s[i] != null))
+    for (int i = 0; i < count; i++)
     {
+      nameBlock[i] = new String("  Name: " + printId(sqs[i], jvSuffix) + " ");
 
-      nameBlock[i] = new String("  Name: " + printId(s[i], jvSuffix) + " ");
-
-      idBlock[i] = new String("Len: " + maxLenpad.form(s[i].getLength())
+      idBlock[i] = new String("Len: " + maxLenpad.form(sqs[i].getLength())
               + "  Check: " + maxChkpad.form(checksums[i])
               + "  Weight: 1.00" + newline);
 
-      if (s[i].getName().length() > maxid)
+      if (sqs[i].getName().length() > maxid)
       {
-        maxid = s[i].getName().length();
+        maxid = sqs[i].getName().length();
       }
 
       if (nameBlock[i].length() > maxNB)
       {
         maxNB = nameBlock[i].length();
       }
-
-      i++;
     }
 
     if (maxid < 10)
@@ -340,74 +303,126 @@ public class MSFfile extends AlignFile
 
     Format nbFormat = new Format("%-" + maxNB + "s");
 
-    for (i = 0; (i < s.length) && (s[i] != null); i++)
+    for (int i = 0; i < count; i++)
     {
-      out.append(nbFormat.form(nameBlock[i]) + idBlock[i]);
+      out.write(nbFormat.form(nameBlock[i]) + idBlock[i]);
     }
 
     maxid++;
-    out.append(newline);
-    out.append(newline);
-    out.append("//");
-    out.append(newline);
-    out.append(newline);
+    out.write(newline);
+    out.write(newline);
+    out.write("//");
+    out.write(newline);
+    out.write(newline);
     int len = 50;
 
     int nochunks = (max / len) + (max % len > 0 ? 1 : 0);
+    Format idFormat = new Format("%-" + maxid + "s");
 
-    for (i = 0; i < nochunks; i++)
+    for (int i = 0; i < nochunks; i++)
     {
-      int j = 0;
-
-      while ((j < s.length) && (s[j] != null))
+      for (int j = 0; j < count; j++)
       {
-        String name = printId(s[j], jvSuffix);
+        String name = printId(sqs[j], jvSuffix);
 
-        out.append(new Format("%-" + maxid + "s").form(name + " "));
+        out.write(idFormat.form(name + " "));
 
         for (int k = 0; k < 5; k++)
         {
           int start = (i * 50) + (k * 10);
           int end = start + 10;
 
-          int length = s[j].getLength();
-          if ((end < length)
-                  && (start < length))
+          int length = sqs[j].getLength();
+          if ((end < length) && (start < length))
           {
-            out.append(s[j].getSequence(start, end));
+            out.write(getMsfSequence(sqs[j], start, end,
+                    residueBounds[j]));
 
             if (k < 4)
             {
-              out.append(" ");
+              out.write(" ");
             }
             else
             {
-              out.append(newline);
+              out.write(newline);
             }
           }
           else
           {
             if (start < length)
             {
-              out.append(s[j].getSequenceAsString().substring(start));
-              out.append(newline);
+              out.write(getMsfSequence(sqs[j], start, length,
+                      residueBounds[j]));
+              out.write(newline);
             }
             else
             {
               if (k == 0)
               {
-                out.append(newline);
+                out.write(newline);
               }
             }
           }
         }
-
-        j++;
       }
 
-      out.append(newline);
+      out.write(newline);
+    }
+  }
+
+  /**
+   * Answers the column positions of the first and last characters of the
+   * sequence that are not '-' or '.', or {length, -1} if there are none
+   * 
+   * @param seq
+   * @return
+   */
+  static int[] getResidueBounds(SequenceI seq)
+  {
+    int length = seq.getLength();
+    int first = 0;
+    while (first < length && isMsfGap(seq.getCharAt(first)))
+    {
+      first++;
     }
+    int last = length - 1;
+    while (last >= first && isMsfGap(seq.getCharAt(last)))
+    {
+      last--;
+    }
+    return new int[] { first, last };
+  }
 
-    return out.toString();
+  private static boolean isMsfGap(char c)
+  {
+    return c == '-' || c == '.';
+  }
+
+  /**
+   * Answers the columns {@code from} (inclusive) to {@code to} (exclusive) of
+   * the sequence, with gaps converted for MSF output: '~' for leading and
+   * trailing gaps, and '.' for internal gaps
+   * 
+   * @param seq
+   * @param from
+   * @param to
+   * @param residueBounds
+   *          first and last residue columns of the sequence
+   * @return
+   */
+  static char[] getMsfSequence(SequenceI seq, int from, int to,
+          int[] residueBounds)
+  {
+    char[] chars = seq.getSequence(from, to);
+    for (int i = 0; i < chars.length; i++)
+    {
+      if (isMsfGap(chars[i]))
+      {
+        int col = from + i;
+        chars[i] = col < residueBounds[0] || col > residueBounds[1] ? '~'
+                : '.';
+      }
+    }
+    return chars;
   }
 }
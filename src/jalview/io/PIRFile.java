@@ -25,6 +25,7 @@ import jalview.datamodel.SequenceI;
 import jalview.util.Comparison;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Vector;
 
 public class PIRFile extends AlignFile
@@ -105,10 +106,16 @@ public class PIRFile extends AlignFile
 
   @Override
   public String print(SequenceI[] s, boolean jvsuffix)
+  {
+    return printToString(s, jvsuffix);
+  }
+
+  @Override
+  public void print(SequenceI[] s, boolean jvsuffix, Writer out)
+          throws IOException
   {
     boolean is_NA = Comparison.isNucleotide(s);
     int len = 72;
-    StringBuffer out = new StringBuffer();
     int i = 0;
     ModellerDescription md;
 
@@ -130,19 +137,19 @@ public class PIRFile extends AlignFile
         // tRNA N3
         // other functional RNA N1
 
-        out.append(">N1;" + s[i].getName());
-        out.append(newline);
+        out.write(">N1;" + s[i].getName());
+        out.write(newline);
         if (s[i].getDescription() == null)
         {
-          out.append(s[i].getName() + " "
+          out.write(s[i].getName() + " "
                   + (s[i].getEnd() - s[i].getStart() + 1));
-          out.append(is_NA ? " bases" : " residues");
-          out.append(newline);
+          out.write(is_NA ? " bases" : " residues");
+          out.write(newline);
         }
         else
         {
-          out.append(s[i].getDescription());
-          out.append(newline);
+          out.write(s[i].getDescription());
+          out.write(newline);
         }
       }
       else
@@ -150,26 +157,26 @@ public class PIRFile extends AlignFile
 
         if (useModellerOutput)
         {
-          out.append(">P1;" + s[i].getName());
-          out.append(newline);
+          out.write(">P1;" + s[i].getName());
+          out.write(newline);
           md = new ModellerDescription(s[i]);
-          out.append(md.getDescriptionLine());
-          out.append(newline);
+          out.write(md.getDescriptionLine());
+          out.write(newline);
         }
         else
         {
-          out.append(">P1;" + printId(s[i], jvsuffix));
-          out.append(newline);
+          out.write(">P1;" + printId(s[i], jvsuffix));
+          out.write(newline);
           if (s[i].getDescription() != null)
           {
-            out.append(s[i].getDescription());
-            out.append(newline);
+            out.write(s[i].getDescription());
+            out.write(newline);
           }
           else
           {
-            out.append(s[i].getName() + " "
+            out.write(s[i].getName() + " "
                     + (s[i].getEnd() - s[i].getStart() + 1) + " residues");
-            out.append(newline);
+            out.write(newline);
           }
         }
       }
@@ -183,20 +190,18 @@ public class PIRFile extends AlignFile
 
         if (end < seq.length())
         {
-          out.append(seq.substring(start, end));
-          out.append(newline);
+          out.write(seq.substring(start, end));
+          out.write(newline);
         }
         else if (start < seq.length())
         {
-          out.append(seq.substring(start));
-          out.append(newline);
+          out.write(seq.substring(start));
+          out.write(newline);
         }
       }
 
       i++;
     }
-
-    return out.toString();
   }
 
 }
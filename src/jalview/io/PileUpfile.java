@@ -39,6 +39,7 @@ import jalview.datamodel.SequenceI;
 import jalview.util.Format;
 
 import java.io.IOException;
+import java.io.Writer;
 
 public class PileUpfile extends MSFfile
 {
@@ -75,9 +76,16 @@ public class PileUpfile extends MSFfile
   @Override
   public String print(SequenceI[] s, boolean jvsuffix)
   {
-    StringBuffer out = new StringBuffer("PileUp");
-    out.append(newline);
-    out.append(newline);
+    return printToString(s, jvsuffix);
+  }
+
+  @Override
+  public void print(SequenceI[] s, boolean jvsuffix, Writer out)
+          throws IOException
+  {
+    out.write("PileUp");
+    out.write(newline);
+    out.write(newline);
 
     int max = 0;
     int maxid = 0;
@@ -92,20 +100,20 @@ public class PileUpfile extends MSFfile
       i++;
     }
 
-    out.append("   MSF: " + s[0].getLength()
+    out.write("   MSF: " + s[0].getLength()
             + "   Type: P    Check:  " + bigChecksum % 10000 + "   ..");
-    out.append(newline);
-    out.append(newline);
-    out.append(newline);
+    out.write(newline);
+    out.write(newline);
+    out.write(newline);
 
     i = 0;
     while ((i < s.length) && (s[i] != null))
     {
       String seq = s[i].getSequenceAsString();
-      out.append(" Name: " + printId(s[i], jvsuffix) + " oo  Len:  "
+      out.write(" Name: " + printId(s[i], jvsuffix) + " oo  Len:  "
               + seq.length() + "  Check:  " + checksums[i]
               + "  Weight:  1.00");
-      out.append(newline);
+      out.write(newline);
 
       if (seq.length() > max)
       {
@@ -126,11 +134,11 @@ public class PileUpfile extends MSFfile
     }
 
     maxid++;
-    out.append(newline);
-    out.append(newline);
-    out.append("//");
-    out.append(newline);
-    out.append(newline);
+    out.write(newline);
+    out.write(newline);
+    out.write("//");
+    out.write(newline);
+    out.write(newline);
 
     int len = 50;
 
@@ -144,7 +152,7 @@ public class PileUpfile extends MSFfile
       {
         String name = printId(s[j], jvsuffix);
 
-        out.append(new Format("%-" + maxid + "s").form(name + " "));
+        out.write(new Format("%-" + maxid + "s").form(name + " "));
 
         for (int k = 0; k < 5; k++)
         {
@@ -154,29 +162,29 @@ public class PileUpfile extends MSFfile
           int length = s[j].getLength();
           if ((end < length) && (start < length))
           {
-            out.append(s[j].getSequence(start, end));
+            out.write(s[j].getSequence(start, end));
 
             if (k < 4)
             {
-              out.append(" ");
+              out.write(" ");
             }
             else
             {
-              out.append(newline);
+              out.write(newline);
             }
           }
           else
           {
             if (start < length)
             {
-              out.append(s[j].getSequenceAsString().substring(start));
-              out.append(newline);
+              out.write(s[j].getSequence(start, length));
+              out.write(newline);
             }
             else
             {
               if (k == 0)
               {
-                out.append(newline);
+                out.write(newline);
               }
             }
           }
@@ -185,9 +193,7 @@ public class PileUpfile extends MSFfile
         j++;
       }
 
-      out.append(newline);
+      out.write(newline);
     }
-
-    return out.toString();
   }
 }
@@ -0,0 +1,42 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.io;
+
+import jalview.datamodel.SequenceI;
+
+/**
+ * An interface for a receiver of sequences as they are read from a data
+ * source, allowing them to be processed without first building an alignment
+ * 
+ * @see FormatAdapter#readSequences(String, DataSourceType, FileFormatI,
+ *      SequenceConsumerI)
+ */
+public interface SequenceConsumerI
+{
+  /**
+   * Receives the next sequence read. Answers true to continue reading, or false
+   * to stop.
+   * 
+   * @param seq
+   * @return
+   */
+  boolean accept(SequenceI seq);
+}
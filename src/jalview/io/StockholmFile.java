@@ -42,6 +42,7 @@ import jalview.util.MessageManager;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Hashtable;
@@ -93,7 +94,6 @@ public class StockholmFile extends AlignFile
   private static final Regex NOT_RNASS = new Regex(
           "^[^<>[\\](){}A-DF-Za-df-z]*$");
 
-  StringBuffer out; // output buffer
 
   AlignmentI al;
 
@@ -946,9 +946,15 @@ public class StockholmFile extends AlignFile
   @Override
   public String print(SequenceI[] s, boolean jvSuffix)
   {
-    out = new StringBuffer();
-    out.append("# STOCKHOLM 1.0");
-    out.append(newline);
+    return printToString(s, jvSuffix);
+  }
+
+  @Override
+  public void print(SequenceI[] s, boolean jvSuffix, Writer out)
+          throws IOException
+  {
+    out.write("# STOCKHOLM 1.0");
+    out.write(newline);
 
     // find max length of id
     int max = 0;
@@ -1011,8 +1017,8 @@ public class StockholmFile extends AlignFile
         Enumeration val = al.getProperties().elements();
         while (key.hasMoreElements())
         {
-          out.append("#=GF " + key.nextElement() + " " + val.nextElement());
-          out.append(newline);
+          out.write("#=GF " + key.nextElement() + " " + val.nextElement());
+          out.write(newline);
         }
       }
     }
@@ -1025,19 +1031,19 @@ public class StockholmFile extends AlignFile
       {
         Object idd = en.nextElement();
         String type = (String) dataRef.remove(idd);
-        out.append(new Format("%-" + (maxid - 2) + "s")
+        out.write(new Format("%-" + (maxid - 2) + "s")
                 .form("#=GS " + idd.toString() + " "));
         if (isAA && type.contains("UNIPROT")
                 || (!isAA && type.contains("EMBL")))
         {
 
-          out.append(" AC " + type.substring(type.indexOf(";") + 1));
+          out.write(" AC " + type.substring(type.indexOf(";") + 1));
         }
         else
         {
-          out.append(" DR " + type + " ");
+          out.write(" DR " + type + " ");
         }
-        out.append(newline);
+        out.write(newline);
       }
     }
 
@@ -1066,24 +1072,22 @@ public class StockholmFile extends AlignFile
             continue;
           }
 
-          // out.append("#=GR ");
-          out.append(new Format("%-" + maxid + "s").form(
+          // out.write("#=GR ");
+          out.write(new Format("%-" + maxid + "s").form(
                   "#=GR " + printId(s[i], jvSuffix) + " " + key + " "));
           ann = alAnot[j].annotations;
-          String seq = "";
           for (int k = 0; k < ann.length; k++)
           {
-            seq += outputCharacter(key, k, isrna, ann, s[i]);
+            out.write(outputCharacter(key, k, isrna, ann, s[i]));
           }
-          out.append(seq);
-          out.append(newline);
+          out.write(newline);
         }
       }
 
-      out.append(new Format("%-" + maxid + "s")
+      out.write(new Format("%-" + maxid + "s")
               .form(printId(s[i], jvSuffix) + " "));
-      out.append(s[i].getSequenceAsString());
-      out.append(newline);
+      out.write(s[i].getSequenceAsString());
+      out.write(newline);
       i++;
     }
 
@@ -1098,7 +1102,6 @@ public class StockholmFile extends AlignFile
         {
           continue;
         }
-        String seq = "";
         String label;
         String key = "";
         if (aa.label.equals("seq"))
@@ -1123,22 +1126,19 @@ public class StockholmFile extends AlignFile
         }
         label = label.replace(" ", "_");
 
-        out.append(
+        out.write(
                 new Format("%-" + maxid + "s").form("#=GC " + label + " "));
         boolean isrna = aa.isValidStruc();
         for (int j = 0; j < aa.annotations.length; j++)
         {
-          seq += outputCharacter(key, j, isrna, aa.annotations, null);
+          out.write(outputCharacter(key, j, isrna, aa.annotations, null));
         }
-        out.append(seq);
-        out.append(newline);
+        out.write(newline);
       }
     }
 
-    out.append("//");
-    out.append(newline);
-
-    return out.toString();
+    out.write("//");
+    out.write(newline);
   }
 
   /**
@@ -1210,14 +1210,7 @@ public class StockholmFile extends AlignFile
 
   public String print()
   {
-    out = new StringBuffer();
-    out.append("# STOCKHOLM 1.0");
-    out.append(newline);
-    print(getSeqsAsArray(), false);
-
-    out.append("//");
-    out.append(newline);
-    return out.toString();
+    return print(getSeqsAsArray(), false);
   }
 
   private static Hashtable typeIds = null;
@@ -44,14 +44,20 @@ import jalview.util.StringUtils;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -123,6 +129,166 @@ public class VCFLoader
     }
   }
 
+  /**
+   * A class to hold the sequences to load variants for from one chromosome
+   * (VCF contig), indexed by their mapped chromosomal ranges, so that each VCF
+   * record read need only be matched to the sequences that it overlaps
+   */
+  class ContigQuery
+  {
+    final String chromosome;
+
+    /*
+     * the sequences, the (dataset) sequences to add features to, and their
+     * mappings to the contig, with the count of variant features added to each
+     */
+    final List<SequenceI> sequences = new ArrayList<>();
+
+    final List<SequenceI> targets = new ArrayList<>();
+
+    final List<VCFMap> maps = new ArrayList<>();
+
+    int[] added;
+
+    /*
+     * mapped ranges of all sequences, ordered by start position, with the
+     * sequence (index) they are for, and the greatest end position of this
+     * and any preceding range
+     */
+    private int[] rangeStarts;
+
+    private int[] rangeEnds;
+
+    private int[] rangeSequences;
+
+    private int[] maxEnds;
+
+    ContigQuery(String chr)
+    {
+      chromosome = chr;
+    }
+
+    /**
+     * Adds a sequence to query for, with its mapping to the contig
+     * 
+     * @param seq
+     * @param map
+     */
+    void addSequence(SequenceI seq, VCFMap map)
+    {
+      sequences.add(seq);
+      SequenceI dss = seq.getDatasetSequence();
+      targets.add(dss == null ? seq : dss);
+      maps.add(map);
+    }
+
+    /**
+     * Builds the index of sequence ranges, to be called after all sequences
+     * have been added
+     */
+    void index()
+    {
+      List<int[]> ranges = new ArrayList<>();
+      for (int i = 0; i < maps.size(); i++)
+      {
+        for (int[] range : maps.get(i).map.getToRanges())
+        {
+          ranges.add(new int[] { Math.min(range[0], range[1]),
+              Math.max(range[0], range[1]), i });
+        }
+      }
+      Collections.sort(ranges, new Comparator<int[]>()
+      {
+        @Override
+        public int compare(int[] o1, int[] o2)
+        {
+          return Integer.compare(o1[0], o2[0]);
+        }
+      });
+      int count = ranges.size();
+      rangeStarts = new int[count];
+      rangeEnds = new int[count];
+      rangeSequences = new int[count];
+      maxEnds = new int[count];
+      for (int i = 0; i < count; i++)
+      {
+        int[] range = ranges.get(i);
+        rangeStarts[i] = range[0];
+        rangeEnds[i] = range[1];
+        rangeSequences[i] = range[2];
+        maxEnds[i] = i == 0 ? range[1] : Math.max(maxEnds[i - 1], range[1]);
+      }
+      added = new int[sequences.size()];
+    }
+
+    /**
+     * Answers the regions of the contig to query, formed by merging the
+     * overlapping or adjacent mapped ranges of all sequences
+     * 
+     * @return
+     */
+    List<int[]> getRegions()
+    {
+      List<int[]> regions = new ArrayList<>();
+      int[] region = null;
+      for (int i = 0; i < rangeStarts.length; i++)
+      {
+        if (region != null && rangeStarts[i] <= region[1] + 1)
+        {
+          region[1] = Math.max(region[1], rangeEnds[i]);
+        }
+        else
+        {
+          region = new int[] { rangeStarts[i], rangeEnds[i] };
+          regions.add(region);
+        }
+      }
+      return regions;
+    }
+
+    /**
+     * Adds features for the variant to each sequence that has a mapped range
+     * that the variant overlaps. As when each range is queried separately, a
+     * variant that overlaps more than one range of a sequence is processed for
+     * each of them.
+     * 
+     * @param variant
+     */
+    void addVariant(VariantContext variant)
+    {
+      int variantStart = variant.getStart();
+      int variantEnd = variant.getEnd();
+
+      /*
+       * find the last range starting at or before the end of the variant,
+       * then search back while ranges may extend to the start of the variant
+       */
+      int low = 0;
+      int high = rangeStarts.length;
+      while (low < high)
+      {
+        int mid = (low + high) >>> 1;
+        if (rangeStarts[mid] <= variantEnd)
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          high = mid;
+        }
+      }
+      for (int i = low - 1; i >= 0 && maxEnds[i] >= variantStart; i--)
+      {
+        if (rangeEnds[i] >= variantStart)
+        {
+          int j = rangeSequences[i];
+          added[j] += addVariantFeatures(targets.get(j), maps.get(j),
+                  variant);
+        }
+      }
+    }
+  }
+
   /*
    * Lookup keys, and default values, for Preference entries that describe
    * patterns for VCF and VEP fields to capture
@@ -359,20 +525,48 @@ public class VCFLoader
 
       setSpeciesAndAssembly(reference);
 
-      int varCount = 0;
-      int seqCount = 0;
-
       /*
-       * query for VCF overlapping each sequence in turn
+       * group the sequences to query for by the VCF contig they map to
        */
+      Map<String, ContigQuery> queries = new LinkedHashMap<>();
       for (SequenceI seq : seqs)
       {
-        int added = loadSequenceVCF(seq);
-        if (added > 0)
+        VCFMap vcfMap = getVcfMap(seq);
+        if (vcfMap != null)
         {
-          seqCount++;
-          varCount += added;
-          transferAddedFeatures(seq);
+          ContigQuery query = queries.get(vcfMap.chromosome);
+          if (query == null)
+          {
+            query = new ContigQuery(vcfMap.chromosome);
+            queries.put(vcfMap.chromosome, query);
+          }
+          query.addSequence(seq, vcfMap);
+        }
+      }
+      for (ContigQuery query : queries.values())
+      {
+        query.index();
+      }
+
+      loadVariants(new ArrayList<>(queries.values()), gui);
+
+      /*
+       * count the added variants per sequence, and transfer them to
+       * any mapped sequences
+       */
+      int varCount = 0;
+      int seqCount = 0;
+      for (ContigQuery query : queries.values())
+      {
+        for (int i = 0; i < query.sequences.size(); i++)
+        {
+          int added = query.added[i];
+          if (added > 0)
+          {
+            seqCount++;
+            varCount += added;
+            transferAddedFeatures(query.sequences.get(i));
+          }
         }
       }
       if (gui != null)
@@ -410,6 +604,162 @@ public class VCFLoader
     }
   }
 
+  /**
+   * Reads the VCF variants that overlap the sequences to query for, and adds
+   * them as sequence features. If the VCF file is indexed, the merged regions
+   * for each contig are queried, with contigs processed in parallel (each with
+   * its own reader) if more than one processor is available. If it is not
+   * indexed, the file is read once, and each record matched to any overlapping
+   * sequence ranges.
+   * 
+   * @param queries
+   * @param gui
+   *          optional callback handler for progress messages
+   */
+  protected void loadVariants(final List<ContigQuery> queries,
+          final AlignViewControllerGuiI gui)
+  {
+    if (!reader.isIndex())
+    {
+      readVariants(queries);
+      return;
+    }
+
+    final AtomicInteger done = new AtomicInteger();
+    if (queries.size() < 2 || ForkJoinPool.getCommonPoolParallelism() < 2)
+    {
+      for (ContigQuery query : queries)
+      {
+        queryVariants(query, reader);
+        showProgress(gui, query, done.incrementAndGet(), queries.size());
+      }
+      return;
+    }
+
+    final List<RecursiveAction> tasks = new ArrayList<>();
+    for (final ContigQuery query : queries)
+    {
+      tasks.add(new RecursiveAction()
+      {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute()
+        {
+          try (VCFReader contigReader = new VCFReader(vcfFilePath))
+          {
+            queryVariants(query, contigReader);
+          } catch (IOException e)
+          {
+            Cache.log.error("Error reading VCF for " + query.chromosome
+                    + ": " + e.getMessage());
+          }
+          showProgress(gui, query, done.incrementAndGet(), queries.size());
+        }
+      });
+    }
+    ForkJoinPool.commonPool().invoke(new RecursiveAction()
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void compute()
+      {
+        invokeAll(tasks);
+      }
+    });
+  }
+
+  /**
+   * Shows a progress message after loading variants for a contig
+   * 
+   * @param gui
+   * @param query
+   * @param done
+   * @param total
+   */
+  private void showProgress(AlignViewControllerGuiI gui, ContigQuery query,
+          int done, int total)
+  {
+    if (gui != null)
+    {
+      gui.setStatus(MessageManager.formatMessage("label.searching_vcf_contig",
+              query.chromosome, done, total));
+    }
+  }
+
+  /**
+   * Queries an indexed VCF file for variants in the merged regions of one
+   * contig, and adds them to the sequences they overlap
+   * 
+   * @param query
+   * @param contigReader
+   */
+  protected void queryVariants(ContigQuery query, VCFReader contigReader)
+  {
+    for (int[] region : query.getRegions())
+    {
+      try
+      {
+        CloseableIterator<VariantContext> variants = contigReader
+                .query(query.chromosome, region[0], region[1]);
+        while (variants.hasNext())
+        {
+          query.addVariant(variants.next());
+        }
+        variants.close();
+      } catch (TribbleException e)
+      {
+        /*
+         * RuntimeException throwable by htsjdk
+         */
+        String msg = String.format("Error reading VCF for %s:%d-%d: %s ",
+                query.chromosome, region[0], region[1],
+                e.getLocalizedMessage());
+        Cache.log.error(msg);
+      }
+    }
+  }
+
+  /**
+   * Reads all records of an unindexed VCF file once, and adds each to the
+   * sequences (if any) that it overlaps
+   * 
+   * @param queries
+   */
+  protected void readVariants(List<ContigQuery> queries)
+  {
+    Map<String, ContigQuery> byContig = new HashMap<>();
+    for (ContigQuery query : queries)
+    {
+      byContig.put(query.chromosome, query);
+    }
+    CloseableIterator<VariantContext> variants = reader.iterator();
+    if (variants == null)
+    {
+      return;
+    }
+    try
+    {
+      while (variants.hasNext())
+      {
+        VariantContext variant = variants.next();
+        ContigQuery query = byContig.get(variant.getContig());
+        if (query != null)
+        {
+          query.addVariant(variant);
+        }
+      }
+    } catch (TribbleException e)
+    {
+      Cache.log.error(
+              "Error reading VCF: " + e.getLocalizedMessage());
+    } finally
+    {
+      variants.close();
+    }
+  }
+
   /**
    * Attempts to determine and save the species and genome assembly version to
    * which the VCF data applies. This may be done by parsing the {@code reference}
@@ -876,8 +1226,6 @@ public class VCFLoader
    */
   protected int addVcfVariants(SequenceI seq, VCFMap map)
   {
-    boolean forwardStrand = map.map.isToForwardStrand();
-
     /*
      * query the VCF for overlaps of each contiguous chromosomal region
      */
@@ -893,18 +1241,7 @@ public class VCFLoader
                 .query(map.chromosome, vcfStart, vcfEnd);
         while (variants.hasNext())
         {
-          VariantContext variant = variants.next();
-
-          int[] featureRange = map.map.locateInFrom(variant.getStart(),
-                  variant.getEnd());
-
-          if (featureRange != null)
-          {
-            int featureStart = Math.min(featureRange[0], featureRange[1]);
-            int featureEnd = Math.max(featureRange[0], featureRange[1]);
-            count += addAlleleFeatures(seq, variant, featureStart,
-                    featureEnd, forwardStrand);
-          }
+          count += addVariantFeatures(seq, map, variants.next());
         }
         variants.close();
       } catch (TribbleException e)
@@ -921,6 +1258,30 @@ public class VCFLoader
     return count;
   }
 
+  /**
+   * Adds features to the sequence for the alleles of the variant, if it maps to
+   * the sequence, and returns the number of features added
+   * 
+   * @param seq
+   * @param map
+   * @param variant
+   * @return
+   */
+  protected int addVariantFeatures(SequenceI seq, VCFMap map,
+          VariantContext variant)
+  {
+    int[] featureRange = map.map.locateInFrom(variant.getStart(),
+            variant.getEnd());
+    if (featureRange == null)
+    {
+      return 0;
+    }
+    int featureStart = Math.min(featureRange[0], featureRange[1]);
+    int featureEnd = Math.max(featureRange[0], featureRange[1]);
+    return addAlleleFeatures(seq, variant, featureStart, featureEnd,
+            map.map.isToForwardStrand());
+  }
+
   /**
    * A convenience method to get an attribute value for an alternate allele
    * 
@@ -1406,7 +1767,8 @@ public class VCFLoader
    * @param infoId
    * @param value
    */
-  private void logInvalidValue(VariantContext variant, String infoId,
+  private synchronized void logInvalidValue(VariantContext variant,
+          String infoId,
           String value)
   {
     if (badData == null)
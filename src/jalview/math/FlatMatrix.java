@@ -0,0 +1,820 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.math;
+
+import jalview.util.MessageManager;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A matrix of double values held in a single array in row-major order. This
+ * avoids the indirection of an array of rows, and allows the eigenvector
+ * calculations used by PCA to work on contiguous data:
+ * <ul>
+ * <li>{@link #tred()} and {@link #tqli()} compute exactly the same results as
+ * {@link Matrix}, with the loops reordered to run along rows rather than down
+ * columns</li>
+ * <li>{@link #findTopEigenvectors(int)} computes only the largest eigenvalues
+ * and their eigenvectors, by Lanczos iteration, which is much faster than full
+ * diagonalisation when only a few principal components are wanted</li>
+ * </ul>
+ */
+public class FlatMatrix extends Matrix
+{
+  /*
+   * relative size of residual at which an eigenvector is taken as converged
+   */
+  private static final double TOLERANCE = 1E-10;
+
+  /*
+   * the cell values in row-major order
+   */
+  private double[] values;
+
+  /**
+   * Constructor given number of rows and columns, with all values zero
+   * 
+   * @param rowCount
+   * @param colCount
+   */
+  public FlatMatrix(int rowCount, int colCount)
+  {
+    super(rowCount, colCount);
+    values = new double[rowCount * colCount];
+  }
+
+  /**
+   * Constructor given values in [row][column] order. The values are copied.
+   * 
+   * @param v
+   */
+  public FlatMatrix(double[][] v)
+  {
+    this(v.length, v.length == 0 ? 0 : v[0].length);
+    for (int i = 0; i < rows; i++)
+    {
+      System.arraycopy(v[i], 0, values, i * cols, cols);
+    }
+  }
+
+  /**
+   * Constructs a copy of the given matrix, including any D and E vectors
+   * 
+   * @param m
+   */
+  public FlatMatrix(MatrixI m)
+  {
+    this(m.height(), m.width());
+    for (int i = 0; i < rows; i++)
+    {
+      System.arraycopy(m.getRow(i), 0, values, i * cols, cols);
+    }
+    if (m.getD() != null)
+    {
+      d = Arrays.copyOf(m.getD(), m.getD().length);
+    }
+    if (m.getE() != null)
+    {
+      e = Arrays.copyOf(m.getE(), m.getE().length);
+    }
+  }
+
+  @Override
+  public double getValue(int i, int j)
+  {
+    return values[i * cols + j];
+  }
+
+  @Override
+  public void setValue(int i, int j, double val)
+  {
+    values[i * cols + j] = val;
+  }
+
+  @Override
+  protected double addValue(int i, int j, double f)
+  {
+    int index = i * cols + j;
+    double v = values[index] + f;
+    values[index] = v;
+    return v;
+  }
+
+  @Override
+  protected double divideValue(int i, int j, double divisor)
+  {
+    int index = i * cols + j;
+    if (divisor != 0d)
+    {
+      values[index] /= divisor;
+    }
+    return values[index];
+  }
+
+  @Override
+  public double[] getRow(int i)
+  {
+    return Arrays.copyOfRange(values, i * cols, (i + 1) * cols);
+  }
+
+  @Override
+  public double[] getColumn(int col)
+  {
+    double[] out = new double[rows];
+    for (int i = 0; i < rows; i++)
+    {
+      out[i] = values[i * cols + col];
+    }
+    return out;
+  }
+
+  @Override
+  public MatrixI copy()
+  {
+    return new FlatMatrix(this);
+  }
+
+  @Override
+  public MatrixI transpose()
+  {
+    FlatMatrix out = new FlatMatrix(cols, rows);
+    transpose(values, out.values, rows, cols);
+    return out;
+  }
+
+  /**
+   * Writes the transpose of from (with the given number of rows and columns)
+   * to to
+   * 
+   * @param from
+   * @param to
+   * @param rowCount
+   * @param colCount
+   */
+  static void transpose(double[] from, double[] to, int rowCount,
+          int colCount)
+  {
+    for (int i = 0; i < rowCount; i++)
+    {
+      int rowStart = i * colCount;
+      for (int j = 0; j < colCount; j++)
+      {
+        to[j * rowCount + i] = from[rowStart + j];
+      }
+    }
+  }
+
+  @Override
+  public MatrixI preMultiply(MatrixI in)
+  {
+    if (in.width() != rows)
+    {
+      throw new IllegalArgumentException("Can't pre-multiply " + this.rows
+              + " rows by " + in.width() + " columns");
+    }
+    int height = in.height();
+    FlatMatrix out = new FlatMatrix(height, cols);
+    double[] result = out.values;
+
+    /*
+     * add in.row[i] * this.row[k] to result.row[i] for each k, 
+     * so that the innermost loop runs along rows
+     */
+    for (int i = 0; i < height; i++)
+    {
+      int resultRow = i * cols;
+      for (int k = 0; k < rows; k++)
+      {
+        double x = in.getValue(i, k);
+        int row = k * cols;
+        for (int j = 0; j < cols; j++)
+        {
+          result[resultRow + j] += x * values[row + j];
+        }
+      }
+    }
+
+    return out;
+  }
+
+  @Override
+  public double[] vectorPostMultiply(double[] in)
+  {
+    double[] out = new double[in.length];
+    for (int i = 0; i < in.length; i++)
+    {
+      int row = i * cols;
+      double x = 0d;
+      for (int k = 0; k < in.length; k++)
+      {
+        x += values[row + k] * in[k];
+      }
+      out[i] = x;
+    }
+    return out;
+  }
+
+  @Override
+  double[] findMinMax()
+  {
+    if (values.length == 0)
+    {
+      return null;
+    }
+    double min = Double.MAX_VALUE;
+    double max = -Double.MAX_VALUE;
+    for (double x : values)
+    {
+      min = Math.min(min, x);
+      max = Math.max(max, x);
+    }
+    return new double[] { min, max };
+  }
+
+  @Override
+  public void reverseRange(boolean maxToZero)
+  {
+    double[] minMax = findMinMax();
+    if (minMax == null)
+    {
+      return; // empty matrix
+    }
+    double subtractFrom = maxToZero ? minMax[1] : minMax[0] + minMax[1];
+    for (int i = 0; i < values.length; i++)
+    {
+      values[i] = subtractFrom - values[i];
+    }
+  }
+
+  @Override
+  public void multiply(double by)
+  {
+    for (int i = 0; i < values.length; i++)
+    {
+      values[i] *= by;
+    }
+  }
+
+  @Override
+  public double getTotal()
+  {
+    double total = 0d;
+    for (double x : values)
+    {
+      total += x;
+    }
+    return total;
+  }
+
+  /**
+   * Performs Householder reduction of this (symmetric) matrix to tridiagonal
+   * form, as {@link Matrix#tred()}. The arithmetic is done in the same order as
+   * there, so results are identical, but loops which would run down columns
+   * are reordered to accumulate whole rows.
+   */
+  @Override
+  public void tred()
+  {
+    final int n = rows;
+    final double[] a = values;
+    d = new double[n];
+    e = new double[n];
+    double[] g = new double[n];
+
+    for (int i = n - 1; i >= 1; i--)
+    {
+      final int l = i; // the number of columns left of the diagonal
+      final int rowI = i * n;
+      double h = 0d;
+
+      if (l > 1)
+      {
+        double scale = 0d;
+        for (int k = 0; k < l; k++)
+        {
+          scale += Math.abs(a[rowI + k]);
+        }
+
+        if (scale == 0d)
+        {
+          e[i] = a[rowI + l - 1];
+        }
+        else
+        {
+          for (int k = 0; k < l; k++)
+          {
+            double v = a[rowI + k] / scale;
+            a[rowI + k] = v;
+            h += v * v;
+          }
+
+          double f = a[rowI + l - 1];
+          double gg = f > 0 ? -Math.sqrt(h) : Math.sqrt(h);
+          e[i] = scale * gg;
+          h -= f * gg;
+          a[rowI + l - 1] = f - gg;
+
+          /*
+           * store u/h in column i; then form e = A.u/h,
+           * the lower triangle holding A; each e[j] sums the terms
+           * a[j][0..j].u[0..j] then a[j+1..l-1][j].u[j+1..l-1], in order
+           */
+          for (int j = 0; j < l; j++)
+          {
+            a[j * n + i] = a[rowI + j] / h;
+          }
+          for (int j = 0; j < l; j++)
+          {
+            int rowJ = j * n;
+            double sum = 0d;
+            for (int k = 0; k <= j; k++)
+            {
+              sum += a[rowJ + k] * a[rowI + k];
+            }
+            e[j] = sum;
+          }
+          for (int k = 1; k < l; k++)
+          {
+            int rowK = k * n;
+            double u = a[rowI + k];
+            for (int j = 0; j < k; j++)
+            {
+              e[j] += a[rowK + j] * u;
+            }
+          }
+          f = 0d;
+          for (int j = 0; j < l; j++)
+          {
+            e[j] = e[j] / h;
+            f += e[j] * a[rowI + j];
+          }
+
+          double hh = f / (h + h);
+          for (int j = 0; j < l; j++)
+          {
+            f = a[rowI + j];
+            double gj = e[j] - (hh * f);
+            e[j] = gj;
+            int rowJ = j * n;
+            for (int k = 0; k <= j; k++)
+            {
+              a[rowJ + k] -= (f * e[k]) + (gj * a[rowI + k]);
+            }
+          }
+        }
+      }
+      else
+      {
+        e[i] = a[rowI + l - 1];
+      }
+
+      d[i] = h;
+    }
+
+    d[0] = 0d;
+    e[0] = 0d;
+
+    /*
+     * accumulate the transformations
+     */
+    for (int i = 0; i < n; i++)
+    {
+      final int rowI = i * n;
+      final int l = i;
+
+      if (d[i] != 0d)
+      {
+        /*
+         * g[j] is row i times column j, summed along rows k
+         */
+        Arrays.fill(g, 0, l, 0d);
+        for (int k = 0; k < l; k++)
+        {
+          double aik = a[rowI + k];
+          int rowK = k * n;
+          for (int j = 0; j < l; j++)
+          {
+            g[j] += aik * a[rowK + j];
+          }
+        }
+        for (int k = 0; k < l; k++)
+        {
+          int rowK = k * n;
+          double aki = a[rowK + i];
+          for (int j = 0; j < l; j++)
+          {
+            a[rowK + j] -= g[j] * aki;
+          }
+        }
+      }
+
+      d[i] = a[rowI + i];
+      a[rowI + i] = 1d;
+
+      for (int j = 0; j < l; j++)
+      {
+        a[j * n + i] = 0d;
+        a[rowI + j] = 0d;
+      }
+    }
+  }
+
+  /**
+   * Computes the eigenvalues (in D) and eigenvectors (in the columns of this
+   * matrix) of the tridiagonal matrix found by {@link #tred()}, as
+   * {@link Matrix#tqli()}. Results are identical to those of Matrix, but the
+   * plane rotations are applied to a transposed copy of the eigenvectors, so
+   * that each rotation runs along two rows.
+   * 
+   * @throws Exception
+   *           if the calculation fails to converge
+   */
+  @Override
+  public void tqli() throws Exception
+  {
+    final int n = rows;
+    double[] z = new double[values.length];
+    transpose(values, z, n, n);
+
+    for (int i = 1; i < n; i++)
+    {
+      e[i - 1] = e[i];
+    }
+    e[n - 1] = 0d;
+
+    for (int l = 0; l < n; l++)
+    {
+      int iter = 0;
+      int m;
+
+      do
+      {
+        for (m = l; m < n - 1; m++)
+        {
+          double dd = Math.abs(d[m]) + Math.abs(d[m + 1]);
+          if ((Math.abs(e[m]) + dd) == dd)
+          {
+            break;
+          }
+        }
+
+        if (m != l)
+        {
+          iter++;
+          if (iter == MAX_ITER)
+          {
+            throw new Exception(MessageManager.formatMessage(
+                    "exception.matrix_too_many_iteration", new String[]
+                    { "tqli", Integer.valueOf(MAX_ITER).toString() }));
+          }
+
+          double g = (d[l + 1] - d[l]) / (2.0 * e[l]);
+          double r = Math.sqrt((g * g) + 1.0);
+          g = d[m] - d[l] + (e[l] / (g + sign(r, g)));
+          double s = 1.0;
+          double c = 1.0;
+          double p = 0.0;
+
+          for (int i = m - 1; i >= l; i--)
+          {
+            double f = s * e[i];
+            double b = c * e[i];
+
+            if (Math.abs(f) >= Math.abs(g))
+            {
+              c = g / f;
+              r = Math.sqrt((c * c) + 1.0);
+              e[i + 1] = f * r;
+              s = 1.0 / r;
+              c *= s;
+            }
+            else
+            {
+              s = f / g;
+              r = Math.sqrt((s * s) + 1.0);
+              e[i + 1] = g * r;
+              c = 1.0 / r;
+              s *= c;
+            }
+
+            g = d[i + 1] - p;
+            r = ((d[i] - g) * s) + (2.0 * c * b);
+            p = s * r;
+            d[i + 1] = g + p;
+            g = (c * r) - b;
+
+            /*
+             * rotate eigenvectors i and i+1 (rows of z)
+             */
+            int row1 = (i + 1) * n;
+            int row0 = i * n;
+            for (int k = 0; k < n; k++)
+            {
+              f = z[row1 + k];
+              double z0 = z[row0 + k];
+              z[row1 + k] = (s * z0) + (c * f);
+              z[row0 + k] = (c * z0) - (s * f);
+            }
+          }
+
+          d[l] = d[l] - p;
+          e[l] = g;
+          e[m] = 0.0;
+        }
+      } while (m != l);
+    }
+
+    transpose(z, values, n, n);
+  }
+
+  /**
+   * Replaces the contents of this symmetric matrix with its eigenvectors for
+   * the (up to) k largest eigenvalues, found by Lanczos iteration with full
+   * reorthogonalisation. This is much faster than {@link #tred()} and
+   * {@link #tqli()} for large matrices when only a few eigenvectors are needed.
+   * <p>
+   * The eigenvectors are held in the last k columns of the matrix in ascending
+   * order of eigenvalue, so that the largest is in the last column, with their
+   * eigenvalues in the corresponding positions in D. Other columns, and values
+   * of D, are set to zero. (In contrast, tqli() does not sort eigenvalues.)
+   * 
+   * @param k
+   * @throws Exception
+   *           if the calculation fails to converge
+   */
+  public void findTopEigenvectors(int k) throws Exception
+  {
+    final int n = rows;
+    k = Math.min(k, n);
+    if (n == 0 || k < 1)
+    {
+      return;
+    }
+
+    double norm = 0d;
+    for (double x : values)
+    {
+      norm += x * x;
+    }
+    norm = Math.sqrt(norm);
+
+    /*
+     * q holds the Lanczos vectors, alpha and beta the diagonal and
+     * sub-diagonal of the tridiagonal matrix T = Q'AQ (beta[j] couples
+     * vectors j-1 and j); residual is the norm of the component of A.q
+     * not in the span of q for the latest vector
+     */
+    Random random = new Random(n);
+    double[][] q = new double[n][];
+    double[] alpha = new double[n];
+    double[] beta = new double[n];
+    q[0] = randomVector(random, q, 0);
+    int steps = 0;
+    int maxSteps = Math.min(n, Math.max(2 * k + 1, k + 20));
+    double residual = 0d;
+
+    while (true)
+    {
+      for (; steps < maxSteps; steps++)
+      {
+        double[] w = vectorPostMultiply(q[steps]);
+        alpha[steps] = dot(w, q[steps]);
+        orthogonalise(w, q, steps + 1);
+        orthogonalise(w, q, steps + 1);
+        residual = Math.sqrt(dot(w, w));
+        if (steps + 1 < n)
+        {
+          if (residual > TOLERANCE * norm)
+          {
+            beta[steps + 1] = residual;
+            for (int i = 0; i < n; i++)
+            {
+              w[i] /= residual;
+            }
+            q[steps + 1] = w;
+          }
+          else
+          {
+            /*
+             * invariant subspace found - restart with a new vector
+             */
+            beta[steps + 1] = 0d;
+            q[steps + 1] = randomVector(random, q, steps + 1);
+          }
+        }
+      }
+
+      /*
+       * find the eigenvalues and eigenvectors of T
+       */
+      FlatMatrix t = new FlatMatrix(steps, steps);
+      for (int i = 0; i < steps; i++)
+      {
+        t.values[i * steps + i] = 1d;
+      }
+      t.d = Arrays.copyOf(alpha, steps);
+      t.e = Arrays.copyOf(beta, steps);
+      t.tqli();
+
+      int[] top = findLargest(t.d, k);
+
+      /*
+       * converged if the residual (|A.v - theta.v|) is small 
+       * for all the wanted eigenvalues
+       */
+      boolean converged = true;
+      double maxEigenvalue = 0d;
+      for (int i : top)
+      {
+        maxEigenvalue = Math.max(maxEigenvalue, Math.abs(t.d[i]));
+      }
+      for (int i : top)
+      {
+        double error = Math.abs(residual * t.getValue(steps - 1, i));
+        if (error > TOLERANCE * maxEigenvalue)
+        {
+          converged = false;
+        }
+      }
+
+      if (converged || steps == n)
+      {
+        setEigenvectors(q, t, top);
+        return;
+      }
+      maxSteps = Math.min(n, 2 * maxSteps);
+    }
+  }
+
+  /**
+   * Sets the eigenvectors Q.s for the Ritz vectors s in the given columns of t
+   * in the last columns of this matrix, with their eigenvalues in D
+   * 
+   * @param q
+   * @param t
+   * @param top
+   */
+  private void setEigenvectors(double[][] q, FlatMatrix t, int[] top)
+  {
+    final int n = rows;
+    int steps = t.rows;
+    Arrays.fill(values, 0d);
+    d = new double[n];
+    e = new double[n];
+
+    int col = n - top.length;
+    double[] v = new double[n];
+    for (int i : top)
+    {
+      Arrays.fill(v, 0d);
+      for (int j = 0; j < steps; j++)
+      {
+        double s = t.getValue(j, i);
+        double[] qj = q[j];
+        for (int r = 0; r < n; r++)
+        {
+          v[r] += s * qj[r];
+        }
+      }
+
+      /*
+       * normalise, and make the largest component positive
+       */
+      double vNorm = Math.sqrt(dot(v, v));
+      int maxIndex = 0;
+      for (int r = 1; r < n; r++)
+      {
+        if (Math.abs(v[r]) > Math.abs(v[maxIndex]))
+        {
+          maxIndex = r;
+        }
+      }
+      if (v[maxIndex] < 0)
+      {
+        vNorm = -vNorm;
+      }
+      for (int r = 0; r < n; r++)
+      {
+        values[r * n + col] = v[r] / vNorm;
+      }
+      d[col] = t.d[i];
+      col++;
+    }
+  }
+
+  /**
+   * Answers the indices of the k largest values, in ascending order of value
+   * 
+   * @param v
+   * @param k
+   * @return
+   */
+  static int[] findLargest(double[] v, int k)
+  {
+    Integer[] indices = new Integer[v.length];
+    for (int i = 0; i < v.length; i++)
+    {
+      indices[i] = i;
+    }
+    Arrays.sort(indices, (i1, i2) -> Double.compare(v[i1], v[i2]));
+    k = Math.min(k, v.length);
+    int[] largest = new int[k];
+    for (int i = 0; i < k; i++)
+    {
+      largest[i] = indices[v.length - k + i];
+    }
+    return largest;
+  }
+
+  /**
+   * Answers a pseudo-random unit vector orthogonal to the first count vectors
+   * in q
+   * 
+   * @param random
+   * @param q
+   * @param count
+   * @return
+   */
+  private double[] randomVector(Random random, double[][] q, int count)
+  {
+    double[] v = new double[rows];
+    double norm = 0d;
+    while (norm < 0.5)
+    {
+      for (int i = 0; i < rows; i++)
+      {
+        v[i] = random.nextDouble() - 0.5;
+      }
+      double length = Math.sqrt(dot(v, v));
+      for (int i = 0; i < rows; i++)
+      {
+        v[i] /= length;
+      }
+      orthogonalise(v, q, count);
+      orthogonalise(v, q, count);
+      norm = Math.sqrt(dot(v, v));
+    }
+    for (int i = 0; i < rows; i++)
+    {
+      v[i] /= norm;
+    }
+    return v;
+  }
+
+  /**
+   * Subtracts from w its projection on each of the first count vectors in q
+   * (which are assumed to be orthonormal)
+   * 
+   * @param w
+   * @param q
+   * @param count
+   */
+  static void orthogonalise(double[] w, double[][] q, int count)
+  {
+    for (int j = 0; j < count; j++)
+    {
+      double[] qj = q[j];
+      double x = dot(w, qj);
+      for (int i = 0; i < w.length; i++)
+      {
+        w[i] -= x * qj[i];
+      }
+    }
+  }
+
+  /**
+   * Answers the scalar product of two vectors of the same length
+   * 
+   * @param v1
+   * @param v2
+   * @return
+   */
+  static double dot(double[] v1, double[] v2)
+  {
+    double x = 0d;
+    for (int i = 0; i < v1.length; i++)
+    {
+      x += v1[i] * v2[i];
+    }
+    return x;
+  }
+}
@@ -34,7 +34,7 @@ public class Matrix implements MatrixI
   /*
    * maximum number of iterations for tqli
    */
-  private static final int MAX_ITER = 45;
+  static final int MAX_ITER = 45;
   // fudge - add 15 iterations, just in case
 
   /*
@@ -28,6 +28,9 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Rectangle;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -41,9 +44,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -57,6 +62,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
@@ -65,6 +74,7 @@ import javax.swing.JInternalFrame;
 import javax.swing.SwingUtilities;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
@@ -223,6 +233,17 @@ public class Jalview2XML
    */
   private static final String UNIQSEQSETID = "uniqueSeqSetId.";
 
+  /*
+   * JAXB context for the project model, created when first needed
+   */
+  private static JAXBContext jaxbContext;
+
+  /*
+   * the maximum number of project models parsed ahead of the one being
+   * restored, when loading a project
+   */
+  private static final int MODELS_PARSED_AHEAD = 2;
+
   // use this with nextCounter() to make unique names for entities
   private int counter = 0;
 
@@ -1670,9 +1691,7 @@ public class Jalview2XML
         jout.putNextEntry(entry);
         PrintWriter pout = new PrintWriter(
                 new OutputStreamWriter(jout, UTF_8));
-        JAXBContext jaxbContext = JAXBContext
-                .newInstance(JalviewModel.class);
-        Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
+        Marshaller jaxbMarshaller = getJAXBContext().createMarshaller();
 
         // output pretty printed
         // jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
@@ -1800,6 +1819,15 @@ public class Jalview2XML
    */
   protected void saveDoubleMatrix(MatrixI m, DoubleMatrix xmlMatrix)
   {
+    if (m == null)
+    {
+      /*
+       * e.g. no tridiagonal matrix if only top PCA components computed
+       */
+      xmlMatrix.setRows(0);
+      xmlMatrix.setColumns(0);
+      return;
+    }
     xmlMatrix.setRows(m.height());
     xmlMatrix.setColumns(m.width());
     for (int i = 0; i < m.height(); i++)
@@ -2834,37 +2862,41 @@ public class Jalview2XML
     final String file = jprovider.getFilename();
     try
     {
-      JarInputStream jin = null;
-      JarEntry jarentry = null;
-      int entryCount = 1;
-
-      do
+      /*
+       * read the project xml entries in one pass of the jar, as each model
+       * is needed; a limited number are read ahead and parsed in the
+       * background while earlier models are restored, so that only a few
+       * are held in memory at a time
+       */
+      JalviewModelReader reader = openJalviewModels(jprovider);
+      try
       {
-        jin = jprovider.getJarInputStream();
-        for (int i = 0; i < entryCount; i++)
+        boolean inBackground = ForkJoinPool
+                .getCommonPoolParallelism() > 1;
+        Deque<FutureTask<JalviewModel>> models = new ArrayDeque<>();
+        FutureTask<JalviewModel> model;
+        while (models.size() < MODELS_PARSED_AHEAD
+                && (model = reader.next()) != null)
         {
-          jarentry = jin.getNextJarEntry();
+          if (inBackground && !models.isEmpty())
+          {
+            ForkJoinPool.commonPool().execute(model);
+          }
+          models.add(model);
         }
 
-        if (jarentry != null && jarentry.getName().endsWith(".xml"))
+        while ((model = models.poll()) != null)
         {
-          InputStreamReader in = new InputStreamReader(jin, UTF_8);
-          // JalviewModel object = new JalviewModel();
-
-          JAXBContext jc = JAXBContext
-                  .newInstance("jalview.xml.binding.jalview");
-          XMLStreamReader streamReader = XMLInputFactory.newInstance()
-                  .createXMLStreamReader(jin);
-          javax.xml.bind.Unmarshaller um = jc.createUnmarshaller();
-          JAXBElement<JalviewModel> jbe = um.unmarshal(streamReader,
-                  JalviewModel.class);
-          JalviewModel object = jbe.getValue();
-
-          /*
-          Unmarshaller unmar = new Unmarshaller(object);
-          unmar.setValidation(false);
-          object = (JalviewModel) unmar.unmarshal(in);
-          */
+          JalviewModel object = getJalviewModel(model);
+          model = reader.next();
+          if (model != null)
+          {
+            if (inBackground)
+            {
+              ForkJoinPool.commonPool().execute(model);
+            }
+            models.add(model);
+          }
           if (true) // !skipViewport(object))
           {
             _af = loadFromObject(object, file, true, jprovider);
@@ -2890,14 +2922,11 @@ public class Jalview2XML
                       af.getViewport().getAlignment().getDataset());
             }
           }
-          entryCount++;
         }
-        else if (jarentry != null)
-        {
-          // Some other file here.
-          entryCount++;
-        }
-      } while (jarentry != null);
+      } finally
+      {
+        reader.close();
+      }
       resolveFrefedSequences();
     } catch (IOException ex)
     {
@@ -2969,6 +2998,151 @@ public class Jalview2XML
     return af;
   }
 
+  /**
+   * Answers the JAXB context for reading and writing the project model. This
+   * is created once only, as it is costly to build, and is thread-safe.
+   * 
+   * @return
+   * @throws JAXBException
+   */
+  static synchronized JAXBContext getJAXBContext() throws JAXBException
+  {
+    if (jaxbContext == null)
+    {
+      jaxbContext = JAXBContext.newInstance("jalview.xml.binding.jalview");
+    }
+    return jaxbContext;
+  }
+
+  /**
+   * Opens the project archive for reading its xml entries, one at a time as
+   * each is needed. The caller must close the reader when done.
+   * 
+   * @param jprovider
+   * @return
+   * @throws IOException
+   * @throws JAXBException
+   */
+  protected JalviewModelReader openJalviewModels(
+          jarInputStreamProvider jprovider)
+          throws IOException, JAXBException
+  {
+    return new JalviewModelReader(jprovider.getJarInputStream(),
+            getJAXBContext());
+  }
+
+  /**
+   * Reads the xml entries of a project archive in a single pass, one entry per
+   * call to {@code next}, so that only the entries not yet parsed are held in
+   * memory
+   */
+  static class JalviewModelReader implements Closeable
+  {
+    private final JarInputStream jin;
+
+    private final JAXBContext jc;
+
+    private final XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    JalviewModelReader(JarInputStream jarStream, JAXBContext context)
+    {
+      jin = jarStream;
+      jc = context;
+    }
+
+    /**
+     * Reads the next xml entry, and returns a task to parse it to a
+     * JalviewModel, or null if there are no more entries. The task is not
+     * started; the caller may run it in the background, so that the entry is
+     * parsed while earlier models are being restored. Use
+     * {@code getJalviewModel} to obtain the result of the task.
+     * 
+     * @return
+     * @throws IOException
+     */
+    FutureTask<JalviewModel> next() throws IOException
+    {
+      JarEntry jarentry = null;
+      while ((jarentry = jin.getNextJarEntry()) != null)
+      {
+        if (jarentry.getName().endsWith(".xml"))
+        {
+          final byte[] xml = readBytes(jin);
+          return new FutureTask<>(new Callable<JalviewModel>()
+          {
+            @Override
+            public JalviewModel call() throws Exception
+            {
+              XMLStreamReader streamReader = factory.createXMLStreamReader(
+                      new ByteArrayInputStream(xml));
+              javax.xml.bind.Unmarshaller um = jc.createUnmarshaller();
+              JAXBElement<JalviewModel> jbe = um.unmarshal(streamReader,
+                      JalviewModel.class);
+              return jbe.getValue();
+            }
+          });
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      jin.close();
+    }
+  }
+
+  /**
+   * Answers the JalviewModel parsed by the given task, running it on this
+   * thread if it has not already been started, or waiting for it to complete if
+   * it has. Any exception thrown by the parser is rethrown.
+   * 
+   * @param model
+   * @return
+   * @throws Exception
+   */
+  static JalviewModel getJalviewModel(FutureTask<JalviewModel> model)
+          throws Exception
+  {
+    model.run();
+    try
+    {
+      return model.get();
+    } catch (ExecutionException e)
+    {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception)
+      {
+        throw (Exception) cause;
+      }
+      if (cause instanceof Error)
+      {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the remaining content of the current jar entry
+   * 
+   * @param jin
+   * @return
+   * @throws IOException
+   */
+  private static byte[] readBytes(JarInputStream jin) throws IOException
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+    byte[] buffer = new byte[8192];
+    int count;
+    while ((count = jin.read(buffer)) != -1)
+    {
+      bytes.write(buffer, 0, count);
+    }
+    return bytes.toByteArray();
+  }
+
   /**
    * Try to reconstruct and display SplitFrame windows, where each contains
    * complementary dna and protein alignments. Done by pairing up AlignFrame
@@ -4886,6 +5060,7 @@ public class Jalview2XML
         // propagate shared settings to this new view
         viewport.setHistoryList(av.getHistoryList());
         viewport.setRedoList(av.getRedoList());
+        viewport.setUndoMemoryManager(av.getUndoMemoryManager());
       }
       else
       {
@@ -37,7 +37,16 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class OverviewRenderer
 {
@@ -48,9 +57,26 @@ public class OverviewRenderer
 
   private static final int MAX_PROGRESS = 100;
 
+  /*
+   * the number of pixels (rows x columns to colour) above which the overview
+   * is drawn in parallel bands of rows
+   */
+  private static final long PARALLEL_MIN_PIXELS = 20000L;
+
+  /*
+   * the minimum number of rows drawn by one parallel task
+   */
+  private static final int MIN_BAND_ROWS = 8;
+
+  private static final int RGB_MASK = 0xffffff;
+
+  private static final SequenceGroup[] NO_GROUPS = new SequenceGroup[0];
+
   private PropertyChangeSupport changeSupport = new PropertyChangeSupport(
           this);
 
+  private FeatureRenderer featureRenderer;
+
   private FeatureColourFinder finder;
 
   // image to render on
@@ -79,6 +105,7 @@ public class OverviewRenderer
           AlignmentI alignment,
           ResidueShaderI resshader, OverviewResColourFinder colFinder)
   {
+    featureRenderer = fr;
     finder = new FeatureColourFinder(fr);
     resColFinder = colFinder;
 
@@ -93,7 +120,9 @@ public class OverviewRenderer
   }
 
   /**
-   * Draw alignment rows and columns onto an image
+   * Draw alignment rows and columns onto an image. The rows are drawn in bands,
+   * in parallel if the overview is large enough and more than one processor is
+   * available, writing pixel values directly to the image's data buffer.
    * 
    * @param rit
    *          Iterator over rows to be drawn
@@ -104,95 +133,294 @@ public class OverviewRenderer
   public BufferedImage draw(AlignmentRowsCollectionI rows,
           AlignmentColsCollectionI cols)
   {
-    int rgbcolor = Color.white.getRGB();
-    int seqIndex = 0;
-    int pixelRow = 0;
     int alignmentHeight = miniMe.getHeight() - graphHeight;
-    int totalPixels = miniMe.getWidth() * alignmentHeight;
-
-    int lastRowUpdate = 0;
-    int lastUpdate = 0;
     changeSupport.firePropertyChange(UPDATE, -1, 0);
 
-    for (int alignmentRow : rows)
+    /*
+     * find the alignment column drawn in each span of pixel columns, and the
+     * sequence drawn in each span of pixel rows; columns and rows which fall
+     * in a pixel already allocated to an earlier one are not drawn
+     */
+    int width = miniMe.getWidth();
+    int height = miniMe.getHeight();
+    ColumnSpans columnSpans = new ColumnSpans(width);
+    int colIndex = 0;
+    int pixelCol = 0;
+    for (int alignmentCol : cols)
     {
-      if (redraw)
+      // calculate where this column extends to in pixels
+      int endCol = Math.min(Math.round((colIndex + 1) * pixelsPerCol) - 1,
+              width - 1);
+      if (pixelCol <= endCol)
       {
-        break;
+        columnSpans.add(alignmentCol, endCol);
+        pixelCol = endCol + 1;
       }
-    
-      // get details of this alignment row
-      SequenceI seq = rows.getSequence(alignmentRow);
-
-      // rate limiting step when rendering overview for lots of groups
-      SequenceGroup[] allGroups = al.findAllGroups(seq);
+      colIndex++;
+    }
 
+    List<SequenceI> rowSeqs = new ArrayList<>();
+    List<int[]> rowSpans = new ArrayList<>();
+    int seqIndex = 0;
+    int pixelRow = 0;
+    for (int alignmentRow : rows)
+    {
       // calculate where this row extends to in pixels
       int endRow = Math.min(Math.round((seqIndex + 1) * pixelsPerSeq) - 1,
-              miniMe.getHeight() - 1);
-    
-      int colIndex = 0;
-      int pixelCol = 0;
-      for (int alignmentCol : cols)
+              height - 1);
+      if (pixelRow <= endRow)
       {
-        if (redraw)
-        {
-          break;
-        }
-    
-        // calculate where this column extends to in pixels
-        int endCol = Math.min(Math.round((colIndex + 1) * pixelsPerCol) - 1,
-                miniMe.getWidth() - 1);
-    
-        // don't do expensive colour determination if we're not going to use it
-        // NB this is important to avoid performance issues in the overview
-        // panel
-        if (pixelCol <= endCol)
+        rowSeqs.add(rows.getSequence(alignmentRow));
+        rowSpans.add(new int[] { pixelRow, endRow });
+        pixelRow = endRow + 1;
+      }
+      seqIndex++;
+    }
+
+    RowBands bands = new RowBands(rowSeqs, rowSpans, columnSpans,
+            findGroupsBySequence(), alignmentHeight);
+    long pixels = (long) rowSeqs.size() * columnSpans.size;
+    if (pixels >= PARALLEL_MIN_PIXELS
+            && ForkJoinPool.getCommonPoolParallelism() > 1)
+    {
+      int minRows = Math.max(MIN_BAND_ROWS, rowSeqs.size()
+              / (4 * ForkJoinPool.getCommonPoolParallelism()));
+      ForkJoinPool.commonPool()
+              .invoke(bands.new RowBandTask(0, rowSeqs.size(), minRows));
+    }
+    else
+    {
+      bands.drawRows(0, rowSeqs.size());
+    }
+
+    overlayHiddenRegions(rows, cols);
+    // final update to progress bar if present
+    if (redraw)
+    {
+      sendProgressUpdate(bands.getPixelRowsDrawn() - 1, alignmentHeight,
+              0, 0);
+    }
+    else
+    {
+      sendProgressUpdate(alignmentHeight, miniMe.getHeight(), 0, 0);
+    }
+    return miniMe;
+  }
+
+  /**
+   * Answers a map from each sequence in the alignment's groups to the groups
+   * containing it, in the order returned by
+   * {@link AlignmentI#findAllGroups(SequenceI)}. This is built once per redraw,
+   * rather than searching all groups for each row.
+   * 
+   * @return
+   */
+  private Map<SequenceI, SequenceGroup[]> findGroupsBySequence()
+  {
+    Map<SequenceI, List<SequenceGroup>> groupLists = new HashMap<>();
+    if (al != null && al.getGroups() != null)
+    {
+      List<SequenceGroup> groups = al.getGroups();
+      synchronized (groups)
+      {
+        for (SequenceGroup sg : groups)
         {
-          rgbcolor = getColumnColourFromSequence(allGroups, seq,
-                  alignmentCol);
-    
-          // fill in the appropriate number of pixels
-          for (int row = pixelRow; row <= endRow; ++row)
+          if (sg == null || sg.getSequences() == null)
+          {
+            continue;
+          }
+          for (SequenceI seq : sg.getSequences())
           {
-            for (int col = pixelCol; col <= endCol; ++col)
+            List<SequenceGroup> seqGroups = groupLists.get(seq);
+            if (seqGroups == null)
             {
-              miniMe.setRGB(col, row, rgbcolor);
+              seqGroups = new ArrayList<>();
+              groupLists.put(seq, seqGroups);
+            }
+            if (!seqGroups.contains(sg))
+            {
+              seqGroups.add(sg);
             }
           }
+        }
+      }
+    }
+    Map<SequenceI, SequenceGroup[]> groupsBySequence = new HashMap<>();
+    for (Map.Entry<SequenceI, List<SequenceGroup>> entry : groupLists
+            .entrySet())
+    {
+      groupsBySequence.put(entry.getKey(), entry.getValue()
+              .toArray(new SequenceGroup[entry.getValue().size()]));
+    }
+    return groupsBySequence;
+  }
+
+  /**
+   * The alignment columns to draw, and the last pixel column of each, in pixel
+   * order
+   */
+  private static class ColumnSpans
+  {
+    final int[] alignmentCols;
+
+    final int[] endPixels;
+
+    int size;
+
+    ColumnSpans(int width)
+    {
+      alignmentCols = new int[width];
+      endPixels = new int[width];
+    }
+
+    void add(int alignmentCol, int endPixel)
+    {
+      alignmentCols[size] = alignmentCol;
+      endPixels[size] = endPixel;
+      size++;
+    }
+  }
+
+  /**
+   * Draws rows of the overview into the image data buffer. Disjoint ranges of
+   * rows may be drawn concurrently.
+   */
+  private class RowBands
+  {
+    private final List<SequenceI> seqs;
+
+    private final List<int[]> pixelRows;
+
+    private final ColumnSpans columns;
+
+    private final Map<SequenceI, SequenceGroup[]> groupsBySequence;
+
+    private final int alignmentHeight;
+
+    private final int[] data;
+
+    private final int width;
 
-          // store last update value
-          lastUpdate = sendProgressUpdate(
-                  (pixelCol + 1) * (endRow - pixelRow), totalPixels,
-                  lastRowUpdate, lastUpdate);
+    private final AtomicInteger pixelRowsDrawn = new AtomicInteger();
 
+    private int lastUpdate;
+
+    RowBands(List<SequenceI> rowSeqs, List<int[]> rowSpans,
+            ColumnSpans columnSpans,
+            Map<SequenceI, SequenceGroup[]> groups, int height)
+    {
+      seqs = rowSeqs;
+      pixelRows = rowSpans;
+      columns = columnSpans;
+      groupsBySequence = groups;
+      alignmentHeight = height;
+      data = ((DataBufferInt) miniMe.getRaster().getDataBuffer())
+              .getData();
+      width = miniMe.getWidth();
+    }
+
+    /**
+     * Draws rows from (inclusive) to (exclusive) of the rows to be drawn,
+     * using a feature colour finder of its own as these are not thread-safe
+     * 
+     * @param from
+     * @param to
+     */
+    void drawRows(int from, int to)
+    {
+      FeatureColourFinder bandFinder = new FeatureColourFinder(
+              featureRenderer);
+      for (int i = from; i < to; i++)
+      {
+        if (redraw)
+        {
+          break;
+        }
+        SequenceI seq = seqs.get(i);
+        SequenceGroup[] allGroups = groupsBySequence.get(seq);
+        if (allGroups == null)
+        {
+          allGroups = NO_GROUPS;
+        }
+        int[] rowSpan = pixelRows.get(i);
+        int rowOffset = rowSpan[0] * width;
+        int pixelCol = 0;
+        for (int c = 0; c < columns.size; c++)
+        {
+          int rgbcolor = getColumnColourFromSequence(allGroups, seq,
+                  columns.alignmentCols[c], bandFinder);
+          int endCol = columns.endPixels[c];
+          Arrays.fill(data, rowOffset + pixelCol, rowOffset + endCol + 1,
+                  rgbcolor & RGB_MASK);
           pixelCol = endCol + 1;
         }
-        colIndex++;
+
+        // fill in the appropriate number of pixel rows
+        for (int row = rowSpan[0] + 1; row <= rowSpan[1]; row++)
+        {
+          System.arraycopy(data, rowOffset, data, row * width, pixelCol);
+        }
+        rowDrawn(rowSpan[1] - rowSpan[0] + 1);
       }
+    }
 
-      if (pixelRow != endRow + 1)
+    /**
+     * Counts pixel rows drawn, and fires a progress update if the percentage
+     * drawn has increased
+     * 
+     * @param rowCount
+     */
+    private void rowDrawn(int rowCount)
+    {
+      int drawn = pixelRowsDrawn.addAndGet(rowCount);
+      synchronized (this)
       {
-        // store row offset and last update value
-        lastRowUpdate = sendProgressUpdate(endRow + 1, alignmentHeight, 0,
+        lastUpdate = sendProgressUpdate(drawn, alignmentHeight, 0,
                 lastUpdate);
-        lastUpdate = lastRowUpdate;
-        pixelRow = endRow + 1;
       }
-      seqIndex++;
     }
 
-    overlayHiddenRegions(rows, cols);
-    // final update to progress bar if present
-    if (redraw)
+    int getPixelRowsDrawn()
     {
-      sendProgressUpdate(pixelRow - 1, alignmentHeight, 0, 0);
+      return pixelRowsDrawn.get();
     }
-    else
+
+    /**
+     * A task that draws a range of rows, splitting it into halves to be drawn
+     * in parallel until no more than a minimum number of rows remain
+     */
+    class RowBandTask extends RecursiveAction
     {
-      sendProgressUpdate(alignmentHeight, miniMe.getHeight(), 0, 0);
+      private static final long serialVersionUID = 1L;
+
+      private final int from;
+
+      private final int to;
+
+      private final int minRows;
+
+      RowBandTask(int from, int to, int minRows)
+      {
+        this.from = from;
+        this.to = to;
+        this.minRows = minRows;
+      }
+
+      @Override
+      protected void compute()
+      {
+        if (to - from <= minRows)
+        {
+          drawRows(from, to);
+        }
+        else
+        {
+          int mid = (from + to) >>> 1;
+          invokeAll(new RowBandTask(from, mid, minRows),
+                  new RowBandTask(mid, to, minRows));
+        }
+      }
     }
-    return miniMe;
   }
 
   /*
@@ -224,13 +452,19 @@ public class OverviewRenderer
    */
   int getColumnColourFromSequence(SequenceGroup[] allGroups,
           SequenceI seq, int lastcol)
+  {
+    return getColumnColourFromSequence(allGroups, seq, lastcol, finder);
+  }
+
+  private int getColumnColourFromSequence(SequenceGroup[] allGroups,
+          SequenceI seq, int lastcol, FeatureColourFinder fcf)
   {
     Color color = resColFinder.GAP_COLOUR;
 
     if ((seq != null) && (seq.getLength() > lastcol))
     {
       color = resColFinder.getResidueColour(true, shader, allGroups, seq,
-              lastcol, finder);
+              lastcol, fcf);
     }
 
     return color.getRGB();
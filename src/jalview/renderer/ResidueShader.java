@@ -28,11 +28,14 @@ import jalview.datamodel.ProfilesI;
 import jalview.datamodel.SequenceCollectionI;
 import jalview.datamodel.SequenceI;
 import jalview.schemes.ColourSchemeI;
+import jalview.schemes.ResidueColourScheme;
 import jalview.util.ColorUtils;
 import jalview.util.Comparison;
 
 import java.awt.Color;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * A class that computes the colouring of an alignment (or subgroup). Currently
@@ -51,6 +54,17 @@ public class ResidueShader implements ResidueShaderI
 {
   private static final int INITIAL_CONSERVATION = 30;
 
+  /*
+   * symbols (other than 0) below this value have their colours cached
+   * per column
+   */
+  private static final int CACHED_SYMBOLS = 128;
+
+  /*
+   * the initial number of symbols a column's colour table can hold
+   */
+  private static final int INITIAL_TABLE_SIZE = 4;
+
   /*
    * the colour scheme that gives the colour of each residue
    * before applying any conservation or PID shading
@@ -91,6 +105,15 @@ public class ResidueShader implements ResidueShaderI
    */
   private int conservationIncrement = INITIAL_CONSERVATION;
 
+  /*
+   * lookup tables of shaded colours, by column, filled in as colours are
+   * found; each entry packs a symbol (in the high byte) with its RGB colour,
+   * and a table holds only the symbols found in its column, followed by any
+   * free (zero) entries; null if the colour scheme is not one whose colours
+   * may be cached, or the cache has been invalidated
+   */
+  private volatile AtomicReferenceArray<int[]> columnColours;
+
   public ResidueShader(ColourSchemeI cs)
   {
     colourScheme = cs;
@@ -137,6 +160,7 @@ public class ResidueShader implements ResidueShaderI
   public void setConsensus(ProfilesI cons)
   {
     consensus = cons;
+    clearColourCache();
   }
 
   /**
@@ -154,7 +178,11 @@ public class ResidueShader implements ResidueShaderI
   @Override
   public void setConservationApplied(boolean conservationApplied)
   {
-    conservationColouring = conservationApplied;
+    if (conservationColouring != conservationApplied)
+    {
+      conservationColouring = conservationApplied;
+      clearColourCache();
+    }
   }
 
   /**
@@ -174,7 +202,7 @@ public class ResidueShader implements ResidueShaderI
       conservation = cons.getConsSequence().getSequenceAsString()
               .toCharArray();
     }
-
+    clearColourCache();
   }
 
   /**
@@ -189,6 +217,7 @@ public class ResidueShader implements ResidueShaderI
     {
       colourScheme.alignmentChanged(alignment, hiddenReps);
     }
+    clearColourCache();
   }
 
   /**
@@ -197,8 +226,12 @@ public class ResidueShader implements ResidueShaderI
   @Override
   public void setThreshold(int consensusThreshold, boolean ignoreGaps)
   {
-    pidThreshold = consensusThreshold;
-    this.ignoreGaps = ignoreGaps;
+    if (pidThreshold != consensusThreshold || this.ignoreGaps != ignoreGaps)
+    {
+      pidThreshold = consensusThreshold;
+      this.ignoreGaps = ignoreGaps;
+      clearColourCache();
+    }
   }
 
   /**
@@ -207,7 +240,11 @@ public class ResidueShader implements ResidueShaderI
   @Override
   public void setConservationInc(int i)
   {
-    conservationIncrement = i;
+    if (conservationIncrement != i)
+    {
+      conservationIncrement = i;
+      clearColourCache();
+    }
   }
 
   /**
@@ -240,6 +277,106 @@ public class ResidueShader implements ResidueShaderI
       return Color.white; // Colour is 'None'
     }
 
+    AtomicReferenceArray<int[]> tables = symbol > 0
+            && symbol < CACHED_SYMBOLS ? getColumnColours(position) : null;
+    if (tables == null)
+    {
+      return computeColour(symbol, position, seq);
+    }
+
+    /*
+     * look up the colour in the column's table
+     */
+    int[] table = tables.get(position);
+    int free = 0;
+    if (table != null)
+    {
+      for (; free < table.length; free++)
+      {
+        int entry = table[free];
+        if (entry == 0)
+        {
+          break;
+        }
+        if (entry >>> 24 == symbol)
+        {
+          return new Color(entry & 0xffffff);
+        }
+      }
+    }
+
+    /*
+     * else compute it and add it in place at the first free entry, growing
+     * the table if it is full; if two threads add colours to the same column
+     * at once, one may be lost, and is just computed again
+     */
+    Color colour = computeColour(symbol, position, seq);
+    if (colour != null && colour.getAlpha() == 255)
+    {
+      if (table == null || free == table.length)
+      {
+        table = table == null ? new int[INITIAL_TABLE_SIZE]
+                : Arrays.copyOf(table, 2 * table.length);
+        tables.set(position, table);
+      }
+      table[free] = (symbol << 24) | (colour.getRGB() & 0xffffff);
+    }
+    return colour;
+  }
+
+  /**
+   * Answers the lookup tables of colours by column, sized to include the given
+   * column, or null if the colour scheme's colours may not be cached. Colours
+   * may be cached if they depend only on the symbol, the column consensus and
+   * conservation, and data the colour scheme recalculates in
+   * <code>alignmentChanged</code>.
+   * 
+   * @param column
+   * @return
+   */
+  protected AtomicReferenceArray<int[]> getColumnColours(int column)
+  {
+    if (column < 0 || !(colourScheme instanceof ResidueColourScheme)
+            || !((ResidueColourScheme) colourScheme)
+                    .isSequenceIndependent())
+    {
+      return null;
+    }
+    AtomicReferenceArray<int[]> tables = columnColours;
+    if (tables == null || tables.length() <= column)
+    {
+      /*
+       * start afresh rather than copy the old tables, so that colours
+       * cached just before the cache was cleared are never reinstated
+       */
+      int width = Math.max(column + 1,
+              consensus == null ? 0 : consensus.getEndColumn() + 1);
+      tables = new AtomicReferenceArray<>(width);
+      columnColours = tables;
+    }
+    return tables;
+  }
+
+  /**
+   * Discards any cached colours; this should be called whenever a change is
+   * made that may affect residue colours
+   */
+  protected void clearColourCache()
+  {
+    columnColours = null;
+  }
+
+  /**
+   * Computes the colour for the given symbol in the given column and sequence,
+   * applying any percentage identity threshold and conservation shading
+   * 
+   * @param symbol
+   * @param position
+   * @param seq
+   * @return
+   */
+  protected Color computeColour(char symbol, int position, SequenceI seq)
+  {
     /*
      * get 'base' colour
      */
@@ -414,5 +551,6 @@ public class ResidueShader implements ResidueShaderI
   public void setColourScheme(ColourSchemeI cs)
   {
     colourScheme = cs;
+    clearColourCache();
   }
 }
@@ -24,6 +24,8 @@ import jalview.api.AlignViewportI;
 import jalview.api.FeatureRenderer;
 import jalview.api.FeaturesDisplayedI;
 import jalview.datamodel.SequenceI;
+import jalview.util.Comparison;
+import jalview.viewmodel.seqfeatures.FeatureColourStrip;
 import jalview.viewmodel.seqfeatures.FeatureRendererModel;
 
 import java.awt.Color;
@@ -49,6 +51,13 @@ public class FeatureColourFinder
    */
   private BufferedImage offscreenImage;
 
+  /*
+   * the precomputed feature colours for the last sequence queried, if any
+   */
+  private SequenceI stripSequence;
+
+  private FeatureColourStrip strip;
+
   /**
    * Constructor
    * 
@@ -87,6 +96,23 @@ public class FeatureColourFinder
       return defaultColour;
     }
 
+    /*
+     * if there is no transparency, look up the precomputed feature colour,
+     * retaining the strip for the next (normally adjacent) column queried
+     */
+    FeatureRendererModel frm = (FeatureRendererModel) featureRenderer;
+    if (seq != stripSequence || !frm.isCurrent(strip, seq))
+    {
+      strip = frm.getColourStrip(seq);
+      stripSequence = seq;
+    }
+    if (strip != null)
+    {
+      Color c = Comparison.isGap(seq.getCharAt(column)) ? null
+              : strip.getColour(column);
+      return c == null ? defaultColour : c;
+    }
+
     Graphics g = null;
 
     /*
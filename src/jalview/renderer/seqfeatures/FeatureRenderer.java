@@ -37,6 +37,7 @@ import jalview.gui.AlignFrame;
 import jalview.gui.Desktop;
 import jalview.util.Comparison;
 import jalview.util.ReverseListIterator;
+import jalview.viewmodel.seqfeatures.FeatureColourStrip;
 import jalview.viewmodel.seqfeatures.FeatureRendererModel;
 
 public class FeatureRenderer extends FeatureRendererModel
@@ -235,7 +236,15 @@ public class FeatureRenderer extends FeatureRendererModel
     }
 
     Color renderedColour = null;
-    if (transparency == 1.0f)
+    FeatureColourStrip strip = getColourStrip(seq);
+    if (strip != null)
+    {
+      /*
+       * simplest case - look up the precomputed topmost feature colour
+       */
+      renderedColour = strip.getColour(column - 1);
+    }
+    else if (transparency == 1.0f)
     {
       /*
        * simple case - just find the topmost rendered visible feature colour
@@ -289,6 +298,12 @@ public class FeatureRenderer extends FeatureRendererModel
 
     updateFeatures();
 
+    FeatureColourStrip strip = getColourStrip(seq);
+    if (strip != null)
+    {
+      return drawColourStrip(g, seq, strip, start, end, y1, colourOnly);
+    }
+
     if (transparency != 1f && g != null)
     {
       Graphics2D g2 = (Graphics2D) g;
@@ -434,6 +449,39 @@ public class FeatureRenderer extends FeatureRendererModel
     return drawnColour;
   }
 
+  /**
+   * Draws the precomputed topmost feature colours of the sequence between the
+   * given start and end columns, and returns the last colour drawn, or null if
+   * none
+   * 
+   * @param g
+   * @param seq
+   * @param strip
+   * @param start
+   * @param end
+   * @param y1
+   * @param colourOnly
+   * @return
+   */
+  Color drawColourStrip(final Graphics g, final SequenceI seq,
+          FeatureColourStrip strip, int start, int end, int y1,
+          boolean colourOnly)
+  {
+    Color drawnColour = null;
+    int runCount = strip.getRunCount();
+    for (int run = strip.findRun(start); run < runCount
+            && strip.getRunStart(run) <= end; run++)
+    {
+      Color colour = strip.getRunColour(run);
+      if (renderFeature(g, seq, strip.getRunStart(run), strip.getRunEnd(run),
+              colour, start, end, y1, colourOnly))
+      {
+        drawnColour = colour;
+      }
+    }
+    return drawnColour;
+  }
+
   /**
    * Find any features on the CDS/protein complement of the sequence region and
    * draw them, with visibility and colouring as configured in the complementary
@@ -487,4 +487,13 @@ public class AnnotationColourGradient extends FollowerColourScheme
   {
     return false;
   }
+
+  /**
+   * Answers false as colours depend on annotation, which may be per sequence
+   */
+  @Override
+  public boolean isSequenceIndependent()
+  {
+    return false;
+  }
 }
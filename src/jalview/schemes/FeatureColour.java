@@ -82,6 +82,12 @@ public class FeatureColour implements FeatureColourI
 
   private static final String BAR = "|";
 
+  /*
+   * incremented whenever any feature colour is modified, so that
+   * colours cached by feature renderers can be recognised as stale
+   */
+  private static volatile int modificationCount;
+
   final private Color colour;
 
   final private Color minColour;
@@ -551,6 +557,7 @@ public class FeatureColour implements FeatureColourI
   public void setGraduatedColour(boolean b)
   {
     graduatedColour = b;
+    modificationCount++;
     if (b)
     {
       setColourByLabel(false);
@@ -595,6 +602,7 @@ public class FeatureColour implements FeatureColourI
   public void setColourByLabel(boolean b)
   {
     colourByLabel = b;
+    modificationCount++;
     if (b)
     {
       setGraduatedColour(false);
@@ -611,6 +619,7 @@ public class FeatureColour implements FeatureColourI
   public void setBelowThreshold(boolean b)
   {
     belowThreshold = b;
+    modificationCount++;
     if (b)
     {
       setAboveThreshold(false);
@@ -627,6 +636,7 @@ public class FeatureColour implements FeatureColourI
   public void setAboveThreshold(boolean b)
   {
     aboveThreshold = b;
+    modificationCount++;
     if (b)
     {
       setBelowThreshold(false);
@@ -643,6 +653,7 @@ public class FeatureColour implements FeatureColourI
   public void setThreshold(float f)
   {
     threshold = f;
+    modificationCount++;
   }
 
   @Override
@@ -655,6 +666,7 @@ public class FeatureColour implements FeatureColourI
   public void setAutoScaled(boolean b)
   {
     this.autoScaled = b;
+    modificationCount++;
   }
 
   /**
@@ -675,6 +687,18 @@ public class FeatureColour implements FeatureColourI
       range = max - min;
       isHighToLow = false;
     }
+    modificationCount++;
+  }
+
+  /**
+   * Answers a count of the modifications made to any feature colour, so that
+   * callers holding colours derived from them can detect they may be stale
+   * 
+   * @return
+   */
+  public static int getModificationCount()
+  {
+    return modificationCount;
   }
 
   /**
@@ -892,6 +916,7 @@ public class FeatureColour implements FeatureColourI
   public void setAttributeName(String... name)
   {
     attributeName = name;
+    modificationCount++;
   }
 
   @Override
@@ -247,4 +247,14 @@ public class RNAHelicesColour extends ResidueColourScheme
   {
     return false;
   }
+
+  /**
+   * Answers false as colours depend on secondary structure annotation, which is refreshed
+   * whenever a colour is found
+   */
+  @Override
+  public boolean isSequenceIndependent()
+  {
+    return false;
+  }
 }
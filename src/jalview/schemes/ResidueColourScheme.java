@@ -215,6 +215,20 @@ public abstract class ResidueColourScheme implements ColourSchemeI
     return true;
   }
 
+  /**
+   * Default method returns true. Override this to return false in colour
+   * schemes where the colour of a symbol in a column may differ between
+   * sequences, or may change other than on a call to
+   * <code>alignmentChanged</code>. Colours for schemes that return true may be
+   * cached per column and symbol.
+   * 
+   * @return
+   */
+  public boolean isSequenceIndependent()
+  {
+    return true;
+  }
+
   /**
    * Default method returns false. Override this to return true in colour
    * schemes that have a colour associated with gap residues.
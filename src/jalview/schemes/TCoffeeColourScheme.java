@@ -178,4 +178,13 @@ public class TCoffeeColourScheme extends ResidueColourScheme
   {
     return false;
   }
+
+  /**
+   * Answers false as colours depend on per-sequence T-Coffee scores
+   */
+  @Override
+  public boolean isSequenceIndependent()
+  {
+    return false;
+  }
 }
@@ -32,10 +32,6 @@ public class StructureMapping
 {
   public static final int UNASSIGNED_VALUE = Integer.MIN_VALUE;
 
-  private static final int PDB_RES_NUM_INDEX = 0;
-
-  private static final int PDB_ATOM_NUM_INDEX = 1;
-
   String mappingDetails;
 
   SequenceI sequence;
@@ -46,9 +42,8 @@ public class StructureMapping
 
   String pdbchain;
 
-  // Mapping key is residue index while value is an array containing PDB resNum,
-  // and atomNo
-  HashMap<Integer, int[]> mapping;
+  // Mapping from residue index to PDB resNum and atomNo
+  StructureResidueMap mapping;
 
   jalview.datamodel.Mapping seqToPdbMapping = null;
 
@@ -61,12 +56,31 @@ public class StructureMapping
    * @param chain
    * @param mapping
    *          a map from sequence to two values, { resNo, atomNo } in the
-   *          structure
+   *          structure; this is copied, so later changes to it have no effect
    * @param mappingDetails
    */
   public StructureMapping(SequenceI seq, String pdbfile, String pdbid,
           String chain, HashMap<Integer, int[]> mapping,
           String mappingDetails)
+  {
+    this(seq, pdbfile, pdbid, chain, StructureResidueMap.fromMap(mapping),
+            mappingDetails);
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param seq
+   * @param pdbfile
+   * @param pdbid
+   * @param chain
+   * @param mapping
+   *          a map from sequence position to residue and atom number in the
+   *          structure
+   * @param mappingDetails
+   */
+  public StructureMapping(SequenceI seq, String pdbfile, String pdbid,
+          String chain, StructureResidueMap mapping, String mappingDetails)
   {
     sequence = seq;
     this.pdbfile = pdbfile;
@@ -106,15 +120,7 @@ public class StructureMapping
    */
   public int getAtomNum(int seqpos)
   {
-    int[] resNumAtomMap = mapping.get(seqpos);
-    if (resNumAtomMap != null)
-    {
-      return resNumAtomMap[PDB_ATOM_NUM_INDEX];
-    }
-    else
-    {
-      return UNASSIGNED_VALUE;
-    }
+    return mapping.getAtomNum(seqpos);
   }
 
   /**
@@ -125,15 +131,7 @@ public class StructureMapping
    */
   public int getPDBResNum(int seqpos)
   {
-    int[] resNumAtomMap = mapping.get(seqpos);
-    if (resNumAtomMap != null)
-    {
-      return resNumAtomMap[PDB_RES_NUM_INDEX];
-    }
-    else
-    {
-      return UNASSIGNED_VALUE;
-    }
+    return mapping.getPDBResNum(seqpos);
   }
 
   /**
@@ -150,7 +148,12 @@ public class StructureMapping
     int startRes = -1;
     int endRes = -1;
 
-    for (int i = fromSeqPos; i <= toSeqPos; i++)
+    /*
+     * no need to look outside the range of mapped positions
+     */
+    int from = Math.max(fromSeqPos, mapping.getStart());
+    int to = Math.min(toSeqPos, mapping.getEnd());
+    for (int i = from; i <= to; i++)
     {
       int resNo = getPDBResNum(i);
       if (resNo == UNASSIGNED_VALUE)
@@ -203,18 +206,12 @@ public class StructureMapping
   /**
    * 
    * @param pdbResNum
-   * @return -1 or the corresponding sequence position for a pdb residue number
+   * @return UNASSIGNED_VALUE or the corresponding sequence position for a pdb
+   *         residue number (the first, if more than one maps to it)
    */
   public int getSeqPos(int pdbResNum)
   {
-    for (Integer seqPos : mapping.keySet())
-    {
-      if (pdbResNum == getPDBResNum(seqPos))
-      {
-        return seqPos;
-      }
-    }
-    return UNASSIGNED_VALUE;
+    return mapping.getSeqPos(pdbResNum);
   }
 
   /**
@@ -238,7 +235,7 @@ public class StructureMapping
     // need to relocate annotation from pdb coordinates to local sequence
     // -1,-1 doesn't look at pdbresnum but fails to remap sequence positions...
 
-    ala_copy.remap(ds, mapping, -1, -1, 0);
+    ala_copy.remap(ds, mapping.toMap(), -1, -1, 0);
     ds.addAlignmentAnnotation(ala_copy);
     if (ds != sequence)
     {
@@ -255,7 +252,24 @@ public class StructureMapping
     return mappingDetails;
   }
 
+  /**
+   * Answers a new map from sequence position to { resNum, atomNum } in the
+   * structure. Changes to the map do not affect this mapping.
+   * 
+   * @return
+   */
   public HashMap<Integer, int[]> getMapping()
+  {
+    return mapping.toMap();
+  }
+
+  /**
+   * Answers the map from sequence position to residue and atom number in the
+   * structure
+   * 
+   * @return
+   */
+  public StructureResidueMap getResidueMap()
   {
     return mapping;
   }
@@ -0,0 +1,371 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.structure;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A compact map from sequence positions to residue (and atom) positions in a
+ * structure. Values for each mapped sequence position are held in a dense int
+ * array indexed by offset from the first mapped position, with a reverse index
+ * from PDB residue number to sequence position, so lookups need no boxing.
+ * Instances are immutable.
+ */
+public class StructureResidueMap
+{
+  private static final int PDB_RES_NUM_INDEX = 0;
+
+  private static final int PDB_ATOM_NUM_INDEX = 1;
+
+  private static final int[] EMPTY = new int[0];
+
+  /*
+   * the first mapped sequence position
+   */
+  private final int start;
+
+  /*
+   * the number of values held for each sequence position
+   */
+  private final int width;
+
+  /*
+   * width values for each position from start; unmapped positions are
+   * marked in the 'mapped' bitset
+   */
+  private final int[] values;
+
+  private final BitSet mapped;
+
+  private final int size;
+
+  /*
+   * PDB residue numbers in ascending order, and the (lowest) sequence
+   * position mapped to each
+   */
+  private final int[] sortedResNums;
+
+  private final int[] seqPosForResNum;
+
+  /**
+   * Builds a map incrementally, for example while scanning the atoms of a
+   * structure. If a sequence position is added more than once, the last values
+   * added are kept.
+   */
+  public static class Builder
+  {
+    private int[] positions = new int[64];
+
+    private int[] resNums = new int[64];
+
+    private int[] atomNums = new int[64];
+
+    private int count;
+
+    /**
+     * Adds a mapping from a sequence position to a residue number and atom
+     * number in the structure
+     * 
+     * @param seqPos
+     * @param resNum
+     * @param atomNum
+     */
+    public void put(int seqPos, int resNum, int atomNum)
+    {
+      if (count == positions.length)
+      {
+        int newLength = count * 2;
+        positions = Arrays.copyOf(positions, newLength);
+        resNums = Arrays.copyOf(resNums, newLength);
+        atomNums = Arrays.copyOf(atomNums, newLength);
+      }
+      positions[count] = seqPos;
+      resNums[count] = resNum;
+      atomNums[count] = atomNum;
+      count++;
+    }
+
+    public StructureResidueMap build()
+    {
+      int[] flat = new int[count * 2];
+      for (int i = 0; i < count; i++)
+      {
+        flat[2 * i] = resNums[i];
+        flat[2 * i + 1] = atomNums[i];
+      }
+      return new StructureResidueMap(Arrays.copyOf(positions, count), flat,
+              2);
+    }
+  }
+
+  /**
+   * Answers a map holding the same mappings as the given map from sequence
+   * position to { resNum, atomNum, ... } values. A null map gives an empty
+   * mapping.
+   * 
+   * @param map
+   * @return
+   */
+  public static StructureResidueMap fromMap(Map<Integer, int[]> map)
+  {
+    if (map == null || map.isEmpty())
+    {
+      return new StructureResidueMap(EMPTY, EMPTY, 2);
+    }
+    int width = 0;
+    for (int[] value : map.values())
+    {
+      width = Math.max(width, value == null ? 0 : value.length);
+    }
+    width = Math.max(width, 2);
+    int[] positions = new int[map.size()];
+    int[] flat = new int[map.size() * width];
+    int i = 0;
+    for (Entry<Integer, int[]> entry : map.entrySet())
+    {
+      positions[i] = entry.getKey();
+      int[] value = entry.getValue();
+      Arrays.fill(flat, i * width, (i + 1) * width,
+              StructureMapping.UNASSIGNED_VALUE);
+      if (value != null)
+      {
+        System.arraycopy(value, 0, flat, i * width, value.length);
+      }
+      i++;
+    }
+    return new StructureResidueMap(positions, flat, width);
+  }
+
+  /**
+   * Constructor given sequence positions, and width values for each position
+   * 
+   * @param positions
+   * @param flatValues
+   * @param valuesPerPosition
+   */
+  private StructureResidueMap(int[] positions, int[] flatValues,
+          int valuesPerPosition)
+  {
+    width = valuesPerPosition;
+    if (positions.length == 0)
+    {
+      start = 0;
+      values = EMPTY;
+      mapped = new BitSet();
+      size = 0;
+      sortedResNums = EMPTY;
+      seqPosForResNum = EMPTY;
+      return;
+    }
+
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int pos : positions)
+    {
+      min = Math.min(min, pos);
+      max = Math.max(max, pos);
+    }
+    start = min;
+    int span = max - min + 1;
+    values = new int[span * width];
+    mapped = new BitSet(span);
+    for (int i = 0; i < positions.length; i++)
+    {
+      int offset = positions[i] - start;
+      mapped.set(offset);
+      System.arraycopy(flatValues, i * width, values, offset * width,
+              width);
+    }
+    size = mapped.cardinality();
+
+    /*
+     * reverse index: sort (resNum, seqPos) pairs packed into longs,
+     * keeping the lowest sequence position for each residue number
+     */
+    long[] pairs = new long[size];
+    int n = 0;
+    for (int offset = mapped.nextSetBit(0); offset >= 0; offset = mapped
+            .nextSetBit(offset + 1))
+    {
+      int resNum = values[offset * width + PDB_RES_NUM_INDEX];
+      if (resNum != StructureMapping.UNASSIGNED_VALUE)
+      {
+        pairs[n++] = ((long) resNum << 32) | (offset & 0xffffffffL);
+      }
+    }
+    Arrays.sort(pairs, 0, n);
+    int[] resNums = new int[n];
+    int[] seqPositions = new int[n];
+    int distinct = 0;
+    for (int i = 0; i < n; i++)
+    {
+      int resNum = (int) (pairs[i] >> 32);
+      if (distinct > 0 && resNums[distinct - 1] == resNum)
+      {
+        continue;
+      }
+      resNums[distinct] = resNum;
+      seqPositions[distinct] = start + (int) pairs[i];
+      distinct++;
+    }
+    sortedResNums = Arrays.copyOf(resNums, distinct);
+    seqPosForResNum = Arrays.copyOf(seqPositions, distinct);
+  }
+
+  /**
+   * Answers the offset into the values array of the given sequence position,
+   * or -1 if it is not mapped
+   * 
+   * @param seqPos
+   * @return
+   */
+  private int indexOf(int seqPos)
+  {
+    long offset = (long) seqPos - start;
+    if (offset < 0 || offset >= values.length / Math.max(width, 1)
+            || !mapped.get((int) offset))
+    {
+      return -1;
+    }
+    return (int) offset * width;
+  }
+
+  /**
+   * Answers true if the sequence position is mapped
+   * 
+   * @param seqPos
+   * @return
+   */
+  public boolean isMapped(int seqPos)
+  {
+    return indexOf(seqPos) >= 0;
+  }
+
+  /**
+   * Answers the residue number mapped to the sequence position, or
+   * StructureMapping.UNASSIGNED_VALUE
+   * 
+   * @param seqPos
+   * @return
+   */
+  public int getPDBResNum(int seqPos)
+  {
+    int index = indexOf(seqPos);
+    return index < 0 ? StructureMapping.UNASSIGNED_VALUE
+            : values[index + PDB_RES_NUM_INDEX];
+  }
+
+  /**
+   * Answers the atom number mapped to the sequence position, or
+   * StructureMapping.UNASSIGNED_VALUE
+   * 
+   * @param seqPos
+   * @return
+   */
+  public int getAtomNum(int seqPos)
+  {
+    int index = indexOf(seqPos);
+    return index < 0 ? StructureMapping.UNASSIGNED_VALUE
+            : values[index + PDB_ATOM_NUM_INDEX];
+  }
+
+  /**
+   * Answers the lowest sequence position mapped to the PDB residue number, or
+   * StructureMapping.UNASSIGNED_VALUE
+   * 
+   * @param pdbResNum
+   * @return
+   */
+  public int getSeqPos(int pdbResNum)
+  {
+    int i = Arrays.binarySearch(sortedResNums, pdbResNum);
+    return i < 0 ? StructureMapping.UNASSIGNED_VALUE : seqPosForResNum[i];
+  }
+
+  /**
+   * Answers the first mapped sequence position (or 0 if none)
+   * 
+   * @return
+   */
+  public int getStart()
+  {
+    return start;
+  }
+
+  /**
+   * Answers the last mapped sequence position (or -1 if none)
+   * 
+   * @return
+   */
+  public int getEnd()
+  {
+    return size == 0 ? -1 : start + mapped.length() - 1;
+  }
+
+  /**
+   * Answers the number of mapped sequence positions
+   * 
+   * @return
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Answers the mapped sequence positions in ascending order
+   * 
+   * @return
+   */
+  public int[] getMappedPositions()
+  {
+    int[] positions = new int[size];
+    int i = 0;
+    for (int offset = mapped.nextSetBit(0); offset >= 0; offset = mapped
+            .nextSetBit(offset + 1))
+    {
+      positions[i++] = start + offset;
+    }
+    return positions;
+  }
+
+  /**
+   * Answers a new map from sequence position to an array of { resNum, atomNum,
+   * ... } values
+   * 
+   * @return
+   */
+  public HashMap<Integer, int[]> toMap()
+  {
+    HashMap<Integer, int[]> map = new HashMap<>();
+    for (int offset = mapped.nextSetBit(0); offset >= 0; offset = mapped
+            .nextSetBit(offset + 1))
+    {
+      map.put(start + offset, Arrays.copyOfRange(values, offset * width,
+              (offset + 1) * width));
+    }
+    return map;
+  }
+}
@@ -53,8 +53,10 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import MCview.Atom;
@@ -80,6 +82,18 @@ public class StructureSelectionManager
    */
   private List<AlignedCodonFrame> seqmappings = new ArrayList<>();
 
+  /*
+   * registered mappings indexed by the sequences they map from and to;
+   * built when first needed, and discarded when mappings are registered
+   * or deregistered, or the sequences mapped by any mapping change
+   */
+  private volatile Map<SequenceI, List<AlignedCodonFrame>> seqmappingsBySequence;
+
+  /*
+   * the AlignedCodonFrame modification count when the index was built
+   */
+  private int seqmappingsIndexCount;
+
   private List<CommandListener> commandListeners = new ArrayList<>();
 
   private List<SelectionListener> sel_listeners = new ArrayList<>();
@@ -765,7 +779,7 @@ public class StructureSelectionManager
             .getMappingFromS1(false);
     maxChain.transferRESNUMFeatures(seq, null);
 
-    HashMap<Integer, int[]> mapping = new HashMap<>();
+    StructureResidueMap.Builder mapping = new StructureResidueMap.Builder();
     int resNum = -10000;
     int index = 0;
     char insCode = ' ';
@@ -780,9 +794,8 @@ public class StructureSelectionManager
         insCode = tmp.insCode;
         if (tmp.alignmentMapping >= -1)
         {
-          mapping.put(tmp.alignmentMapping + 1,
-                  new int[]
-                  { tmp.resNumber, tmp.atomIndex });
+          mapping.put(tmp.alignmentMapping + 1, tmp.resNumber,
+                  tmp.atomIndex);
         }
       }
 
@@ -790,7 +803,8 @@ public class StructureSelectionManager
     } while (index < maxChain.atoms.size());
 
     StructureMapping nwMapping = new StructureMapping(seq, pdbFile,
-            pdb.getId(), maxChainId, mapping, mappingDetails.toString());
+            pdb.getId(), maxChainId, mapping.build(),
+            mappingDetails.toString());
     maxChain.transferResidueAnnotation(nwMapping, sqmpping);
     return nwMapping;
   }
@@ -939,7 +953,7 @@ public class StructureSelectionManager
             lastipos = indexpos;
             lastseq = sm.sequence;
             // construct highlighted sequence list
-            for (AlignedCodonFrame acf : seqmappings)
+            for (AlignedCodonFrame acf : getSequenceMappings(sm.sequence))
             {
               acf.markMappedRegion(sm.sequence, indexpos, results);
             }
@@ -997,7 +1011,7 @@ public class StructureSelectionManager
               if (results == null)
               {
                 results = MappingUtils.buildSearchResults(seq, seqPos,
-                        seqmappings);
+                        getSequenceMappings(seq));
               }
               if (handlingVamsasMo)
               {
@@ -1203,6 +1217,7 @@ public class StructureSelectionManager
     if (acf != null)
     {
       boolean removed = seqmappings.remove(acf);
+      seqmappingsBySequence = null;
       if (removed && seqmappings.isEmpty())
       { // debug
         System.out.println("All mappings removed");
@@ -1236,6 +1251,7 @@ public class StructureSelectionManager
       if (!seqmappings.contains(acf))
       {
         seqmappings.add(acf);
+        seqmappingsBySequence = null;
       }
     }
   }
@@ -1253,6 +1269,7 @@ public class StructureSelectionManager
     if (seqmappings != null)
     {
       seqmappings.clear();
+      seqmappingsBySequence = null;
     }
     if (sel_listeners != null)
     {
@@ -1425,8 +1442,9 @@ public class StructureSelectionManager
   {
     if (command instanceof EditCommand)
     {
-      return MappingUtils.mapEditCommand((EditCommand) command, undo, mapTo,
-              gapChar, seqmappings);
+      EditCommand edit = (EditCommand) command;
+      return MappingUtils.mapEditCommand(edit, undo, mapTo, gapChar,
+              getSequenceMappings(edit));
     }
     else if (command instanceof OrderCommand)
     {
@@ -1441,4 +1459,131 @@ public class StructureSelectionManager
     return seqmappings;
   }
 
+  /**
+   * Returns the registered mappings that are from or to the given (aligned or
+   * dataset) sequence, in the order they were registered
+   * 
+   * @param seq
+   * @return
+   */
+  public List<AlignedCodonFrame> getSequenceMappings(SequenceI seq)
+  {
+    Map<SequenceI, List<AlignedCodonFrame>> index = getSequenceMappingsIndex();
+    List<AlignedCodonFrame> found = index.get(seq);
+    SequenceI ds = seq.getDatasetSequence();
+    List<AlignedCodonFrame> foundDs = ds == null ? null : index.get(ds);
+    if (foundDs == null)
+    {
+      return found == null ? Collections.emptyList() : found;
+    }
+    if (found == null)
+    {
+      return foundDs;
+    }
+    return mergeMappings(Arrays.asList(found, foundDs));
+  }
+
+  /**
+   * Returns the registered mappings that are from or to any of the sequences
+   * edited by the given command, in the order they were registered
+   * 
+   * @param command
+   * @return
+   */
+  protected List<AlignedCodonFrame> getSequenceMappings(EditCommand command)
+  {
+    List<List<AlignedCodonFrame>> found = new ArrayList<>();
+    Iterator<EditCommand.Edit> edits = command.getEditIterator(true);
+    while (edits.hasNext())
+    {
+      for (SequenceI seq : edits.next().getSequences())
+      {
+        found.add(getSequenceMappings(seq));
+      }
+    }
+    return mergeMappings(found);
+  }
+
+  /**
+   * Answers the registered mappings that are in any of the given lists, in the
+   * order they were registered
+   * 
+   * @param lists
+   * @return
+   */
+  private List<AlignedCodonFrame> mergeMappings(
+          List<List<AlignedCodonFrame>> lists)
+  {
+    Set<AlignedCodonFrame> found = Collections
+            .newSetFromMap(new IdentityHashMap<>());
+    for (List<AlignedCodonFrame> list : lists)
+    {
+      found.addAll(list);
+    }
+    List<AlignedCodonFrame> merged = new ArrayList<>();
+    for (AlignedCodonFrame acf : seqmappings)
+    {
+      if (found.contains(acf))
+      {
+        merged.add(acf);
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Answers the index of registered mappings by the sequences they map from
+   * and to, rebuilding it if it is out of date
+   * 
+   * @return
+   */
+  private synchronized Map<SequenceI, List<AlignedCodonFrame>> getSequenceMappingsIndex()
+  {
+    int modificationCount = AlignedCodonFrame.getModificationCount();
+    if (seqmappingsBySequence == null
+            || seqmappingsIndexCount != modificationCount)
+    {
+      Map<SequenceI, List<AlignedCodonFrame>> index = new HashMap<>();
+      for (AlignedCodonFrame acf : seqmappings)
+      {
+        for (AlignedCodonFrame.SequenceToSequenceMapping ssm : acf
+                .getMappings())
+        {
+          addToIndex(index, ssm.getFromSeq(), acf);
+          addToIndex(index, ssm.getMapping().getTo(), acf);
+        }
+      }
+      seqmappingsBySequence = index;
+      seqmappingsIndexCount = modificationCount;
+    }
+    return seqmappingsBySequence;
+  }
+
+  /**
+   * Adds the mapping to the index for the given sequence, unless already added
+   * 
+   * @param index
+   * @param seq
+   * @param acf
+   */
+  private static void addToIndex(
+          Map<SequenceI, List<AlignedCodonFrame>> index, SequenceI seq,
+          AlignedCodonFrame acf)
+  {
+    if (seq == null)
+    {
+      return;
+    }
+    List<AlignedCodonFrame> list = index.get(seq);
+    if (list == null)
+    {
+      list = new ArrayList<>();
+      index.put(seq, list);
+    }
+    if (list.isEmpty() || list.get(list.size() - 1) != acf)
+    {
+      list.add(acf);
+    }
+  }
+
 }
@@ -39,6 +39,271 @@ import jalview.bin.Cache;
  */
 public class MapList
 {
+  /*
+   * minimum number of ranges for which a lookup of the range containing a
+   * position uses a binary search rather than a linear scan
+   */
+  static final int MIN_INDEXED_RANGES = 8;
+
+  /**
+   * An index of a list of [start, end] ranges, supporting binary search for the
+   * range containing a given position, or the range containing the n'th
+   * position counted along the ranges. The index is built for the state of the
+   * list when constructed, and should be replaced when that changes.
+   */
+  static class RangeIndex
+  {
+    private final List<int[]> ranges;
+
+    private final int size;
+
+    private final int lastStart;
+
+    private final int lastEnd;
+
+    /*
+     * counts[i] is the number of positions in ranges before range i;
+     * counts[size] is the total number of positions
+     */
+    private final int[] counts;
+
+    /*
+     * range indices in ascending order of their lowest position, and those
+     * lowest and highest positions; null if there are too few ranges to be
+     * worth indexing, or if any ranges overlap
+     */
+    private int[] byLowest;
+
+    private int[] lowest;
+
+    private int[] highest;
+
+    RangeIndex(List<int[]> ranges)
+    {
+      this.ranges = ranges;
+      size = ranges.size();
+      int[] last = size == 0 ? null : ranges.get(size - 1);
+      lastStart = last == null ? 0 : last[0];
+      lastEnd = last == null ? 0 : last[1];
+
+      counts = new int[size + 1];
+      for (int i = 0; i < size; i++)
+      {
+        int[] range = ranges.get(i);
+        counts[i + 1] = counts[i] + Math.abs(range[1] - range[0]) + 1;
+      }
+
+      if (size >= MIN_INDEXED_RANGES)
+      {
+        indexByPosition();
+      }
+    }
+
+    /**
+     * Sorts the ranges by their lowest position, provided none overlap (in
+     * which case the first range containing a position may not be the one
+     * found by binary search)
+     */
+    private void indexByPosition()
+    {
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++)
+      {
+        order[i] = i;
+      }
+      Arrays.sort(order, (i, j) -> Integer.compare(low(i), low(j)));
+
+      int[] indices = new int[size];
+      int[] lows = new int[size];
+      int[] highs = new int[size];
+      for (int i = 0; i < size; i++)
+      {
+        int[] range = ranges.get(order[i]);
+        indices[i] = order[i];
+        lows[i] = Math.min(range[0], range[1]);
+        highs[i] = Math.max(range[0], range[1]);
+        if (i > 0 && lows[i] <= highs[i - 1])
+        {
+          return;
+        }
+      }
+      byLowest = indices;
+      lowest = lows;
+      highest = highs;
+    }
+
+    private int low(int i)
+    {
+      int[] range = ranges.get(i);
+      return Math.min(range[0], range[1]);
+    }
+
+    /**
+     * Answers true if the list of ranges is the one indexed, and its size and
+     * last range are unchanged. Ranges are only ever appended to, or have their
+     * last range extended, once a MapList is constructed.
+     * 
+     * @param list
+     * @return
+     */
+    boolean isCurrent(List<int[]> list)
+    {
+      if (list != ranges || list.size() != size)
+      {
+        return false;
+      }
+      if (size == 0)
+      {
+        return true;
+      }
+      int[] last = list.get(size - 1);
+      return last[0] == lastStart && last[1] == lastEnd;
+    }
+
+    /**
+     * Answers the index of the first range that contains the given position, or
+     * -1 if none does
+     * 
+     * @param pos
+     * @return
+     */
+    int findRange(int pos)
+    {
+      if (byLowest == null)
+      {
+        for (int i = 0; i < size; i++)
+        {
+          int[] range = ranges.get(i);
+          if (pos >= Math.min(range[0], range[1])
+                  && pos <= Math.max(range[0], range[1]))
+          {
+            return i;
+          }
+        }
+        return -1;
+      }
+
+      /*
+       * find the last range starting at or before pos
+       */
+      int i = Arrays.binarySearch(lowest, pos);
+      if (i < 0)
+      {
+        i = -i - 2;
+      }
+      return i >= 0 && pos <= highest[i] ? byLowest[i] : -1;
+    }
+
+    /**
+     * Answers the index of the range that includes the n'th position counted
+     * along the ranges, or -1 if there are fewer positions than n. Values of n
+     * less than 1 are taken to be in the first range.
+     * 
+     * @param n
+     * @return
+     */
+    int findCountedRange(int n)
+    {
+      if (size == 0 || n > counts[size])
+      {
+        return -1;
+      }
+
+      /*
+       * find the first range whose end has a count of at least n
+       */
+      int lo = 0;
+      int hi = size - 1;
+      while (lo < hi)
+      {
+        int mid = (lo + hi) >>> 1;
+        if (counts[mid + 1] >= n)
+        {
+          hi = mid;
+        }
+        else
+        {
+          lo = mid + 1;
+        }
+      }
+      return lo;
+    }
+
+    /**
+     * Answers the number of positions along the ranges (base 1) to the given
+     * position, or 0 if it is not within any range
+     * 
+     * @param pos
+     * @return
+     */
+    int count(int pos)
+    {
+      int i = findRange(pos);
+      if (i == -1)
+      {
+        return 0;
+      }
+      int[] range = ranges.get(i);
+      return counts[i] + Math.abs(pos - range[0]) + 1;
+    }
+
+    /**
+     * Answers the position that is the n'th counted along the ranges; the
+     * answer is undefined if there are fewer than n positions
+     * 
+     * @param n
+     * @return
+     */
+    int position(int n)
+    {
+      int i = findCountedRange(n);
+      int[] range = ranges.get(i);
+      int offset = n - counts[i] - 1;
+      return range[1] >= range[0] ? range[0] + offset : range[0] - offset;
+    }
+
+    /**
+     * As {@link MapList#countPos(List, int)}, returns {count, direction} for
+     * the given position, or null if it is not within any range
+     * 
+     * @param pos
+     * @return
+     */
+    int[] countPos(int pos)
+    {
+      int i = findRange(pos);
+      if (i == -1)
+      {
+        return null;
+      }
+      int[] range = ranges.get(i);
+      boolean forward = range[0] <= range[1];
+      return new int[] { counts[i] + Math.abs(pos - range[0]) + 1,
+          forward ? 1 : -1 };
+    }
+
+    /**
+     * As {@link MapList#countToPos(List, int)}, returns {position, direction}
+     * for the n'th position along the ranges, or null if there are fewer than n
+     * positions
+     * 
+     * @param n
+     * @return
+     */
+    int[] countToPos(int n)
+    {
+      int i = findCountedRange(n);
+      if (i == -1)
+      {
+        return null;
+      }
+      int[] range = ranges.get(i);
+      int offset = n - counts[i] - 1;
+      return range[1] >= range[0] ? new int[] { range[0] + offset, 1 }
+              : new int[] { range[0] - offset, -1 };
+    }
+  }
+
 
   /*
    * Subregions (base 1) described as { [start1, end1], [start2, end2], ...}
@@ -74,6 +339,13 @@ public class MapList
 
   private int toHighest;
 
+  /*
+   * lookup indexes of fromShifts and toShifts, built when first needed
+   */
+  private volatile RangeIndex fromIndex;
+
+  private volatile RangeIndex toIndex;
+
   /**
    * Constructor
    */
@@ -535,7 +807,7 @@ public class MapList
    */
   public int[] shiftFrom(int pos)
   {
-    return shift(pos, fromShifts, fromRatio, toShifts, toRatio);
+    return shift(pos, getFromIndex(), fromRatio, getToIndex(), toRatio);
   }
 
   /**
@@ -548,7 +820,126 @@ public class MapList
    */
   public int[] shiftTo(int pos)
   {
-    return shift(pos, toShifts, toRatio, fromShifts, fromRatio);
+    return shift(pos, getToIndex(), toRatio, getFromIndex(), fromRatio);
+  }
+
+  /**
+   * Maps each of the given positions in From to the first position in To of
+   * the word it maps to, as <code>shiftFrom(pos)[0]</code>. Positions which are
+   * not mapped are returned as 0. This is faster than repeated calls to
+   * shiftFrom for more than a few positions.
+   * 
+   * @param positions
+   * @return
+   */
+  public int[] mapFrom(int[] positions)
+  {
+    return map(positions, getFromIndex(), fromRatio, getToIndex(), toRatio);
+  }
+
+  /**
+   * Maps each of the given positions in To to the first position in From of
+   * the word it maps to, as <code>shiftTo(pos)[0]</code>. Positions which are
+   * not mapped are returned as 0. This is faster than repeated calls to shiftTo
+   * for more than a few positions.
+   * 
+   * @param positions
+   * @return
+   */
+  public int[] mapTo(int[] positions)
+  {
+    return map(positions, getToIndex(), toRatio, getFromIndex(), fromRatio);
+  }
+
+  /**
+   * Answers the lookup index for the From ranges
+   * 
+   * @return
+   */
+  protected RangeIndex getFromIndex()
+  {
+    RangeIndex index = fromIndex;
+    if (index == null || !index.isCurrent(fromShifts))
+    {
+      index = new RangeIndex(fromShifts);
+      fromIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * Answers the lookup index for the To ranges
+   * 
+   * @return
+   */
+  protected RangeIndex getToIndex()
+  {
+    RangeIndex index = toIndex;
+    if (index == null || !index.isCurrent(toShifts))
+    {
+      index = new RangeIndex(toShifts);
+      toIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * As {@link #shift(int, List, int, List, int)}, but using the indexes of the
+   * ranges mapped from and to
+   * 
+   * @param pos
+   * @param shiftTo
+   * @param fromRatio
+   * @param shiftFrom
+   * @param toRatio
+   * @return
+   */
+  protected static int[] shift(int pos, RangeIndex shiftTo, int fromRatio,
+          RangeIndex shiftFrom, int toRatio)
+  {
+    int[] fromCount = shiftTo.countPos(pos);
+    if (fromCount == null)
+    {
+      return null;
+    }
+    int fromRemainder = (fromCount[0] - 1) % fromRatio;
+    int toCount = 1 + (((fromCount[0] - 1) / fromRatio) * toRatio);
+    int[] toPos = shiftFrom.countToPos(toCount);
+    if (toPos == null)
+    {
+      return null;
+    }
+    return new int[] { toPos[0], fromRemainder, toPos[1] };
+  }
+
+  /**
+   * Maps each of the given positions to the first position of the word it maps
+   * to, or to 0 if not mapped
+   * 
+   * @param positions
+   * @param shiftTo
+   * @param fromRatio
+   * @param shiftFrom
+   * @param toRatio
+   * @return
+   */
+  protected static int[] map(int[] positions, RangeIndex shiftTo,
+          int fromRatio, RangeIndex shiftFrom, int toRatio)
+  {
+    int[] mapped = new int[positions.length];
+    for (int i = 0; i < positions.length; i++)
+    {
+      int fromCount = shiftTo.count(positions[i]);
+      if (fromCount > 0)
+      {
+        int toCount = 1 + (((fromCount - 1) / fromRatio) * toRatio);
+        if (shiftFrom.findCountedRange(toCount) != -1)
+        {
+          mapped[i] = shiftFrom.position(toCount);
+        }
+      }
+    }
+    return mapped;
   }
 
   /**
@@ -670,12 +1061,12 @@ public class MapList
    */
   public int[] locateInFrom(int start, int end)
   {
-    // inefficient implementation
     int fromStart[] = shiftTo(start);
     // needs to be inclusive of end of symbol position
     int fromEnd[] = shiftTo(end);
 
-    return getIntervals(fromShifts, fromStart, fromEnd, fromRatio);
+    return getIntervals(fromShifts, fromStart, fromEnd, fromRatio,
+            getFirstRange(getFromIndex(), fromStart, fromEnd));
   }
 
   /**
@@ -691,7 +1082,34 @@ public class MapList
   {
     int toStart[] = shiftFrom(start);
     int toEnd[] = shiftFrom(end);
-    return getIntervals(toShifts, toStart, toEnd, toRatio);
+    return getIntervals(toShifts, toStart, toEnd, toRatio,
+            getFirstRange(getToIndex(), toStart, toEnd));
+  }
+
+  /**
+   * Answers the index of the first range that contains either of the start
+   * and end positions, from which a search for the intervals spanned by them
+   * may begin, or 0 if the ranges are not indexed by position or either
+   * position is not found
+   * 
+   * @param index
+   * @param start
+   * @param end
+   * @return
+   */
+  private static int getFirstRange(RangeIndex index, int[] start, int[] end)
+  {
+    if (start == null || end == null || index.byLowest == null)
+    {
+      return 0;
+    }
+    int startRange = index.findRange(start[0]);
+    int endRange = index.findRange(end[0]);
+    if (startRange == -1 || endRange == -1)
+    {
+      return 0;
+    }
+    return Math.min(startRange, endRange);
   }
 
   /**
@@ -707,6 +1125,24 @@ public class MapList
    */
   protected static int[] getIntervals(List<int[]> shiftFrom,
           int[] fromStart, int[] fromEnd, int fromRatio2)
+  {
+    return getIntervals(shiftFrom, fromStart, fromEnd, fromRatio2, 0);
+  }
+
+  /**
+   * As {@link #getIntervals(List, int[], int[], int)}, but starting the search
+   * at the given interval, which must be no later than the first interval
+   * containing either the start or end position
+   * 
+   * @param shiftFrom
+   * @param fromStart
+   * @param fromEnd
+   * @param fromRatio2
+   * @param firstInterval
+   * @return
+   */
+  protected static int[] getIntervals(List<int[]> shiftFrom,
+          int[] fromStart, int[] fromEnd, int fromRatio2, int firstInterval)
   {
     if (fromStart == null || fromEnd == null)
     {
@@ -717,8 +1153,9 @@ public class MapList
     endpos = fromEnd[0]; // last position in fromEnd
     int endindx = (fromRatio2 - 1); // additional positions to get to last
     // position from endpos
-    int intv = 0, intvSize = shiftFrom.size();
-    int iv[], i = 0, fs = -1, fe_s = -1, fe = -1; // containing intervals
+    int intv = firstInterval, intvSize = shiftFrom.size();
+    // containing intervals
+    int iv[], i = firstInterval, fs = -1, fe_s = -1, fe = -1;
     // search intervals to locate ones containing startpos and count endindx
     // positions on from endpos
     while (intv < intvSize && (fs == -1 || fe == -1))
@@ -1004,6 +1441,8 @@ public class MapList
     this.toLowest = Math.min(toLowest, map.toLowest);
     this.fromHighest = Math.max(fromHighest, map.fromHighest);
     this.toHighest = Math.max(toHighest, map.toHighest);
+    fromIndex = null;
+    toIndex = null;
 
     for (int[] range : map.getFromRanges())
     {
@@ -29,6 +29,8 @@ import jalview.api.AlignmentViewPanel;
 import jalview.api.FeaturesDisplayedI;
 import jalview.api.ViewStyleI;
 import jalview.commands.CommandI;
+import jalview.commands.EditCommand;
+import jalview.commands.UndoMemoryManager;
 import jalview.datamodel.AlignedCodonFrame;
 import jalview.datamodel.AlignmentAnnotation;
 import jalview.datamodel.AlignmentI;
@@ -61,6 +63,7 @@ import jalview.workers.StrucConsensusThread;
 
 import java.awt.Color;
 import java.beans.PropertyChangeSupport;
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -97,6 +100,13 @@ public abstract class AlignmentViewport
 
   protected Deque<CommandI> redoList = new ArrayDeque<>();
 
+  /*
+   * keeps the undo data held by historyList and redoList within a budget;
+   * shared (as are the lists) by views of the same alignment
+   */
+  protected UndoMemoryManager undoMemory = new UndoMemoryManager(
+          UndoMemoryManager.DEFAULT_LIMIT);
+
   /**
    * alignment displayed in the viewport. Please use get/setter
    */
@@ -812,6 +822,12 @@ public abstract class AlignmentViewport
 
   protected AlignCalcManagerI calculator = new AlignCalcManager();
 
+  /*
+   * columns edited by each change to the alignment, used to limit
+   * recalculation of consensus and conservation to edited columns
+   */
+  protected EditedColumnsTracker editedColumns = new EditedColumnsTracker();
+
   /**
    * trigger update of conservation annotation
    */
@@ -953,6 +969,10 @@ public abstract class AlignmentViewport
     hconservation = null;
     hcomplementConsensus = null;
     gapcounts = null;
+    if (calculator != null)
+    {
+      calculator.shutdown();
+    }
     calculator = null;
     residueShading = null; // may hold a reference to Consensus
     changeSupport = null;
@@ -960,6 +980,11 @@ public abstract class AlignmentViewport
     currentTree = null;
     selectionGroup = null;
     colSel = null;
+    if (undoMemory != null)
+    {
+      undoMemory.removeView();
+    }
+    undoMemory = null;
     setAlignment(null);
   }
 
@@ -1870,6 +1895,7 @@ public abstract class AlignmentViewport
   @Override
   public void alignmentChanged(AlignmentViewPanel ap)
   {
+    editedColumns.alignmentChanged();
     if (isPadGaps())
     {
       alignment.padGaps();
@@ -1911,6 +1937,38 @@ public abstract class AlignmentViewport
     // alignment.adjustSequenceAnnotations();
   }
 
+  /**
+   * Records the columns changed by an edit command which has just been
+   * performed or undone, so that the next recalculation of consensus and
+   * conservation may be limited to those columns. This should be followed by a
+   * call to alignmentChanged, once all edits have been made.
+   * 
+   * @param command
+   */
+  public void addEditedColumns(CommandI command)
+  {
+    if (command instanceof EditCommand)
+    {
+      int[] columns = ((EditCommand) command).getEditedColumns();
+      if (columns != null)
+      {
+        editedColumns.addEditedColumns(columns[0], columns[1]);
+      }
+    }
+  }
+
+  @Override
+  public long getAlignmentChangeCount()
+  {
+    return editedColumns.getChangeCount();
+  }
+
+  @Override
+  public int[] getEditedColumnsSince(long changeCount)
+  {
+    return editedColumns.getEditedColumnsSince(changeCount);
+  }
+
   /**
    * reset scope and do calculations for all applied colourschemes on alignment
    */
@@ -2629,6 +2687,11 @@ public abstract class AlignmentViewport
     if (this.historyList != null)
     {
       this.historyList.push(command);
+      if (undoMemory != null)
+      {
+        undoMemory.addCommand(command);
+        undoMemory.enforceLimit(historyList, redoList);
+      }
       broadcastCommand(command, false);
     }
   }
@@ -2649,6 +2712,11 @@ public abstract class AlignmentViewport
     if (this.redoList != null)
     {
       this.redoList.push(command);
+      if (undoMemory != null)
+      {
+        undoMemory.addCommand(command);
+        undoMemory.enforceLimit(historyList, redoList);
+      }
     }
     broadcastCommand(command, true);
   }
@@ -2660,10 +2728,58 @@ public abstract class AlignmentViewport
   {
     if (this.redoList != null)
     {
+      if (undoMemory != null)
+      {
+        for (CommandI command : redoList)
+        {
+          undoMemory.discardCommand(command);
+        }
+      }
       this.redoList.clear();
     }
   }
 
+  /**
+   * Removes one command from the command history list, for example after it
+   * has been undone other than by the Undo action
+   * 
+   * @param command
+   */
+  public void removeFromHistoryList(CommandI command)
+  {
+    if (this.historyList != null && this.historyList.remove(command)
+            && undoMemory != null)
+    {
+      undoMemory.discardCommand(command);
+    }
+  }
+
+  /**
+   * Reads back into memory any of the command's undo data held in a temporary
+   * file. This should be called before undoing or redoing the command, so
+   * that a read failure leaves the alignment unchanged. Answers false (after
+   * reporting the error) if the data could not be read.
+   * 
+   * @param command
+   * @return
+   */
+  public boolean readUndoData(CommandI command)
+  {
+    if (command instanceof EditCommand)
+    {
+      try
+      {
+        ((EditCommand) command).readSpilled();
+      } catch (IOException e)
+      {
+        System.err.println(
+                "Failed to read undo history from file: " + e.getMessage());
+        return false;
+      }
+    }
+    return true;
+  }
+
   public void setHistoryList(Deque<CommandI> list)
   {
     this.historyList = list;
@@ -2684,6 +2800,57 @@ public abstract class AlignmentViewport
     return this.redoList;
   }
 
+  /**
+   * Answers the object that limits the memory used by undo and redo history
+   * 
+   * @return
+   */
+  public UndoMemoryManager getUndoMemoryManager()
+  {
+    return undoMemory;
+  }
+
+  /**
+   * Sets the object that limits the memory used by undo and redo history. This
+   * should be shared by views that share the same history and redo lists.
+   * 
+   * @param manager
+   */
+  public void setUndoMemoryManager(UndoMemoryManager manager)
+  {
+    if (manager != undoMemory)
+    {
+      manager.addView();
+      if (undoMemory != null)
+      {
+        undoMemory.removeView();
+      }
+      undoMemory = manager;
+    }
+  }
+
+  /**
+   * Answers the bytes of undo data currently held in memory by the history and
+   * redo lists
+   * 
+   * @return
+   */
+  public long getUndoMemoryUsed()
+  {
+    return undoMemory == null ? 0L : undoMemory.getMemoryUsed();
+  }
+
+  /**
+   * Answers the bytes of undo data for the history and redo lists currently
+   * held in a temporary file
+   * 
+   * @return
+   */
+  public long getUndoMemorySpilled()
+  {
+    return undoMemory == null ? 0L : undoMemory.getSpilledBytes();
+  }
+
   @Override
   public VamsasSource getVamsasSource()
   {
@@ -0,0 +1,154 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ *
+ * This file is part of Jalview.
+ *
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Jalview is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.viewmodel;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Keeps a short history of the alignment columns changed by each notified
+ * change to an alignment, so that calculations such as consensus and
+ * conservation may be redone for edited columns only.
+ * <p>
+ * Columns are marked as edited (by {@link #addEditedColumns(int, int)}) when
+ * an edit command is performed or undone, and recorded as one numbered change
+ * by {@link #alignmentChanged()}. A change with no columns marked is recorded
+ * as affecting all columns. A calculation which remembers the change count at
+ * which it was made may then ask which columns have been edited since.
+ */
+public class EditedColumnsTracker
+{
+  /*
+   * the number of changes for which edited columns are remembered
+   */
+  private static final int MAX_CHANGES = 50;
+
+  /*
+   * columns marked as edited since the last change was recorded
+   */
+  private int pendingStart = -1;
+
+  private int pendingEnd = -1;
+
+  /*
+   * the number of changes recorded so far
+   */
+  private long changeCount;
+
+  /*
+   * the most recent changes, newest first, as
+   * {changeNumber, startColumn, endColumn}, with startColumn -1
+   * for a change affecting all columns
+   */
+  private Deque<long[]> changes = new ArrayDeque<>();
+
+  /**
+   * Marks the given (inclusive) column range as edited, to be included in the
+   * next change recorded
+   *
+   * @param startCol
+   * @param endCol
+   */
+  public synchronized void addEditedColumns(int startCol, int endCol)
+  {
+    if (startCol < 0 || endCol < startCol)
+    {
+      return;
+    }
+    if (pendingStart == -1)
+    {
+      pendingStart = startCol;
+      pendingEnd = endCol;
+    }
+    else
+    {
+      pendingStart = Math.min(pendingStart, startCol);
+      pendingEnd = Math.max(pendingEnd, endCol);
+    }
+  }
+
+  /**
+   * Records a change to the alignment, covering the columns marked as edited
+   * since the last change, or all columns if none were marked. Answers the new
+   * change count.
+   *
+   * @return
+   */
+  public synchronized long alignmentChanged()
+  {
+    changeCount++;
+    changes.addFirst(new long[] { changeCount, pendingStart, pendingEnd });
+    if (changes.size() > MAX_CHANGES)
+    {
+      changes.removeLast();
+    }
+    pendingStart = -1;
+    pendingEnd = -1;
+    return changeCount;
+  }
+
+  /**
+   * Answers the number of changes recorded so far
+   *
+   * @return
+   */
+  public synchronized long getChangeCount()
+  {
+    return changeCount;
+  }
+
+  /**
+   * Answers the range of columns [start, end] edited by all changes after the
+   * given change count, or null if the edited columns are not known (a change
+   * affected all columns, or is no longer remembered), or if there have been no
+   * changes since
+   *
+   * @param sinceChange
+   * @return
+   */
+  public synchronized int[] getEditedColumnsSince(long sinceChange)
+  {
+    if (sinceChange < 0 || sinceChange >= changeCount
+            || changeCount - sinceChange > changes.size())
+    {
+      return null;
+    }
+    int start = Integer.MAX_VALUE;
+    int end = -1;
+    Iterator<long[]> it = changes.iterator();
+    while (it.hasNext())
+    {
+      long[] change = it.next();
+      if (change[0] <= sinceChange)
+      {
+        break;
+      }
+      if (change[1] == -1)
+      {
+        return null;
+      }
+      start = Math.min(start, (int) change[1]);
+      end = Math.max(end, (int) change[2]);
+    }
+    return new int[] { start, end };
+  }
+}
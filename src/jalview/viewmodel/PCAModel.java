@@ -24,6 +24,7 @@ import jalview.analysis.PCA;
 import jalview.api.RotatableCanvasI;
 import jalview.api.analysis.ScoreModelI;
 import jalview.api.analysis.SimilarityParamsI;
+import jalview.bin.Cache;
 import jalview.datamodel.AlignmentView;
 import jalview.datamodel.Point;
 import jalview.datamodel.SequenceI;
@@ -34,6 +35,17 @@ import java.util.Vector;
 
 public class PCAModel
 {
+  /*
+   * preference for the number of (largest) principal components to compute;
+   * if not set (or zero), all components are computed
+   */
+  public static final String PCA_COMPONENTS = "PCA_COMPONENTS";
+
+  /*
+   * the minimum number of components needed by the PCA panel
+   */
+  private static final int MIN_COMPONENTS = 8;
+
   /*
    * inputs
    */
@@ -86,6 +98,14 @@ public class PCAModel
   public void calculate()
   {
     pca = new PCA(inputData, scoreModel, similarityParams);
+    int componentCount = Cache.getDefault(PCA_COMPONENTS, 0);
+    if (componentCount > 0)
+    {
+      /*
+       * the PCA panel shows the components from top - 1 to top - 7
+       */
+      pca.setComponentCount(Math.max(componentCount, MIN_COMPONENTS));
+    }
     pca.run(); // executes in same thread, wait for completion
 
     // Now find the component coordinates
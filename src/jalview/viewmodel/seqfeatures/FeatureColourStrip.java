@@ -0,0 +1,252 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.viewmodel.seqfeatures;
+
+import jalview.api.FeaturesDisplayedI;
+import jalview.datamodel.SequenceI;
+import jalview.datamodel.features.SequenceFeaturesI;
+import jalview.schemes.FeatureColour;
+
+import java.awt.Color;
+
+/**
+ * A precomputed record of the topmost visible feature colour at each column of
+ * one sequence, for use when features are drawn without transparency. Columns
+ * are held as runs of the same colour, so that lookup of the colour for a
+ * column is a binary search, and drawing a region is a walk along the runs.
+ * <p>
+ * The strip records the versions of the sequence, its features, the feature
+ * colours and the feature settings for which it was computed, so that the
+ * feature renderer can detect when it is stale and must be recomputed.
+ */
+public class FeatureColourStrip
+{
+  /*
+   * the feature settings version for which the strip was computed
+   */
+  private final int settingsVersion;
+
+  /*
+   * the feature colour modification count for which the strip was computed
+   */
+  private final int coloursVersion;
+
+  /*
+   * the displayed feature types (and their version) used
+   */
+  private final FeaturesDisplayedI featuresDisplayed;
+
+  private final int displayedVersion;
+
+  /*
+   * the sequence version used
+   */
+  private final int sequenceVersion;
+
+  /*
+   * the sequence features (and their version) used
+   */
+  private final SequenceFeaturesI features;
+
+  private final int featuresVersion;
+
+  /*
+   * runs of columns with the same feature colour, in column order; run i
+   * covers columns runStarts[i] to runEnds[i] inclusive (base 0)
+   */
+  private int[] runStarts = new int[0];
+
+  private int[] runEnds = new int[0];
+
+  private Color[] runColours = new Color[0];
+
+  /**
+   * Constructor that records the current versions of the sequence, its
+   * features, and the feature settings, which should be read before the colours
+   * are computed from them
+   * 
+   * @param seq
+   * @param displayed
+   * @param settings
+   */
+  FeatureColourStrip(SequenceI seq, FeaturesDisplayedI displayed,
+          int settings)
+  {
+    settingsVersion = settings;
+    coloursVersion = FeatureColour.getModificationCount();
+    featuresDisplayed = displayed;
+    displayedVersion = displayed == null ? 0 : displayed.getChangeCount();
+    sequenceVersion = seq.getChangeCount();
+    features = seq.getFeatures();
+    featuresVersion = features.getChangeCount();
+  }
+
+  /**
+   * Sets the feature colour (or null) at each column of the sequence
+   * 
+   * @param columnColours
+   */
+  void setColours(Color[] columnColours)
+  {
+    /*
+     * count, then record, runs of the same non-null colour
+     */
+    int runCount = 0;
+    Color last = null;
+    for (Color c : columnColours)
+    {
+      if (c != null && !c.equals(last))
+      {
+        runCount++;
+      }
+      last = c;
+    }
+
+    runStarts = new int[runCount];
+    runEnds = new int[runCount];
+    runColours = new Color[runCount];
+    int run = -1;
+    last = null;
+    for (int col = 0; col < columnColours.length; col++)
+    {
+      Color c = columnColours[col];
+      if (c != null)
+      {
+        if (!c.equals(last))
+        {
+          run++;
+          runStarts[run] = col;
+          runColours[run] = c;
+        }
+        runEnds[run] = col;
+      }
+      last = c;
+    }
+  }
+
+  /**
+   * Answers true if the strip was computed for the current state of the
+   * sequence, its features, and the given feature settings, else false
+   * 
+   * @param seq
+   * @param displayed
+   * @param settings
+   * @return
+   */
+  boolean isCurrent(SequenceI seq, FeaturesDisplayedI displayed,
+          int settings)
+  {
+    return settings == settingsVersion
+            && FeatureColour.getModificationCount() == coloursVersion
+            && displayed == featuresDisplayed
+            && (displayed == null
+                    || displayed.getChangeCount() == displayedVersion)
+            && seq.getChangeCount() == sequenceVersion
+            && seq.getFeatures() == features
+            && features.getChangeCount() == featuresVersion;
+  }
+
+  /**
+   * Answers the feature colour at the given column (base 0), or null if no
+   * feature is drawn there. Note the colour may be returned for a gapped column
+   * within the extent of a feature; callers should check for gaps if this is
+   * not wanted.
+   * 
+   * @param column
+   * @return
+   */
+  public Color getColour(int column)
+  {
+    int run = findRun(column);
+    return run < runStarts.length && runStarts[run] <= column
+            ? runColours[run]
+            : null;
+  }
+
+  /**
+   * Answers the index of the first run which ends at or after the given column
+   * (base 0), or the run count if there is none
+   * 
+   * @param column
+   * @return
+   */
+  public int findRun(int column)
+  {
+    int low = 0;
+    int high = runEnds.length;
+    while (low < high)
+    {
+      int mid = (low + high) >>> 1;
+      if (runEnds[mid] < column)
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Answers the number of runs of columns of the same colour
+   * 
+   * @return
+   */
+  public int getRunCount()
+  {
+    return runStarts.length;
+  }
+
+  /**
+   * Answers the first column (base 0) of the run with the given index
+   * 
+   * @param run
+   * @return
+   */
+  public int getRunStart(int run)
+  {
+    return runStarts[run];
+  }
+
+  /**
+   * Answers the last column (base 0) of the run with the given index
+   * 
+   * @param run
+   * @return
+   */
+  public int getRunEnd(int run)
+  {
+    return runEnds[run];
+  }
+
+  /**
+   * Answers the colour of the run with the given index
+   * 
+   * @param run
+   * @return
+   */
+  public Color getRunColour(int run)
+  {
+    return runColours[run];
+  }
+}
@@ -25,14 +25,19 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import jalview.api.AlignViewportI;
 import jalview.api.FeatureColourI;
@@ -48,6 +53,7 @@ import jalview.datamodel.SequenceFeature;
 import jalview.datamodel.SequenceI;
 import jalview.datamodel.features.FeatureMatcherSetI;
 import jalview.datamodel.features.SequenceFeatures;
+import jalview.datamodel.features.SequenceFeaturesI;
 import jalview.renderer.seqfeatures.FeatureRenderer;
 import jalview.schemes.FeatureColour;
 import jalview.util.ColorUtils;
@@ -83,6 +89,33 @@ public abstract class FeatureRendererModel
    */
   protected float transparency = 1.0f;
 
+  /*
+   * incremented whenever feature settings change, so that cached feature
+   * colour strips can be recognised as stale
+   */
+  private volatile int settingsVersion;
+
+  /*
+   * cached feature colours per sequence, for rendering without transparency;
+   * weakly keyed so that entries for deleted sequences are discarded
+   */
+  private Map<SequenceI, FeatureColourStrip> colourStrips = Collections
+          .synchronizedMap(new WeakHashMap<SequenceI, FeatureColourStrip>());
+
+  /*
+   * the number of sequences above which features are summarised in parallel,
+   * and the number summarised by one parallel task
+   */
+  private static final int PARALLEL_MIN_SEQUENCES = 2000;
+
+  private static final int SEQUENCE_CHUNK_SIZE = 500;
+
+  /*
+   * summary of the features of each sequence when last scanned, so that
+   * only sequences whose features have changed need be scanned again
+   */
+  private Map<SequenceI, FeatureSummary> featureSummaries = new HashMap<>();
+
   /*
    * colour scheme for each feature type
    */
@@ -125,6 +158,7 @@ public abstract class FeatureRendererModel
     this.featureColours = fr.featureColours;
     this.transparency = fr.transparency;
     this.featureOrder = fr.featureOrder;
+    settingsChanged();
   }
 
   /**
@@ -143,6 +177,7 @@ public abstract class FeatureRendererModel
     this.featureFilters = frs.featureFilters;
     this.transparency = frs.transparency;
     this.featureOrder = frs.featureOrder;
+    settingsChanged();
     if (av != null && av != fr.getViewport())
     {
       // copy over the displayed feature settings
@@ -172,6 +207,7 @@ public abstract class FeatureRendererModel
   public void setFeaturesDisplayedFrom(FeaturesDisplayedI featuresDisplayed)
   {
     av.setFeaturesDisplayed(new FeaturesDisplayed(featuresDisplayed));
+    settingsChanged();
   }
 
   @Override
@@ -231,6 +267,7 @@ public abstract class FeatureRendererModel
       System.arraycopy(renderOrder, 0, neworder, 0, renderOrder.length);
     }
     renderOrder = neworder;
+    settingsChanged();
   }
 
   protected Map<String, float[][]> minmax = new Hashtable<>();
@@ -384,13 +421,15 @@ public abstract class FeatureRendererModel
     }
 
     AlignmentI alignment = av.getAlignment();
-    List<String> allfeatures = new ArrayList<>();
+    Set<String> allfeatures = new LinkedHashSet<>();
+    Map<String, float[]> scoreRanges = new HashMap<>();
 
-    for (int i = 0; i < alignment.getHeight(); i++)
+    for (FeatureSummary summary : summariseFeatures(
+            alignment.getSequencesArray()))
     {
-      SequenceI asq = alignment.getSequenceAt(i);
-      for (String group : asq.getFeatures().getFeatureGroups(true))
+      for (int g = 0; g < summary.groups.length; g++)
       {
+        String group = summary.groups[g];
         boolean groupDisplayed = true;
         if (group != null)
         {
@@ -406,20 +445,34 @@ public abstract class FeatureRendererModel
         }
         if (groupDisplayed)
         {
-          Set<String> types = asq.getFeatures().getFeatureTypesForGroups(
-                  true, group);
-          for (String type : types)
+          for (String type : summary.groupTypes[g])
           {
-            if (!allfeatures.contains(type)) // or use HashSet and no test?
+            allfeatures.add(type);
+            float[] range = summary.scores.get(type);
+            if (range != null)
             {
-              allfeatures.add(type);
+              float[] typeRange = scoreRanges.get(type);
+              if (typeRange == null)
+              {
+                scoreRanges.put(type, range.clone());
+              }
+              else
+              {
+                typeRange[0] = Math.min(typeRange[0], range[0]);
+                typeRange[1] = Math.max(typeRange[1], range[1]);
+              }
             }
-            updateMinMax(asq, type, true); // todo: for all features?
           }
         }
       }
     }
 
+    for (Map.Entry<String, float[]> range : scoreRanges.entrySet())
+    {
+      updateMinMax(range.getKey(), true, range.getValue()[0],
+              range.getValue()[1]);
+    }
+
     // uncomment to add new features in alphebetical order (but JAL-2575)
     // Collections.sort(allfeatures, String.CASE_INSENSITIVE_ORDER);
     if (newMadeVisible)
@@ -434,10 +487,176 @@ public abstract class FeatureRendererModel
       }
     }
 
-    updateRenderOrder(allfeatures);
+    updateRenderOrder(new ArrayList<>(allfeatures));
+    settingsChanged();
     findingFeatures = false;
   }
 
+  /**
+   * Answers a summary of the positional features of each sequence, in the order
+   * of the array. Summaries retained from the last call are reused for
+   * sequences whose features have not changed since, so that only new or
+   * modified sequences are rescanned. Large alignments are scanned in parallel.
+   * 
+   * @param seqs
+   * @return
+   */
+  FeatureSummary[] summariseFeatures(SequenceI[] seqs)
+  {
+    Map<SequenceI, FeatureSummary> previous = featureSummaries;
+    FeatureSummary[] summaries = new FeatureSummary[seqs.length];
+    if (seqs.length >= PARALLEL_MIN_SEQUENCES
+            && ForkJoinPool.getCommonPoolParallelism() > 1)
+    {
+      ForkJoinPool.commonPool().invoke(new SummaryTask(seqs, previous,
+              summaries, 0, seqs.length));
+    }
+    else
+    {
+      summarise(seqs, previous, summaries, 0, seqs.length);
+    }
+
+    /*
+     * retain summaries for the current sequences only
+     */
+    Map<SequenceI, FeatureSummary> current = new HashMap<>();
+    for (int i = 0; i < seqs.length; i++)
+    {
+      current.put(seqs[i], summaries[i]);
+    }
+    featureSummaries = current;
+    return summaries;
+  }
+
+  /**
+   * Sets summaries for sequences from index (inclusive) to index (exclusive),
+   * reusing any previous summary that is still current
+   * 
+   * @param seqs
+   * @param previous
+   * @param summaries
+   * @param from
+   * @param to
+   */
+  static void summarise(SequenceI[] seqs,
+          Map<SequenceI, FeatureSummary> previous,
+          FeatureSummary[] summaries, int from, int to)
+  {
+    for (int i = from; i < to; i++)
+    {
+      FeatureSummary summary = previous.get(seqs[i]);
+      if (summary == null || !summary.isCurrent(seqs[i]))
+      {
+        summary = new FeatureSummary(seqs[i].getFeatures());
+      }
+      summaries[i] = summary;
+    }
+  }
+
+  /**
+   * A task to summarise the features of a range of sequences, splitting it if
+   * it is larger than SEQUENCE_CHUNK_SIZE
+   */
+  static class SummaryTask extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    final SequenceI[] seqs;
+
+    final Map<SequenceI, FeatureSummary> previous;
+
+    final FeatureSummary[] summaries;
+
+    final int from;
+
+    final int to;
+
+    SummaryTask(SequenceI[] sequences,
+            Map<SequenceI, FeatureSummary> previousSummaries,
+            FeatureSummary[] results, int fromIndex, int toIndex)
+    {
+      seqs = sequences;
+      previous = previousSummaries;
+      summaries = results;
+      from = fromIndex;
+      to = toIndex;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (to - from <= SEQUENCE_CHUNK_SIZE)
+      {
+        summarise(seqs, previous, summaries, from, to);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new SummaryTask(seqs, previous, summaries, from, mid),
+              new SummaryTask(seqs, previous, summaries, mid, to));
+    }
+  }
+
+  /**
+   * A summary of the positional feature groups and types of one sequence, and
+   * the score range of each type, as at a given version of its features
+   */
+  static class FeatureSummary
+  {
+    final SequenceFeaturesI features;
+
+    final int version;
+
+    /*
+     * feature groups (possibly including null), and the feature types for
+     * each group, in the order in which SequenceFeatures returns them
+     */
+    final String[] groups;
+
+    final String[][] groupTypes;
+
+    /*
+     * { min, max } positional score for each type, or null if no scores
+     */
+    final Map<String, float[]> scores = new HashMap<>();
+
+    FeatureSummary(SequenceFeaturesI sf)
+    {
+      features = sf;
+      version = sf.getChangeCount();
+      Set<String> groupSet = sf.getFeatureGroups(true);
+      groups = groupSet.toArray(new String[groupSet.size()]);
+      groupTypes = new String[groups.length][];
+      for (int g = 0; g < groups.length; g++)
+      {
+        Set<String> types = sf.getFeatureTypesForGroups(true, groups[g]);
+        groupTypes[g] = types.toArray(new String[types.size()]);
+        for (String type : groupTypes[g])
+        {
+          if (!scores.containsKey(type))
+          {
+            float min = sf.getMinimumScore(type, true);
+            scores.put(type, Float.isNaN(min) ? null
+                    : new float[]
+                    { min, sf.getMaximumScore(type, true) });
+          }
+        }
+      }
+    }
+
+    /**
+     * Answers true if the summary is for the current features of the sequence,
+     * else false
+     * 
+     * @param seq
+     * @return
+     */
+    boolean isCurrent(SequenceI seq)
+    {
+      return seq.getFeatures() == features
+              && features.getChangeCount() == version;
+    }
+  }
+
   /**
    * Updates the global (alignment) min and max values for a feature type from
    * the score for a sequence, if the score is not NaN. Values are stored
@@ -457,7 +676,22 @@ public abstract class FeatureRendererModel
     }
 
     float max = seq.getFeatures().getMaximumScore(featureType, positional);
+    updateMinMax(featureType, positional, min, max);
+  }
 
+  /**
+   * Updates the global (alignment) min and max values for a feature type to
+   * include the given range of scores. Values are stored separately for
+   * positional and non-positional features.
+   * 
+   * @param featureType
+   * @param positional
+   * @param min
+   * @param max
+   */
+  protected void updateMinMax(String featureType, boolean positional,
+          float min, float max)
+  {
     /*
      * stored values are 
      * { {positionalMin, positionalMax}, {nonPositionalMin, nonPositionalMax} }
@@ -634,12 +868,14 @@ public abstract class FeatureRendererModel
   public void setColour(String featureType, FeatureColourI col)
   {
     featureColours.put(featureType, col);
+    settingsChanged();
   }
 
   @Override
   public void setTransparency(float value)
   {
     transparency = value;
+    settingsChanged();
   }
 
   @Override
@@ -765,6 +1001,7 @@ public abstract class FeatureRendererModel
         renderOrder[data.length - i - 1] = type;
       }
     }
+    settingsChanged();
 
     /*
      * get the new visible ordering and return true if it has changed
@@ -818,6 +1055,7 @@ public abstract class FeatureRendererModel
   public void clearRenderOrder()
   {
     renderOrder = null;
+    settingsChanged();
   }
 
   public boolean hasRenderOrder()
@@ -901,6 +1139,7 @@ public abstract class FeatureRendererModel
   public void setGroupVisibility(String group, boolean visible)
   {
     featureGroups.put(group, Boolean.valueOf(visible));
+    settingsChanged();
   }
 
   @Override
@@ -922,6 +1161,7 @@ public abstract class FeatureRendererModel
       {
         // set local flag indicating redraw needed ?
       }
+      settingsChanged();
     }
   }
 
@@ -1102,6 +1342,7 @@ public abstract class FeatureRendererModel
   public void setFeatureFilters(Map<String, FeatureMatcherSetI> filters)
   {
     featureFilters = filters;
+    settingsChanged();
   }
 
   @Override
@@ -1121,6 +1362,140 @@ public abstract class FeatureRendererModel
     {
       featureFilters.put(featureType, filter);
     }
+    settingsChanged();
+  }
+
+  /**
+   * Records that feature settings have changed, so any cached feature colours
+   * are stale
+   */
+  protected void settingsChanged()
+  {
+    settingsVersion++;
+    colourStrips.clear();
+  }
+
+  /**
+   * Answers true if the strip of feature colours is up to date for the sequence
+   * and the current feature settings, and colours may be read from it (there is
+   * no transparency, and complement features are not shown), else false
+   * 
+   * @param strip
+   * @param seq
+   * @return
+   */
+  public boolean isCurrent(FeatureColourStrip strip, SequenceI seq)
+  {
+    return strip != null && transparency == 1f
+            && !av.isShowComplementFeatures()
+            && strip.isCurrent(seq, av.getFeaturesDisplayed(),
+                    settingsVersion);
+  }
+
+  /**
+   * Answers the topmost visible feature colour at each column of the sequence,
+   * computing it if it is not already cached for the current settings, or null
+   * if the colours cannot be precomputed (transparency is applied, or
+   * complement features are shown)
+   * 
+   * @param seq
+   * @return
+   */
+  public FeatureColourStrip getColourStrip(SequenceI seq)
+  {
+    if (transparency != 1f || av.isShowComplementFeatures())
+    {
+      return null;
+    }
+    updateFeatures();
+    FeatureColourStrip strip = colourStrips.get(seq);
+    if (!isCurrent(strip, seq))
+    {
+      strip = computeColourStrip(seq);
+      colourStrips.put(seq, strip);
+    }
+    return strip;
+  }
+
+  /**
+   * Computes the topmost visible feature colour at each column of the sequence.
+   * Feature types are painted in render order, and features of the same type in
+   * the order they are found, so that (as when drawing features one by one) the
+   * last feature painted at a column is on top. Contact features are painted at
+   * their end positions only.
+   * 
+   * @param seq
+   * @return
+   */
+  protected FeatureColourStrip computeColourStrip(SequenceI seq)
+  {
+    /*
+     * capture versions before reading any settings, so that a concurrent
+     * change leaves the strip stale rather than wrongly current
+     */
+    FeatureColourStrip strip = new FeatureColourStrip(seq,
+            av.getFeaturesDisplayed(), settingsVersion);
+    Color[] colours = new Color[seq.getLength()];
+
+    String[] order = renderOrder;
+    if (order != null)
+    {
+      int seqStart = seq.getStart();
+      int seqEnd = seq.getEnd();
+      for (String type : order)
+      {
+        if (!showFeatureOfType(type))
+        {
+          continue;
+        }
+        FeatureColourI fc = getFeatureStyle(type);
+        List<SequenceFeature> features = seq.getFeatures()
+                .findFeatures(seqStart, seqEnd, type);
+        for (SequenceFeature sf : features)
+        {
+          Color colour = getColor(sf, fc);
+          if (colour == null)
+          {
+            continue;
+          }
+          if (sf.isContactFeature())
+          {
+            paintColour(colours, seq, sf.getBegin(), sf.getBegin(), colour);
+            paintColour(colours, seq, sf.getEnd(), sf.getEnd(), colour);
+          }
+          else
+          {
+            paintColour(colours, seq, sf.getBegin(), sf.getEnd(), colour);
+          }
+        }
+      }
+    }
+    strip.setColours(colours);
+    return strip;
+  }
+
+  /**
+   * Sets the colour for the columns spanning the given sequence positions
+   * (restricted to the positions of the sequence)
+   * 
+   * @param colours
+   * @param seq
+   * @param from
+   * @param to
+   * @param colour
+   */
+  static void paintColour(Color[] colours, SequenceI seq, int from, int to,
+          Color colour)
+  {
+    from = Math.max(from, seq.getStart());
+    to = Math.min(to, seq.getEnd());
+    if (from > to)
+    {
+      return;
+    }
+    int fromColumn = seq.findIndex(from) - 1;
+    int toColumn = from == to ? fromColumn : seq.findIndex(to) - 1;
+    Arrays.fill(colours, fromColumn, toColumn + 1, colour);
   }
 
   /**
@@ -33,6 +33,11 @@ public class FeaturesDisplayed implements FeaturesDisplayedI
 
   private Set<String> featuresRegistered = new HashSet<>();
 
+  /*
+   * incremented whenever the visible feature types may have changed
+   */
+  private volatile int changeCount;
+
   public FeaturesDisplayed(FeaturesDisplayedI featuresDisplayed2)
   {
     Set<String> fdisp = featuresDisplayed2.getVisibleFeatures();
@@ -70,6 +75,7 @@ public class FeaturesDisplayed implements FeaturesDisplayedI
   {
     featuresDisplayed.clear();
     featuresRegistered.clear();
+    changeCount++;
   }
 
   @Override
@@ -77,12 +83,14 @@ public class FeaturesDisplayed implements FeaturesDisplayedI
   {
     featuresDisplayed.addAll(makeVisible);
     featuresRegistered.addAll(makeVisible);
+    changeCount++;
   }
 
   @Override
   public void setAllRegisteredVisible()
   {
     featuresDisplayed.addAll(featuresRegistered);
+    changeCount++;
   }
 
   @Override
@@ -90,6 +98,7 @@ public class FeaturesDisplayed implements FeaturesDisplayedI
   {
     featuresDisplayed.add(featureType);
     featuresRegistered.add(featureType);
+    changeCount++;
   }
 
   @Override
@@ -97,6 +106,7 @@ public class FeaturesDisplayed implements FeaturesDisplayedI
   {
     featuresDisplayed.remove(featureType);
     featuresRegistered.add(featureType);
+    changeCount++;
   }
 
   @Override
@@ -116,4 +126,10 @@ public class FeaturesDisplayed implements FeaturesDisplayedI
   {
     return featuresRegistered.size();
   }
+
+  @Override
+  public int getChangeCount()
+  {
+    return changeCount;
+  }
 }
@@ -26,14 +26,80 @@ import jalview.datamodel.AlignmentAnnotation;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Manages the running of alignment annotation calculations for one viewport.
+ * <p>
+ * Workers are run on a thread pool of limited size which is shared by all
+ * viewports, except for long running workers (such as those waiting on a web
+ * service), which are each given their own thread. Each worker is queued at
+ * most once; restarting a worker which is already queued does not queue it
+ * again, and restarting a worker which is running queues it to run again when
+ * the current run has finished. Queue wait and run times are recorded for each
+ * type of worker, and may be retrieved by {@link #getWorkerStatistics()}.
+ */
 public class AlignCalcManager implements AlignCalcManagerI
 {
+  /*
+   * thread pool shared by the calculation managers of all viewports
+   */
+  private static final ThreadPoolExecutor POOL;
+
+  static
+  {
+    int poolSize = Math.max(2,
+            Runtime.getRuntime().availableProcessors());
+    POOL = new ThreadPoolExecutor(poolSize, poolSize, 60L,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory()
+            {
+              private final AtomicInteger threadCount = new AtomicInteger();
+
+              @Override
+              public Thread newThread(Runnable r)
+              {
+                Thread t = new Thread(r, "AlignCalcManager-"
+                        + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+              }
+            });
+    POOL.allowCoreThreadTimeOut(true);
+  }
+
+  /*
+   * timings of completed calculations, by type of worker
+   */
+  private static final Map<Class<? extends AlignCalcWorkerI>, WorkerStatistics> statistics = new ConcurrentHashMap<>();
+
+  /*
+   * workers queued (or waiting to be queued) to run, and the task that will
+   * run them; guarded by synchronizing on the map
+   */
+  private final Map<AlignCalcWorkerI, WorkerTask> queued = new HashMap<>();
+
+  /*
+   * workers currently running under this manager; guarded by 'queued'
+   */
+  private final Set<AlignCalcWorkerI> running = new HashSet<>();
+
+  /*
+   * set true when the viewport is closed, to prevent any further calculation
+   */
+  private volatile boolean shutdown;
+
   /*
    * list of registered workers
    */
@@ -176,30 +242,282 @@ public class AlignCalcManager implements AlignCalcManagerI
     }
   }
 
+  /**
+   * Queues the worker to run, unless it is disabled, or is already queued. If
+   * the worker is currently running, it is queued to run again when the current
+   * run has finished.
+   */
   @Override
   public void startWorker(AlignCalcWorkerI worker)
   {
-    if (!isDisabled(worker))
+    if (shutdown || isDisabled(worker))
+    {
+      return;
+    }
+    synchronized (queued)
+    {
+      if (queued.containsKey(worker))
+      {
+        /*
+         * coalesce with the queued request, which will see the latest
+         * state of the alignment when it runs
+         */
+        return;
+      }
+      WorkerTask task = new WorkerTask(worker);
+      queued.put(worker, task);
+      if (!running.contains(worker))
+      {
+        task.submit();
+      }
+    }
+  }
+
+  /**
+   * Cancels any queued calculations, and prevents any further calculations
+   * from starting. Calculations already running are allowed to finish.
+   */
+  @Override
+  public void shutdown()
+  {
+    shutdown = true;
+    synchronized (queued)
+    {
+      for (WorkerTask task : queued.values())
+      {
+        POOL.remove(task);
+      }
+      queued.clear();
+    }
+  }
+
+  /**
+   * Answers a snapshot of the queue wait and run times recorded so far for
+   * each type of worker, for all viewports
+   * 
+   * @return
+   */
+  public static Map<Class<? extends AlignCalcWorkerI>, WorkerStatistics> getWorkerStatistics()
+  {
+    Map<Class<? extends AlignCalcWorkerI>, WorkerStatistics> copy = new HashMap<>();
+    for (Map.Entry<Class<? extends AlignCalcWorkerI>, WorkerStatistics> entry : statistics
+            .entrySet())
+    {
+      copy.put(entry.getKey(), entry.getValue().copy());
+    }
+    return copy;
+  }
+
+  /**
+   * Records the queue wait and run times (in nanoseconds) of one run of a
+   * worker
+   * 
+   * @param workerClass
+   * @param waitTime
+   * @param runTime
+   */
+  static void recordTimes(Class<? extends AlignCalcWorkerI> workerClass,
+          long waitTime, long runTime)
+  {
+    WorkerStatistics stats = statistics.get(workerClass);
+    if (stats == null)
+    {
+      statistics.putIfAbsent(workerClass, new WorkerStatistics());
+      stats = statistics.get(workerClass);
+    }
+    stats.add(waitTime, runTime);
+  }
+
+  /**
+   * A task that runs one queued request for a worker, and then queues the next
+   * request for the same worker, if one was made while it was running
+   */
+  private class WorkerTask implements Runnable
+  {
+    private final AlignCalcWorkerI worker;
+
+    private long queuedTime;
+
+    WorkerTask(AlignCalcWorkerI worker)
+    {
+      this.worker = worker;
+    }
+
+    /**
+     * Submits the task to run, either on the shared thread pool, or on its own
+     * thread if the worker is long running. Should be called while synchronized
+     * on 'queued'.
+     */
+    void submit()
+    {
+      queuedTime = System.nanoTime();
+      if (worker.isLongRunning())
+      {
+        Thread tw = new Thread(this);
+        tw.setName(worker.getClass().toString());
+        tw.start();
+      }
+      else
+      {
+        POOL.execute(this);
+      }
+    }
+
+    @Override
+    public void run()
+    {
+      synchronized (queued)
+      {
+        if (queued.get(worker) != this)
+        {
+          return; // cancelled
+        }
+        queued.remove(worker);
+        running.add(worker);
+      }
+      long started = System.nanoTime();
+      Thread thread = Thread.currentThread();
+      String threadName = thread.getName();
+      thread.setName(worker.getClass().toString());
+      try
+      {
+        worker.run();
+      } finally
+      {
+        thread.setName(threadName);
+        recordTimes(worker.getClass(), started - queuedTime,
+                System.nanoTime() - started);
+        synchronized (queued)
+        {
+          running.remove(worker);
+          WorkerTask next = queued.get(worker);
+          if (next != null)
+          {
+            next.submit();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * A summary of the queue wait and run times of one type of worker
+   */
+  public static class WorkerStatistics
+  {
+    private long runCount;
+
+    private long totalWaitTime;
+
+    private long totalRunTime;
+
+    private long maxRunTime;
+
+    synchronized void add(long waitTime, long runTime)
+    {
+      runCount++;
+      totalWaitTime += waitTime;
+      totalRunTime += runTime;
+      maxRunTime = Math.max(maxRunTime, runTime);
+    }
+
+    synchronized WorkerStatistics copy()
+    {
+      WorkerStatistics copy = new WorkerStatistics();
+      copy.runCount = runCount;
+      copy.totalWaitTime = totalWaitTime;
+      copy.totalRunTime = totalRunTime;
+      copy.maxRunTime = maxRunTime;
+      return copy;
+    }
+
+    /**
+     * Answers the number of completed runs
+     * 
+     * @return
+     */
+    public long getRunCount()
+    {
+      return runCount;
+    }
+
+    /**
+     * Answers the total time (in nanoseconds) spent waiting in the queue
+     * 
+     * @return
+     */
+    public long getTotalWaitTime()
+    {
+      return totalWaitTime;
+    }
+
+    /**
+     * Answers the total time (in nanoseconds) spent running
+     * 
+     * @return
+     */
+    public long getTotalRunTime()
+    {
+      return totalRunTime;
+    }
+
+    /**
+     * Answers the longest time (in nanoseconds) taken by one run
+     * 
+     * @return
+     */
+    public long getMaxRunTime()
     {
-      Thread tw = new Thread(worker);
-      tw.setName(worker.getClass().toString());
-      tw.start();
+      return maxRunTime;
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format("runs=%d wait=%dms run=%dms maxRun=%dms",
+              runCount, TimeUnit.NANOSECONDS.toMillis(totalWaitTime),
+              TimeUnit.NANOSECONDS.toMillis(totalRunTime),
+              TimeUnit.NANOSECONDS.toMillis(maxRunTime));
     }
   }
 
+  /**
+   * Answers true if the worker is queued to run, or is running, else false
+   */
   @Override
   public boolean isWorking(AlignCalcWorkerI worker)
   {
+    if (worker == null)
+    {
+      return false;
+    }
+    synchronized (queued)
+    {
+      if (queued.containsKey(worker) || running.contains(worker))
+      {
+        return true;
+      }
+    }
     synchronized (inProgress)
     {// System.err.println("isWorking : worker "+(worker!=null ?
      // worker.getClass():"null")+ " "+hashCode());
-      return worker != null && inProgress.contains(worker);
+      return inProgress.contains(worker);
     }
   }
 
+  /**
+   * Answers true if any worker is queued to run, or is running, else false
+   */
   @Override
   public boolean isWorking()
   {
+    synchronized (queued)
+    {
+      if (!queued.isEmpty() || !running.isEmpty())
+      {
+        return true;
+      }
+    }
     synchronized (inProgress)
     {
       // System.err.println("isWorking "+hashCode());
@@ -236,6 +554,23 @@ public class AlignCalcManager implements AlignCalcManagerI
   public boolean workingInvolvedWith(
           AlignmentAnnotation alignmentAnnotation)
   {
+    synchronized (queued)
+    {
+      for (AlignCalcWorkerI worker : queued.keySet())
+      {
+        if (worker.involves(alignmentAnnotation))
+        {
+          return true;
+        }
+      }
+      for (AlignCalcWorkerI worker : running)
+      {
+        if (worker.involves(alignmentAnnotation))
+        {
+          return true;
+        }
+      }
+    }
     synchronized (inProgress)
     {
       for (AlignCalcWorkerI worker : inProgress)
@@ -105,6 +105,12 @@ public abstract class AlignCalcWorker implements AlignCalcWorkerI
     return false;
   }
 
+  @Override
+  public boolean isLongRunning()
+  {
+    return false;
+  }
+
   /**
    * Calculate min and max values of annotations and set as graphMin, graphMax
    * on the AlignmentAnnotation. This is needed because otherwise, well, bad
@@ -58,6 +58,16 @@ public class ComplementConsensusThread extends ConsensusThread
     return alignViewport.getComplementConsensusHash();
   }
 
+  /**
+   * Answers null, as cDNA consensus is always recalculated in full
+   */
+  @Override
+  protected int[] getEditedColumns(SequenceI[] seqs,
+          AlignmentAnnotation consensus)
+  {
+    return null;
+  }
+
   /**
    * Calculate the cDNA consensus and store it on the Viewport
    */
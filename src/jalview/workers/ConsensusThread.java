@@ -30,8 +30,20 @@ import jalview.datamodel.ProfilesI;
 import jalview.datamodel.SequenceI;
 import jalview.renderer.ResidueShaderI;
 
+import java.util.Arrays;
+
 public class ConsensusThread extends AlignCalcWorker
 {
+  /*
+   * the sequences and alignment change count for which consensus was last
+   * calculated, used to decide if it may be recalculated for edited columns only
+   */
+  private SequenceI[] calculatedSequences;
+
+  private long calculatedChangeCount;
+
+  private AlignmentAnnotation calculatedConsensus;
+
   public ConsensusThread(AlignViewportI alignViewport,
           AlignmentViewPanel alignPanel)
   {
@@ -87,9 +99,27 @@ public class ConsensusThread extends AlignCalcWorker
         return;
       }
 
-      eraseConsensus(aWidth);
-      computeConsensus(alignment);
-      updateResultAnnotation(true);
+      long changeCount = alignViewport.getAlignmentChangeCount();
+      SequenceI[] aseqs = getSequences();
+      int[] editedColumns = getEditedColumns(aseqs, consensus);
+      calculatedSequences = null;
+      if (editedColumns == null)
+      {
+        eraseConsensus(aWidth);
+        computeConsensus(alignment);
+        updateResultAnnotation(true);
+      }
+      else
+      {
+        int startCol = Math.min(editedColumns[0], aWidth);
+        int endCol = (int) Math.min(editedColumns[1] + 1L, aWidth);
+        resizeConsensus(aWidth);
+        computeConsensus(aseqs, aWidth, startCol, endCol);
+        updateResultAnnotation(startCol, endCol);
+      }
+      calculatedSequences = aseqs;
+      calculatedChangeCount = changeCount;
+      calculatedConsensus = consensus;
 
       if (ap != null)
       {
@@ -129,6 +159,74 @@ public class ConsensusThread extends AlignCalcWorker
     }
   }
 
+  /**
+   * Answers the range of columns [start, end] which have been edited since the
+   * consensus was last calculated, if it may be recalculated for those columns
+   * only, else null. This requires that the consensus was last calculated, by
+   * this worker, for the same sequences in the same order.
+   * 
+   * @param seqs
+   * @param consensus
+   * @return
+   */
+  protected int[] getEditedColumns(SequenceI[] seqs,
+          AlignmentAnnotation consensus)
+  {
+    if (calculatedSequences == null || consensus == null
+            || consensus != calculatedConsensus
+            || consensus.annotations == null
+            || alignViewport.getSequenceConsensusHash() == null
+            || !Arrays.equals(seqs, calculatedSequences))
+    {
+      return null;
+    }
+    return alignViewport.getEditedColumnsSince(calculatedChangeCount);
+  }
+
+  /**
+   * Resizes any existing consensus annotations to the width of the alignment,
+   * retaining their values
+   * 
+   * @param aWidth
+   */
+  protected void resizeConsensus(int aWidth)
+  {
+    AlignmentAnnotation consensus = getConsensusAnnotation();
+    if (consensus != null && consensus.annotations != null
+            && consensus.annotations.length != aWidth)
+    {
+      consensus.annotations = Arrays.copyOf(consensus.annotations, aWidth);
+    }
+    AlignmentAnnotation gap = getGapAnnotation();
+    if (gap != null && gap.annotations != null
+            && gap.annotations.length != aWidth)
+    {
+      gap.annotations = Arrays.copyOf(gap.annotations, aWidth);
+    }
+  }
+
+  /**
+   * Recalculates consensus for the given column range, reusing the consensus
+   * previously calculated for other columns
+   * 
+   * @param aseqs
+   * @param width
+   * @param startCol
+   *          start column (inclusive)
+   * @param endCol
+   *          end column (exclusive)
+   */
+  protected void computeConsensus(SequenceI[] aseqs, int width,
+          int startCol, int endCol)
+  {
+    ProfilesI hconsensus = AAFrequency.calculate(aseqs, width,
+            alignViewport.getSequenceConsensusHash(), startCol, endCol,
+            true);
+
+    alignViewport.setSequenceConsensusHash(hconsensus);
+    setColourSchemeConsensus(hconsensus);
+  }
+
   /**
    * @param alignment
    */
@@ -210,6 +308,29 @@ public class ConsensusThread extends AlignCalcWorker
     }
   }
 
+  /**
+   * Updates the consensus and gap annotations for the given column range only
+   * 
+   * @param startCol
+   *          start column (inclusive)
+   * @param endCol
+   *          end column (exclusive)
+   */
+  protected void updateResultAnnotation(int startCol, int endCol)
+  {
+    ProfilesI hconsensus = (ProfilesI) getViewportConsensus();
+    long nseq = getSequences().length;
+    AAFrequency.completeConsensus(getConsensusAnnotation(), hconsensus,
+            startCol, endCol, alignViewport.isIgnoreGapsConsensus(),
+            alignViewport.isShowSequenceLogo(), nseq);
+    AlignmentAnnotation gap = getGapAnnotation();
+    if (gap != null)
+    {
+      AAFrequency.completeGapAnnot(gap, hconsensus, startCol, endCol,
+              nseq);
+    }
+  }
+
   /**
    * Convert the computed consensus data into the desired annotation for
    * display.
@@ -25,8 +25,10 @@ import jalview.api.AlignViewportI;
 import jalview.api.AlignmentViewPanel;
 import jalview.datamodel.AlignmentAnnotation;
 import jalview.datamodel.AlignmentI;
+import jalview.datamodel.SequenceI;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ConservationThread extends AlignCalcWorker
@@ -48,6 +50,17 @@ public class ConservationThread extends AlignCalcWorker
 
   int alWidth;
 
+  /*
+   * the sequences, alignment change count, and gap threshold for which
+   * conservation was last calculated, used to decide if it may be
+   * recalculated for edited columns only
+   */
+  private SequenceI[] calculatedSequences;
+
+  private long calculatedChangeCount;
+
+  private int calculatedPercGaps;
+
   @Override
   public void run()
   {
@@ -93,17 +106,33 @@ public class ConservationThread extends AlignCalcWorker
 
         return;
       }
+      long changeCount = alignViewport.getAlignmentChangeCount();
+      SequenceI[] seqs = alignment.getSequencesArray();
+      int[] editedColumns = getEditedColumns(seqs);
+      calculatedSequences = null;
       try
       {
-        cons = Conservation.calculateConservation("All",
-                alignment.getSequences(), 0, alWidth - 1, false,
-                ConsPercGaps, quality != null);
+        if (editedColumns == null)
+        {
+          cons = Conservation.calculateConservation("All",
+                  alignment.getSequences(), 0, alWidth - 1, false,
+                  ConsPercGaps, quality != null);
+        }
+        else
+        {
+          cons = Conservation.recalculateConservation(cons,
+                  Arrays.asList(seqs), alWidth - 1, editedColumns[0],
+                  editedColumns[1], false, ConsPercGaps, quality != null);
+        }
       } catch (IndexOutOfBoundsException x)
       {
         // probable race condition. just finish and return without any fuss.
         calcMan.workerComplete(this);
         return;
       }
+      calculatedSequences = seqs;
+      calculatedChangeCount = changeCount;
+      calculatedPercGaps = ConsPercGaps;
       updateResultAnnotation(true);
     } catch (OutOfMemoryError error)
     {
@@ -128,6 +157,27 @@ public class ConservationThread extends AlignCalcWorker
 
   }
 
+  /**
+   * Answers the range of columns [start, end] which have been edited since
+   * conservation was last calculated, if it may be recalculated for those
+   * columns only, else null. This requires that conservation was last
+   * calculated for the same sequences in the same order, with the same
+   * parameters.
+   * 
+   * @param seqs
+   * @return
+   */
+  private int[] getEditedColumns(SequenceI[] seqs)
+  {
+    if (cons == null || calculatedSequences == null
+            || calculatedPercGaps != ConsPercGaps
+            || !Arrays.equals(seqs, calculatedSequences))
+    {
+      return null;
+    }
+    return alignViewport.getEditedColumnsSince(calculatedChangeCount);
+  }
+
   private void updateResultAnnotation(boolean b)
   {
     if (b || !calcMan.isWorking(this) && cons != null
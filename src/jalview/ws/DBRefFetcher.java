@@ -39,13 +39,22 @@ import jalview.ws.seqfetcher.DbSourceProxy;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import uk.ac.ebi.picr.model.UPEntry;
 import uk.ac.ebi.www.picr.AccessionMappingService.AccessionMapperServiceLocator;
@@ -63,6 +72,13 @@ public class DBRefFetcher implements Runnable
 
   public static final String TRIM_RETRIEVED_SEQUENCES = "TRIM_FETCHED_DATASET_SEQS";
 
+  /*
+   * preference for the maximum number of database sources to query at once
+   */
+  public static final String DBREFFETCH_THREADS = "DBREFFETCH_THREADS";
+
+  private static final int DEFAULT_THREADS = 4;
+
   public interface FetchFinishedListenerI
   {
     void finished();
@@ -81,10 +97,6 @@ public class DBRefFetcher implements Runnable
    */
   uk.ac.ebi.www.picr.AccessionMappingService.AccessionMapperInterface picrClient = null;
 
-  // This will be a collection of Vectors of sequenceI refs.
-  // The key will be the seq name or accession id of the seq
-  Hashtable<String, Vector<SequenceI>> seqRefs;
-
   DbSourceProxy[] dbSources;
 
   SequenceFetcher sfetcher;
@@ -251,38 +263,28 @@ public class DBRefFetcher implements Runnable
    * The sequence will be added to a vector of sequences belonging to key which
    * could be either seq name or dbref id
    * 
+   * @param seqRefs
+   *          map from (upper-cased) key to sequences
    * @param seq
    *          SequenceI
    * @param key
    *          String
    */
-  void addSeqId(SequenceI seq, String key)
+  static void addSeqId(Map<String, Vector<SequenceI>> seqRefs,
+          SequenceI seq, String key)
   {
     key = key.toUpperCase();
 
-    Vector<SequenceI> seqs;
-    if (seqRefs.containsKey(key))
+    Vector<SequenceI> seqs = seqRefs.get(key);
+    if (seqs == null)
     {
-      seqs = seqRefs.get(key);
-
-      if (seqs != null && !seqs.contains(seq))
-      {
-        seqs.addElement(seq);
-      }
-      else if (seqs == null)
-      {
-        seqs = new Vector<>();
-        seqs.addElement(seq);
-      }
-
+      seqs = new Vector<>();
+      seqRefs.put(key, seqs);
     }
-    else
+    if (!seqs.contains(seq))
     {
-      seqs = new Vector<>();
       seqs.addElement(seq);
     }
-
-    seqRefs.put(key, seqs);
   }
 
   /**
@@ -317,158 +319,19 @@ public class DBRefFetcher implements Runnable
       e.printStackTrace();
     }
 
-    Vector<SequenceI> sdataset = new Vector<>(
-            Arrays.asList(dataset));
+    /*
+     * sequences not yet verified against any source
+     */
+    Set<SequenceI> sdataset = Collections
+            .newSetFromMap(new ConcurrentHashMap<SequenceI, Boolean>());
+    sdataset.addAll(Arrays.asList(dataset));
     List<String> warningMessages = new ArrayList<>();
 
     // clear any old feature display settings recorded from past sessions
     featureDisplaySettings = null;
 
-    int db = 0;
-    while (sdataset.size() > 0 && db < dbSources.length)
-    {
-      int maxqlen = 1; // default number of queries made at one time
-      System.out.println("Verifying against " + dbSources[db].getDbName());
-
-      // iterate through db for each remaining un-verified sequence
-      SequenceI[] currSeqs = new SequenceI[sdataset.size()];
-      sdataset.copyInto(currSeqs);// seqs that are to be validated against
-      // dbSources[db]
-      Vector<String> queries = new Vector<>(); // generated queries curSeq
-      seqRefs = new Hashtable<>();
-
-      int seqIndex = 0;
-
-      DbSourceProxy dbsource = dbSources[db];
-      // for moment, we dumbly iterate over all retrieval sources for a
-      // particular database
-      // TODO: introduce multithread multisource queries and logic to remove a
-      // query from other sources if any source for a database returns a
-      // record
-      maxqlen = dbsource.getMaximumQueryCount();
-
-      while (queries.size() > 0 || seqIndex < currSeqs.length)
-      {
-        if (queries.size() > 0)
-        {
-          // Still queries to make for current seqIndex
-          StringBuffer queryString = new StringBuffer("");
-          int numq = 0;
-          int nqSize = (maxqlen > queries.size()) ? queries.size()
-                  : maxqlen;
+    fetchFromSources(sdataset, warningMessages);
 
-          while (queries.size() > 0 && numq < nqSize)
-          {
-            String query = queries.elementAt(0);
-            if (dbsource.isValidReference(query))
-            {
-              queryString.append(
-                      (numq == 0) ? "" : dbsource.getAccessionSeparator());
-              queryString.append(query);
-              numq++;
-            }
-            // remove the extracted query string
-            queries.removeElementAt(0);
-          }
-          // make the queries and process the response
-          AlignmentI retrieved = null;
-          try
-          {
-            if (Cache.log.isDebugEnabled())
-            {
-              Cache.log.debug("Querying " + dbsource.getDbName()
-                      + " with : '" + queryString.toString() + "'");
-            }
-            retrieved = dbsource.getSequenceRecords(queryString.toString());
-          } catch (Exception ex)
-          {
-            ex.printStackTrace();
-          } catch (OutOfMemoryError err)
-          {
-            new OOMWarning("retrieving database references ("
-                    + queryString.toString() + ")", err);
-          }
-          if (retrieved != null)
-          {
-            transferReferences(sdataset, dbsource, retrieved,
-                    trimDsSeqs, warningMessages);
-          }
-        }
-        else
-        {
-          // make some more strings for use as queries
-          for (int i = 0; (seqIndex < dataset.length)
-                  && (i < 50); seqIndex++, i++)
-          {
-            SequenceI sequence = dataset[seqIndex];
-            DBRefEntry[] uprefs = DBRefUtils
-                    .selectRefs(sequence.getDBRefs(), new String[]
-                    { dbsource.getDbSource() }); // jalview.datamodel.DBRefSource.UNIPROT
-            // });
-            // check for existing dbrefs to use
-            if (uprefs != null && uprefs.length > 0)
-            {
-              for (int j = 0; j < uprefs.length; j++)
-              {
-                addSeqId(sequence, uprefs[j].getAccessionId());
-                queries.addElement(
-                        uprefs[j].getAccessionId().toUpperCase());
-              }
-            }
-            else
-            {
-              // generate queries from sequence ID string
-              StringTokenizer st = new StringTokenizer(sequence.getName(),
-                      "|");
-              while (st.hasMoreTokens())
-              {
-                String token = st.nextToken();
-                UPEntry[] presp = null;
-                if (picrClient != null)
-                {
-                  // resolve the string against PICR to recover valid IDs
-                  try
-                  {
-                    presp = picrClient.getUPIForAccession(token, null,
-                            picrClient.getMappedDatabaseNames(), null,
-                            true);
-                  } catch (Exception e)
-                  {
-                    System.err.println(
-                            "Exception with Picr for '" + token + "'\n");
-                    e.printStackTrace();
-                  }
-                }
-                if (presp != null && presp.length > 0)
-                {
-                  for (int id = 0; id < presp.length; id++)
-                  {
-                    // construct sequences from response if sequences are
-                    // present, and do a transferReferences
-                    // otherwise transfer non sequence x-references directly.
-                  }
-                  System.out.println(
-                          "Validated ID against PICR... (for what its worth):"
-                                  + token);
-                  addSeqId(sequence, token);
-                  queries.addElement(token.toUpperCase());
-                }
-                else
-                {
-                  // if ()
-                  // System.out.println("Not querying source with
-                  // token="+token+"\n");
-                  addSeqId(sequence, token);
-                  queries.addElement(token.toUpperCase());
-                }
-              }
-            }
-          }
-        }
-      }
-      // advance to next database
-      db++;
-    } // all databases have been queried
     if (!warningMessages.isEmpty())
     {
       StringBuilder sb = new StringBuilder(warningMessages.size() * 30);
@@ -501,6 +364,238 @@ public class DBRefFetcher implements Runnable
     running = false;
   }
 
+  /**
+   * Queries each database source for the sequences not yet verified. If more
+   * than one source is to be queried, and more than one thread is allowed by
+   * preference DBREFFETCH_THREADS, then sources are queried concurrently (one
+   * thread per source, so each source only ever has one query in progress).
+   * Once a sequence has been verified by any source, outstanding queries for it
+   * to other sources are dropped.
+   * 
+   * @param sdataset
+   *          (thread-safe) set of sequences not yet verified, updated as
+   *          sequences are verified
+   * @param warningMessages
+   */
+  void fetchFromSources(Set<SequenceI> sdataset,
+          List<String> warningMessages)
+  {
+    int threads = Math.min(dbSources.length,
+            Cache.getDefault(DBREFFETCH_THREADS, DEFAULT_THREADS));
+    if (threads < 2)
+    {
+      for (DbSourceProxy dbsource : dbSources)
+      {
+        if (sdataset.isEmpty())
+        {
+          break;
+        }
+        new SourceFetcher(dbsource, sdataset, warningMessages).call();
+      }
+      return;
+    }
+
+    List<SourceFetcher> fetchers = new ArrayList<>();
+    for (DbSourceProxy dbsource : dbSources)
+    {
+      fetchers.add(new SourceFetcher(dbsource, sdataset, warningMessages));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try
+    {
+      executor.invokeAll(fetchers);
+    } catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    } finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A task that queries one database source, in batches of up to its maximum
+   * query count, for the sequences that are unverified when it starts, and
+   * transfers references from any retrieved records
+   */
+  private class SourceFetcher implements Callable<Void>
+  {
+    private final DbSourceProxy dbsource;
+
+    private final Set<SequenceI> sdataset;
+
+    private final List<String> warningMessages;
+
+    /*
+     * sequences to verify keyed by (upper-case) query string
+     */
+    private final Map<String, Vector<SequenceI>> seqRefs = new Hashtable<>();
+
+    /*
+     * sequences verified by this source
+     */
+    private final Set<SequenceI> verified = new HashSet<>();
+
+    SourceFetcher(DbSourceProxy source, Set<SequenceI> unverified,
+            List<String> messages)
+    {
+      dbsource = source;
+      sdataset = unverified;
+      warningMessages = messages;
+    }
+
+    @Override
+    public Void call()
+    {
+      System.out.println("Verifying against " + dbsource.getDbName());
+      List<String> queries = makeQueries();
+      int maxqlen = dbsource.getMaximumQueryCount();
+      Iterator<String> pending = queries.iterator();
+
+      while (pending.hasNext() && !sdataset.isEmpty())
+      {
+        StringBuilder queryString = new StringBuilder();
+        int numq = 0;
+        while (pending.hasNext() && numq < maxqlen)
+        {
+          String query = pending.next();
+          if (dbsource.isValidReference(query) && isUnverified(query))
+          {
+            queryString.append(
+                    (numq == 0) ? "" : dbsource.getAccessionSeparator());
+            queryString.append(query);
+            numq++;
+          }
+        }
+        if (numq == 0)
+        {
+          continue;
+        }
+
+        // make the queries and process the response
+        AlignmentI retrieved = null;
+        try
+        {
+          if (Cache.log.isDebugEnabled())
+          {
+            Cache.log.debug("Querying " + dbsource.getDbName() + " with : '"
+                    + queryString.toString() + "'");
+          }
+          retrieved = dbsource.getSequenceRecords(queryString.toString());
+        } catch (Exception ex)
+        {
+          ex.printStackTrace();
+        } catch (OutOfMemoryError err)
+        {
+          new OOMWarning("retrieving database references ("
+                  + queryString.toString() + ")", err);
+        }
+        if (retrieved != null)
+        {
+          synchronized (DBRefFetcher.this)
+          {
+            transferReferences(sdataset, dbsource, retrieved, trimDsSeqs,
+                    warningMessages, seqRefs, verified);
+          }
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Answers true if any sequence for the query is still to be verified
+     * 
+     * @param query
+     * @return
+     */
+    private boolean isUnverified(String query)
+    {
+      Vector<SequenceI> seqs = seqRefs.get(query);
+      if (seqs != null)
+      {
+        for (SequenceI seq : seqs)
+        {
+          if (sdataset.contains(seq))
+          {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Constructs the (distinct, upper-case) queries for sequences not yet
+     * verified, from any existing references to the database, else from tokens
+     * in the sequence name
+     * 
+     * @return
+     */
+    private List<String> makeQueries()
+    {
+      Set<String> queries = new LinkedHashSet<>();
+      for (SequenceI sequence : dataset)
+      {
+        if (!sdataset.contains(sequence))
+        {
+          continue;
+        }
+        DBRefEntry[] uprefs = DBRefUtils
+                .selectRefs(sequence.getDBRefs(), new String[]
+                { dbsource.getDbSource() }); // jalview.datamodel.DBRefSource.UNIPROT
+        // });
+        // check for existing dbrefs to use
+        if (uprefs != null && uprefs.length > 0)
+        {
+          for (int j = 0; j < uprefs.length; j++)
+          {
+            addSeqId(seqRefs, sequence, uprefs[j].getAccessionId());
+            queries.add(uprefs[j].getAccessionId().toUpperCase());
+          }
+        }
+        else
+        {
+          // generate queries from sequence ID string
+          StringTokenizer st = new StringTokenizer(sequence.getName(), "|");
+          while (st.hasMoreTokens())
+          {
+            String token = st.nextToken();
+            UPEntry[] presp = null;
+            if (picrClient != null)
+            {
+              // resolve the string against PICR to recover valid IDs
+              try
+              {
+                presp = picrClient.getUPIForAccession(token, null,
+                        picrClient.getMappedDatabaseNames(), null, true);
+              } catch (Exception e)
+              {
+                System.err.println(
+                        "Exception with Picr for '" + token + "'\n");
+                e.printStackTrace();
+              }
+            }
+            if (presp != null && presp.length > 0)
+            {
+              for (int id = 0; id < presp.length; id++)
+              {
+                // construct sequences from response if sequences are
+                // present, and do a transferReferences
+                // otherwise transfer non sequence x-references directly.
+              }
+              System.out.println(
+                      "Validated ID against PICR... (for what its worth):"
+                              + token);
+            }
+            addSeqId(seqRefs, sequence, token);
+            queries.add(token.toUpperCase());
+          }
+        }
+      }
+      return new ArrayList<>(queries);
+    }
+  }
+
   /**
    * Verify local sequences in seqRefs against the retrieved sequence database
    * records. Returns true if any sequence was modified as a result (start/end
@@ -517,11 +612,16 @@ public class DBRefFetcher implements Runnable
    *          sequences, only their start/end adjusted
    * @param warningMessages
    *          a list of messages to add to
+   * @param seqRefs
+   *          sequences queried keyed by (upper-case) query string
+   * @param verified
+   *          sequences verified by this source, added to as they are verified
    */
-  boolean transferReferences(Vector<SequenceI> sdataset,
+  boolean transferReferences(Set<SequenceI> sdataset,
           DbSourceProxy dbSourceProxy,
           AlignmentI retrievedAl, boolean trimDatasetSeqs,
-          List<String> warningMessages)
+          List<String> warningMessages,
+          Map<String, Vector<SequenceI>> seqRefs, Set<SequenceI> verified)
   {
     // System.out.println("trimming ? " + trimDatasetSeqs);
     if (retrievedAl == null || retrievedAl.getHeight() == 0)
@@ -557,7 +657,7 @@ public class DBRefFetcher implements Runnable
         // match up on accessionId
         if (seqRefs.containsKey(accessionId.toUpperCase()))
         {
-          Vector<SequenceI> seqs = seqRefs.get(accessionId);
+          Vector<SequenceI> seqs = seqRefs.get(accessionId.toUpperCase());
           for (int jj = 0; jj < seqs.size(); jj++)
           {
             sequence = seqs.elementAt(jj);
@@ -572,10 +672,8 @@ public class DBRefFetcher implements Runnable
       {
         // failed to match directly on accessionId==query so just compare all
         // sequences to entry
-        Enumeration<String> e = seqRefs.keys();
-        while (e.hasMoreElements())
+        for (Vector<SequenceI> sqs : seqRefs.values())
         {
-          Vector<SequenceI> sqs = seqRefs.get(e.nextElement());
           if (sqs != null && sqs.size() > 0)
           {
             Enumeration<SequenceI> sqe = sqs.elements();
@@ -611,6 +709,11 @@ public class DBRefFetcher implements Runnable
       for (int m = 0; m < sequenceMatches.size(); m++)
       {
         sequence = sequenceMatches.elementAt(m);
+        if (!sdataset.contains(sequence) && !verified.contains(sequence))
+        {
+          // already verified against another source
+          continue;
+        }
         // only update start and end positions and shift features if there are
         // no existing references
         // TODO: test for legacy where uniprot or EMBL refs exist but no
@@ -767,6 +870,7 @@ public class DBRefFetcher implements Runnable
         // and remove it from the rest
         // TODO: decide if we should remove annotated sequence from set
         sdataset.remove(sequence);
+        verified.add(sequence);
       }
     }
     return modified;
@@ -120,6 +120,16 @@ public abstract class AbstractJabaCalcWorker extends AlignCalcWorker
     initViewportParams();
   }
 
+  /**
+   * Answers true, as the worker spends most of its time waiting on the remote
+   * service
+   */
+  @Override
+  public boolean isLongRunning()
+  {
+    return true;
+  }
+
   public List<Option> getJabaArguments()
   {
     List<Option> newargs = new ArrayList<>();
@@ -0,0 +1,467 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.ws.sifts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jalview.xml.binding.sifts.Entry;
+import jalview.xml.binding.sifts.Entry.Entity;
+import jalview.xml.binding.sifts.Entry.Entity.Segment;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListMapRegion;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListMapRegion.MapRegion;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListMapRegion.MapRegion.Db;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListResidue;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListResidue.Residue;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListResidue.Residue.CrossRefDb;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListResidue.Residue.ResidueDetail;
+
+/**
+ * A compact binary cache of the parts of a SIFTS entry that are used to
+ * compute residue mappings, so that a SIFTS file need only be parsed as XML
+ * once. Each cache file holds the entities (keyed by entity id) of one PDB
+ * entry; each entity's segments hold their residues, with any cross-references
+ * to chain and sequence positions, and their mapped regions.
+ * <p>
+ * The file holds a header identifying the SIFTS file it was derived from, a
+ * table of the distinct strings used, and then the entry, with every string
+ * written as an index into the table. A cache file is only used if it was
+ * derived from a SIFTS file of the same path, size and modification time.
+ */
+final class SiftsCache
+{
+  private static final int MAGIC = 0x53494654; // "SIFT"
+
+  private static final int VERSION = 1;
+
+  private static final String CACHE_SUFFIX = ".sifts.bin";
+
+  /*
+   * strings are written as (1 + their index in the string table), or 0 for null
+   */
+  private static final int NULL_STRING = 0;
+
+  private SiftsCache()
+  {
+    // static methods only
+  }
+
+  /**
+   * Answers the cache file for the given PDB id, or null if no SIFTS download
+   * directory is set
+   * 
+   * @param pdbId
+   * @return
+   */
+  static File getCacheFile(String pdbId)
+  {
+    String dir = SiftsSettings.getSiftDownloadDirectory();
+    if (dir == null || pdbId == null)
+    {
+      return null;
+    }
+    return new File(dir, pdbId.toLowerCase() + CACHE_SUFFIX);
+  }
+
+  /**
+   * Reads the SIFTS entry from the cache file, provided it was derived from the
+   * given SIFTS file. Answers null if there is no valid cache for the file.
+   * 
+   * @param cacheFile
+   * @param siftsFile
+   * @return
+   */
+  static Entry read(File cacheFile, File siftsFile)
+  {
+    if (cacheFile == null || !cacheFile.isFile())
+    {
+      return null;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+            FileChannel channel = raf.getChannel())
+    {
+      MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+              channel.size());
+      if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+      {
+        return null;
+      }
+      if (buf.getLong() != siftsFile.length()
+              || buf.getLong() != siftsFile.lastModified()
+              || !siftsFile.getAbsolutePath().equals(readString(buf)))
+      {
+        return null;
+      }
+      String[] strings = new String[buf.getInt()];
+      for (int i = 0; i < strings.length; i++)
+      {
+        strings[i] = readString(buf);
+      }
+      return new Reader(buf, strings).readEntry();
+    } catch (Exception e)
+    {
+      System.err.println("Error reading SIFTS cache " + cacheFile + ": "
+              + e.toString());
+      return null;
+    }
+  }
+
+  /**
+   * Writes the SIFTS entry, which was parsed from the given SIFTS file, to the
+   * cache file. The file is written to a temporary file and then renamed, so
+   * that a partly written cache is never read.
+   * 
+   * @param entry
+   * @param siftsFile
+   * @param cacheFile
+   * @throws IOException
+   */
+  static void write(Entry entry, File siftsFile, File cacheFile)
+          throws IOException
+  {
+    Writer writer = new Writer();
+    writer.writeEntry(entry);
+
+    File dir = cacheFile.getAbsoluteFile().getParentFile();
+    if (!dir.exists())
+    {
+      dir.mkdirs();
+    }
+    File tmpFile = File.createTempFile(cacheFile.getName(), ".tmp", dir);
+    try (DataOutputStream out = new DataOutputStream(
+            new FileOutputStream(tmpFile)))
+    {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(siftsFile.length());
+      out.writeLong(siftsFile.lastModified());
+      writeString(out, siftsFile.getAbsolutePath());
+      out.writeInt(writer.strings.size());
+      for (String s : writer.strings)
+      {
+        writeString(out, s);
+      }
+      writer.body.writeTo(out);
+    }
+    cacheFile.delete();
+    if (!tmpFile.renameTo(cacheFile))
+    {
+      tmpFile.delete();
+      throw new IOException("Failed to write " + cacheFile);
+    }
+  }
+
+  /**
+   * Deletes the cache file (if any) for the given PDB id
+   * 
+   * @param pdbId
+   * @return true if the file was deleted or doesn't exist
+   */
+  static boolean delete(String pdbId)
+  {
+    File cacheFile = getCacheFile(pdbId);
+    return cacheFile == null || !cacheFile.exists() || cacheFile.delete();
+  }
+
+  private static void writeString(DataOutputStream out, String s)
+          throws IOException
+  {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buf)
+  {
+    byte[] bytes = new byte[buf.getInt()];
+    buf.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Serialises an Entry, collecting the distinct strings it uses in a table
+   */
+  private static class Writer
+  {
+    final List<String> strings = new ArrayList<>();
+
+    final Map<String, Integer> stringIndex = new HashMap<>();
+
+    final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 16);
+
+    final DataOutputStream out = new DataOutputStream(body);
+
+    void writeEntry(Entry entry) throws IOException
+    {
+      str(entry.getDbSource());
+      str(entry.getDbCoordSys());
+      str(entry.getDbAccessionId());
+      str(entry.getDbVersion());
+      List<Entity> entities = entry.getEntity();
+      writeVarInt(entities.size());
+      for (Entity entity : entities)
+      {
+        str(entity.getEntityId());
+        writeVarInt(entity.getSegment().size());
+        for (Segment segment : entity.getSegment())
+        {
+          writeSegment(segment);
+        }
+      }
+      out.flush();
+    }
+
+    void writeSegment(Segment segment) throws IOException
+    {
+      str(segment.getSegId());
+      str(segment.getStart());
+      str(segment.getEnd());
+
+      List<MapRegion> regions = segment.getListMapRegion() == null
+              ? new ArrayList<MapRegion>()
+              : segment.getListMapRegion().getMapRegion();
+      writeVarInt(regions.size());
+      for (MapRegion region : regions)
+      {
+        str(region.getStart());
+        str(region.getEnd());
+        Db db = region.getDb();
+        out.writeBoolean(db != null);
+        if (db != null)
+        {
+          str(db.getDbSource());
+          str(db.getDbCoordSys());
+          str(db.getDbAccessionId());
+          str(db.getDbChainId());
+          str(db.getStart());
+          str(db.getEnd());
+        }
+      }
+
+      List<Residue> residues = segment.getListResidue() == null
+              ? new ArrayList<Residue>()
+              : segment.getListResidue().getResidue();
+      writeVarInt(residues.size());
+      for (Residue residue : residues)
+      {
+        str(residue.getDbResNum());
+        str(residue.getDbResName());
+        List<ResidueDetail> details = residue.getResidueDetail();
+        writeVarInt(details.size());
+        for (ResidueDetail detail : details)
+        {
+          str(detail.getProperty());
+          str(detail.getContent());
+        }
+        List<CrossRefDb> xrefs = residue.getCrossRefDb();
+        writeVarInt(xrefs.size());
+        for (CrossRefDb xref : xrefs)
+        {
+          str(xref.getDbSource());
+          str(xref.getDbCoordSys());
+          str(xref.getDbAccessionId());
+          str(xref.getDbResNum());
+          str(xref.getDbResName());
+          str(xref.getDbChainId());
+        }
+      }
+    }
+
+    /**
+     * Writes the index of the string in the string table, adding it if not
+     * already present
+     * 
+     * @param s
+     * @throws IOException
+     */
+    void str(String s) throws IOException
+    {
+      if (s == null)
+      {
+        writeVarInt(NULL_STRING);
+        return;
+      }
+      Integer index = stringIndex.get(s);
+      if (index == null)
+      {
+        index = strings.size();
+        strings.add(s);
+        stringIndex.put(s, index);
+      }
+      writeVarInt(index + 1);
+    }
+
+    /**
+     * Writes a non-negative int in 1 to 5 bytes, 7 bits at a time
+     * 
+     * @param value
+     * @throws IOException
+     */
+    void writeVarInt(int value) throws IOException
+    {
+      while ((value & ~0x7F) != 0)
+      {
+        out.writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+  }
+
+  /**
+   * Reconstructs an Entry from its serialised form
+   */
+  private static class Reader
+  {
+    final ByteBuffer buf;
+
+    final String[] strings;
+
+    Reader(ByteBuffer buffer, String[] stringTable)
+    {
+      buf = buffer;
+      strings = stringTable;
+    }
+
+    Entry readEntry()
+    {
+      Entry entry = new Entry();
+      entry.setDbSource(str());
+      entry.setDbCoordSys(str());
+      entry.setDbAccessionId(str());
+      entry.setDbVersion(str());
+      int entityCount = readVarInt();
+      List<Entity> entities = entry.getEntity();
+      for (int i = 0; i < entityCount; i++)
+      {
+        Entity entity = new Entity();
+        entity.setEntityId(str());
+        int segmentCount = readVarInt();
+        for (int j = 0; j < segmentCount; j++)
+        {
+          entity.getSegment().add(readSegment());
+        }
+        entities.add(entity);
+      }
+      return entry;
+    }
+
+    Segment readSegment()
+    {
+      Segment segment = new Segment();
+      segment.setSegId(str());
+      segment.setStart(str());
+      segment.setEnd(str());
+
+      ListMapRegion regions = new ListMapRegion();
+      int regionCount = readVarInt();
+      for (int i = 0; i < regionCount; i++)
+      {
+        MapRegion region = new MapRegion();
+        region.setStart(str());
+        region.setEnd(str());
+        if (buf.get() != 0)
+        {
+          Db db = new Db();
+          db.setDbSource(str());
+          db.setDbCoordSys(str());
+          db.setDbAccessionId(str());
+          db.setDbChainId(str());
+          db.setStart(str());
+          db.setEnd(str());
+          region.setDb(db);
+        }
+        regions.getMapRegion().add(region);
+      }
+      segment.setListMapRegion(regions);
+
+      ListResidue residues = new ListResidue();
+      int residueCount = readVarInt();
+      List<Residue> residueList = residues.getResidue();
+      for (int i = 0; i < residueCount; i++)
+      {
+        Residue residue = new Residue();
+        residue.setDbResNum(str());
+        residue.setDbResName(str());
+        int detailCount = readVarInt();
+        for (int j = 0; j < detailCount; j++)
+        {
+          ResidueDetail detail = new ResidueDetail();
+          detail.setProperty(str());
+          detail.setContent(str());
+          residue.getResidueDetail().add(detail);
+        }
+        int xrefCount = readVarInt();
+        for (int j = 0; j < xrefCount; j++)
+        {
+          CrossRefDb xref = new CrossRefDb();
+          xref.setDbSource(str());
+          xref.setDbCoordSys(str());
+          xref.setDbAccessionId(str());
+          xref.setDbResNum(str());
+          xref.setDbResName(str());
+          xref.setDbChainId(str());
+          residue.getCrossRefDb().add(xref);
+        }
+        residueList.add(residue);
+      }
+      segment.setListResidue(residues);
+      return segment;
+    }
+
+    String str()
+    {
+      int index = readVarInt();
+      return index == NULL_STRING ? null : strings[index - 1];
+    }
+
+    /**
+     * Reads an int written by Writer.writeVarInt
+     * 
+     * @return
+     */
+    int readVarInt()
+    {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do
+      {
+        b = buf.get();
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+    }
+  }
+}
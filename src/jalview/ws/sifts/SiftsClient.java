@@ -38,13 +38,18 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.GZIPInputStream;
 
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
@@ -102,6 +107,13 @@ public class SiftsClient implements SiftsClientI
 
   private static final int BUFFER_SIZE = 4096;
 
+  /*
+   * maximum number of SIFTs files to fetch at once when prefetching
+   */
+  private static final int PREFETCH_THREADS = 4;
+
+  private static JAXBContext jaxbContext;
+
   public static final int UNASSIGNED = Integer.MIN_VALUE;
 
   private static final int PDB_RES_POS = 0;
@@ -167,7 +179,104 @@ public class SiftsClient implements SiftsClientI
     this.pdb = pdb;
     this.pdbId = pdb.getId();
     File siftsFile = getSiftsFile(pdbId);
-    siftsEntry = parseSIFTs(siftsFile);
+    siftsEntry = getSiftsEntry(pdbId, siftsFile);
+  }
+
+  /**
+   * Answers the SIFTs entry for the given PDB id, read from the binary SIFTs
+   * cache if it holds a valid copy, else parsed from the SIFTs XML file (and
+   * then written to the cache)
+   * 
+   * @param pdbId
+   * @param siftsFile
+   * @return
+   * @throws SiftsException
+   */
+  static Entry getSiftsEntry(String pdbId, File siftsFile)
+          throws SiftsException
+  {
+    File cacheFile = SiftsCache.getCacheFile(pdbId);
+    Entry entry = SiftsCache.read(cacheFile, siftsFile);
+    if (entry == null)
+    {
+      entry = parseSIFTs(siftsFile);
+      if (cacheFile != null)
+      {
+        try
+        {
+          SiftsCache.write(entry, siftsFile, cacheFile);
+        } catch (IOException e)
+        {
+          System.err.println("Error writing SIFTS cache " + cacheFile
+                  + ": " + e.toString());
+        }
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Fetches (if not already downloaded) and indexes the SIFTs files for the
+   * given PDB ids, so that later mappings to these structures need not parse
+   * SIFTs XML. Files are fetched and indexed concurrently.
+   * 
+   * @param pdbIds
+   * @return the PDB ids whose SIFTs files were successfully fetched and
+   *         indexed
+   */
+  public static List<String> prefetchSiftsFiles(Collection<String> pdbIds)
+  {
+    Set<String> distinct = new LinkedHashSet<>();
+    for (String pdbId : pdbIds)
+    {
+      distinct.add(pdbId.toLowerCase());
+    }
+    List<String> ids = new ArrayList<>(distinct);
+    final List<String> fetched = Collections
+            .synchronizedList(new ArrayList<String>());
+    if (ids.isEmpty())
+    {
+      return fetched;
+    }
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (final String id : ids)
+    {
+      tasks.add(new Callable<Void>()
+      {
+        @Override
+        public Void call()
+        {
+          try
+          {
+            File siftsFile = getSiftsFile(id);
+            File cacheFile = SiftsCache.getCacheFile(id);
+            if (SiftsCache.read(cacheFile, siftsFile) == null)
+            {
+              getSiftsEntry(id, siftsFile);
+            }
+            fetched.add(id);
+          } catch (Exception e)
+          {
+            System.err.println("Failed to prefetch SIFTS file for " + id
+                    + ": " + e.getMessage());
+          }
+          return null;
+        }
+      });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(ids.size(), PREFETCH_THREADS));
+    try
+    {
+      executor.invokeAll(tasks);
+    } catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    } finally
+    {
+      executor.shutdownNow();
+    }
+    return new ArrayList<>(fetched);
   }
 
   /**
@@ -179,13 +288,13 @@ public class SiftsClient implements SiftsClientI
    * @throws Exception
    *           if a problem occurs while parsing the SIFTs XML
    */
-  private Entry parseSIFTs(File siftFile) throws SiftsException
+  private static Entry parseSIFTs(File siftFile) throws SiftsException
   {
     try (InputStream in = new FileInputStream(siftFile);
             GZIPInputStream gzis = new GZIPInputStream(in);)
     {
       // System.out.println("File : " + siftFile.getAbsolutePath());
-      JAXBContext jc = JAXBContext.newInstance("jalview.xml.binding.sifts");
+      JAXBContext jc = getJAXBContext();
       XMLStreamReader streamReader = XMLInputFactory.newInstance()
               .createXMLStreamReader(gzis);
       Unmarshaller um = jc.createUnmarshaller();
@@ -197,6 +306,22 @@ public class SiftsClient implements SiftsClientI
     }
   }
 
+  /**
+   * Answers the JAXB context for SIFTs XML, creating it when first needed
+   * 
+   * @return
+   * @throws JAXBException
+   */
+  private static synchronized JAXBContext getJAXBContext()
+          throws JAXBException
+  {
+    if (jaxbContext == null)
+    {
+      jaxbContext = JAXBContext.newInstance("jalview.xml.binding.sifts");
+    }
+    return jaxbContext;
+  }
+
   /**
    * Get a SIFTs XML file for a given PDB Id from Cache or download from FTP
    * repository if not found in cache
@@ -338,6 +463,7 @@ public class SiftsClient implements SiftsClientI
    */
   public static boolean deleteSiftsFileByPDBId(String pdbId)
   {
+    SiftsCache.delete(pdbId);
     File siftsFile = new File(SiftsSettings.getSiftDownloadDirectory()
             + pdbId.toLowerCase() + ".xml.gz");
     if (siftsFile.exists())
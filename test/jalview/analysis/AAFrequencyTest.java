@@ -24,6 +24,7 @@ import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNull;
 
 import jalview.datamodel.AlignmentAnnotation;
+import jalview.datamodel.AlignmentI;
 import jalview.datamodel.Annotation;
 import jalview.datamodel.ProfileI;
 import jalview.datamodel.ProfilesI;
@@ -31,6 +32,8 @@ import jalview.datamodel.Sequence;
 import jalview.datamodel.SequenceI;
 import jalview.gui.JvOptionPane;
 
+import java.util.Arrays;
+
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
@@ -128,6 +131,123 @@ public class AAFrequencyTest
     assertEquals(4, profile.getNonGapped());
   }
 
+  /**
+   * Verify that the parallel consensus calculation gives the same result as
+   * the serial one, including for the nucleotide/peptide heuristic at chunk
+   * boundaries
+   */
+  @Test(groups = { "Functional" })
+  public void testCalculateParallel()
+  {
+    for (boolean nucleotide : new boolean[] { true, false })
+    {
+      AlignmentI al = new AlignmentGenerator(nucleotide, null).generate(
+              2000, 20, 1234L, 10, 25);
+      SequenceI[] seqs = al.getSequencesArray();
+      int width = al.getWidth();
+      for (boolean saveProfile : new boolean[] { true, false })
+      {
+        assertSameProfiles(
+                AAFrequency.calculateSerial(seqs, width, 0, width,
+                        saveProfile),
+                AAFrequency.calculateParallel(seqs, width, 0, width,
+                        saveProfile),
+                0, width);
+        assertSameProfiles(
+                AAFrequency.calculateSerial(seqs, width, 37, 1500,
+                        saveProfile),
+                AAFrequency.calculateParallel(seqs, width, 37, 1500,
+                        saveProfile),
+                37, 1500);
+      }
+    }
+
+    /*
+     * nucleotide followed by peptide columns, with tied modal residues
+     * whose order depends on whether a column is counted as nucleotide
+     */
+    StringBuilder sb1 = new StringBuilder();
+    StringBuilder sb2 = new StringBuilder();
+    for (int i = 0; i < 300; i++)
+    {
+      sb1.append("ACGT");
+      sb2.append("ACGT");
+    }
+    for (int i = 0; i < 300; i++)
+    {
+      sb1.append("NDKQ");
+      sb2.append("DNQK");
+    }
+    SequenceI[] seqs = new SequenceI[] { new Sequence("s1", sb1.toString()),
+        new Sequence("s2", sb2.toString()) };
+    int width = sb1.length();
+    assertSameProfiles(
+            AAFrequency.calculateSerial(seqs, width, 0, width, true),
+            AAFrequency.calculateParallel(seqs, width, 0, width, true),
+            0, width);
+  }
+
+  @Test(groups = { "Functional" })
+  public void testCalculate_editedColumns()
+  {
+    AlignmentI al = new AlignmentGenerator(false, null).generate(200, 30,
+            2345L, 10, 25);
+    SequenceI[] seqs = al.getSequencesArray();
+    int width = al.getWidth();
+    ProfilesI previous = AAFrequency.calculate(seqs, width, 0, width, true);
+
+    /*
+     * gap out columns 50-59 of some sequences
+     */
+    for (int i = 0; i < seqs.length; i += 3)
+    {
+      char[] chars = seqs[i].getSequence();
+      Arrays.fill(chars, 50, 60, '-');
+      seqs[i].setSequence(new String(chars));
+    }
+    ProfilesI edited = AAFrequency.calculate(seqs, width, previous, 50, 60,
+            true);
+    assertEquals(width - 1, edited.getEndColumn());
+    assertSameProfiles(AAFrequency.calculate(seqs, width, 0, width, true),
+            edited, 0, width);
+
+    /*
+     * extend one sequence beyond the previous width; the new
+     * columns are calculated although not in the edited range
+     */
+    seqs[1].setSequence(seqs[1].getSequenceAsString() + "KLMNP");
+    int newWidth = width + 5;
+    edited = AAFrequency.calculate(seqs, newWidth, previous, 50, 60, true);
+    assertEquals(newWidth - 1, edited.getEndColumn());
+    assertSameProfiles(
+            AAFrequency.calculate(seqs, newWidth, 0, newWidth, true),
+            edited, 0, newWidth);
+  }
+
+  private void assertSameProfiles(ProfilesI expected, ProfilesI actual,
+          int start, int end)
+  {
+    for (int col = start; col < end; col++)
+    {
+      ProfileI p1 = expected.get(col);
+      ProfileI p2 = actual.get(col);
+      String msg = "column " + col;
+      assertEquals(msg, p1.getModalResidue(), p2.getModalResidue());
+      assertEquals(msg, p1.getMaxCount(), p2.getMaxCount());
+      assertEquals(msg, p1.getGapped(), p2.getGapped());
+      assertEquals(msg, p1.getHeight(), p2.getHeight());
+      if (p1.getCounts() == null)
+      {
+        assertNull(p2.getCounts());
+      }
+      else
+      {
+        assertEquals(msg, p1.getCounts().toString(),
+                p2.getCounts().toString());
+      }
+    }
+  }
+
   @Test(groups = { "Functional" }, enabled = false)
   public void testCalculate_withProfileTiming()
   {
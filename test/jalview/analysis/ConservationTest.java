@@ -23,11 +23,15 @@ package jalview.analysis;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import jalview.datamodel.AlignmentAnnotation;
+import jalview.datamodel.AlignmentI;
+import jalview.datamodel.Annotation;
 import jalview.datamodel.Sequence;
 import jalview.datamodel.SequenceI;
 import jalview.gui.JvOptionPane;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -343,4 +347,54 @@ public class ConservationTest
     assertEquals(cons.getTooltip(5), "");
     assertEquals(cons.getTooltip(6), "");
   }
+  /**
+   * Verify that recalculating conservation for edited columns only gives the
+   * same result as a full calculation
+   */
+  @Test(groups = "Functional")
+  public void testRecalculateConservation()
+  {
+    AlignmentI al = new AlignmentGenerator(false, null).generate(60, 12,
+            4567L, 10, 25);
+    List<SequenceI> seqs = al.getSequences();
+    int width = al.getWidth();
+    Conservation previous = Conservation.calculateConservation("All", seqs,
+            0, width - 1, false, 25, true);
+
+    /*
+     * make columns 20-29 fully conserved
+     */
+    for (SequenceI seq : seqs)
+    {
+      char[] chars = seq.getSequence();
+      Arrays.fill(chars, 20, 30, 'L');
+      seq.setSequence(new String(chars));
+    }
+    Conservation expected = Conservation.calculateConservation("All", seqs,
+            0, width - 1, false, 25, true);
+    Conservation actual = Conservation.recalculateConservation(previous,
+            seqs, width - 1, 20, 29, false, 25, true);
+
+    assertEquals(actual.getConsSequence().getSequenceAsString(),
+            expected.getConsSequence().getSequenceAsString());
+    AlignmentAnnotation cons1 = new AlignmentAnnotation("Conservation", "",
+            new Annotation[width]);
+    AlignmentAnnotation quality1 = new AlignmentAnnotation("Quality", "",
+            new Annotation[width]);
+    AlignmentAnnotation cons2 = new AlignmentAnnotation("Conservation", "",
+            new Annotation[width]);
+    AlignmentAnnotation quality2 = new AlignmentAnnotation("Quality", "",
+            new Annotation[width]);
+    expected.completeAnnotations(cons1, quality1, 0, width);
+    actual.completeAnnotations(cons2, quality2, 0, width);
+    assertEquals(quality2.graphMax, quality1.graphMax);
+    for (int col = 0; col < width; col++)
+    {
+      assertEquals(actual.getTooltip(col), expected.getTooltip(col));
+      assertEquals(cons2.annotations[col].value,
+              cons1.annotations[col].value);
+      assertEquals(quality2.annotations[col].value,
+              quality1.annotations[col].value, "column " + col);
+    }
+  }
 }
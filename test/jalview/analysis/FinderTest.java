@@ -35,6 +35,7 @@ import jalview.datamodel.SearchResultMatchI;
 import jalview.datamodel.SearchResultsI;
 import jalview.datamodel.Sequence;
 import jalview.datamodel.SequenceGroup;
+import jalview.datamodel.SequenceI;
 import jalview.gui.AlignFrame;
 import jalview.gui.AlignViewport;
 import jalview.gui.JvOptionPane;
@@ -925,4 +926,41 @@ public class FinderTest
     assertEquals(match.getStart(), 7); // H (there is no G)
     assertEquals(match.getEnd(), 7);
   }
+
+  /**
+   * Test that a literal search (which uses the search index) finds matches
+   * in a sequence edited since the last search
+   */
+  @Test(groups = "Functional")
+  public void testFindAll_afterSequenceEdited()
+  {
+    AlignmentI al2 = new Alignment(new SequenceI[] {
+        new Sequence("seqA", "KLM-NPQ"), new Sequence("seqB", "RST") });
+    AlignViewportI av2 = new AlignViewport(al2);
+    Finder f = new Finder(av2);
+    f.findAll("MNP", false, false, false);
+    assertEquals(f.getSearchResults().getCount(), 1);
+    f.findAll("STV", false, false, false);
+    assertTrue(f.getSearchResults().isEmpty());
+
+    /*
+     * edit seqB to RSTVW; index entry is refreshed, and a match found
+     */
+    al2.getSequenceAt(1).setSequence("RSTVW");
+    f.findAll("stv", false, false, false);
+    SearchResultsI sr = f.getSearchResults();
+    assertEquals(sr.getCount(), 1);
+    SearchResultMatchI match = sr.getResults().get(0);
+    assertSame(match.getSequence(), al2.getSequenceAt(1));
+    assertEquals(match.getStart(), 2);
+    assertEquals(match.getEnd(), 4);
+
+    /*
+     * case-sensitive search for literal
+     */
+    f.findAll("stv", true, false, false);
+    assertTrue(f.getSearchResults().isEmpty());
+    f.findAll("STV", true, false, false);
+    assertEquals(f.getSearchResults().getCount(), 1);
+  }
 }
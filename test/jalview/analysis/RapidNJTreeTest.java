@@ -0,0 +1,177 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.analysis;
+
+import static org.testng.Assert.assertEquals;
+
+import jalview.analysis.scoremodels.PIDModel;
+import jalview.analysis.scoremodels.ScoreModels;
+import jalview.analysis.scoremodels.SimilarityParams;
+import jalview.api.analysis.ScoreModelI;
+import jalview.datamodel.Alignment;
+import jalview.datamodel.AlignmentI;
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+import jalview.gui.AlignViewport;
+import jalview.gui.JvOptionPane;
+import jalview.io.NewickFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class RapidNJTreeTest
+{
+  private static final String RESIDUES = "ACDEFGHIKLMNPQRSTVWY";
+
+  @BeforeClass(alwaysRun = true)
+  public void setUpJvOptionPane()
+  {
+    JvOptionPane.setInteractiveMode(false);
+    JvOptionPane.setMockResponse(JvOptionPane.CANCEL_OPTION);
+  }
+
+  @Test(groups = "Functional")
+  public void testToEntry()
+  {
+    double[] values = new double[] { -3.5, -0.25, 0, 0.25, 7, 12.5 };
+    long previous = Long.MIN_VALUE;
+    for (double value : values)
+    {
+      long entry = RapidNJTree.toEntry(value, 3);
+      assertEquals(RapidNJTree.toDistance(entry), value);
+      assertEquals((int) entry, 3);
+      assertEquals(entry > previous, true);
+      previous = entry;
+    }
+  }
+
+  /**
+   * Tests that the tree is identical (in topology and branch lengths) to that
+   * computed by NJTree
+   */
+  @Test(groups = "Functional")
+  public void testCluster_matchesNJTree()
+  {
+    AlignViewport av = new AlignViewport(getAlignment(60, 80, 1));
+    for (ScoreModelI sm : new ScoreModelI[] {
+        ScoreModels.getInstance().getBlosum62(),
+        new PIDModel() })
+    {
+      NJTree expected = new NJTree(av, sm, SimilarityParams.Jalview);
+      RapidNJTree actual = new RapidNJTree(av, sm, SimilarityParams.Jalview);
+      assertEquals(new NewickFile(actual.getTopNode()).print(false, true),
+              new NewickFile(expected.getTopNode()).print(false, true));
+    }
+  }
+
+  /**
+   * Tests with duplicated sequences, so that many joins are tied
+   */
+  @Test(groups = "Functional")
+  public void testCluster_withTies()
+  {
+    AlignmentI al = getAlignment(40, 30, 2);
+    for (int i = 0; i < 20; i++)
+    {
+      SequenceI seq = al.getSequenceAt(i % 3);
+      al.addSequence(new Sequence("Dup" + i, seq.getSequenceAsString()));
+    }
+    AlignViewport av = new AlignViewport(al);
+    ScoreModelI sm = new PIDModel();
+    NJTree expected = new NJTree(av, sm, SimilarityParams.Jalview);
+    RapidNJTree actual = new RapidNJTree(av, sm, SimilarityParams.Jalview);
+    assertEquals(new NewickFile(actual.getTopNode()).print(false, true),
+            new NewickFile(expected.getTopNode()).print(false, true));
+  }
+
+  @Test(groups = "Timing")
+  public void testCluster_timing()
+  {
+    for (int n : new int[] { 200, 1000, 4000 })
+    {
+      AlignViewport av = new AlignViewport(getAlignment(n, 100, 3));
+      ScoreModelI sm = ScoreModels.getInstance().getBlosum62();
+      if (n <= 200)
+      {
+        long start = System.currentTimeMillis();
+        new NJTree(av, sm, SimilarityParams.Jalview);
+        System.out.println(String.format("NJTree %d sequences took %dms",
+                n, System.currentTimeMillis() - start));
+      }
+      long start = System.currentTimeMillis();
+      new RapidNJTree(av, sm, SimilarityParams.Jalview);
+      System.out.println(String.format("RapidNJTree %d sequences took %dms",
+              n, System.currentTimeMillis() - start));
+    }
+  }
+
+  /**
+   * Makes an alignment of pseudo-random sequences, evolved by repeatedly
+   * copying and mutating a random ancestral sequence, so as to have a
+   * tree-like structure
+   * 
+   * @param count
+   * @param length
+   * @param seed
+   * @return
+   */
+  private AlignmentI getAlignment(int count, int length, long seed)
+  {
+    Random r = new Random(seed);
+    char[] ancestor = new char[length];
+    for (int i = 0; i < length; i++)
+    {
+      ancestor[i] = RESIDUES.charAt(r.nextInt(RESIDUES.length()));
+    }
+    List<char[]> generation = new ArrayList<>();
+    generation.add(ancestor);
+    while (generation.size() < count)
+    {
+      List<char[]> next = new ArrayList<>();
+      for (char[] parent : generation)
+      {
+        for (int child = 0; child < 2; child++)
+        {
+          char[] residues = parent.clone();
+          int mutations = 1 + r.nextInt(length / 20);
+          for (int m = 0; m < mutations; m++)
+          {
+            residues[r.nextInt(length)] = RESIDUES
+                    .charAt(r.nextInt(RESIDUES.length()));
+          }
+          next.add(residues);
+        }
+      }
+      generation = next;
+    }
+
+    SequenceI[] seqs = new SequenceI[count];
+    for (int s = 0; s < count; s++)
+    {
+      seqs[s] = new Sequence("Seq" + s, new String(generation.get(s)));
+    }
+    return new Alignment(seqs);
+  }
+}
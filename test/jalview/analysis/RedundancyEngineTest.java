@@ -0,0 +1,288 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.analysis;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import jalview.analysis.scoremodels.PIDModel;
+import jalview.analysis.scoremodels.SimilarityParams;
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+import jalview.util.Comparison;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.annotations.Test;
+
+public class RedundancyEngineTest
+{
+  /**
+   * Makes sequences of random length (up to width) from a small alphabet, so
+   * that some pairs are similar
+   * 
+   * @param count
+   * @param width
+   * @param seed
+   * @return
+   */
+  private static SequenceI[] makeSequences(int count, int width, long seed)
+  {
+    Random r = new Random(seed);
+    String symbols = "ACGTacgt--.X";
+    char[] template = new char[width];
+    for (int i = 0; i < width; i++)
+    {
+      template[i] = symbols.charAt(r.nextInt(symbols.length()));
+    }
+    SequenceI[] seqs = new SequenceI[count];
+    for (int i = 0; i < count; i++)
+    {
+      char[] chars = new char[width - r.nextInt(width / 4)];
+      for (int j = 0; j < chars.length; j++)
+      {
+        chars[j] = r.nextInt(4) == 0
+                ? symbols.charAt(r.nextInt(symbols.length()))
+                : template[j];
+      }
+      seqs[i] = new Sequence("seq" + i, new String(chars));
+    }
+    return seqs;
+  }
+
+  /**
+   * The redundancy calculation as it was done before RedundancyEngine, as a
+   * reference for the expected values
+   */
+  private static float[] computeRedundancyByString(SequenceI[] seqs,
+          String[] omitHidden, int start, int end)
+  {
+    int height = seqs.length;
+    float[] redundancy = new float[height];
+    int[] lngth = new int[height];
+    SimilarityParams pidParams = new SimilarityParams(true, true, true,
+            true);
+    for (int i = 0; i < height; i++)
+    {
+      for (int j = 0; j < i; j++)
+      {
+        String seqi = omitHidden == null
+                ? seqs[i].getSequenceAsString(start, end)
+                : omitHidden[i];
+        String seqj = omitHidden == null
+                ? seqs[j].getSequenceAsString(start, end)
+                : omitHidden[j];
+        lngth[i] = AlignSeq.extractGaps(Comparison.GapChars, seqi).length();
+        lngth[j] = AlignSeq.extractGaps(Comparison.GapChars, seqj).length();
+        float pid = (float) PIDModel.computePID(seqi, seqj, pidParams);
+        if (lngth[j] < lngth[i])
+        {
+          redundancy[j] = Math.max(pid, redundancy[j]);
+        }
+        else
+        {
+          redundancy[i] = Math.max(pid, redundancy[i]);
+        }
+      }
+    }
+    return redundancy;
+  }
+
+  @Test(groups = "Functional")
+  public void testEncode()
+  {
+    char[] chars = "aB-c. X".toCharArray();
+    assertEquals(RedundancyEngine.encode(chars, false),
+            new char[]
+            { 'A', 'B', 0, 'C', 0, 0, 'X' });
+    assertEquals(RedundancyEngine.encode(chars, true),
+            new char[]
+            { 'A', 'B', 'C', 'X' });
+  }
+
+  @Test(groups = "Functional")
+  public void testComputePID()
+  {
+    SimilarityParams params = new SimilarityParams(true, true, true, true);
+    SequenceI[] seqs = makeSequences(30, 40, 7L);
+    for (SequenceI seq1 : seqs)
+    {
+      for (SequenceI seq2 : seqs)
+      {
+        float expected = (float) PIDModel.computePID(
+                seq1.getSequenceAsString(), seq2.getSequenceAsString(),
+                params);
+        float pid = RedundancyEngine.computePID(
+                RedundancyEngine.encode(seq1.getSequence(), false),
+                RedundancyEngine.encode(seq2.getSequence(), false));
+        assertEquals(pid, expected);
+      }
+    }
+    assertEquals(RedundancyEngine.computePID(new char[0], new char[] { 'A' }),
+            0f);
+  }
+
+  @Test(groups = "Functional")
+  public void testComputeRedundancy()
+  {
+    SequenceI[] seqs = makeSequences(60, 50, 11L);
+    assertEquals(AlignSeq.computeRedundancyMatrix(seqs, null, 0, 50, false),
+            computeRedundancyByString(seqs, null, 0, 50));
+
+    /*
+     * a column window
+     */
+    assertEquals(new RedundancyEngine(seqs, null, 5, 30, false)
+            .computeRedundancy(),
+            computeRedundancyByString(seqs, null, 5, 30));
+
+    /*
+     * visible strings supplied
+     */
+    String[] visible = new String[seqs.length];
+    for (int i = 0; i < seqs.length; i++)
+    {
+      visible[i] = seqs[i].getSequenceAsString(0, 10)
+              + seqs[i].getSequenceAsString(20, 50);
+    }
+    assertEquals(new RedundancyEngine(seqs, visible, 0, 50, false)
+            .computeRedundancy(),
+            computeRedundancyByString(seqs, visible, 0, 50));
+  }
+
+  @Test(groups = "Functional")
+  public void testComputeRedundancy_parallel()
+  {
+    SequenceI[] seqs = makeSequences(200, 50, 13L);
+    RedundancyEngine engine = new RedundancyEngine(seqs, null, 0, 50,
+            false);
+    float[] expected = engine.computeRedundancy();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      float[] redundancy = pool
+              .invoke(engine.new RedundancyTask(0, seqs.length, 100L));
+      assertEquals(redundancy, expected);
+    } finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  @Test(groups = "Functional")
+  public void testGetMaximumPID()
+  {
+    SequenceI[] seqs = makeSequences(40, 40, 17L);
+    for (SequenceI seq1 : seqs)
+    {
+      char[] s1 = RedundancyEngine.encode(seq1.getSequence(), false);
+      for (SequenceI seq2 : seqs)
+      {
+        char[] s2 = RedundancyEngine.encode(seq2.getSequence(), false);
+        float max = RedundancyEngine.getMaximumPID(s1.length,
+                RedundancyEngine.getComposition(s1), s2.length,
+                RedundancyEngine.getComposition(s2));
+        assertTrue(max >= RedundancyEngine.computePID(s1, s2));
+      }
+    }
+
+    /*
+     * no residues in common: 4 positions, at least 3 residue pairs,
+     * so at least 3 mismatches
+     */
+    char[] s1 = "AAC-".toCharArray();
+    char[] s2 = "GGTT".toCharArray();
+    assertEquals(RedundancyEngine.getMaximumPID(4,
+            RedundancyEngine.getComposition(RedundancyEngine.encode(s1,
+                    false)),
+            4, RedundancyEngine.getComposition(
+                    RedundancyEngine.encode(s2, false))),
+            25f);
+  }
+
+  @Test(groups = "Functional")
+  public void testComputeRedundancy_greedy()
+  {
+    SequenceI[] seqs = makeSequences(80, 60, 19L);
+    RedundancyEngine engine = new RedundancyEngine(seqs, null, 0, 60,
+            false);
+    float threshold = 80f;
+    float[] redundancy = engine.computeRedundancy(threshold);
+
+    List<char[]> representatives = new ArrayList<>();
+    List<char[]> redundant = new ArrayList<>();
+    for (int i = 0; i < seqs.length; i++)
+    {
+      char[] s = RedundancyEngine.encode(seqs[i].getSequence(), false);
+      (redundancy[i] >= threshold ? redundant : representatives).add(s);
+    }
+    assertTrue(representatives.size() > 0);
+    assertTrue(redundant.size() > 0);
+
+    /*
+     * representatives are all less than the threshold identical
+     */
+    for (int i = 0; i < representatives.size(); i++)
+    {
+      for (int j = 0; j < i; j++)
+      {
+        assertTrue(RedundancyEngine.computePID(representatives.get(i),
+                representatives.get(j)) < threshold);
+      }
+    }
+
+    /*
+     * every other sequence is within the threshold of a representative
+     */
+    for (char[] s : redundant)
+    {
+      boolean found = false;
+      for (char[] rep : representatives)
+      {
+        found |= RedundancyEngine.computePID(s, rep) >= threshold;
+      }
+      assertTrue(found);
+    }
+  }
+
+  @Test(groups = "Timing")
+  public void testComputeRedundancy_timing()
+  {
+    SequenceI[] seqs = makeSequences(2000, 300, 23L);
+    long t = System.currentTimeMillis();
+    float[] expected = computeRedundancyByString(seqs, null, 0, 300);
+    long byString = System.currentTimeMillis() - t;
+    t = System.currentTimeMillis();
+    RedundancyEngine engine = new RedundancyEngine(seqs, null, 0, 300,
+            false);
+    assertEquals(engine.computeRedundancy(), expected);
+    long exact = System.currentTimeMillis() - t;
+    t = System.currentTimeMillis();
+    engine.computeRedundancy(70f);
+    long greedy = System.currentTimeMillis() - t;
+    System.out.println(String.format(
+            "Redundancy of %d sequences: %dms by String, %dms exact, %dms greedy",
+            seqs.length, byString, exact, greedy));
+  }
+}
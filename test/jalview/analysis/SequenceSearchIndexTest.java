@@ -0,0 +1,177 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.analysis;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import jalview.datamodel.Alignment;
+import jalview.datamodel.AlignmentI;
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class SequenceSearchIndexTest
+{
+  @Test(groups = "Functional")
+  public void testIsLiteral()
+  {
+    assertTrue(SequenceSearchIndex.isLiteral("a"));
+    assertTrue(SequenceSearchIndex.isLiteral("ACGTxyz"));
+    assertFalse(SequenceSearchIndex.isLiteral(null));
+    assertFalse(SequenceSearchIndex.isLiteral(""));
+    assertFalse(SequenceSearchIndex.isLiteral("E.H"));
+    assertFalse(SequenceSearchIndex.isLiteral("M+"));
+    assertFalse(SequenceSearchIndex.isLiteral("[AH]"));
+    assertFalse(SequenceSearchIndex.isLiteral("12"));
+  }
+
+  @Test(groups = "Functional")
+  public void testGetKmerCodes()
+  {
+    assertEquals(SequenceSearchIndex.getKmerCodes("AB").length, 0);
+
+    /*
+     * ABC = (1*28 + 2)*28 + 3 = 843
+     */
+    assertEquals(SequenceSearchIndex.getKmerCodes("ABC"), new int[] { 843 });
+
+    /*
+     * AAAA has one distinct 3-mer; ABCA has ABC, BCA
+     */
+    assertEquals(SequenceSearchIndex.getKmerCodes("AAAA").length, 1);
+    int[] codes = SequenceSearchIndex.getKmerCodes("ABCA");
+    assertEquals(codes.length, 2);
+    assertEquals(codes[0], 843);
+    assertEquals(codes[1], (2 * 28 + 3) * 28 + 1);
+  }
+
+  @Test(groups = "Functional")
+  public void testFindCandidates()
+  {
+    SequenceI[] seqs = new SequenceI[] { new Sequence("s1", "ABC--DEF"),
+        new Sequence("s2", "abcdxf"), new Sequence("s3", "CD"), null };
+    SequenceSearchIndex index = new SequenceSearchIndex();
+
+    assertEquals(index.findCandidates(seqs, "cde"),
+            new boolean[]
+            { true, false, false, false });
+    assertEquals(index.findCandidates(seqs, "CD"),
+            new boolean[]
+            { true, true, true, false });
+    assertEquals(index.findCandidates(seqs, "bcdx"),
+            new boolean[]
+            { false, true, false, false });
+    assertEquals(index.findCandidates(seqs, "Q"),
+            new boolean[]
+            { false, false, false, false });
+    assertEquals(index.size(), 3);
+  }
+
+  @Test(groups = "Functional")
+  public void testGetEntry_sequenceChanged()
+  {
+    SequenceI seq = new Sequence("s1", "AB-CD");
+    SequenceSearchIndex index = new SequenceSearchIndex();
+    SequenceSearchIndex.IndexEntry entry = index.getEntry(seq);
+    assertEquals(entry.residues, "ABCD");
+    assertSame(index.getEntry(seq), entry);
+
+    seq.insertCharAt(1, 'e');
+    SequenceSearchIndex.IndexEntry entry2 = index.getEntry(seq);
+    assertNotSame(entry2, entry);
+    assertEquals(entry2.residues, "AEBCD");
+    assertEquals(index.getResidues(seq), "AEBCD");
+  }
+
+  @Test(groups = "Functional")
+  public void testGetIndex()
+  {
+    AlignmentI al = new Alignment(
+            new SequenceI[]
+            { new Sequence("s1", "ABC") });
+    SequenceSearchIndex index = SequenceSearchIndex.getIndex(al);
+    assertSame(SequenceSearchIndex.getIndex(al), index);
+    assertNotSame(SequenceSearchIndex.getIndex(new Alignment(al)), index);
+  }
+
+  /**
+   * Compares a literal search using the index against a brute force search of
+   * each sequence
+   */
+  @Test(groups = "Timing")
+  public void testFindCandidates_timing()
+  {
+    Random r = new Random(1);
+    String residues = "ACDEFGHIKLMNPQRSTVWY";
+    SequenceI[] seqs = new SequenceI[100000];
+    for (int i = 0; i < seqs.length; i++)
+    {
+      char[] chars = new char[300];
+      for (int j = 0; j < chars.length; j++)
+      {
+        chars[j] = r.nextInt(10) == 0 ? '-'
+                : residues.charAt(r.nextInt(residues.length()));
+      }
+      seqs[i] = new Sequence("seq" + i, new String(chars));
+    }
+    SequenceSearchIndex index = new SequenceSearchIndex();
+    long t = System.currentTimeMillis();
+    index.findCandidates(seqs, "WYKL");
+    System.out.println("Built index in "
+            + (System.currentTimeMillis() - t) + "ms");
+
+    String[] queries = new String[] { "MKVL", "WWYC", "ACDEF", "HIKM" };
+    t = System.currentTimeMillis();
+    int found = 0;
+    for (String query : queries)
+    {
+      for (boolean b : index.findCandidates(seqs, query))
+      {
+        found += b ? 1 : 0;
+      }
+    }
+    long indexed = System.currentTimeMillis() - t;
+
+    t = System.currentTimeMillis();
+    int found2 = 0;
+    for (String query : queries)
+    {
+      for (SequenceI seq : seqs)
+      {
+        String ungapped = AlignSeq.extractGaps("-",
+                seq.getSequenceAsString());
+        found2 += ungapped.contains(query) ? 1 : 0;
+      }
+    }
+    long scanned = System.currentTimeMillis() - t;
+    System.out.println(String.format(
+            "%d queries found %d sequences in %dms (indexed) vs %dms (scanned)",
+            queries.length, found, indexed, scanned));
+    assertEquals(found, found2);
+  }
+}
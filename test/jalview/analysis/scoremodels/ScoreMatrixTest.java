@@ -20,6 +20,7 @@ import jalview.schemes.ResidueProperties;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.Arrays;
+import java.util.Random;
 
 import org.testng.annotations.Test;
 
@@ -707,4 +708,102 @@ public class ScoreMatrixTest
     res2 = sm.findSimilarities(seqs1, params);
     assertFalse(res1.equals(res2, delta));
   }
+
+  /**
+   * Verify that pairwise similarities computed from encoded sequences, both
+   * serially and in parallel, match those computed directly on the sequence
+   * strings, for all combinations of parameters
+   */
+  @Test(groups = "Functional")
+  public void testFindSimilarities_matchesComputeSimilarity()
+  {
+    ScoreMatrix blosum = ScoreModels.getInstance().getBlosum62();
+    float[][] scores = new float[3][];
+    scores[0] = new float[] { 1f, 2f, 3f };
+    scores[1] = new float[] { -4f, 5f, 6f };
+    scores[2] = new float[] { 7f, 8f, 9f };
+    ScoreMatrix asymmetric = new ScoreMatrix("Test", "ABC".toCharArray(),
+            scores);
+
+    /*
+     * random sequences of varying length, including gaps, lower case,
+     * and symbols not in the matrices
+     */
+    String[] seqs = makeSequences(150, 40, "ABCDEFGHIKLMNPQRSTVWYXZab-. J");
+    seqs[3] = "";
+
+    for (ScoreMatrix sm : new ScoreMatrix[] { blosum, asymmetric })
+    {
+      for (int p = 0; p < 16; p++)
+      {
+        SimilarityParamsI params = new SimilarityParams((p & 1) != 0,
+                (p & 2) != 0, (p & 4) != 0, (p & 8) != 0);
+        MatrixI serial = sm.findSimilarities(seqs, params);
+
+        short[][] encoded = new short[seqs.length][];
+        for (int i = 0; i < seqs.length; i++)
+        {
+          encoded[i] = sm.encodeSequence(seqs[i]);
+        }
+        double[][] parallel = new double[seqs.length][seqs.length];
+        sm.findSimilaritiesParallel(encoded, params, parallel);
+
+        for (int i = 0; i < seqs.length; i++)
+        {
+          for (int j = 0; j < seqs.length; j++)
+          {
+            double expected = sm.computeSimilarity(seqs[i], seqs[j],
+                    params);
+            assertEquals(serial.getValue(i, j), expected);
+            assertEquals(parallel[i][j], expected);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Benchmark of the pairwise similarity calculation for increasing numbers of
+   * sequences
+   */
+  @Test(groups = "Timing")
+  public void testFindSimilarities_timing()
+  {
+    ScoreMatrix sm = ScoreModels.getInstance().getBlosum62();
+    for (int count : new int[] { 500, 2000, 5000 })
+    {
+      String[] seqs = makeSequences(count, 300,
+              "ACDEFGHIKLMNPQRSTVWY--");
+      long start = System.currentTimeMillis();
+      sm.findSimilarities(seqs, SimilarityParams.Jalview);
+      long elapsed = System.currentTimeMillis() - start;
+      System.out.println(String.format(
+              "findSimilarities for %d sequences of length 300 took %dms",
+              count, elapsed));
+    }
+  }
+
+  /**
+   * Makes pseudo-random sequences with lengths up to the given maximum
+   * 
+   * @param count
+   * @param maxLength
+   * @param symbols
+   * @return
+   */
+  private String[] makeSequences(int count, int maxLength, String symbols)
+  {
+    Random r = new Random(1729);
+    String[] seqs = new String[count];
+    for (int i = 0; i < count; i++)
+    {
+      char[] seq = new char[maxLength - r.nextInt(maxLength / 10 + 1)];
+      for (int j = 0; j < seq.length; j++)
+      {
+        seq[j] = symbols.charAt(r.nextInt(symbols.length()));
+      }
+      seqs[i] = new String(seq);
+    }
+    return seqs;
+  }
 }
@@ -0,0 +1,159 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.analysis.scoremodels;
+
+import static org.testng.Assert.assertEquals;
+
+import jalview.analysis.AlignSeq;
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+import jalview.math.MatrixI;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class SmithWatermanScorerTest
+{
+  private static String[] makeSequences(int count, int maxLength,
+          String symbols, long seed)
+  {
+    Random r = new Random(seed);
+    String[] seqs = new String[count];
+    for (int i = 0; i < count; i++)
+    {
+      char[] chars = new char[1 + r.nextInt(maxLength)];
+      for (int j = 0; j < chars.length; j++)
+      {
+        chars[j] = symbols.charAt(r.nextInt(symbols.length()));
+      }
+      seqs[i] = new String(chars);
+    }
+    return seqs;
+  }
+
+  /**
+   * Answers the score for the pair computed by AlignSeq
+   */
+  private static float getAlignSeqScore(String s1, String s2, String type)
+  {
+    AlignSeq as = new AlignSeq(new Sequence("s1", s1),
+            new Sequence("s2", s2), type);
+    as.calcScoreMatrix();
+    as.traceAlignment();
+    return as.getMaxScore();
+  }
+
+  @Test(groups = "Functional")
+  public void testGetScore_peptide()
+  {
+    String[] seqs = makeSequences(20, 40, "ACDEFGHIKLMNPQRSTVWYXBZ*acd",
+            3L);
+    SmithWatermanScorer scorer = new SmithWatermanScorer(seqs,
+            ScoreModels.getInstance().getBlosum62());
+    for (int i = 0; i < seqs.length; i++)
+    {
+      for (int j = 0; j < seqs.length; j++)
+      {
+        assertEquals(scorer.getScore(i, j),
+                getAlignSeqScore(seqs[i], seqs[j], AlignSeq.PEP),
+                seqs[i] + " v " + seqs[j]);
+      }
+    }
+  }
+
+  @Test(groups = "Functional")
+  public void testGetScore_dna()
+  {
+    String[] seqs = makeSequences(20, 30, "ACGTUNacgt", 5L);
+    SmithWatermanScorer scorer = new SmithWatermanScorer(seqs,
+            ScoreModels.getInstance().getDefaultModel(false));
+    for (int i = 0; i < seqs.length; i++)
+    {
+      for (int j = 0; j < seqs.length; j++)
+      {
+        assertEquals(scorer.getScore(i, j),
+                getAlignSeqScore(seqs[i], seqs[j], AlignSeq.DNA),
+                seqs[i] + " v " + seqs[j]);
+      }
+    }
+  }
+
+  @Test(groups = "Functional")
+  public void testGetScore_emptySequence()
+  {
+    SmithWatermanScorer scorer = new SmithWatermanScorer(
+            new String[]
+            { "", "KLM" }, ScoreModels.getInstance().getBlosum62());
+    assertEquals(scorer.getScore(0, 1), 0f);
+    assertEquals(scorer.getScore(1, 0), 0f);
+  }
+
+  /**
+   * Checks the matrix has the same values as computed (pair by pair, with
+   * AlignSeq) before SmithWatermanScorer was introduced
+   */
+  @Test(groups = "Functional")
+  public void testFindSimilarities()
+  {
+    String[] seqs = makeSequences(8, 25, "ACDEFGHIKLMNPQRSTVWY", 7L);
+    MatrixI scores = new SmithWatermanScorer(seqs,
+            ScoreModels.getInstance().getBlosum62()).findSimilarities();
+    int count = seqs.length;
+    for (int i = 0; i < count; i++)
+    {
+      for (int j = 0; j < count; j++)
+      {
+        double expected = i < count - 1 && j >= i
+                ? getAlignSeqScore(seqs[i], seqs[j], AlignSeq.PEP)
+                : 0d;
+        assertEquals(scores.getValue(i, j), expected);
+      }
+    }
+  }
+
+  @Test(groups = "Timing")
+  public void testFindSimilarities_timing()
+  {
+    String[] seqs = makeSequences(100, 400, "ACDEFGHIKLMNPQRSTVWY", 9L);
+    long t = System.currentTimeMillis();
+    new SmithWatermanScorer(seqs, ScoreModels.getInstance().getBlosum62())
+            .findSimilarities();
+    long scorer = System.currentTimeMillis() - t;
+
+    t = System.currentTimeMillis();
+    for (int i = 0; i < seqs.length - 1; i++)
+    {
+      SequenceI s1 = new Sequence("s1", seqs[i]);
+      for (int j = i; j < seqs.length; j++)
+      {
+        AlignSeq as = new AlignSeq(s1, new Sequence("s2", seqs[j]),
+                AlignSeq.PEP);
+        as.calcScoreMatrix();
+        as.traceAlignment();
+      }
+    }
+    long alignSeq = System.currentTimeMillis() - t;
+    System.out.println(String.format(
+            "Scored %d sequences in %dms (AlignSeq %dms)", seqs.length,
+            scorer, alignSeq));
+  }
+}
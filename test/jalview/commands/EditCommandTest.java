@@ -20,7 +20,9 @@
  */
 package jalview.commands;
 
+import static org.testng.AssertJUnit.assertArrayEquals;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 
@@ -131,6 +133,57 @@ public class EditCommandTest
     assertEquals("1234890", seqs[3].getSequenceAsString());
   }
 
+  @Test(groups = { "Functional" })
+  public void testGetEditedColumns()
+  {
+    assertNull(testee.getEditedColumns());
+
+    /*
+     * gap insertion shifts the rest of the sequences; longest is now 14
+     */
+    testee.appendEdit(Action.INSERT_GAP, seqs, 4, 3, al, true);
+    assertArrayEquals(new int[] { 4, 16 }, testee.getEditedColumns());
+
+    /*
+     * after undo, the range still includes the columns vacated
+     */
+    testee.undoCommand(null);
+    assertArrayEquals(new int[] { 4, 13 }, testee.getEditedColumns());
+
+    /*
+     * insertion balanced by deletion only affects the columns between
+     */
+    SequenceI[] seq0 = new SequenceI[] { seqs[0] };
+    testee = new EditCommand();
+    testee.appendEdit(Action.INSERT_GAP, seq0, 2, 1, al, true);
+    testee.appendEdit(Action.DELETE_GAP, seq0, 6, 1, al, true);
+    assertArrayEquals(new int[] { 2, 6 }, testee.getEditedColumns());
+
+    /*
+     * an unbalanced edit extends to the end of the sequence
+     * (length 11 after gap insertion, plus 1 for the insertion)
+     */
+    testee.appendEdit(Action.INSERT_GAP, seq0, 8, 1, al, true);
+    assertArrayEquals(new int[] { 2, 11 }, testee.getEditedColumns());
+
+    /*
+     * a replace may change any column to the right
+     */
+    testee = new EditCommand("Replace", Action.REPLACE, "XYZ", seq0, 3, 5,
+            al);
+    assertArrayEquals(new int[] { 3, Integer.MAX_VALUE },
+            testee.getEditedColumns());
+
+    /*
+     * sliding removes the leading gaps from the left-hand sequences
+     */
+    SequenceI[] left = new SequenceI[] { new Sequence("s1", "--abcdef") };
+    SequenceI[] right = new SequenceI[] { new Sequence("s2", "ghijklmn") };
+    testee = new SlideSequencesCommand("Slide", left, right, 2, '-');
+    assertEquals("abcdef", left[0].getSequenceAsString());
+    assertArrayEquals(new int[] { 0, 7 }, testee.getEditedColumns());
+  }
+
   /**
    * Test a cut action. The command should store the cut characters to support
    * undo.
@@ -145,10 +198,10 @@ public class EditCommandTest
     assertEquals("qrstxyz", seqs[2].getSequenceAsString());
     assertEquals("1234890", seqs[3].getSequenceAsString());
 
-    assertEquals("efg", new String(ec.string[0]));
-    assertEquals("klm", new String(ec.string[1]));
-    assertEquals("uvw", new String(ec.string[2]));
-    assertEquals("567", new String(ec.string[3]));
+    assertEquals("efg", new String(ec.getString()[0]));
+    assertEquals("klm", new String(ec.getString()[1]));
+    assertEquals("uvw", new String(ec.getString()[2]));
+    assertEquals("567", new String(ec.getString()[3]));
     // TODO: case where whole sequence is deleted as nothing left; etc
   }
 
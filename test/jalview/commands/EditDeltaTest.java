@@ -0,0 +1,113 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.commands;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class EditDeltaTest
+{
+  @Test(groups = "Functional")
+  public void testEncodeDecode()
+  {
+    char[][] rows = new char[][] { "ABC--DEF".toCharArray(), null,
+        "ABC--DEG".toCharArray(), "--------".toCharArray(),
+        "".toCharArray(), "ABC\u03b1\u0000\u0001\u0002\u00ffZ".toCharArray(),
+        "ABC".toCharArray() };
+    char[][] decoded = EditDelta.decode(EditDelta.encode(rows));
+    assertEquals(decoded.length, rows.length);
+    for (int i = 0; i < rows.length; i++)
+    {
+      if (rows[i] == null)
+      {
+        assertNull(decoded[i]);
+      }
+      else
+      {
+        assertEquals(new String(decoded[i]), new String(rows[i]));
+      }
+    }
+  }
+
+  @Test(groups = "Functional")
+  public void testEncodeDecode_random()
+  {
+    Random r = new Random(7);
+    String chars = "ACDEFGHIKLMNPQRSTVWY-.";
+    for (int test = 0; test < 200; test++)
+    {
+      char[][] rows = new char[r.nextInt(20)][];
+      for (int i = 0; i < rows.length; i++)
+      {
+        if (r.nextInt(10) == 0)
+        {
+          continue;
+        }
+        rows[i] = new char[r.nextInt(300)];
+        for (int j = 0; j < rows[i].length; j++)
+        {
+          /*
+           * make rows similar to the one before, with runs of gaps
+           */
+          if (i > 0 && rows[i - 1] != null && j < rows[i - 1].length
+                  && r.nextInt(4) > 0)
+          {
+            rows[i][j] = rows[i - 1][j];
+          }
+          else
+          {
+            rows[i][j] = r.nextInt(3) == 0 ? '-'
+                    : chars.charAt(r.nextInt(chars.length()));
+          }
+        }
+      }
+      char[][] decoded = EditDelta.decode(EditDelta.encode(rows));
+      assertEquals(decoded.length, rows.length);
+      for (int i = 0; i < rows.length; i++)
+      {
+        assertEquals(decoded[i] == null ? null : new String(decoded[i]),
+                rows[i] == null ? null : new String(rows[i]));
+      }
+    }
+  }
+
+  /**
+   * Test that a gapped or repetitive region encodes to much less than the two
+   * bytes per character of char arrays
+   */
+  @Test(groups = "Functional")
+  public void testEncode_compact()
+  {
+    char[][] rows = new char[100][];
+    for (int i = 0; i < rows.length; i++)
+    {
+      rows[i] = ("ACDEFGHIKL---------------------MNPQRSTVWY"
+              + (i % 2 == 0 ? "AAAA" : "CCCC")).toCharArray();
+    }
+    byte[] encoded = EditDelta.encode(rows);
+    assertTrue(encoded.length < 1000, "encoded size " + encoded.length);
+  }
+}
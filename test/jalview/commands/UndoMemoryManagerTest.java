@@ -0,0 +1,274 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.commands;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import jalview.commands.EditCommand.Action;
+import jalview.datamodel.Alignment;
+import jalview.datamodel.AlignmentI;
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class UndoMemoryManagerTest
+{
+  private static final String RESIDUES = "ACDEFGHIKLMNPQRSTVWY-";
+
+  private AlignmentI makeAlignment(int height, int width)
+  {
+    Random r = new Random(42);
+    SequenceI[] seqs = new SequenceI[height];
+    for (int i = 0; i < height; i++)
+    {
+      char[] chars = new char[width];
+      for (int j = 0; j < width; j++)
+      {
+        chars[j] = RESIDUES.charAt(r.nextInt(RESIDUES.length()));
+      }
+      seqs[i] = new Sequence("seq" + i, new String(chars));
+      seqs[i].createDatasetSequence();
+    }
+    return new Alignment(seqs);
+  }
+
+  /**
+   * Test that cut data beyond the limit is spilled to file, and read back in
+   * when commands are undone
+   */
+  @Test(groups = "Functional")
+  public void testEnforceLimit()
+  {
+    AlignmentI al = makeAlignment(20, 500);
+    String[] before = new String[al.getHeight()];
+    for (int i = 0; i < before.length; i++)
+    {
+      before[i] = al.getSequenceAt(i).getSequenceAsString();
+    }
+
+    UndoMemoryManager manager = new UndoMemoryManager(1000);
+    Deque<CommandI> history = new ArrayDeque<>();
+    Deque<CommandI> redo = new ArrayDeque<>();
+    for (int i = 0; i < 10; i++)
+    {
+      EditCommand cut = new EditCommand("Cut", Action.CUT,
+              al.getSequencesArray(), 10 * i, 20, al);
+      assertTrue(cut.getMemorySize() > 0);
+      push(manager, history, redo, history, cut);
+    }
+    assertTrue(manager.getMemoryUsed() <= 1000
+            + ((EditCommand) history.peek()).getMemorySize());
+    assertEquals(manager.getMemoryUsed(), getMemorySize(history));
+    assertTrue(manager.getSpilledBytes() > 0);
+
+    AlignmentI[] views = new AlignmentI[] { al };
+    while (!history.isEmpty())
+    {
+      CommandI command = history.pop();
+      push(manager, history, redo, redo, command);
+      command.undoCommand(views);
+      assertEquals(manager.getMemoryUsed(),
+              getMemorySize(history) + getMemorySize(redo));
+    }
+    for (int i = 0; i < before.length; i++)
+    {
+      assertEquals(al.getSequenceAt(i).getSequenceAsString(), before[i]);
+    }
+  }
+
+  /**
+   * Test that the most recent command is kept in memory even if over the limit
+   * 
+   * @throws IOException
+   */
+  @Test(groups = "Functional")
+  public void testEnforceLimit_keepsMostRecent() throws IOException
+  {
+    AlignmentI al = makeAlignment(5, 100);
+    UndoMemoryManager manager = new UndoMemoryManager(0);
+    Deque<CommandI> history = new ArrayDeque<>();
+    EditCommand cut1 = new EditCommand("Cut", Action.CUT,
+            al.getSequencesArray(), 0, 10, al);
+    push(manager, history, null, history, cut1);
+    assertTrue(cut1.getMemorySize() > 0);
+    assertEquals(manager.getSpilledBytes(), 0L);
+
+    EditCommand cut2 = new EditCommand("Cut", Action.CUT,
+            al.getSequencesArray(), 0, 10, al);
+    long size1 = cut1.getMemorySize();
+    push(manager, history, null, history, cut2);
+    assertEquals(cut1.getMemorySize(), 0L);
+    assertTrue(cut2.getMemorySize() > 0);
+    assertEquals(manager.getSpilledBytes(), size1);
+    assertEquals(manager.getMemoryUsed(), cut2.getMemorySize());
+  }
+
+  /**
+   * Test that file space held for commands that are undone, or discarded, is
+   * freed
+   */
+  @Test(groups = "Functional")
+  public void testEnforceLimit_releasesFileSpace()
+  {
+    AlignmentI al = makeAlignment(5, 100);
+    UndoMemoryManager manager = new UndoMemoryManager(0);
+    Deque<CommandI> history = new ArrayDeque<>();
+    Deque<CommandI> redo = new ArrayDeque<>();
+    for (int i = 0; i < 3; i++)
+    {
+      push(manager, history, redo, history, new EditCommand("Cut",
+              Action.CUT, al.getSequencesArray(), 0, 10, al));
+    }
+    EditCommand cut1 = (EditCommand) history.getLast();
+    long spilled = manager.getSpilledBytes();
+    assertTrue(spilled > 0);
+    assertEquals(cut1.getMemorySize(), 0L);
+
+    /*
+     * undo the most recent command - it is kept in memory in the redo list
+     */
+    AlignmentI[] views = new AlignmentI[] { al };
+    CommandI command = history.pop();
+    command.undoCommand(views);
+    push(manager, history, redo, redo, command);
+    assertEquals(manager.getSpilledBytes(), spilled);
+
+    /*
+     * undo the next command - its data is read back, freeing file space
+     */
+    command = history.pop();
+    command.undoCommand(views);
+    push(manager, history, redo, redo, command);
+    assertTrue(manager.getSpilledBytes() < spilled);
+
+    /*
+     * discard the redo list and history - all memory and file space is freed
+     */
+    for (CommandI discarded : redo)
+    {
+      manager.discardCommand(discarded);
+    }
+    for (CommandI discarded : history)
+    {
+      manager.discardCommand(discarded);
+    }
+    assertEquals(manager.getSpilledBytes(), 0L);
+    assertEquals(manager.getMemoryUsed(), 0L);
+  }
+
+  /**
+   * Test that the spill file is only closed when the last view sharing the
+   * manager is closed
+   */
+  @Test(groups = "Functional")
+  public void testRemoveView()
+  {
+    AlignmentI al = makeAlignment(5, 100);
+    UndoMemoryManager manager = new UndoMemoryManager(0);
+    manager.addView();
+    Deque<CommandI> history = new ArrayDeque<>();
+    for (int i = 0; i < 2; i++)
+    {
+      push(manager, history, null, history, new EditCommand("Cut",
+              Action.CUT, al.getSequencesArray(), 0, 10, al));
+    }
+    assertTrue(manager.getSpilledBytes() > 0);
+
+    manager.removeView();
+    assertTrue(manager.getSpilledBytes() > 0);
+    manager.removeView();
+    assertEquals(manager.getSpilledBytes(), 0L);
+  }
+
+  /**
+   * Test that data is read back for the whole command before any sequence is
+   * changed, and that a read failure leaves the alignment unchanged
+   * 
+   * @throws IOException
+   */
+  @Test(groups = "Functional")
+  public void testReadSpilled() throws IOException
+  {
+    AlignmentI al = makeAlignment(5, 100);
+    UndoMemoryManager manager = new UndoMemoryManager(0);
+    Deque<CommandI> history = new ArrayDeque<>();
+    EditCommand cut1 = new EditCommand("Cut", Action.CUT,
+            al.getSequencesArray(), 0, 10, al);
+    push(manager, history, null, history, cut1);
+    push(manager, history, null, history, new EditCommand("Cut",
+            Action.CUT, al.getSequencesArray(), 0, 10, al));
+    assertEquals(cut1.getMemorySize(), 0L);
+
+    cut1.readSpilled();
+    assertTrue(cut1.getMemorySize() > 0);
+    assertEquals(manager.getMemoryUsed(), getMemorySize(history));
+
+    /*
+     * data that can't be read back is reported before the alignment changes
+     */
+    push(manager, history, null, history, new EditCommand("Cut",
+            Action.CUT, al.getSequencesArray(), 0, 10, al));
+    assertEquals(cut1.getMemorySize(), 0L);
+    String before = al.getSequenceAt(0).getSequenceAsString();
+    manager.removeView();
+    try
+    {
+      cut1.undoCommand(new AlignmentI[] { al });
+      fail("expected UncheckedIOException");
+    } catch (UncheckedIOException e)
+    {
+      // expected
+    }
+    assertEquals(al.getSequenceAt(0).getSequenceAsString(), before);
+  }
+
+  /**
+   * Adds the command to one of the lists and registers it with the manager, as
+   * AlignmentViewport does
+   */
+  private static void push(UndoMemoryManager manager,
+          Deque<CommandI> history, Deque<CommandI> redo,
+          Deque<CommandI> list, CommandI command)
+  {
+    list.push(command);
+    manager.addCommand(command);
+    manager.enforceLimit(history, redo);
+  }
+
+  private static long getMemorySize(Deque<CommandI> commands)
+  {
+    long size = 0;
+    for (CommandI command : commands)
+    {
+      size += ((EditCommand) command).getMemorySize();
+    }
+    return size;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.commands;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.testng.annotations.Test;
+
+public class UndoSpillFileTest
+{
+  @Test(groups = "Functional")
+  public void testWriteAndRelease() throws IOException
+  {
+    UndoSpillFile file = new UndoSpillFile();
+    long offset1 = file.write(new byte[] { 1, 2, 3 });
+    long offset2 = file.write(new byte[] { 4, 5, 6, 7 });
+    long offset3 = file.write(new byte[] { 8, 9 });
+    assertEquals(offset1, 0L);
+    assertEquals(offset2, 3L);
+    assertEquals(offset3, 7L);
+    assertEquals(file.getLength(), 9L);
+    assertEquals(file.getUsedBytes(), 9L);
+
+    /*
+     * freed space is reused by data that fits in it
+     */
+    file.release(offset2);
+    assertEquals(file.getLength(), 9L);
+    assertEquals(file.getUsedBytes(), 5L);
+    assertEquals(file.write(new byte[] { 10, 11 }), 3L);
+    assertEquals(file.read(3L, 2), new byte[] { 10, 11 });
+    assertEquals(file.read(offset3, 2), new byte[] { 8, 9 });
+
+    /*
+     * the file is truncated when its end is freed
+     */
+    file.release(offset3);
+    assertEquals(file.getLength(), 5L);
+    assertEquals(file.getUsedBytes(), 5L);
+
+    /*
+     * releasing an unknown offset does nothing
+     */
+    file.release(99L);
+    assertEquals(file.getUsedBytes(), 5L);
+
+    file.close();
+    assertEquals(file.getLength(), 0L);
+    assertEquals(file.getUsedBytes(), 0L);
+  }
+
+  @Test(groups = "Functional")
+  public void testRelease_mergesFreeSpace() throws IOException
+  {
+    UndoSpillFile file = new UndoSpillFile();
+    long offset1 = file.write(new byte[] { 1, 2, 3 });
+    long offset2 = file.write(new byte[] { 4, 5, 6, 7 });
+    long offset3 = file.write(new byte[] { 8, 9 });
+    file.release(offset1);
+    file.release(offset3);
+    assertEquals(file.getUsedBytes(), 4L);
+    assertEquals(file.getLength(), 7L);
+    assertEquals(file.read(offset2, 4), new byte[] { 4, 5, 6, 7 });
+
+    /*
+     * free space before and after data is merged when it is released
+     */
+    file.release(offset2);
+    assertEquals(file.getUsedBytes(), 0L);
+    assertEquals(file.getLength(), 0L);
+    file.close();
+  }
+}
@@ -711,4 +711,90 @@ public class AlignedCodonFrameTest
     mapping2 = acf.getCoveringCodonMapping(pep);
     assertSame(mapping, mapping2);
   }
+
+  /**
+   * Tests for the (indexed) lookup of mappings by sequence
+   */
+  @Test(groups = { "Functional" })
+  public void testFindMappings()
+  {
+    SequenceI dna1 = new Sequence("dna1", "cgtacgta");
+    SequenceI dna2 = new Sequence("dna2", "tttcccggg");
+    SequenceI pep1 = new Sequence("pep1", "PQ");
+    SequenceI pep2 = new Sequence("pep2", "FPG");
+    MapList map = new MapList(new int[] { 1, 6 }, new int[] { 1, 2 }, 3,
+            1);
+    AlignedCodonFrame acf = new AlignedCodonFrame();
+    assertTrue(acf.findMappings(dna1, null).isEmpty());
+
+    acf.addMap(dna1, pep1, map);
+    acf.addMap(dna2, pep2, map);
+    acf.addMap(dna1, pep2, map);
+    List<SequenceToSequenceMapping> mappings = acf.getMappings();
+    assertEquals(3, mappings.size());
+
+    List<SequenceToSequenceMapping> found = acf.findMappings(dna1, null);
+    assertEquals(2, found.size());
+    assertSame(mappings.get(0), found.get(0));
+    assertSame(mappings.get(2), found.get(1));
+    found = acf.findMappings(pep2, null);
+    assertEquals(2, found.size());
+    assertSame(mappings.get(1), found.get(0));
+    assertSame(mappings.get(2), found.get(1));
+
+    /*
+     * mappings involving either sequence are returned in the order added
+     */
+    found = acf.findMappings(pep2, pep1);
+    assertEquals(3, found.size());
+    assertSame(mappings.get(0), found.get(0));
+    assertSame(mappings.get(1), found.get(1));
+    assertSame(mappings.get(2), found.get(2));
+
+    /*
+     * a mapping added after the index is built is found
+     */
+    SequenceI pep3 = new Sequence("pep3", "VR");
+    int count = AlignedCodonFrame.getModificationCount();
+    acf.addMap(dna2, pep3, map);
+    assertTrue(AlignedCodonFrame.getModificationCount() != count);
+    found = acf.findMappings(dna2, null);
+    assertEquals(2, found.size());
+    assertSame(mappings.get(3), found.get(1));
+    assertSame(pep3, found.get(1).getMapping().getTo());
+
+    /*
+     * re-adding an existing mapping changes nothing
+     */
+    count = AlignedCodonFrame.getModificationCount();
+    acf.addMap(dna2, pep3, map);
+    assertEquals(4, acf.getMappings().size());
+    assertEquals(count, AlignedCodonFrame.getModificationCount());
+  }
+
+  /**
+   * Test that mappings are found by their new sequence after the mapped
+   * sequence is updated to its dataset sequence
+   */
+  @Test(groups = { "Functional" })
+  public void testFindMappings_afterUpdateToDataset()
+  {
+    SequenceI dna = new Sequence("dna", "cgtacgta");
+    SequenceI pep = new Sequence("pep", "PQ");
+    AlignedCodonFrame acf = new AlignedCodonFrame();
+    acf.addMap(dna, pep,
+            new MapList(new int[] { 1, 6 }, new int[] { 1, 2 }, 3, 1));
+    assertEquals(1, acf.findMappings(pep, null).size());
+    assertTrue(acf.involvesSequence(pep));
+
+    SequenceI pepDs = pep.createDatasetSequence();
+    assertTrue(acf.findMappings(pepDs, null).isEmpty());
+    int count = AlignedCodonFrame.getModificationCount();
+    acf.updateToDataset(pep);
+    assertTrue(AlignedCodonFrame.getModificationCount() != count);
+    assertTrue(acf.findMappings(pep, null).isEmpty());
+    assertEquals(1, acf.findMappings(pepDs, null).size());
+    assertSame(pepDs, acf.getMappings().get(0).getMapping().getTo());
+    assertTrue(acf.involvesSequence(pep));
+  }
 }
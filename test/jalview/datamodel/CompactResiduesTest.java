@@ -0,0 +1,108 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ *
+ * This file is part of Jalview.
+ *
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Jalview is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.datamodel;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+public class CompactResiduesTest
+{
+  @Test(groups = "Functional")
+  public void testEncode_nucleotide()
+  {
+    String seq = "--ACGT..TTgca-N-";
+    CompactResidues cr = CompactResidues.encode(seq.toCharArray());
+    assertEquals(cr.getLength(), seq.length());
+    assertEquals(cr.getResidueCount(), 10);
+    assertEquals(new String(cr.toCharArray()), seq);
+    for (int i = 0; i < seq.length(); i++)
+    {
+      assertEquals(cr.charAt(i), seq.charAt(i), "column " + i);
+    }
+  }
+
+  @Test(groups = "Functional")
+  public void testGetSizeInBytes()
+  {
+    /*
+     * 1000 nucleotides pack into 500 bytes, plus 2 gap runs
+     */
+    StringBuilder sb = new StringBuilder(1010);
+    for (int i = 0; i < 250; i++)
+    {
+      sb.append("ACGT");
+      if (i == 100 || i == 200)
+      {
+        sb.append("-----");
+      }
+    }
+    CompactResidues cr = CompactResidues.encode(sb.toString().toCharArray());
+    assertEquals(new String(cr.toCharArray()), sb.toString());
+    assertEquals(cr.getSizeInBytes(), 500 + 2 * 9 + 4 * 2);
+  }
+
+  @Test(groups = "Functional")
+  public void testEncode_peptide()
+  {
+    String seq = "MKTAYIAKQRQISFVKSHFSRQ---LEERLGLIEVQAPILSRVGDGTQDNLSGAEKAVQ.";
+    CompactResidues cr = CompactResidues.encode(seq.toCharArray());
+    assertEquals(new String(cr.toCharArray()), seq);
+    for (int i = 0; i < seq.length(); i++)
+    {
+      assertEquals(cr.charAt(i), seq.charAt(i), "column " + i);
+    }
+  }
+
+  @Test(groups = "Functional")
+  public void testEncode_notEncodable()
+  {
+    assertNull(CompactResidues.encode("AC\u0100GT".toCharArray()));
+  }
+
+  @Test(groups = "Functional")
+  public void testEncode_empty()
+  {
+    CompactResidues cr = CompactResidues.encode(new char[0]);
+    assertEquals(cr.getLength(), 0);
+    assertEquals(cr.toCharArray().length, 0);
+
+    cr = CompactResidues.encode("----".toCharArray());
+    assertEquals(cr.getResidueCount(), 0);
+    assertEquals(new String(cr.toCharArray()), "----");
+  }
+
+  @Test(groups = "Functional")
+  public void testGetChars()
+  {
+    String seq = "AB--CD...EF-G";
+    CompactResidues cr = CompactResidues.encode(seq.toCharArray());
+    for (int from = 0; from <= seq.length(); from++)
+    {
+      for (int to = from; to <= seq.length(); to++)
+      {
+        assertEquals(new String(cr.getChars(from, to)),
+                seq.substring(from, to), from + "-" + to);
+      }
+    }
+  }
+}
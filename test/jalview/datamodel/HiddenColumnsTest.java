@@ -27,9 +27,11 @@ import static org.testng.AssertJUnit.assertTrue;
 
 import jalview.analysis.AlignmentGenerator;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
+import java.util.List;
 
 import org.testng.annotations.Test;
 
@@ -1325,4 +1327,108 @@ public class HiddenColumnsTest
     assertTrue(h.hashCode() > 0);
     assertTrue(result != h.hashCode());
   }
+
+  /**
+   * Benchmark of several views, each with its own hidden columns, rendering
+   * and editing hidden columns at the same time. As each HiddenColumns instance
+   * has its own lock, the views should not wait on each other, and running
+   * them in parallel should take little longer than running one view.
+   */
+  @Test(groups = "Timing")
+  public void testConcurrentViewsTiming() throws InterruptedException
+  {
+    final int views = Math.max(2,
+            Runtime.getRuntime().availableProcessors());
+    final int width = 100000;
+    final int iterations = 200;
+
+    List<HiddenColumns> hiddens = new ArrayList<>();
+    for (int v = 0; v < views; v++)
+    {
+      HiddenColumns hidden = new HiddenColumns();
+      for (int col = 10; col < width; col += 20)
+      {
+        hidden.hideColumns(col, col + 4);
+      }
+      hiddens.add(hidden);
+    }
+    final int hiddenSize = hiddens.get(0).getSize();
+
+    /*
+     * time one view on its own
+     */
+    long start = System.currentTimeMillis();
+    renderAndEdit(hiddens.get(0), width, iterations);
+    long oneView = System.currentTimeMillis() - start;
+
+    /*
+     * time all views in parallel
+     */
+    List<Thread> threads = new ArrayList<>();
+    for (final HiddenColumns hidden : hiddens)
+    {
+      threads.add(new Thread()
+      {
+        @Override
+        public void run()
+        {
+          renderAndEdit(hidden, width, iterations);
+        }
+      });
+    }
+    start = System.currentTimeMillis();
+    for (Thread t : threads)
+    {
+      t.start();
+    }
+    for (Thread t : threads)
+    {
+      t.join();
+    }
+    long allViews = System.currentTimeMillis() - start;
+
+    System.out.println(iterations + " render/edit cycles took " + oneView
+            + "ms for 1 view, " + allViews + "ms for " + views
+            + " views in parallel");
+    for (HiddenColumns hidden : hiddens)
+    {
+      assertEquals(hiddenSize, hidden.getSize());
+    }
+  }
+
+  /**
+   * Simulates repeatedly painting a view (by visible column lookups and
+   * iteration over visible regions), interleaved with hiding and revealing a
+   * column range
+   * 
+   * @param hidden
+   * @param width
+   * @param iterations
+   */
+  private void renderAndEdit(HiddenColumns hidden, int width,
+          int iterations)
+  {
+    ColumnSelection sel = new ColumnSelection();
+    for (int i = 0; i < iterations; i++)
+    {
+      int startRes = (i * 997) % (width / 2);
+      for (int col = startRes; col < startRes + 500; col++)
+      {
+        hidden.visibleToAbsoluteColumn(col);
+        hidden.isVisible(col);
+      }
+      Iterator<int[]> contigs = hidden.getVisContigsIterator(startRes,
+              startRes + 2000, true);
+      while (contigs.hasNext())
+      {
+        contigs.next();
+      }
+      hidden.hideColumns(startRes, startRes + 1);
+      hidden.revealAllHiddenColumns(sel);
+      for (int col = 10; col < width; col += 20)
+      {
+        hidden.hideColumns(col, col + 4);
+      }
+    }
+  }
 }
@@ -94,6 +94,32 @@ public class ResidueCountTest
     assertFalse(rc.isCountingInts());
   }
 
+  @Test(groups = "Functional")
+  public void testClear()
+  {
+    ResidueCount rc = new ResidueCount(true);
+    rc.add('A');
+    rc.add('-');
+    rc.add('Q');
+    rc.put('G', Short.MAX_VALUE + 1);
+    assertTrue(rc.isCountingInts());
+    assertTrue(rc.isUsingOtherData());
+
+    rc.clear();
+    assertFalse(rc.isCountingInts());
+    assertFalse(rc.isUsingOtherData());
+    assertEquals(rc.getModalCount(), 0);
+    assertEquals(rc.getGapCount(), 0);
+    assertEquals(rc.getCount('G'), 0);
+    assertEquals(rc.size(), 0);
+
+    rc.add('c');
+    rc.add('C');
+    assertEquals(rc.getCount('C'), 2);
+    assertEquals(rc.getModalCount(), 2);
+    assertEquals(rc.getResiduesForCount(2), "C");
+  }
+
   @Test(groups = "Functional")
   public void testOverflow()
   {
@@ -2174,4 +2174,46 @@ public class SequenceTest
     assertEquals(0, seq.firstResidueOutsideIterator(cs.iterator()));
 
   }
+
+  @Test(groups = { "Functional" })
+  public void testCompactStorage()
+  {
+    Sequence sq = new Sequence("Seq1", "-A-BC--DE-F", 3, 8);
+    sq.createDatasetSequence();
+    sq.setCompactStorage(true);
+    assertTrue(sq.isCompactStorage());
+    assertEquals("-A-BC--DE-F", sq.getSequenceAsString());
+    assertEquals(11, sq.getLength());
+    assertEquals('B', sq.getCharAt(3));
+    assertEquals('-', sq.getCharAt(5));
+    assertEquals(' ', sq.getCharAt(11));
+    assertEquals("BC--", new String(sq.getSequence(3, 7)));
+    assertEquals(6, sq.findPosition(7));
+    assertEquals(8, sq.findIndex(6));
+
+    /*
+     * edits are applied and re-encoded
+     */
+    sq.insertCharAt(2, 3, '.');
+    assertEquals("-A...-BC--DE-F", sq.getSequenceAsString());
+    sq.deleteChars(0, 6);
+    assertEquals("BC--DE-F", sq.getSequenceAsString());
+    assertEquals(4, sq.getStart());
+    assertEquals(3, sq.replace('-', '.'));
+    assertEquals("BC..DE.F", sq.getSequenceAsString());
+
+    /*
+     * derived sequences inherit compact storage
+     */
+    SequenceI copy = new Sequence(sq);
+    assertTrue(((Sequence) copy).isCompactStorage());
+    assertEquals("BC..DE.F", copy.getSequenceAsString());
+
+    /*
+     * switching back to char[] storage preserves the sequence
+     */
+    sq.setCompactStorage(false);
+    assertFalse(sq.isCompactStorage());
+    assertEquals("BC..DE.F", sq.getSequenceAsString());
+  }
 }
@@ -0,0 +1,178 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.io;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class FastaStreamReaderTest
+{
+  private static final String FASTA = "  >seq1/3-8 the first sequence\n"
+          + "AC-DE\r\n" + "  FG-  \n" + "\n" + ">seq2\n" + "KLMNP\n"
+          + "QR\n" + ">empty\n" + ">seq3 last\n" + ">#_annot\n" + " E H  \n";
+
+  /**
+   * Test that the stream reader reads the same sequences as FastaFile
+   * 
+   * @throws IOException
+   */
+  @Test(groups = "Functional")
+  public void testNextSequence() throws IOException
+  {
+    FastaFile ff = new FastaFile(FASTA, DataSourceType.PASTE);
+    SequenceI[] expected = ff.getSeqsAsArray();
+    assertEquals(expected.length, 4);
+
+    FastaStreamReader reader = new FastaStreamReader(
+            new ByteArrayInputStream(FASTA.getBytes(StandardCharsets.UTF_8)));
+    for (SequenceI exp : expected)
+    {
+      SequenceI seq = reader.nextSequence();
+      assertEquals(seq.getName(), exp.getName());
+      assertEquals(seq.getDescription(), exp.getDescription());
+      assertEquals(seq.getSequenceAsString(), exp.getSequenceAsString());
+      assertEquals(seq.getStart(), exp.getStart());
+      assertEquals(seq.getEnd(), exp.getEnd());
+    }
+    assertNull(reader.nextSequence());
+    reader.close();
+
+    assertEquals(expected[0].getName(), "seq1");
+    assertEquals(expected[0].getSequenceAsString(), "AC-DEFG-");
+    assertEquals(expected[0].getStart(), 3);
+    assertEquals(expected[0].getEnd(), 8);
+  }
+
+  @Test(groups = "Functional")
+  public void testNextSequence_compactStorage() throws IOException
+  {
+    FastaStreamReader reader = new FastaStreamReader(
+            new ByteArrayInputStream(FASTA.getBytes(StandardCharsets.UTF_8)));
+    reader.setCompactStorage(true);
+    SequenceI seq = reader.nextSequence();
+    assertTrue(((Sequence) seq).isCompactStorage());
+    assertEquals(seq.getSequenceAsString(), "AC-DEFG-");
+    reader.close();
+  }
+
+  /**
+   * Test reading a file in blocks, comparing with the sequences read by
+   * FastaFile
+   * 
+   * @throws IOException
+   */
+  @Test(groups = "Functional")
+  public void testNextSequence_fromFile() throws IOException
+  {
+    String file = "examples/uniref50.fa";
+    SequenceI[] expected = new FastaFile(file, DataSourceType.FILE)
+            .getSeqsAsArray();
+    FastaStreamReader reader = new FastaStreamReader(new File(file));
+    for (SequenceI exp : expected)
+    {
+      SequenceI seq = reader.nextSequence();
+      assertEquals(seq.getDisplayId(true), exp.getDisplayId(true));
+      assertEquals(seq.getDescription(), exp.getDescription());
+      assertEquals(seq.getSequenceAsString(), exp.getSequenceAsString());
+    }
+    assertNull(reader.nextSequence());
+    reader.close();
+
+    reader = new FastaStreamReader(
+            new File("test/jalview/io/test_gz_fasta.gz"));
+    assertEquals(reader.nextSequence().getName(),
+            new FastaFile("test/jalview/io/test_gz_fasta.gz",
+                    DataSourceType.FILE).getSeqsAsArray()[0].getName());
+    reader.close();
+  }
+
+  /**
+   * Test the callback API for reading sequences, including stopping early
+   * 
+   * @throws IOException
+   */
+  @Test(groups = "Functional")
+  public void testReadSequences() throws IOException
+  {
+    final List<SequenceI> seqs = new ArrayList<>();
+    int count = new FormatAdapter().readSequences("examples/uniref50.fa",
+            DataSourceType.FILE, FileFormat.Fasta, new SequenceConsumerI()
+            {
+              @Override
+              public boolean accept(SequenceI seq)
+              {
+                seqs.add(seq);
+                return true;
+              }
+            });
+    assertEquals(count, 15);
+    assertEquals(seqs.size(), 15);
+    assertEquals(seqs.get(0).getName(), "FER_CAPAA");
+
+    /*
+     * consumer stops reading after 3 sequences
+     */
+    seqs.clear();
+    count = new FormatAdapter().readSequences("examples/uniref50.fa",
+            DataSourceType.FILE, FileFormat.Fasta, new SequenceConsumerI()
+            {
+              @Override
+              public boolean accept(SequenceI seq)
+              {
+                seqs.add(seq);
+                return seqs.size() < 3;
+              }
+            });
+    assertEquals(count, 3);
+
+    /*
+     * non-streamed format
+     */
+    seqs.clear();
+    count = new FormatAdapter().readSequences(
+            "examples/estrogenReceptorProtein.aln", DataSourceType.FILE,
+            FileFormat.Clustal, new SequenceConsumerI()
+            {
+              @Override
+              public boolean accept(SequenceI seq)
+              {
+                seqs.add(seq);
+                return true;
+              }
+            });
+    assertEquals(count, seqs.size());
+    assertFalse(seqs.isEmpty());
+  }
+}
@@ -22,13 +22,17 @@ package jalview.io;
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 
+import jalview.datamodel.Alignment;
 import jalview.datamodel.AlignmentI;
+import jalview.datamodel.Sequence;
 import jalview.datamodel.SequenceI;
 import jalview.gui.JvOptionPane;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -97,6 +101,55 @@ public class FormatAdapterTest
     }
   }
 
+  /**
+   * Test that writing to a Writer gives the same output as formatting to a
+   * String
+   * 
+   * @throws IOException
+   */
+  @Test(groups = { "Functional" }, dataProvider = "formats")
+  public void testFormatSequences_toWriter(FileFormatI format)
+          throws IOException
+  {
+    AlignmentI al = new FormatAdapter().readFile("examples/uniref50.fa",
+            DataSourceType.FILE, FileFormat.Fasta);
+    String formatted = new FormatAdapter().formatSequences(format, al, true);
+
+    StringWriter out = new StringWriter();
+    new FormatAdapter().formatSequences(format, al, true, out);
+    if (FileFormat.Json.equals(format))
+    {
+      /*
+       * Json output includes object hash codes which vary between calls
+       */
+      assertEquals(formatted.replaceAll("\"id\":\"[0-9-]+\"", ""),
+              out.toString().replaceAll("\"id\":\"[0-9-]+\"", ""));
+    }
+    else
+    {
+      assertEquals(formatted, out.toString());
+    }
+  }
+
+  /**
+   * Test that MSF output names sequences with their actual start-end, and
+   * writes leading and trailing gaps as '~' and internal gaps as '.'
+   */
+  @Test(groups = { "Functional" })
+  public void testFormatSequences_msf()
+  {
+    SequenceI seq1 = new Sequence("seq1", "--AB-C-", 3, 5);
+    SequenceI seq2 = new Sequence("seq2", "DEF-GHI", 1, 6);
+    AlignmentI al = new Alignment(new SequenceI[] { seq1, seq2 });
+
+    String formatted = new FormatAdapter().formatSequences(FileFormat.MSF,
+            al, true);
+    assertTrue(formatted, formatted.contains("Name: seq1/3-5 "));
+    assertTrue(formatted, formatted.contains("Name: seq2/1-6 "));
+    assertTrue(formatted, formatted.contains("seq1/3-5   ~~AB.C~"));
+    assertTrue(formatted, formatted.contains("seq2/1-6   DEF.GHI"));
+  }
+
   /**
    * Optionally change the gap character in the string to the given character,
    * depending on the sequence file format
@@ -20,6 +20,11 @@ import jalview.io.FileLoader;
 import jalview.io.gff.Gff3Helper;
 import jalview.util.MapList;
 
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.variant.vcf.VCFCodec;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -226,6 +231,76 @@ public class VCFLoaderTest
     assertTrue(proteinFeatures.isEmpty());
   }
 
+  /**
+   * Test that loading from a tabix-indexed VCF file, with variants on two
+   * contigs, gives the same features as loading from the plain file
+   * 
+   * @throws IOException
+   */
+  @Test(groups = "Functional")
+  public void testDoLoad_indexed() throws IOException
+  {
+    /*
+     * the test VCF, with its records repeated for chromosome 5
+     */
+    File plain = File.createTempFile("Test", ".vcf");
+    plain.deleteOnExit();
+    File gz = File.createTempFile("Test", ".vcf.gz");
+    gz.deleteOnExit();
+    PrintWriter pw = new PrintWriter(plain);
+    PrintWriter gzw = new PrintWriter(new BlockCompressedOutputStream(gz));
+    for (String vcfLine : VCF)
+    {
+      pw.println(vcfLine);
+      gzw.println(vcfLine);
+    }
+    for (String vcfLine : VCF)
+    {
+      if (vcfLine.startsWith("17\t"))
+      {
+        pw.println("5" + vcfLine.substring(2));
+        gzw.println("5" + vcfLine.substring(2));
+      }
+    }
+    pw.close();
+    gzw.close();
+    File tbi = new File(gz.getPath() + ".tbi");
+    tbi.deleteOnExit();
+    IndexFactory.createTabixIndex(gz, new VCFCodec(), TabixFormat.VCF, null)
+            .write(tbi);
+
+    AlignmentI al1 = buildAlignment();
+    AlignmentI al2 = buildAlignment();
+    for (AlignmentI al : new AlignmentI[] { al1, al2 })
+    {
+      // gene3 has the same chromosomal coordinates as gene1, on chromosome 5
+      SequenceI gene3 = al.findName("gene3");
+      gene3.setGeneLoci("homo_sapiens", "GRCh38", "5",
+              new MapList(new int[]
+              { gene3.getStart(), gene3.getEnd() },
+                      new int[]
+                      { 45051610, 45051634 }, 1, 1));
+    }
+    new VCFLoader(plain.getPath()).doLoad(al1.getSequencesArray(), null);
+    VCFLoader loader = new VCFLoader(gz.getPath());
+    loader.doLoad(al2.getSequencesArray(), null);
+
+    assertEquals(al2.findName("gene1").getSequenceFeatures().size(), 5);
+    assertEquals(al2.findName("gene3").getSequenceFeatures().size(), 5);
+    for (int i = 0; i < al1.getHeight(); i++)
+    {
+      List<SequenceFeature> features1 = al1.getSequenceAt(i)
+              .getSequenceFeatures();
+      List<SequenceFeature> features2 = al2.getSequenceAt(i)
+              .getSequenceFeatures();
+      assertEquals(features2.size(), features1.size());
+      for (SequenceFeature sf : features1)
+      {
+        assertTrue(features2.contains(sf), sf.toString());
+      }
+    }
+  }
+
   private File makeVcfFile() throws IOException
   {
     File f = File.createTempFile("Test", ".vcf");
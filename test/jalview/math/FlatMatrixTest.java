@@ -0,0 +1,283 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.math;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class FlatMatrixTest
+{
+  @Test(groups = "Functional")
+  public void testGetSetValue()
+  {
+    FlatMatrix m = new FlatMatrix(new double[][] { { 2, 3, 4 }, { 5, 6, 7 } });
+    assertEquals(m.height(), 2);
+    assertEquals(m.width(), 3);
+    assertEquals(m.getValue(1, 2), 7d);
+    m.setValue(1, 2, 8d);
+    assertEquals(Arrays.toString(m.getRow(1)), "[5.0, 6.0, 8.0]");
+    assertEquals(Arrays.toString(m.getColumn(2)), "[4.0, 8.0]");
+    assertEquals(m.addValue(0, 0, 1.5d), 3.5d);
+    assertEquals(m.divideValue(0, 1, 2d), 1.5d);
+    assertEquals(m.divideValue(0, 1, 0d), 1.5d);
+    assertEquals(m.getTotal(), 28d);
+  }
+
+  @Test(groups = "Functional")
+  public void testCopy()
+  {
+    FlatMatrix m = new FlatMatrix(new double[][] { { 2, 3 }, { 4, 5 } });
+    m.setD(new double[] { 1, 2 });
+    MatrixI copy = m.copy();
+    assertNotSame(copy, m);
+    assertTrue(copy.equals(m, 0d));
+    assertEquals(copy.getD(), new double[] { 1, 2 });
+    assertNotSame(copy.getD(), m.getD());
+    m.setValue(0, 0, 9d);
+    assertEquals(copy.getValue(0, 0), 2d);
+  }
+
+  @Test(groups = "Functional")
+  public void testTranspose()
+  {
+    FlatMatrix m = new FlatMatrix(new double[][] { { 2, 3, 4 }, { 5, 6, 7 } });
+    MatrixI t = m.transpose();
+    assertEquals(t.height(), 3);
+    assertEquals(t.width(), 2);
+    assertEquals(Arrays.toString(t.getRow(0)), "[2.0, 5.0]");
+    assertEquals(Arrays.toString(t.getRow(2)), "[4.0, 7.0]");
+  }
+
+  @Test(groups = "Functional")
+  public void testPreMultiply()
+  {
+    double[][] v1 = new double[][] { { 2, 3, 4 } };
+    double[][] v2 = new double[][] { { 5 }, { 6 }, { 7 } };
+    MatrixI m3 = new FlatMatrix(v2).preMultiply(new Matrix(v1));
+    assertEquals(m3.height(), 1);
+    assertEquals(m3.getValue(0, 0), 56d);
+
+    m3 = new FlatMatrix(v1).preMultiply(new FlatMatrix(v2));
+    assertEquals(m3.height(), 3);
+    assertEquals(m3.width(), 3);
+    assertEquals(Arrays.toString(m3.getRow(0)), "[10.0, 15.0, 20.0]");
+    assertEquals(Arrays.toString(m3.getRow(2)), "[14.0, 21.0, 28.0]");
+
+    double[][] values = getSymmetricValues(20);
+    assertTrue(new FlatMatrix(values).preMultiply(new FlatMatrix(values))
+            .equals(new Matrix(values).preMultiply(new Matrix(values)),
+                    1E-10));
+  }
+
+  @Test(groups = "Functional")
+  public void testReverseRange()
+  {
+    FlatMatrix m = new FlatMatrix(new double[][] { { 2, 3 }, { 4, 5 } });
+    m.reverseRange(true);
+    assertEquals(Arrays.toString(m.getRow(0)), "[3.0, 2.0]");
+    assertEquals(Arrays.toString(m.getRow(1)), "[1.0, 0.0]");
+    m.reverseRange(false);
+    assertEquals(Arrays.toString(m.getRow(0)), "[0.0, 1.0]");
+    m.multiply(2d);
+    assertEquals(Arrays.toString(m.getRow(1)), "[4.0, 6.0]");
+  }
+
+  /**
+   * Tests that tred() and tqli() give exactly the same results as Matrix
+   * 
+   * @throws Exception
+   */
+  @Test(groups = "Functional")
+  public void testTredTqli_matchesMatrix() throws Exception
+  {
+    double[][] values = getSymmetricValues(60);
+    Matrix m1 = new Matrix(values);
+    FlatMatrix m2 = new FlatMatrix(values);
+
+    m1.tred();
+    m2.tred();
+    assertTrue(m2.equals(m1, 0d));
+    assertEquals(m2.getD(), m1.getD());
+    assertEquals(m2.getE(), m1.getE());
+
+    m1.tqli();
+    m2.tqli();
+    assertTrue(m2.equals(m1, 0d));
+    assertEquals(m2.getD(), m1.getD());
+    assertEquals(m2.getE(), m1.getE());
+  }
+
+  @Test(groups = "Functional")
+  public void testFindTopEigenvectors() throws Exception
+  {
+    int n = 80;
+    int k = 8;
+    double[][] values = getSymmetricValues(n);
+
+    /*
+     * full diagonalisation, eigenvalues sorted
+     */
+    Matrix full = new Matrix(values);
+    full.tred();
+    full.tqli();
+    double[] eigenvalues = Arrays.copyOf(full.getD(), n);
+    Arrays.sort(eigenvalues);
+
+    FlatMatrix m = new FlatMatrix(values);
+    m.findTopEigenvectors(k);
+    Matrix original = new Matrix(values);
+    for (int col = 0; col < n; col++)
+    {
+      double eigenvalue = m.getD()[col];
+      double[] v = m.getColumn(col);
+      if (col < n - k)
+      {
+        assertEquals(eigenvalue, 0d);
+        assertEquals(FlatMatrix.dot(v, v), 0d);
+        continue;
+      }
+
+      /*
+       * largest eigenvalues in ascending order, with unit eigenvectors
+       * satisfying A.v = lambda.v
+       */
+      assertEquals(eigenvalue, eigenvalues[col], 1E-8);
+      assertEquals(FlatMatrix.dot(v, v), 1d, 1E-10);
+      double[] av = original.vectorPostMultiply(v);
+      for (int i = 0; i < n; i++)
+      {
+        assertEquals(av[i], eigenvalue * v[i], 1E-8);
+      }
+
+      /*
+       * same eigenvector as the full calculation, up to sign
+       */
+      int fullCol = 0;
+      while (full.getD()[fullCol] != eigenvalues[col])
+      {
+        fullCol++;
+      }
+      double dot = FlatMatrix.dot(v, full.getColumn(fullCol));
+      assertEquals(Math.abs(dot), 1d, 1E-8);
+    }
+  }
+
+  /**
+   * Tests the case where the matrix has a small invariant subspace, so Lanczos
+   * iteration has to restart, and where all eigenvectors are requested
+   * 
+   * @throws Exception
+   */
+  @Test(groups = "Functional")
+  public void testFindTopEigenvectors_restart() throws Exception
+  {
+    double[][] values = new double[][] { { 3, 0, 0, 0 }, { 0, 1, 0, 0 },
+        { 0, 0, 2, 0 }, { 0, 0, 0, 4 } };
+    FlatMatrix m = new FlatMatrix(values);
+    m.findTopEigenvectors(2);
+    assertEquals(m.getD()[0], 0d);
+    assertEquals(m.getD()[1], 0d);
+    assertEquals(m.getD()[2], 3d, 1E-10);
+    assertEquals(m.getD()[3], 4d, 1E-10);
+    assertEquals(Math.abs(m.getValue(0, 2)), 1d, 1E-10);
+    assertEquals(Math.abs(m.getValue(3, 3)), 1d, 1E-10);
+
+    m = new FlatMatrix(values);
+    m.findTopEigenvectors(9);
+    for (int i = 0; i < 4; i++)
+    {
+      assertEquals(m.getD()[i], i + 1d, 1E-10);
+    }
+    assertEquals(m.getValue(1, 0), 1d, 1E-10);
+    assertEquals(m.getValue(2, 1), 1d, 1E-10);
+  }
+
+  @Test(groups = "Functional")
+  public void testFindLargest()
+  {
+    double[] v = new double[] { 3, -1, 7, 2, 5 };
+    assertEquals(FlatMatrix.findLargest(v, 3), new int[] { 0, 4, 2 });
+    assertEquals(FlatMatrix.findLargest(v, 6),
+            new int[]
+            { 1, 3, 0, 4, 2 });
+  }
+
+  @Test(groups = "Timing")
+  public void testEigenvectors_timing() throws Exception
+  {
+    for (int n : new int[] { 250, 500, 1000 })
+    {
+      double[][] values = getSymmetricValues(n);
+
+      long start = System.currentTimeMillis();
+      Matrix m1 = new Matrix(values);
+      m1.tred();
+      m1.tqli();
+      long elapsed1 = System.currentTimeMillis() - start;
+
+      start = System.currentTimeMillis();
+      FlatMatrix m2 = new FlatMatrix(values);
+      m2.tred();
+      m2.tqli();
+      long elapsed2 = System.currentTimeMillis() - start;
+
+      start = System.currentTimeMillis();
+      FlatMatrix m3 = new FlatMatrix(values);
+      m3.findTopEigenvectors(8);
+      long elapsed3 = System.currentTimeMillis() - start;
+
+      System.out.println(String.format(
+              "%dx%d eigenvectors: Matrix %dms, FlatMatrix %dms, top 8 %dms",
+              n, n, elapsed1, elapsed2, elapsed3));
+    }
+  }
+
+  /**
+   * Helper method to make values for a pseudo-random symmetric matrix of whole
+   * numbers, with a larger diagonal, resembling a score matrix of sequence
+   * similarities
+   * 
+   * @param n
+   * @return
+   */
+  private double[][] getSymmetricValues(int n)
+  {
+    Random r = new Random(1729);
+    double[][] values = new double[n][n];
+    for (int i = 0; i < n; i++)
+    {
+      values[i][i] = 100 + r.nextInt(50);
+      for (int j = 0; j < i; j++)
+      {
+        double v = 20 + r.nextInt(50);
+        values[i][j] = v;
+        values[j][i] = v;
+      }
+    }
+    return values;
+  }
+}
@@ -29,11 +29,15 @@ import static org.testng.Assert.assertTrue;
 
 import java.awt.Color;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
 
 import javax.swing.JInternalFrame;
 
@@ -86,9 +90,11 @@ import jalview.schemes.StrandColourScheme;
 import jalview.schemes.TCoffeeColourScheme;
 import jalview.structure.StructureImportSettings;
 import jalview.util.MapList;
+import jalview.util.jarInputStreamProvider;
 import jalview.util.matcher.Condition;
 import jalview.viewmodel.AlignmentViewport;
 import jalview.viewmodel.seqfeatures.FeatureRendererModel;
+import jalview.xml.binding.jalview.JalviewModel;
 
 @Test(singleThreaded = true)
 public class Jalview2xmlTests extends Jalview2xmlBase
@@ -1265,4 +1271,105 @@ public class Jalview2xmlTests extends Jalview2xmlBase
     assertTrue(dbRef instanceof GeneLocus);
     assertEquals(dbRef, dbref3);
   }
+
+  /**
+   * Test that reading a project archive returns a parsed model for each of its
+   * xml entries, one at a time
+   * 
+   * @throws Exception
+   */
+  @Test(groups = { "Functional" })
+  public void testReadJalviewModels() throws Exception
+  {
+    final String projectFile = "examples/exampleFile_2_7.jar";
+    List<String> xmlEntries = new ArrayList<>();
+    JarInputStream jin = new JarInputStream(
+            new FileInputStream(projectFile));
+    try
+    {
+      JarEntry entry = null;
+      while ((entry = jin.getNextJarEntry()) != null)
+      {
+        if (entry.getName().endsWith(".xml"))
+        {
+          xmlEntries.add(entry.getName());
+        }
+      }
+    } finally
+    {
+      jin.close();
+    }
+    assertTrue(xmlEntries.size() > 1);
+
+    jarInputStreamProvider jprovider = new jarInputStreamProvider()
+    {
+      @Override
+      public JarInputStream getJarInputStream() throws IOException
+      {
+        return new JarInputStream(new FileInputStream(projectFile));
+      }
+
+      @Override
+      public String getFilename()
+      {
+        return projectFile;
+      }
+    };
+    Jalview2XML.JalviewModelReader reader = new Jalview2XML()
+            .openJalviewModels(jprovider);
+    int count = 0;
+    try
+    {
+      FutureTask<JalviewModel> model;
+      while ((model = reader.next()) != null)
+      {
+        JalviewModel jm = Jalview2XML.getJalviewModel(model);
+        assertNotNull(jm);
+        assertFalse(jm.getViewport().isEmpty());
+        count++;
+      }
+    } finally
+    {
+      reader.close();
+    }
+    assertEquals(count, xmlEntries.size());
+  }
+
+  /**
+   * Timing test for restoring a project with many views - to be run manually as
+   * needed
+   * 
+   * @throws Exception
+   */
+  @Test(groups = { "Timing" })
+  public void testLoadProject_timing() throws Exception
+  {
+    Desktop.instance.closeAll_actionPerformed(null);
+    AlignFrame af = new FileLoader().LoadFileWaitTillLoaded(
+            "examples/uniref50.fa", DataSourceType.FILE);
+    int viewCount = 20;
+    for (int i = 1; i < viewCount; i++)
+    {
+      af.newView_actionPerformed(null);
+    }
+    Desktop.explodeViews(af);
+    File tfile = File.createTempFile("testLoadProject_timing", ".jvp");
+    tfile.deleteOnExit();
+    new Jalview2XML(false).saveState(tfile);
+    Desktop.instance.closeAll_actionPerformed(null);
+
+    for (int i = 0; i < 3; i++)
+    {
+      long start = System.currentTimeMillis();
+      af = new FileLoader().LoadFileWaitTillLoaded(tfile.getAbsolutePath(),
+              DataSourceType.FILE);
+      long elapsed = System.currentTimeMillis() - start;
+      assertNotNull(af);
+      assertEquals(Desktop.getAlignFrames().length, viewCount);
+      System.out.println(String.format(
+              "Restored project with %d views in %dms", viewCount,
+              elapsed));
+      Desktop.instance.closeAll_actionPerformed(null);
+    }
+  }
 }
@@ -26,10 +26,12 @@ import jalview.datamodel.Alignment;
 import jalview.datamodel.AlignmentI;
 import jalview.datamodel.Sequence;
 import jalview.datamodel.SequenceFeature;
+import jalview.datamodel.SequenceGroup;
 import jalview.datamodel.SequenceI;
 import jalview.gui.AlignViewport;
 import jalview.renderer.seqfeatures.FeatureRenderer;
 import jalview.schemes.FeatureColour;
+import jalview.schemes.TaylorColourScheme;
 import jalview.schemes.ZappoColourScheme;
 import jalview.viewmodel.AlignmentViewport;
 import jalview.viewmodel.OverviewDimensions;
@@ -37,6 +39,7 @@ import jalview.viewmodel.OverviewDimensionsShowHidden;
 import jalview.viewmodel.ViewportRanges;
 
 import java.awt.Color;
+import java.awt.image.BufferedImage;
 
 import org.testng.annotations.Test;
 public class OverviewRendererTest
@@ -90,4 +93,55 @@ public class OverviewRendererTest
     assertEquals(or.getColumnColourFromSequence(null, seq1, 0),
             Color.magenta.getRGB());
   }
+
+  /**
+   * Test that each sequence and column is drawn in the colour of its residue,
+   * including the colour scheme of any group it belongs to
+   */
+  @Test(groups = "Functional")
+  public void testDraw()
+  {
+    OverviewResColourFinder cf = new OverviewResColourFinder(false,
+            Color.PINK, Color.green);
+    Sequence seq1 = new Sequence("seq1", "PQ-RL-");
+    Sequence seq2 = new Sequence("seq2", "FVEPQR");
+    Sequence seq3 = new Sequence("seq3", "FVE");
+    AlignmentI al = new Alignment(new SequenceI[] { seq1, seq2, seq3 });
+    SequenceGroup sg = new SequenceGroup();
+    sg.addSequence(seq2, false);
+    sg.setStartRes(2);
+    sg.setEndRes(4);
+    sg.setColourScheme(new TaylorColourScheme());
+    al.addGroup(sg);
+    AlignmentViewport av = new AlignViewport(al);
+    OverviewDimensions od = new OverviewDimensionsShowHidden(
+            new ViewportRanges(al), false);
+    ResidueShaderI rs = new ResidueShader(new ZappoColourScheme());
+    FeatureRenderer fr = new FeatureRenderer(av);
+    OverviewRenderer or = new OverviewRenderer(fr, od, al, rs, cf);
+
+    BufferedImage image = or.draw(od.getRows(al), od.getColumns(al));
+
+    for (int i = 0; i < al.getHeight(); i++)
+    {
+      SequenceI seq = al.getSequenceAt(i);
+      int y = Math.round(i * od.getPixelsPerSeq());
+      for (int col = 0; col < al.getWidth(); col++)
+      {
+        int x = Math.round(col * od.getPixelsPerCol());
+        assertEquals(image.getRGB(x, y), or.getColumnColourFromSequence(
+                al.findAllGroups(seq), seq, col), seq.getName() + col);
+      }
+    }
+
+    // Taylor colours E in the group differently to Zappo outside it
+    assertEquals(
+            image.getRGB(Math.round(2 * od.getPixelsPerCol()),
+                    Math.round(od.getPixelsPerSeq())),
+            new TaylorColourScheme().findColour('E').getRGB());
+    assertEquals(
+            image.getRGB(Math.round(2 * od.getPixelsPerCol()),
+                    Math.round(2 * od.getPixelsPerSeq())),
+            Color.red.getRGB());
+  }
 }
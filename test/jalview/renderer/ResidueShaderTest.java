@@ -2,9 +2,12 @@ package jalview.renderer;
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
 import static org.testng.AssertJUnit.assertTrue;
 
 import jalview.analysis.Conservation;
+import jalview.api.AlignViewportI;
+import jalview.datamodel.AnnotatedCollectionI;
 import jalview.datamodel.Profile;
 import jalview.datamodel.ProfileI;
 import jalview.datamodel.Profiles;
@@ -14,6 +17,7 @@ import jalview.datamodel.Sequence;
 import jalview.datamodel.SequenceI;
 import jalview.schemes.ColourSchemeI;
 import jalview.schemes.PIDColourScheme;
+import jalview.schemes.ResidueColourScheme;
 import jalview.schemes.ResidueProperties;
 import jalview.schemes.UserColourScheme;
 import jalview.schemes.ZappoColourScheme;
@@ -253,6 +257,105 @@ public class ResidueShaderTest
     assertEquals(Color.red, rs.findColour('-', 7, null));
   }
 
+  @Test(groups = "Functional")
+  public void testFindColour_cached()
+  {
+    ResidueShader rs = new ResidueShader(new PIDColourScheme());
+    rs.setConsensus(getStubConsensus("Q", 90f));
+    SequenceI seq = new Sequence("seq", "QQQ");
+
+    /*
+     * colour is computed once then looked up
+     */
+    Color colour = rs.findColour('Q', 2, seq);
+    assertEquals(new Color(100, 100, 255), colour);
+    assertEquals(colour, rs.findColour('Q', 2, null));
+    assertEquals(Color.white, rs.findColour('R', 2, seq));
+    assertEquals(colour, rs.findColour('Q', 2, seq));
+
+    /*
+     * the column's table holds just the symbols found in it
+     */
+    int[] table = rs.getColumnColours(2).get(2);
+    assertEquals(('Q' << 24) | 0x6464ff, table[0]);
+    assertEquals(('R' << 24) | 0xffffff, table[1]);
+    assertEquals(0, table[2]);
+    for (char c = 'A'; c <= 'Z'; c++)
+    {
+      rs.findColour(c, 2, seq);
+    }
+    assertEquals(new Color(100, 100, 255), rs.findColour('Q', 2, seq));
+    assertEquals(Color.white, rs.findColour('R', 2, seq));
+
+    /*
+     * a new consensus clears the cache
+     */
+    rs.setConsensus(getStubConsensus("Q", 60f));
+    assertEquals(new Color(204, 204, 255), rs.findColour('Q', 2, seq));
+
+    /*
+     * so does a change to the percentage identity threshold
+     */
+    rs.setThreshold(70, false);
+    assertEquals(Color.white, rs.findColour('Q', 2, seq));
+    rs.setThreshold(50, false);
+    assertEquals(new Color(204, 204, 255), rs.findColour('Q', 2, seq));
+
+    /*
+     * or to the colour scheme
+     */
+    rs.setColourScheme(new ZappoColourScheme());
+    assertEquals(new ZappoColourScheme().findColour('Q'),
+            rs.findColour('Q', 2, seq));
+
+    /*
+     * colours outside the cached range of symbols are still found
+     */
+    assertEquals(Color.white, rs.findColour('\u00c5', 2, seq));
+  }
+
+  @Test(groups = "Functional")
+  public void testFindColour_notCached()
+  {
+    /*
+     * a colour scheme whose colours depend on the sequence
+     */
+    final SequenceI seq1 = new Sequence("seq1", "AAA");
+    SequenceI seq2 = new Sequence("seq2", "AAA");
+    ColourSchemeI cs = new ResidueColourScheme()
+    {
+      @Override
+      protected Color findColour(char c, int j, SequenceI seq)
+      {
+        return seq == seq1 ? Color.red : new Color(0, 0, 255);
+      }
+
+      @Override
+      public boolean isSequenceIndependent()
+      {
+        return false;
+      }
+
+      @Override
+      public String getSchemeName()
+      {
+        return "Stub";
+      }
+
+      @Override
+      public ColourSchemeI getInstance(AlignViewportI view,
+              AnnotatedCollectionI coll)
+      {
+        return this;
+      }
+    };
+    ResidueShader rs = new ResidueShader(cs);
+    assertEquals(Color.red, rs.findColour('A', 1, seq1));
+    Color colour = rs.findColour('A', 1, seq2);
+    assertEquals(Color.blue, colour);
+    assertNotSame(colour, rs.findColour('A', 1, seq2));
+  }
+
   /**
    * @param modalResidue
    * @param pid
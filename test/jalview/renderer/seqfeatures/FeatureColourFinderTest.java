@@ -554,4 +554,110 @@ public class FeatureColourFinderTest
     c = finder.findFeatureColour(Color.blue, seq, 9);
     assertEquals(c, Color.blue);
   }
+
+  /**
+   * Tests that where features of the same type overlap, the last one drawn is
+   * on top
+   */
+  @Test(groups = "Functional")
+  public void testFindFeatureColour_overlappingFeatures()
+  {
+    seq.addSequenceFeature(new SequenceFeature("Metal", "Metal", 1, 10, 1f,
+            "MetalGroup"));
+    seq.addSequenceFeature(new SequenceFeature("Metal", "Metal", 5, 15, 9f,
+            "MetalGroup"));
+    FeatureColourI fc = new FeatureColour(null, Color.red, Color.blue,
+            null, 0f, 10f);
+    fr.setColour("Metal", fc);
+    fr.featuresAdded();
+    Color low = fc.getColor(new SequenceFeature("Metal", "Metal", 1, 1, 1f,
+            "MetalGroup"));
+    Color high = fc.getColor(new SequenceFeature("Metal", "Metal", 1, 1,
+            9f, "MetalGroup"));
+
+    /*
+     * position 2, column 2 - first feature only
+     */
+    assertEquals(finder.findFeatureColour(Color.white, seq, 2), low);
+
+    /*
+     * position 7, column 10 - both features, second is on top
+     */
+    assertEquals(finder.findFeatureColour(Color.white, seq, 10), high);
+    assertEquals(fr.findFeatureColour(seq, 10, null), high);
+
+    /*
+     * position 12, column 15 - second feature only
+     */
+    assertEquals(finder.findFeatureColour(Color.white, seq, 15), high);
+  }
+
+  /**
+   * Tests that feature colours (which are cached per sequence when there is no
+   * transparency) are updated when features, feature settings, or the sequence
+   * are changed
+   */
+  @Test(groups = "Functional")
+  public void testFindFeatureColour_afterChanges()
+  {
+    SequenceFeature sf = new SequenceFeature("Metal", "Metal", 2, 12,
+            Float.NaN, "MetalGroup");
+    seq.addSequenceFeature(sf);
+    fr.setColour("Metal", new FeatureColour(Color.red));
+    fr.featuresAdded();
+
+    /*
+     * column 10 is position 8
+     */
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 10), Color.red);
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 16), Color.blue);
+
+    /*
+     * change feature colour
+     */
+    fr.setColour("Metal", new FeatureColour(Color.yellow));
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 10),
+            Color.yellow);
+
+    /*
+     * hide and reshow the feature type
+     */
+    av.getFeaturesDisplayed().setHidden("Metal");
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 10), Color.blue);
+    av.getFeaturesDisplayed().setVisible("Metal");
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 10),
+            Color.yellow);
+
+    /*
+     * hide the feature group
+     */
+    fr.setGroupVisibility("MetalGroup", false);
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 10), Color.blue);
+    fr.setGroupVisibility("MetalGroup", true);
+
+    /*
+     * add a feature that extends the coloured region
+     */
+    seq.addSequenceFeature(new SequenceFeature("Metal", "Metal", 13, 14,
+            Float.NaN, "MetalGroup"));
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 16),
+            Color.yellow);
+
+    /*
+     * insert a gap at column 10: position 8 moves to column 11
+     */
+    seq.insertCharAt(10, '-');
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 10), Color.blue);
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 11),
+            Color.yellow);
+    seq.deleteChars(10, 11);
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 10),
+            Color.yellow);
+
+    /*
+     * delete the feature
+     */
+    seq.deleteFeature(sf);
+    assertEquals(finder.findFeatureColour(Color.blue, seq, 10), Color.blue);
+  }
 }
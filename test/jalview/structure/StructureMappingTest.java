@@ -48,6 +48,7 @@ public class StructureMappingTest
     assertTrue(ranges.isEmpty());
 
     map.put(1, new int[] { 12, 20 }); // 1 maps to 12
+    mapping = new StructureMapping(null, null, null, null, map, null);
     ranges = mapping.getPDBResNumRanges(2, 3);
     assertTrue(ranges.isEmpty());
     ranges = mapping.getPDBResNumRanges(1, 2);
@@ -56,12 +57,14 @@ public class StructureMappingTest
     assertEquals(ranges.get(0)[1], 12);
 
     map.put(2, new int[] { 13, 20 }); // 2 maps to 13
+    mapping = new StructureMapping(null, null, null, null, map, null);
     ranges = mapping.getPDBResNumRanges(1, 2);
     assertEquals(ranges.size(), 1);
     assertEquals(ranges.get(0)[0], 12);
     assertEquals(ranges.get(0)[1], 13);
 
     map.put(3, new int[] { 15, 20 }); // 3 maps to 15 - break
+    mapping = new StructureMapping(null, null, null, null, map, null);
     ranges = mapping.getPDBResNumRanges(1, 5);
     assertEquals(ranges.size(), 2);
     assertEquals(ranges.get(0)[0], 12);
@@ -0,0 +1,118 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.structure;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.testng.annotations.Test;
+
+public class StructureResidueMapTest
+{
+  @Test(groups = "Functional")
+  public void testBuilder()
+  {
+    StructureResidueMap.Builder builder = new StructureResidueMap.Builder();
+    builder.put(5, 21, 100);
+    builder.put(6, 22, 108);
+    builder.put(8, -3, 120);
+    builder.put(9, 22, 130); // insertion code - same residue number
+    builder.put(6, 23, 109); // overrides earlier mapping of 6
+    StructureResidueMap map = builder.build();
+
+    assertEquals(map.size(), 4);
+    assertEquals(map.getStart(), 5);
+    assertEquals(map.getEnd(), 9);
+    assertEquals(map.getMappedPositions(), new int[] { 5, 6, 8, 9 });
+
+    assertEquals(map.getPDBResNum(5), 21);
+    assertEquals(map.getAtomNum(5), 100);
+    assertEquals(map.getPDBResNum(6), 23);
+    assertEquals(map.getAtomNum(6), 109);
+    assertEquals(map.getPDBResNum(8), -3);
+    assertFalse(map.isMapped(7));
+    assertEquals(map.getPDBResNum(7), StructureMapping.UNASSIGNED_VALUE);
+    assertEquals(map.getAtomNum(4), StructureMapping.UNASSIGNED_VALUE);
+    assertEquals(map.getPDBResNum(10), StructureMapping.UNASSIGNED_VALUE);
+    assertEquals(map.getPDBResNum(Integer.MIN_VALUE),
+            StructureMapping.UNASSIGNED_VALUE);
+    assertEquals(map.getPDBResNum(Integer.MAX_VALUE),
+            StructureMapping.UNASSIGNED_VALUE);
+
+    assertEquals(map.getSeqPos(21), 5);
+    assertEquals(map.getSeqPos(22), 9);
+    assertEquals(map.getSeqPos(23), 6);
+    assertEquals(map.getSeqPos(-3), 8);
+    assertEquals(map.getSeqPos(24), StructureMapping.UNASSIGNED_VALUE);
+  }
+
+  @Test(groups = "Functional")
+  public void testGetSeqPos_lowestPosition()
+  {
+    StructureResidueMap.Builder builder = new StructureResidueMap.Builder();
+    builder.put(12, 7, 1);
+    builder.put(10, 7, 2);
+    builder.put(11, 7, 3);
+    assertEquals(builder.build().getSeqPos(7), 10);
+  }
+
+  @Test(groups = "Functional")
+  public void testFromMap_toMap()
+  {
+    HashMap<Integer, int[]> hashMap = new HashMap<>();
+    hashMap.put(51, new int[] { 1, 2, 1 });
+    hashMap.put(52, new int[] { 2, 7, 2 });
+    hashMap.put(60, new int[] { StructureMapping.UNASSIGNED_VALUE,
+        StructureMapping.UNASSIGNED_VALUE, 10 });
+    StructureResidueMap map = StructureResidueMap.fromMap(hashMap);
+
+    assertEquals(map.size(), 3);
+    assertTrue(map.isMapped(60));
+    assertEquals(map.getPDBResNum(52), 2);
+    assertEquals(map.getAtomNum(52), 7);
+    assertEquals(map.getSeqPos(1), 51);
+    assertEquals(map.getSeqPos(StructureMapping.UNASSIGNED_VALUE),
+            StructureMapping.UNASSIGNED_VALUE);
+
+    HashMap<Integer, int[]> copy = map.toMap();
+    assertEquals(copy.size(), hashMap.size());
+    for (Integer key : hashMap.keySet())
+    {
+      assertEquals(copy.get(key), hashMap.get(key));
+    }
+  }
+
+  @Test(groups = "Functional")
+  public void testFromMap_empty()
+  {
+    StructureResidueMap map = StructureResidueMap.fromMap(null);
+    assertEquals(map.size(), 0);
+    assertEquals(map.getMappedPositions().length, 0);
+    assertEquals(map.getPDBResNum(0), StructureMapping.UNASSIGNED_VALUE);
+    assertEquals(map.getSeqPos(0), StructureMapping.UNASSIGNED_VALUE);
+    assertTrue(map.toMap().isEmpty());
+    assertTrue(new StructureMapping(null, null, null, null, map, null)
+            .getPDBResNumRanges(0, 10).isEmpty());
+  }
+}
@@ -51,6 +51,7 @@ import jalview.ws.DBRefFetcher;
 import jalview.ws.sifts.SiftsSettings;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -145,6 +146,49 @@ public class StructureSelectionManagerTest extends Jalview2xmlBase
     assertTrue(ssm.getSequenceMappings().contains(acf3));
   }
 
+  @Test(groups = { "Functional" })
+  public void testGetSequenceMappings_forSequence()
+  {
+    SequenceI s1 = new Sequence("s1", "ttt");
+    SequenceI p1 = new Sequence("p1", "p");
+    SequenceI s2 = new Sequence("s2", "ttt");
+    SequenceI p2 = new Sequence("p2", "p");
+    MapList map = new MapList(new int[] { 1, 3 }, new int[] { 1, 1 }, 3,
+            1);
+    AlignedCodonFrame acf1 = new AlignedCodonFrame();
+    acf1.addMap(s1, p1, map);
+    AlignedCodonFrame acf2 = new AlignedCodonFrame();
+    acf2.addMap(s2, p2, map);
+    AlignedCodonFrame acf3 = new AlignedCodonFrame();
+    acf3.addMap(s1, p2, map);
+
+    assertTrue(ssm.getSequenceMappings(s1).isEmpty());
+    ssm.registerMapping(acf1);
+    ssm.registerMapping(acf2);
+    ssm.registerMapping(acf3);
+    assertEquals(Arrays.asList(acf1, acf3), ssm.getSequenceMappings(s1));
+    assertEquals(Arrays.asList(acf2, acf3), ssm.getSequenceMappings(p2));
+    assertEquals(Arrays.asList(acf1), ssm.getSequenceMappings(p1));
+
+    /*
+     * an aligned sequence finds mappings to its dataset sequence
+     */
+    SequenceI p1Aligned = new Sequence("p1", "-p-");
+    p1Aligned.setDatasetSequence(p1);
+    assertEquals(Arrays.asList(acf1), ssm.getSequenceMappings(p1Aligned));
+
+    /*
+     * a mapping added to a registered AlignedCodonFrame is found
+     */
+    SequenceI p3 = new Sequence("p3", "p");
+    acf2.addMap(s2, p3, map);
+    assertEquals(Arrays.asList(acf2), ssm.getSequenceMappings(p3));
+
+    ssm.deregisterMapping(acf1);
+    assertEquals(Arrays.asList(acf3), ssm.getSequenceMappings(s1));
+    assertTrue(ssm.getSequenceMappings(p1).isEmpty());
+  }
+
   /**
    * Verify that RESNUM sequence features are present after creating a PDB
    * mapping
@@ -1037,4 +1037,173 @@ public class MapListTest
             1);
     assertTrue(ml.isToForwardStrand());
   }
+
+  /**
+   * Constructs a mapping from exons of 10 bases, separated by introns of 5
+   * bases, to a protein (or its reverse, if reverse is true)
+   * 
+   * @param exonCount
+   * @param reverse
+   * @return
+   */
+  protected MapList makeExonMap(int exonCount, boolean reverse)
+  {
+    int[] exons = new int[2 * exonCount];
+    for (int i = 0; i < exonCount; i++)
+    {
+      int start = 101 + 15 * i;
+      exons[2 * i] = reverse ? 2000 - start : start;
+      exons[2 * i + 1] = reverse ? 2000 - start - 9 : start + 9;
+    }
+    return new MapList(exons, new int[] { 1, exonCount * 10 / 3 }, 3, 1);
+  }
+
+  /**
+   * Verify that indexed lookups match those by linear scan of the ranges
+   */
+  @Test(groups = { "Functional" })
+  public void testShiftFrom_indexed()
+  {
+    for (boolean reverse : new boolean[] { false, true })
+    {
+      MapList ml = makeExonMap(60, reverse);
+      assertTrue(ml.getFromRanges().size() >= MapList.MIN_INDEXED_RANGES);
+      List<int[]> from = ml.getFromRanges();
+      List<int[]> to = ml.getToRanges();
+
+      for (int pos = ml.getFromLowest() - 2; pos <= ml.getFromHighest()
+              + 2; pos++)
+      {
+        int[] expected = MapList.shift(pos, from, 3, to, 1);
+        int[] shifted = ml.shiftFrom(pos);
+        assertArrayEquals(expected, shifted);
+        assertArrayEquals(
+                MapList.getIntervals(to, expected, expected, 1),
+                ml.locateInTo(pos, pos));
+      }
+
+      for (int pos = 0; pos <= ml.getToHighest() + 1; pos++)
+      {
+        int[] expected = MapList.shift(pos, to, 1, from, 3);
+        int[] shifted = ml.shiftTo(pos);
+        assertArrayEquals(expected, shifted);
+        for (int end = pos; end <= Math.min(pos + 3, ml.getToHighest()); end++)
+        {
+          int[] endPos = MapList.shift(end, to, 1, from, 3);
+          assertArrayEquals(
+                  MapList.getIntervals(from, expected, endPos, 3),
+                  ml.locateInFrom(pos, end));
+        }
+      }
+    }
+  }
+
+  @Test(groups = { "Functional" })
+  public void testMapFrom()
+  {
+    MapList ml = makeExonMap(20, false);
+    int[] positions = new int[] { 100, 101, 103, 104, 110, 111, 116, 392,
+        395, 101 };
+    int[] mapped = ml.mapFrom(positions);
+    assertEquals(positions.length, mapped.length);
+    for (int i = 0; i < positions.length; i++)
+    {
+      int[] shifted = ml.shiftFrom(positions[i]);
+      assertEquals(shifted == null ? 0 : shifted[0], mapped[i]);
+    }
+    assertArrayEquals(new int[] { 0, 1, 1, 2, 4, 0, 4, 66, 0, 1 }, mapped);
+
+    /*
+     * codon 4 is split across exons [101-110] and [116-125]
+     */
+    mapped = ml.mapTo(new int[] { 0, 1, 4, 5, 66, 67 });
+    assertArrayEquals(new int[] { 0, 101, 110, 118, 391, 0 }, mapped);
+
+    /*
+     * few ranges, not indexed by position
+     */
+    ml = new MapList(new int[] { 1, 6, 12, 7 }, new int[] { 21, 24 }, 3, 1);
+    mapped = ml.mapFrom(new int[] { 1, 4, 5, 12, 7, 13 });
+    assertArrayEquals(new int[] { 21, 22, 22, 23, 24, 0 }, mapped);
+  }
+
+  /**
+   * Indexed lookups should honour overlapping ranges as a linear scan does,
+   * answering the first range containing a position
+   */
+  @Test(groups = { "Functional" })
+  public void testShiftFrom_overlappingRanges()
+  {
+    List<int[]> from = new ArrayList<>();
+    for (int i = 0; i < 10; i++)
+    {
+      from.add(new int[] { 10 * i + 1, 10 * i + 10 });
+    }
+    from.add(new int[] { 5, 15 }); // overlaps earlier ranges
+    List<int[]> to = new ArrayList<>();
+    to.add(new int[] { 1, 111 });
+    MapList ml = new MapList(from, to, 1, 1);
+    for (int pos = 0; pos <= 101; pos++)
+    {
+      assertArrayEquals(MapList.shift(pos, from, 1, to, 1),
+              ml.shiftFrom(pos));
+    }
+    assertArrayEquals(new int[] { 12, 0, 1 }, ml.shiftFrom(12));
+    assertArrayEquals(new int[] { 9, 0, 1 }, ml.shiftTo(105));
+  }
+
+  /**
+   * Indexes should be refreshed when ranges are added
+   */
+  @Test(groups = { "Functional" })
+  public void testShiftFrom_afterAddMapList()
+  {
+    MapList ml = makeExonMap(10, false);
+    assertNull(ml.shiftFrom(251));
+    assertNull(ml.shiftTo(36));
+
+    /*
+     * extend the last exon [236-245] to 254, and the protein to 36
+     */
+    ml.addMapList(new MapList(new int[] { 246, 254 }, new int[] { 34, 36 },
+            3, 1));
+    assertEquals(10, ml.getFromRanges().size());
+    assertArrayEquals(new int[] { 36, 0, 1 }, ml.shiftFrom(251));
+    verifyShifts(ml);
+
+    /*
+     * add a new exon
+     */
+    ml.addMapList(new MapList(new int[] { 300, 302 }, new int[] { 37, 37 },
+            3, 1));
+    assertEquals(11, ml.getFromRanges().size());
+    assertArrayEquals(new int[] { 37, 2, 1 }, ml.shiftFrom(301));
+    verifyShifts(ml);
+  }
+
+  /**
+   * Asserts that shiftFrom and shiftTo give the same results as a linear scan
+   * of the mapped ranges, for all mapped positions and their neighbours
+   * 
+   * @param ml
+   */
+  protected void verifyShifts(MapList ml)
+  {
+    List<int[]> from = ml.getFromRanges();
+    List<int[]> to = ml.getToRanges();
+    int fromRatio = ml.getFromRatio();
+    int toRatio = ml.getToRatio();
+    for (int pos = ml.getFromLowest() - 1; pos <= ml.getFromHighest()
+            + 1; pos++)
+    {
+      assertArrayEquals(MapList.shift(pos, from, fromRatio, to, toRatio),
+              ml.shiftFrom(pos));
+    }
+    for (int pos = ml.getToLowest() - 1; pos <= ml.getToHighest()
+            + 1; pos++)
+    {
+      assertArrayEquals(MapList.shift(pos, to, toRatio, from, fromRatio),
+              ml.shiftTo(pos));
+    }
+  }
 }
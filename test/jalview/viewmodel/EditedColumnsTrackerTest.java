@@ -0,0 +1,95 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ *
+ * This file is part of Jalview.
+ *
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Jalview is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.viewmodel;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+public class EditedColumnsTrackerTest
+{
+  @Test(groups = "Functional")
+  public void testGetEditedColumnsSince()
+  {
+    EditedColumnsTracker tracker = new EditedColumnsTracker();
+    assertEquals(tracker.getChangeCount(), 0L);
+    assertNull(tracker.getEditedColumnsSince(0));
+
+    /*
+     * change 1 with no columns marked affects all columns
+     */
+    assertEquals(tracker.alignmentChanged(), 1L);
+    assertNull(tracker.getEditedColumnsSince(0));
+    assertNull(tracker.getEditedColumnsSince(1));
+
+    /*
+     * change 2 edits columns 10-20 and 5-12
+     */
+    tracker.addEditedColumns(10, 20);
+    tracker.addEditedColumns(5, 12);
+    assertEquals(tracker.alignmentChanged(), 2L);
+    assertEquals(tracker.getEditedColumnsSince(1), new int[] { 5, 20 });
+    assertNull(tracker.getEditedColumnsSince(0));
+
+    /*
+     * change 3 edits columns 30-40
+     */
+    tracker.addEditedColumns(30, 40);
+    tracker.alignmentChanged();
+    assertEquals(tracker.getEditedColumnsSince(2), new int[] { 30, 40 });
+    assertEquals(tracker.getEditedColumnsSince(1), new int[] { 5, 40 });
+
+    /*
+     * no changes since the latest
+     */
+    assertNull(tracker.getEditedColumnsSince(3));
+
+    /*
+     * invalid ranges are ignored
+     */
+    tracker.addEditedColumns(-1, 4);
+    tracker.addEditedColumns(8, 7);
+    tracker.alignmentChanged();
+    assertNull(tracker.getEditedColumnsSince(3));
+  }
+
+  @Test(groups = "Functional")
+  public void testGetEditedColumnsSince_forgotten()
+  {
+    /*
+     * change n edits column n-1
+     */
+    EditedColumnsTracker tracker = new EditedColumnsTracker();
+    for (int i = 0; i < 100; i++)
+    {
+      tracker.addEditedColumns(i, i);
+      tracker.alignmentChanged();
+    }
+    assertEquals(tracker.getEditedColumnsSince(98), new int[] { 98, 99 });
+    assertEquals(tracker.getEditedColumnsSince(90), new int[] { 90, 99 });
+
+    /*
+     * only the most recent changes are remembered
+     */
+    assertNull(tracker.getEditedColumnsSince(10));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.viewmodel.seqfeatures;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceFeature;
+import jalview.datamodel.SequenceI;
+import jalview.schemes.FeatureColour;
+
+import java.awt.Color;
+
+import org.testng.annotations.Test;
+
+public class FeatureColourStripTest
+{
+  @Test(groups = "Functional")
+  public void testSetColours()
+  {
+    SequenceI seq = new Sequence("s1", "ABCDEFGHIJ");
+    FeatureColourStrip strip = new FeatureColourStrip(seq, null, 0);
+    assertEquals(strip.getRunCount(), 0);
+    assertNull(strip.getColour(0));
+
+    Color[] colours = new Color[] { null, Color.red, Color.red, Color.blue,
+        null, null, Color.blue, new Color(0, 0, 255), Color.red, null };
+    strip.setColours(colours);
+
+    /*
+     * runs are columns 1-2 red, 3 blue, 6-7 blue, 8 red
+     */
+    assertEquals(strip.getRunCount(), 4);
+    assertEquals(strip.getRunStart(0), 1);
+    assertEquals(strip.getRunEnd(0), 2);
+    assertEquals(strip.getRunColour(0), Color.red);
+    assertEquals(strip.getRunStart(1), 3);
+    assertEquals(strip.getRunEnd(1), 3);
+    assertEquals(strip.getRunColour(1), Color.blue);
+    assertEquals(strip.getRunStart(2), 6);
+    assertEquals(strip.getRunEnd(2), 7);
+    assertEquals(strip.getRunStart(3), 8);
+    assertEquals(strip.getRunEnd(3), 8);
+
+    for (int col = 0; col < colours.length; col++)
+    {
+      assertEquals(strip.getColour(col), colours[col]);
+    }
+    assertNull(strip.getColour(-1));
+    assertNull(strip.getColour(10));
+  }
+
+  @Test(groups = "Functional")
+  public void testFindRun()
+  {
+    SequenceI seq = new Sequence("s1", "ABCDEFGHIJ");
+    FeatureColourStrip strip = new FeatureColourStrip(seq, null, 0);
+    strip.setColours(new Color[] { null, Color.red, Color.red, null, null,
+        Color.blue, null, null, null, null });
+    assertEquals(strip.findRun(0), 0);
+    assertEquals(strip.findRun(2), 0);
+    assertEquals(strip.findRun(3), 1);
+    assertEquals(strip.findRun(5), 1);
+    assertEquals(strip.findRun(6), 2);
+  }
+
+  @Test(groups = "Functional")
+  public void testIsCurrent()
+  {
+    SequenceI seq = new Sequence("s1", "ABCDEFGHIJ");
+    FeaturesDisplayed displayed = new FeaturesDisplayed();
+    FeatureColourStrip strip = new FeatureColourStrip(seq, displayed, 3);
+    assertTrue(strip.isCurrent(seq, displayed, 3));
+    assertFalse(strip.isCurrent(seq, displayed, 4));
+    assertFalse(strip.isCurrent(seq, new FeaturesDisplayed(), 3));
+
+    /*
+     * change to displayed feature types
+     */
+    displayed.setVisible("Metal");
+    assertFalse(strip.isCurrent(seq, displayed, 3));
+    strip = new FeatureColourStrip(seq, displayed, 3);
+    assertTrue(strip.isCurrent(seq, displayed, 3));
+
+    /*
+     * change to sequence features
+     */
+    seq.addSequenceFeature(
+            new SequenceFeature("Metal", "", 2, 3, Float.NaN, null));
+    assertFalse(strip.isCurrent(seq, displayed, 3));
+    strip = new FeatureColourStrip(seq, displayed, 3);
+
+    /*
+     * change to sequence
+     */
+    seq.insertCharAt(2, '-');
+    assertFalse(strip.isCurrent(seq, displayed, 3));
+    strip = new FeatureColourStrip(seq, displayed, 3);
+
+    /*
+     * change to a feature colour
+     */
+    new FeatureColour(Color.red).setThreshold(2f);
+    assertFalse(strip.isCurrent(seq, displayed, 3));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.viewmodel.seqfeatures;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import jalview.datamodel.Alignment;
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceFeature;
+import jalview.datamodel.SequenceI;
+import jalview.gui.AlignViewport;
+import jalview.renderer.seqfeatures.FeatureRenderer;
+import jalview.viewmodel.seqfeatures.FeatureRendererModel.FeatureSummary;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+public class FeatureRendererModelTest
+{
+  @Test(groups = "Functional")
+  public void testSummariseFeatures()
+  {
+    SequenceI seq1 = new Sequence("s1", "ABCDEFGHIJ");
+    SequenceI seq2 = new Sequence("s2", "ABCDEFGHIJ");
+    SequenceI seq3 = new Sequence("s3", "ABCDEFGHIJ");
+    seq1.addSequenceFeature(
+            new SequenceFeature("Pfam", "", 2, 4, 3f, "PfamGroup"));
+    seq1.addSequenceFeature(
+            new SequenceFeature("Pfam", "", 5, 6, 7f, "PfamGroup"));
+    seq1.addSequenceFeature(
+            new SequenceFeature("Metal", "", 5, 6, Float.NaN, null));
+    // non-positional feature is ignored
+    seq2.addSequenceFeature(
+            new SequenceFeature("Cath", "", 0, 0, 1f, "CathGroup"));
+    SequenceI[] seqs = new SequenceI[] { seq1, seq2, seq3 };
+    FeatureRendererModel fr = new FeatureRenderer(
+            new AlignViewport(new Alignment(seqs)));
+
+    FeatureSummary[] summaries = fr.summariseFeatures(seqs);
+    assertEquals(summaries.length, 3);
+    FeatureSummary summary = summaries[0];
+    assertEquals(summary.groups.length, 2);
+    int pfam = summary.groups[0] == null ? 1 : 0;
+    assertEquals(summary.groups[pfam], "PfamGroup");
+    assertEquals(Arrays.asList(summary.groupTypes[pfam]),
+            Arrays.asList("Pfam"));
+    assertEquals(Arrays.asList(summary.groupTypes[1 - pfam]),
+            Arrays.asList("Metal"));
+    assertEquals(summary.scores.get("Pfam")[0], 3f);
+    assertEquals(summary.scores.get("Pfam")[1], 7f);
+    assertEquals(summary.scores.get("Metal"), null);
+    assertEquals(summaries[1].groups.length, 0);
+    assertEquals(summaries[2].groups.length, 0);
+
+    /*
+     * only the sequence whose features changed is summarised again
+     */
+    seq3.addSequenceFeature(
+            new SequenceFeature("Pfam", "", 2, 4, 1f, "PfamGroup"));
+    FeatureSummary[] summaries2 = fr.summariseFeatures(seqs);
+    assertSame(summaries2[0], summaries[0]);
+    assertSame(summaries2[1], summaries[1]);
+    assertNotSame(summaries2[2], summaries[2]);
+    assertEquals(summaries2[2].groups.length, 1);
+    assertEquals(summaries2[2].scores.get("Pfam")[0], 1f);
+  }
+
+  /**
+   * Times finding all features of an alignment with a million features, and
+   * again after a feature is added to one sequence
+   */
+  @Test(groups = "Timing")
+  public void testFindAllFeatures_timing()
+  {
+    int count = 5000;
+    SequenceI[] seqs = new SequenceI[count];
+    char[] residues = new char[500];
+    Arrays.fill(residues, 'A');
+    for (int i = 0; i < count; i++)
+    {
+      seqs[i] = new Sequence("s" + i, new String(residues));
+      for (int j = 0; j < 200; j++)
+      {
+        int from = 1 + (i * 31 + j * 7) % 490;
+        seqs[i].addSequenceFeature(new SequenceFeature("Type" + (j % 20),
+                "", from, from + 5, j, "Group" + (j % 3)));
+      }
+    }
+    FeatureRendererModel fr = new FeatureRenderer(
+            new AlignViewport(new Alignment(seqs)));
+
+    long start = System.currentTimeMillis();
+    fr.findAllFeatures(true);
+    System.out.println(String.format("findAllFeatures took %dms",
+            System.currentTimeMillis() - start));
+
+    seqs[count / 2].addSequenceFeature(
+            new SequenceFeature("Metal", "", 3, 4, 1f, null));
+    start = System.currentTimeMillis();
+    fr.findAllFeatures(true);
+    System.out.println(String.format(
+            "findAllFeatures after one addition took %dms",
+            System.currentTimeMillis() - start));
+    assertEquals(fr.getRenderOrder().size(), 21);
+  }
+}
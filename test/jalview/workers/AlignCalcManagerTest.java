@@ -38,6 +38,9 @@ import jalview.gui.JvOptionPane;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
@@ -128,6 +131,140 @@ public class AlignCalcManagerTest
     assertFalse(acm.isDisabled(worker2));
   }
 
+  /**
+   * Test that restarting a worker while it is running queues one more run,
+   * however many times it is restarted
+   */
+  @Test(groups = "Functional")
+  public void testStartWorker_coalesced() throws InterruptedException
+  {
+    AlignCalcManager acm = new AlignCalcManager();
+    BlockingWorker worker = new BlockingWorker();
+    acm.startWorker(worker);
+    assertTrue(worker.started.tryAcquire(5, TimeUnit.SECONDS));
+
+    /*
+     * restart while running - should run only once more
+     */
+    acm.startWorker(worker);
+    acm.startWorker(worker);
+    acm.startWorker(worker);
+    worker.release.countDown();
+    assertTrue(worker.started.tryAcquire(5, TimeUnit.SECONDS));
+    assertTrue(waitForRuns(worker, 2));
+    Thread.sleep(100);
+    assertEquals(2, worker.runs);
+    assertFalse(worker.started.tryAcquire());
+
+    AlignCalcManager.WorkerStatistics stats = AlignCalcManager
+            .getWorkerStatistics().get(BlockingWorker.class);
+    assertTrue(stats.getRunCount() >= 2);
+    assertTrue(stats.getMaxRunTime() > 0);
+  }
+
+  /**
+   * Test that shutting down the manager cancels a queued run of a worker, and
+   * prevents further runs
+   */
+  @Test(groups = "Functional")
+  public void testShutdown() throws InterruptedException
+  {
+    AlignCalcManager acm = new AlignCalcManager();
+    BlockingWorker worker = new BlockingWorker();
+    acm.startWorker(worker);
+    assertTrue(worker.started.tryAcquire(5, TimeUnit.SECONDS));
+    acm.startWorker(worker); // queued to run again
+
+    acm.shutdown();
+    worker.release.countDown();
+    assertTrue(waitForRuns(worker, 1));
+    acm.startWorker(worker);
+    Thread.sleep(100);
+    assertEquals(1, worker.runs);
+  }
+
+  /**
+   * Test that a worker is reported as working while it is queued or running
+   */
+  @Test(groups = "Functional")
+  public void testIsWorking() throws InterruptedException
+  {
+    AlignCalcManager acm = new AlignCalcManager();
+    BlockingWorker worker = new BlockingWorker();
+    assertFalse(acm.isWorking());
+    assertFalse(acm.isWorking(worker));
+
+    acm.startWorker(worker);
+    assertTrue(acm.isWorking());
+    assertTrue(acm.isWorking(worker));
+    assertTrue(worker.started.tryAcquire(5, TimeUnit.SECONDS));
+    acm.startWorker(worker); // queued to run again
+    assertTrue(acm.isWorking());
+
+    worker.release.countDown();
+    assertTrue(waitForRuns(worker, 2));
+    for (int i = 0; i < 100 && acm.isWorking(); i++)
+    {
+      Thread.sleep(50);
+    }
+    assertFalse(acm.isWorking());
+    assertFalse(acm.isWorking(worker));
+  }
+
+  /**
+   * Waits up to 5 seconds for the worker to complete the given number of runs
+   * 
+   * @param worker
+   * @param runs
+   * @return
+   * @throws InterruptedException
+   */
+  private boolean waitForRuns(BlockingWorker worker, int runs)
+          throws InterruptedException
+  {
+    for (int i = 0; i < 100 && worker.runs < runs; i++)
+    {
+      Thread.sleep(50);
+    }
+    return worker.runs == runs;
+  }
+
+  /**
+   * A worker that waits to be released before completing its first run
+   */
+  class BlockingWorker extends AlignCalcWorker
+  {
+    Semaphore started = new Semaphore(0);
+
+    CountDownLatch release = new CountDownLatch(1);
+
+    volatile int runs;
+
+    BlockingWorker()
+    {
+      super(alignFrame.getViewport(), null);
+    }
+
+    @Override
+    public void run()
+    {
+      started.release();
+      try
+      {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e)
+      {
+        //
+      }
+      runs++;
+    }
+
+    @Override
+    public void updateAnnotation()
+    {
+    }
+  }
+
   /**
    * Make a worker linked to the given annotation
    * 
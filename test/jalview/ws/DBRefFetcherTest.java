@@ -0,0 +1,335 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.ws;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import jalview.bin.Cache;
+import jalview.datamodel.Alignment;
+import jalview.datamodel.AlignmentI;
+import jalview.datamodel.DBRefEntry;
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+import jalview.gui.JvOptionPane;
+import jalview.util.DBRefUtils;
+import jalview.ws.seqfetcher.DbSourceProxy;
+import jalview.ws.seqfetcher.DbSourceProxyImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.stevesoft.pat.Regex;
+
+public class DBRefFetcherTest
+{
+  /**
+   * A database source, with no network access, which knows a fixed set of
+   * accession ids, and records the queries made to it
+   */
+  class StubSource extends DbSourceProxyImpl
+  {
+    private final String name;
+
+    private final List<String> known;
+
+    private final int maxQueryCount;
+
+    private final long delay;
+
+    final List<String> queried = Collections
+            .synchronizedList(new ArrayList<String>());
+
+    StubSource(String dbName, List<String> accessions, int maxQueries,
+            long delayMs)
+    {
+      name = dbName;
+      known = accessions;
+      maxQueryCount = maxQueries;
+      delay = delayMs;
+    }
+
+    @Override
+    public String getDbSource()
+    {
+      return name;
+    }
+
+    @Override
+    public String getDbName()
+    {
+      return name;
+    }
+
+    @Override
+    public String getDbVersion()
+    {
+      return "0";
+    }
+
+    @Override
+    public String getAccessionSeparator()
+    {
+      return ",";
+    }
+
+    @Override
+    public Regex getAccessionValidator()
+    {
+      return new Regex("\\S+");
+    }
+
+    @Override
+    public String getTestQuery()
+    {
+      return known.get(0);
+    }
+
+    @Override
+    public boolean isValidReference(String accession)
+    {
+      return true;
+    }
+
+    @Override
+    public int getMaximumQueryCount()
+    {
+      return maxQueryCount;
+    }
+
+    @Override
+    public int getTier()
+    {
+      return 0;
+    }
+
+    @Override
+    public AlignmentI getSequenceRecords(String queries) throws Exception
+    {
+      if (delay > 0)
+      {
+        Thread.sleep(delay);
+      }
+      List<SequenceI> found = new ArrayList<>();
+      for (String query : queries.split(getAccessionSeparator()))
+      {
+        queried.add(query);
+        if (known.contains(query))
+        {
+          SequenceI seq = new Sequence(name + "|" + query,
+                  getResidues(query));
+          seq.addDBRef(new DBRefEntry(name, "0", query));
+          found.add(seq);
+        }
+      }
+      return found.isEmpty() ? null
+              : new Alignment(found.toArray(new SequenceI[found.size()]));
+    }
+  }
+
+  @BeforeClass(alwaysRun = true)
+  public void setUpJvOptionPane()
+  {
+    JvOptionPane.setInteractiveMode(false);
+    JvOptionPane.setMockResponse(JvOptionPane.CANCEL_OPTION);
+    Cache.initLogger();
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void tearDown()
+  {
+    Cache.removeProperty(DBRefFetcher.DBREFFETCH_THREADS);
+  }
+
+  /**
+   * Answers a sequence of residues which is unique to the accession id
+   * 
+   * @param accession
+   * @return
+   */
+  static String getResidues(String accession)
+  {
+    StringBuilder sb = new StringBuilder("MKV");
+    for (char c : accession.toCharArray())
+    {
+      sb.append((char) ('A' + (c % 20)));
+    }
+    return sb.append("LLE").toString();
+  }
+
+  /**
+   * Answers sequences named ACC0, ACC1... with residues as served by the stub
+   * sources
+   * 
+   * @param count
+   * @return
+   */
+  static SequenceI[] makeSequences(int count)
+  {
+    SequenceI[] seqs = new SequenceI[count];
+    for (int i = 0; i < count; i++)
+    {
+      String name = "ACC" + i;
+      seqs[i] = new Sequence(name, getResidues(name));
+      seqs[i].createDatasetSequence();
+    }
+    return seqs;
+  }
+
+  static List<String> accessions(int from, int to)
+  {
+    List<String> ids = new ArrayList<>();
+    for (int i = from; i < to; i++)
+    {
+      ids.add("ACC" + i);
+    }
+    return ids;
+  }
+
+  /**
+   * Answers the database reference (if any) of the sequence to the source
+   * 
+   * @param seq
+   * @param source
+   * @return
+   */
+  static DBRefEntry getRef(SequenceI seq, String source)
+  {
+    DBRefEntry[] refs = DBRefUtils.selectRefs(
+            seq.getDatasetSequence().getDBRefs(), new String[]
+            { source });
+    return refs == null || refs.length == 0 ? null : refs[0];
+  }
+
+  /**
+   * With one thread, sources are queried in turn, and only for sequences not
+   * verified by an earlier source
+   */
+  @Test(groups = "Functional")
+  public void testFetchDBRefs_sequential()
+  {
+    Cache.setProperty(DBRefFetcher.DBREFFETCH_THREADS, "1");
+    SequenceI[] seqs = makeSequences(10);
+    StubSource source1 = new StubSource("STUB1", accessions(0, 5), 3, 0);
+    StubSource source2 = new StubSource("STUB2", accessions(0, 10), 3, 0);
+
+    new DBRefFetcher(seqs, null, new DbSourceProxy[] { source1, source2 },
+            null, false).run();
+
+    assertEquals(source1.queried, accessions(0, 10));
+    assertEquals(source2.queried, accessions(5, 10));
+    for (int i = 0; i < 10; i++)
+    {
+      DBRefEntry ref = getRef(seqs[i], i < 5 ? "STUB1" : "STUB2");
+      assertNotNull(ref);
+      assertEquals(ref.getAccessionId(), "ACC" + i);
+      assertNull(getRef(seqs[i], i < 5 ? "STUB2" : "STUB1"));
+    }
+  }
+
+  /**
+   * Concurrently queried sources stop querying for sequences once they have
+   * been verified by another source
+   */
+  @Test(groups = "Functional")
+  public void testFetchDBRefs_concurrent()
+  {
+    Cache.setProperty(DBRefFetcher.DBREFFETCH_THREADS, "2");
+    SequenceI[] seqs = makeSequences(10);
+    StubSource fast = new StubSource("FAST", accessions(0, 10), 10, 0);
+    StubSource slow = new StubSource("SLOW", accessions(0, 10), 1, 500);
+
+    new DBRefFetcher(seqs, null, new DbSourceProxy[] { fast, slow }, null,
+            false).run();
+
+    assertEquals(fast.queried, accessions(0, 10));
+    assertTrue(slow.queried.size() < 3,
+            "Unexpected queries to slow source " + slow.queried);
+    for (int i = 0; i < 10; i++)
+    {
+      assertNotNull(getRef(seqs[i], "FAST"));
+      assertNull(getRef(seqs[i], "SLOW"));
+    }
+  }
+
+  /**
+   * Concurrently queried sources each verify the sequences they know
+   */
+  @Test(groups = "Functional")
+  public void testFetchDBRefs_concurrentSources()
+  {
+    Cache.setProperty(DBRefFetcher.DBREFFETCH_THREADS, "3");
+    SequenceI[] seqs = makeSequences(30);
+    DbSourceProxy[] sources = new DbSourceProxy[] {
+        new StubSource("STUB1", accessions(0, 10), 4, 10),
+        new StubSource("STUB2", accessions(10, 20), 4, 10),
+        new StubSource("STUB3", accessions(20, 30), 4, 10) };
+
+    new DBRefFetcher(seqs, null, sources, null, false).run();
+
+    for (int i = 0; i < 30; i++)
+    {
+      String source = "STUB" + (1 + i / 10);
+      DBRefEntry ref = getRef(seqs[i], source);
+      assertNotNull(ref, "No " + source + " reference for ACC" + i);
+      assertEquals(ref.getAccessionId(), "ACC" + i);
+    }
+  }
+
+  /**
+   * Timing test comparing sequential and concurrent querying of sources with
+   * (simulated) network latency - to be run manually as needed
+   */
+  @Test(groups = "Timing")
+  public void testFetchDBRefs_timing()
+  {
+    int count = 600;
+    for (String threads : new String[] { "1", "3" })
+    {
+      Cache.setProperty(DBRefFetcher.DBREFFETCH_THREADS, threads);
+      SequenceI[] seqs = makeSequences(count);
+      DbSourceProxy[] sources = new DbSourceProxy[] {
+          new StubSource("STUB1", accessions(0, count / 3), 20, 50),
+          new StubSource("STUB2", accessions(count / 3, 2 * count / 3), 20,
+                  50),
+          new StubSource("STUB3", accessions(2 * count / 3, count), 20,
+                  50) };
+      long start = System.currentTimeMillis();
+      new DBRefFetcher(seqs, null, sources, null, false).run();
+      long elapsed = System.currentTimeMillis() - start;
+      System.out.println(String.format(
+              "Verified %d sequences against 3 sources with %s thread(s) in %dms",
+              count, threads, elapsed));
+      for (SequenceI seq : seqs)
+      {
+        assertFalse(seq.getDatasetSequence().getDBRefs() == null);
+      }
+    }
+  }
+}
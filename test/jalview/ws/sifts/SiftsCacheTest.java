@@ -0,0 +1,227 @@
+/*
+ * Jalview - A Sequence Alignment Editor and Viewer (2.11.1.3)
+ * Copyright (C) 2020 The Jalview Authors
+ * 
+ * This file is part of Jalview.
+ * 
+ * Jalview is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License 
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *  
+ * Jalview is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty 
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR 
+ * PURPOSE.  See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Jalview.  If not, see <http://www.gnu.org/licenses/>.
+ * The Jalview Authors are detailed in the 'AUTHORS' file.
+ */
+package jalview.ws.sifts;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import jalview.datamodel.DBRefEntry;
+import jalview.datamodel.Sequence;
+import jalview.datamodel.SequenceI;
+import jalview.gui.JvOptionPane;
+import jalview.io.DataSourceType;
+import jalview.xml.binding.sifts.Entry;
+import jalview.xml.binding.sifts.Entry.Entity;
+import jalview.xml.binding.sifts.Entry.Entity.Segment;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListResidue.Residue;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListResidue.Residue.CrossRefDb;
+import jalview.xml.binding.sifts.Entry.Entity.Segment.ListResidue.Residue.ResidueDetail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import MCview.PDBfile;
+
+public class SiftsCacheTest
+{
+  private static final String SIFTS_FILE = "test/jalview/io/1a70.xml.gz";
+
+  private String savedDownloadDir;
+
+  private File cacheDir;
+
+  @BeforeClass(alwaysRun = true)
+  public void setUpJvOptionPane()
+  {
+    JvOptionPane.setInteractiveMode(false);
+    JvOptionPane.setMockResponse(JvOptionPane.CANCEL_OPTION);
+  }
+
+  @BeforeMethod(alwaysRun = true)
+  public void setUp() throws IOException
+  {
+    savedDownloadDir = SiftsSettings.getSiftDownloadDirectory();
+    cacheDir = Files.createTempDirectory("siftsCache").toFile();
+    cacheDir.deleteOnExit();
+    SiftsSettings.setSiftDownloadDirectory(
+            cacheDir.getAbsolutePath() + File.separator);
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void tearDown()
+  {
+    SiftsClient.setMockSiftsFile(null);
+    SiftsSettings.setSiftDownloadDirectory(savedDownloadDir);
+    for (File f : cacheDir.listFiles())
+    {
+      f.delete();
+    }
+    cacheDir.delete();
+  }
+
+  /**
+   * Test that the entry read from the cache matches that parsed from SIFTS XML
+   * 
+   * @throws Exception
+   */
+  @Test(groups = { "Functional" })
+  public void testWriteAndRead() throws Exception
+  {
+    File siftsFile = new File(SIFTS_FILE);
+    File cacheFile = SiftsCache.getCacheFile("1A70");
+    assertEquals(cacheFile.getName(), "1a70.sifts.bin");
+    assertNull(SiftsCache.read(cacheFile, siftsFile));
+
+    /*
+     * first request parses the XML and writes the cache
+     */
+    Entry parsed = SiftsClient.getSiftsEntry("1a70", siftsFile);
+    assertTrue(cacheFile.exists());
+    assertTrue(cacheFile.length() < siftsFile.length() * 4);
+
+    Entry cached = SiftsCache.read(cacheFile, siftsFile);
+    assertNotNull(cached);
+    verifySameEntry(parsed, cached);
+
+    /*
+     * cache is not used for a different SIFTS file
+     */
+    File otherFile = new File("test/jalview/ext/rbvi/chimera/4zho.xml.gz");
+    assertNull(SiftsCache.read(cacheFile, otherFile));
+
+    assertTrue(SiftsClient.deleteSiftsFileByPDBId("1a70"));
+    assertTrue(!cacheFile.exists());
+  }
+
+  /**
+   * Test that a mapping computed from the cached SIFTS entry is the same as
+   * that from the parsed XML
+   * 
+   * @throws Exception
+   */
+  @Test(groups = { "Functional" })
+  public void testGetGreedyMapping_fromCache() throws Exception
+  {
+    SiftsClient.setMockSiftsFile(new File(SIFTS_FILE));
+    PDBfile pdbFile = new PDBfile(false, false, false,
+            "test/jalview/io/1a70.pdb", DataSourceType.FILE);
+
+    HashMap<Integer, int[]> parsedMapping = new SiftsClient(pdbFile)
+            .getGreedyMapping("A", makeSequence(), null);
+    assertTrue(SiftsCache.getCacheFile(pdbFile.getId()).exists());
+    HashMap<Integer, int[]> cachedMapping = new SiftsClient(pdbFile)
+            .getGreedyMapping("A", makeSequence(), null);
+
+    assertTrue(parsedMapping.size() > 90);
+    assertEquals(cachedMapping.size(), parsedMapping.size());
+    for (Integer key : parsedMapping.keySet())
+    {
+      assertTrue(Arrays.equals(cachedMapping.get(key),
+              parsedMapping.get(key)));
+    }
+  }
+
+  private SequenceI makeSequence()
+  {
+    SequenceI seq = new Sequence("P00221",
+            "MAAT..TTTMMG..MATTFVPKPQAPPMMAALPSNTGR..SLFGLKT.GSR..GGRMTMA"
+                    + "AYKVTLVTPTGNVEFQCPDDVYILDAAEEEGIDLPYSCRAGSCSSCAGKLKTGSLNQDD"
+                    + "QSFLDDDQIDEGWVLTCAAYPVSDVTIETHKEEELTA.",
+            1, 147);
+    seq.addDBRef(new DBRefEntry("uniprot", "", "P00221"));
+    return seq;
+  }
+
+  private void verifySameEntry(Entry expected, Entry actual)
+  {
+    assertEquals(actual.getDbAccessionId(), expected.getDbAccessionId());
+    assertEquals(actual.getDbSource(), expected.getDbSource());
+    assertEquals(actual.getDbCoordSys(), expected.getDbCoordSys());
+    assertEquals(actual.getDbVersion(), expected.getDbVersion());
+    List<Entity> entities = expected.getEntity();
+    assertEquals(actual.getEntity().size(), entities.size());
+    for (int i = 0; i < entities.size(); i++)
+    {
+      Entity entity = entities.get(i);
+      Entity actualEntity = actual.getEntity().get(i);
+      assertEquals(actualEntity.getEntityId(), entity.getEntityId());
+      assertEquals(actualEntity.getSegment().size(),
+              entity.getSegment().size());
+      for (int j = 0; j < entity.getSegment().size(); j++)
+      {
+        Segment segment = entity.getSegment().get(j);
+        Segment actualSegment = actualEntity.getSegment().get(j);
+        assertEquals(actualSegment.getSegId(), segment.getSegId());
+        assertEquals(
+                actualSegment.getListMapRegion().getMapRegion().size(),
+                segment.getListMapRegion().getMapRegion().size());
+        List<Residue> residues = segment.getListResidue().getResidue();
+        List<Residue> actualResidues = actualSegment.getListResidue()
+                .getResidue();
+        assertEquals(actualResidues.size(), residues.size());
+        for (int k = 0; k < residues.size(); k++)
+        {
+          verifySameResidue(residues.get(k), actualResidues.get(k));
+        }
+      }
+    }
+  }
+
+  private void verifySameResidue(Residue expected, Residue actual)
+  {
+    assertEquals(actual.getDbResNum(), expected.getDbResNum());
+    assertEquals(actual.getDbResName(), expected.getDbResName());
+    assertEquals(actual.getResidueDetail().size(),
+            expected.getResidueDetail().size());
+    for (int i = 0; i < expected.getResidueDetail().size(); i++)
+    {
+      ResidueDetail detail = expected.getResidueDetail().get(i);
+      assertEquals(actual.getResidueDetail().get(i).getProperty(),
+              detail.getProperty());
+      assertEquals(actual.getResidueDetail().get(i).getContent(),
+              detail.getContent());
+    }
+    assertEquals(actual.getCrossRefDb().size(),
+            expected.getCrossRefDb().size());
+    for (int i = 0; i < expected.getCrossRefDb().size(); i++)
+    {
+      CrossRefDb xref = expected.getCrossRefDb().get(i);
+      CrossRefDb actualXref = actual.getCrossRefDb().get(i);
+      assertEquals(actualXref.getDbSource(), xref.getDbSource());
+      assertEquals(actualXref.getDbCoordSys(), xref.getDbCoordSys());
+      assertEquals(actualXref.getDbAccessionId(), xref.getDbAccessionId());
+      assertEquals(actualXref.getDbResNum(), xref.getDbResNum());
+      assertEquals(actualXref.getDbResName(), xref.getDbResName());
+      assertEquals(actualXref.getDbChainId(), xref.getDbChainId());
+    }
+  }
+}